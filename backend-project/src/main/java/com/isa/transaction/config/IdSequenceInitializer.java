@@ -0,0 +1,100 @@
+package com.isa.transaction.config;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+
+/**
+ * Sequences behind the entity IDs of the tables that used IDENTITY columns before.
+ *
+ * Client, Balance, BalanceTransaction and DeadLetterMessage take their IDs from TESTHTC.<TABLE>_SEQ in blocks
+ * of 50 (see JpaBatchingConfig). On PostgreSQL this creates a missing sequence with INCREMENT BY 50 and moves
+ * a sequence that is behind the table past max(ID), so a database created for IDENTITY keeps accepting
+ * inserts after the upgrade. It runs once, before the EntityManagerFactory is built, under an advisory lock
+ * so instances starting together do not move a sequence backwards. Other databases are left to the schema
+ * tooling; app.jpa.id-sequences.initialize=false turns it off where sequences are managed elsewhere.
+ */
+@Component
+public class IdSequenceInitializer {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdSequenceInitializer.class);
+
+    private static final String SCHEMA = "TESTHTC";
+    private static final int INCREMENT = 50;
+    private static final long LOCK_KEY = 0x4944534551L; // "IDSEQ"
+    private static final Map<String, String> SEQUENCES = Map.of(
+            "CLIENT", "CLIENT_SEQ",
+            "BALANCE", "BALANCE_SEQ",
+            "BALANCE_TRANSACTION", "BALANCE_TRANSACTION_SEQ",
+            "DEAD_LETTER_MESSAGES", "DEAD_LETTER_MESSAGES_SEQ");
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Value("${app.jpa.id-sequences.initialize:true}")
+    private boolean initialize;
+
+    @PostConstruct
+    public void initialize() {
+        if (!initialize) {
+            return;
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            if (!"PostgreSQL".equals(connection.getMetaData().getDatabaseProductName())) {
+                return;
+            }
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SELECT pg_advisory_xact_lock(" + LOCK_KEY + ")");
+                for (Map.Entry<String, String> entry : SEQUENCES.entrySet()) {
+                    for (String sql : sequenceSql(entry.getKey(), entry.getValue())) {
+                        statement.execute(sql);
+                    }
+                }
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+            logger.info("Entity ID sequences checked: {}", SEQUENCES.values());
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to initialize entity ID sequences: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * With INCREMENT BY 50, setval(max(ID)) makes the next block start above every existing row
+     */
+    static String[] sequenceSql(String table, String sequence) {
+        String qualifiedSequence = SCHEMA + "." + sequence;
+        return new String[]{
+            "CREATE SEQUENCE IF NOT EXISTS " + qualifiedSequence + " INCREMENT BY " + INCREMENT,
+            "SELECT setval('" + qualifiedSequence + "', t.MAX_ID) FROM (SELECT MAX(ID) AS MAX_ID FROM " + SCHEMA + "." + table +
+            ") t WHERE t.MAX_ID >= (SELECT last_value FROM " + qualifiedSequence + ")"
+        };
+    }
+
+    /**
+     * Builds the EntityManagerFactory only after the sequences are in place
+     */
+    @Component
+    static class EntityManagerFactoryDependsOnIdSequences extends EntityManagerFactoryDependsOnPostProcessor {
+
+        EntityManagerFactoryDependsOnIdSequences() {
+            super(IdSequenceInitializer.class);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.isa.transaction.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Hibernate JDBC batching settings.
+ *
+ * Entities use pooled sequence allocation instead of IDENTITY columns, so Hibernate can assign IDs
+ * without an insert round trip and group inserts and updates into JDBC batches. Statements are
+ * ordered by entity type so consecutive rows share one batch. IdSequenceInitializer creates the sequences
+ * of the tables that used IDENTITY columns before.
+ */
+@Configuration
+public class JpaBatchingConfig {
+
+    @Value("${app.jpa.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.jpa.id-optimizer:pooled-lo}")
+    private String idOptimizer;
+
+    @Bean
+    public HibernatePropertiesCustomizer jdbcBatchingCustomizer() {
+        return properties -> {
+            properties.putIfAbsent("hibernate.jdbc.batch_size", batchSize);
+            properties.putIfAbsent("hibernate.order_inserts", true);
+            properties.putIfAbsent("hibernate.order_updates", true);
+            properties.putIfAbsent("hibernate.jdbc.batch_versioned_data", true);
+            properties.putIfAbsent("hibernate.id.optimizer.pooled.preferred", idOptimizer);
+        };
+    }
+}
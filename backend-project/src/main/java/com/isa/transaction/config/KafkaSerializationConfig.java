@@ -0,0 +1,26 @@
+package com.isa.transaction.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.DefaultKafkaProducerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+
+/**
+ * Kafka value format for transaction result events.
+ *
+ * With app.kafka.event-format=json (the default) the serializer configured for spring.kafka.producer is
+ * left untouched; operators opt into the compact binary serializer with binary, once every consumer
+ * reads the event-format header.
+ */
+@Configuration
+public class KafkaSerializationConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "app.kafka.event-format", havingValue = "binary")
+    @SuppressWarnings("unchecked")
+    public DefaultKafkaProducerFactoryCustomizer binaryEventSerializerCustomizer() {
+        return producerFactory -> ((DefaultKafkaProducerFactory<Object, Object>) producerFactory)
+                .setValueSerializer(new TransactionResultEventSerializer());
+    }
+}
@@ -0,0 +1,44 @@
+package com.isa.transaction.config;
+
+import com.isa.transaction.dto.TransactionResultEvent;
+import com.isa.transaction.service.TransactionResultEventCodec;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Kafka value serializer writing TransactionResultEvent in the compact binary format.
+ * Other values fall back to JSON, so raw messages sent through KafkaProducerService.sendMessage keep working.
+ * Binary records carry the header event-format=binary-v1 so consumers can pick the decoder.
+ */
+public class TransactionResultEventSerializer implements Serializer<Object> {
+
+    public static final String FORMAT_HEADER = "event-format";
+
+    private static final byte[] BINARY_V1 = "binary-v1".getBytes(StandardCharsets.UTF_8);
+
+    private final JsonSerializer<Object> jsonSerializer = new JsonSerializer<>();
+
+    @Override
+    public byte[] serialize(String topic, Object data) {
+        return data instanceof TransactionResultEvent event
+            ? TransactionResultEventCodec.encode(event)
+            : jsonSerializer.serialize(topic, data);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, Object data) {
+        if (data instanceof TransactionResultEvent event) {
+            headers.add(FORMAT_HEADER, BINARY_V1);
+            return TransactionResultEventCodec.encode(event);
+        }
+        return jsonSerializer.serialize(topic, headers, data);
+    }
+
+    @Override
+    public void close() {
+        jsonSerializer.close();
+    }
+}
@@ -0,0 +1,90 @@
+package com.isa.transaction.controller;
+
+import com.isa.transaction.dto.ApiResponse;
+import com.isa.transaction.dto.DeadLetterReplayProgress;
+import com.isa.transaction.service.DeadLetterReplayService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/dead-letters")
+@Tag(name = "Dead Letter Administration", description = "APIs for replaying the Kafka dead letter queue")
+public class DeadLetterController {
+    
+    private static final Logger logger = LoggerFactory.getLogger(DeadLetterController.class);
+    
+    @Autowired
+    private DeadLetterReplayService deadLetterReplayService;
+    
+    @PostMapping("/replay")
+    @Operation(
+        summary = "Replay the dead letter queue",
+        description = "Starts publishing the dead letter messages to Kafka again in the background. " +
+                     "Progress can be followed with GET /api/admin/dead-letters/replay."
+    )
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "202",
+            description = "Replay started",
+            content = @Content(mediaType = "application/json", 
+                              schema = @Schema(implementation = ApiResponse.class))
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "409",
+            description = "A replay is already running",
+            content = @Content(mediaType = "application/json", 
+                              schema = @Schema(implementation = ApiResponse.class))
+        )
+    })
+    public ResponseEntity<ApiResponse<DeadLetterReplayProgress>> startReplay(
+            @Parameter(description = "Continue after the last checkpoint instead of from the start of the queue")
+            @RequestParam(defaultValue = "true") boolean resume) {
+        
+        logger.info("Dead letter replay requested (resume={})", resume);
+        
+        DeadLetterReplayProgress progress = deadLetterReplayService.startReplay(resume);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.accepted(progress, "Dead letter replay started"));
+    }
+    
+    @GetMapping("/replay")
+    @Operation(
+        summary = "Get the progress of the dead letter replay",
+        description = "Returns the state and counters of the running replay, or of the last one"
+    )
+    @io.swagger.v3.oas.annotations.responses.ApiResponse(
+        responseCode = "200",
+        description = "Progress retrieved successfully",
+        content = @Content(mediaType = "application/json", 
+                          schema = @Schema(implementation = ApiResponse.class))
+    )
+    public ResponseEntity<ApiResponse<DeadLetterReplayProgress>> getReplayProgress() {
+        return ResponseEntity.ok(ApiResponse.success(deadLetterReplayService.getProgress()));
+    }
+    
+    @PostMapping("/replay/stop")
+    @Operation(
+        summary = "Stop the dead letter replay",
+        description = "Stops the running replay after its in-flight sends; a later replay with resume=true continues from there"
+    )
+    @io.swagger.v3.oas.annotations.responses.ApiResponse(
+        responseCode = "200",
+        description = "Stop requested",
+        content = @Content(mediaType = "application/json", 
+                          schema = @Schema(implementation = ApiResponse.class))
+    )
+    public ResponseEntity<ApiResponse<DeadLetterReplayProgress>> stopReplay() {
+        logger.info("Dead letter replay stop requested");
+        return ResponseEntity.ok(ApiResponse.success(deadLetterReplayService.stopReplay(), "Stop requested"));
+    }
+}
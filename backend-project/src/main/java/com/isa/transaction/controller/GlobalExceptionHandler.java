@@ -148,10 +148,14 @@ public class GlobalExceptionHandler {
      */
     private HttpStatus determineHttpStatus(String errorCode) {
         return switch (errorCode) {
-            case "CLIENT_NOT_FOUND", "ACCOUNT_NOT_FOUND" -> HttpStatus.NOT_FOUND;
-            case "INSUFFICIENT_FUNDS", "ACCOUNT_CREATION_ERROR" -> HttpStatus.CONFLICT;
+            case "CLIENT_NOT_FOUND", "ACCOUNT_NOT_FOUND", "TRANSACTION_NOT_FOUND", "IMPORT_FILE_NOT_FOUND" -> HttpStatus.NOT_FOUND;
+            case "INSUFFICIENT_FUNDS", "ACCOUNT_CREATION_ERROR", "CONCURRENT_UPDATE", "REPLAY_IN_PROGRESS",
+                 "IDEMPOTENCY_IN_PROGRESS", "SNAPSHOT_IN_PROGRESS", "BACKFILL_IN_PROGRESS",
+                 "BACKFILL_UNAVAILABLE", "RECONCILIATION_IN_PROGRESS", "IMPORT_IN_PROGRESS" -> HttpStatus.CONFLICT;
+            case "IDEMPOTENCY_KEY_MISMATCH" -> HttpStatus.UNPROCESSABLE_ENTITY;
             case "VALIDATION_ERROR" -> HttpStatus.BAD_REQUEST;
             case "SYSTEM_ERROR", "TRANSACTION_ERROR" -> HttpStatus.INTERNAL_SERVER_ERROR;
+            case "SERVICE_BUSY" -> HttpStatus.SERVICE_UNAVAILABLE;
             default -> HttpStatus.BAD_REQUEST;
         };
     }
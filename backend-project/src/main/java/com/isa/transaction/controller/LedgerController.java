@@ -0,0 +1,301 @@
+package com.isa.transaction.controller;
+
+import com.isa.transaction.dto.AccountStatsBackfillProgress;
+import com.isa.transaction.dto.ApiResponse;
+import com.isa.transaction.dto.BalanceRecomputation;
+import com.isa.transaction.dto.LedgerPartition;
+import com.isa.transaction.dto.LedgerReconciliationProgress;
+import com.isa.transaction.dto.LedgerSnapshotProgress;
+import com.isa.transaction.service.AccountStatsBackfill;
+import com.isa.transaction.service.LedgerPartitionManager;
+import com.isa.transaction.service.LedgerReconciliationService;
+import com.isa.transaction.service.LedgerSnapshotService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/ledger")
+@Tag(name = "Ledger Administration", description = "APIs for balance snapshots and rebuilding balances from the ledger")
+public class LedgerController {
+    
+    private static final Logger logger = LoggerFactory.getLogger(LedgerController.class);
+    
+    @Autowired
+    private LedgerSnapshotService ledgerSnapshotService;
+    
+    @Autowired
+    private LedgerPartitionManager ledgerPartitionManager;
+    
+    @Autowired
+    private AccountStatsBackfill accountStatsBackfill;
+    
+    @Autowired
+    private LedgerReconciliationService ledgerReconciliationService;
+    
+    @PostMapping("/snapshots")
+    @Operation(
+        summary = "Snapshot every balance, optionally rebuilding it from the ledger",
+        description = "Starts a parallel pass over all balances in the background: each balance is recomputed from its " +
+                     "latest snapshot and the ledger rows after it, the snapshot is moved forward and balances that differ " +
+                     "are reported, or overwritten when repair=true. Progress can be followed with GET /api/admin/ledger/snapshots."
+    )
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "202",
+            description = "Run started",
+            content = @Content(mediaType = "application/json", 
+                              schema = @Schema(implementation = ApiResponse.class))
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "409",
+            description = "A run is already in progress",
+            content = @Content(mediaType = "application/json", 
+                              schema = @Schema(implementation = ApiResponse.class))
+        )
+    })
+    public ResponseEntity<ApiResponse<LedgerSnapshotProgress>> startRun(
+            @Parameter(description = "Overwrite the balances that differ from the ledger")
+            @RequestParam(defaultValue = "false") boolean repair) {
+        
+        logger.info("Balance snapshot run requested (repair={})", repair);
+        
+        LedgerSnapshotProgress progress = ledgerSnapshotService.startRun(repair);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.accepted(progress, "Balance snapshot run started"));
+    }
+    
+    @GetMapping("/snapshots")
+    @Operation(
+        summary = "Get the progress of the balance snapshot run",
+        description = "Returns the state and counters of the running snapshot run, or of the last one"
+    )
+    @io.swagger.v3.oas.annotations.responses.ApiResponse(
+        responseCode = "200",
+        description = "Progress retrieved successfully",
+        content = @Content(mediaType = "application/json", 
+                          schema = @Schema(implementation = ApiResponse.class))
+    )
+    public ResponseEntity<ApiResponse<LedgerSnapshotProgress>> getRunProgress() {
+        return ResponseEntity.ok(ApiResponse.success(ledgerSnapshotService.getProgress()));
+    }
+    
+    @PostMapping("/snapshots/stop")
+    @Operation(
+        summary = "Stop the balance snapshot run",
+        description = "Stops the running snapshot run after its current chunks; the snapshots written so far are kept"
+    )
+    @io.swagger.v3.oas.annotations.responses.ApiResponse(
+        responseCode = "200",
+        description = "Stop requested",
+        content = @Content(mediaType = "application/json", 
+                          schema = @Schema(implementation = ApiResponse.class))
+    )
+    public ResponseEntity<ApiResponse<LedgerSnapshotProgress>> stopRun() {
+        logger.info("Balance snapshot run stop requested");
+        return ResponseEntity.ok(ApiResponse.success(ledgerSnapshotService.stopRun(), "Stop requested"));
+    }
+    
+    @GetMapping("/accounts/{clientIdentification}/{accountNumber}")
+    @Operation(
+        summary = "Recompute an account balance from the ledger",
+        description = "Recomputes the balance from the latest snapshot of the account and the ledger rows after it, " +
+                     "and compares it with the stored balance. Nothing is written."
+    )
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "200",
+            description = "Balance recomputed successfully",
+            content = @Content(mediaType = "application/json", 
+                              schema = @Schema(implementation = ApiResponse.class))
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "404",
+            description = "Account not found",
+            content = @Content(mediaType = "application/json", 
+                              schema = @Schema(implementation = ApiResponse.class))
+        )
+    })
+    public ResponseEntity<ApiResponse<BalanceRecomputation>> recomputeBalance(
+            @Parameter(description = "Client identification", required = true, example = "12345678")
+            @PathVariable String clientIdentification,
+            @Parameter(description = "Account number", required = true, example = "ACC-123456")
+            @PathVariable String accountNumber) {
+        
+        BalanceRecomputation recomputation = ledgerSnapshotService.recompute(clientIdentification, accountNumber);
+        
+        if (recomputation != null) {
+            return ResponseEntity.ok(ApiResponse.success(recomputation, "Balance recomputed successfully"));
+        } else {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ApiResponse.notFound("Account not found for client " + clientIdentification + " and account " + accountNumber));
+        }
+    }
+    
+    @GetMapping("/partitions")
+    @Operation(
+        summary = "List the ledger partitions",
+        description = "Returns the monthly partitions attached to BALANCE_TRANSACTION, oldest first; " +
+                     "empty when the table is not partitioned"
+    )
+    @io.swagger.v3.oas.annotations.responses.ApiResponse(
+        responseCode = "200",
+        description = "Partitions retrieved successfully",
+        content = @Content(mediaType = "application/json", 
+                          schema = @Schema(implementation = ApiResponse.class))
+    )
+    public ResponseEntity<ApiResponse<List<LedgerPartition>>> getPartitions() {
+        return ResponseEntity.ok(ApiResponse.success(ledgerPartitionManager.getPartitions()));
+    }
+    
+    @PostMapping("/partitions/maintain")
+    @Operation(
+        summary = "Run the ledger partition maintenance now",
+        description = "Creates the monthly partitions that are missing ahead of time and detaches the ones " +
+                     "older than the retention window, as the scheduled maintenance does"
+    )
+    @io.swagger.v3.oas.annotations.responses.ApiResponse(
+        responseCode = "200",
+        description = "Maintenance done",
+        content = @Content(mediaType = "application/json", 
+                          schema = @Schema(implementation = ApiResponse.class))
+    )
+    public ResponseEntity<ApiResponse<List<LedgerPartition>>> maintainPartitions() {
+        logger.info("Ledger partition maintenance requested");
+        return ResponseEntity.ok(ApiResponse.success(ledgerPartitionManager.maintain(), "Partition maintenance done"));
+    }
+    
+    @PostMapping("/stats/backfill")
+    @Operation(
+        summary = "Build the account stats from the ledger",
+        description = "Starts a background pass over all balances that recomputes the total credits, total debits, " +
+                     "transaction count and last transaction time of each account from the ledger. " +
+                     "Progress can be followed with GET /api/admin/ledger/stats/backfill."
+    )
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "202",
+            description = "Backfill started",
+            content = @Content(mediaType = "application/json", 
+                              schema = @Schema(implementation = ApiResponse.class))
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "409",
+            description = "A backfill is already running, or ledger partition retention is enabled",
+            content = @Content(mediaType = "application/json", 
+                              schema = @Schema(implementation = ApiResponse.class))
+        )
+    })
+    public ResponseEntity<ApiResponse<AccountStatsBackfillProgress>> startStatsBackfill(
+            @Parameter(description = "Continue after the saved checkpoint instead of from the first balance")
+            @RequestParam(defaultValue = "true") boolean resume) {
+        
+        logger.info("Account stats backfill requested (resume={})", resume);
+        
+        AccountStatsBackfillProgress progress = accountStatsBackfill.startBackfill(resume);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.accepted(progress, "Account stats backfill started"));
+    }
+    
+    @GetMapping("/stats/backfill")
+    @Operation(
+        summary = "Get the progress of the account stats backfill",
+        description = "Returns the state and counters of the running backfill, or of the last one"
+    )
+    @io.swagger.v3.oas.annotations.responses.ApiResponse(
+        responseCode = "200",
+        description = "Progress retrieved successfully",
+        content = @Content(mediaType = "application/json", 
+                          schema = @Schema(implementation = ApiResponse.class))
+    )
+    public ResponseEntity<ApiResponse<AccountStatsBackfillProgress>> getStatsBackfillProgress() {
+        return ResponseEntity.ok(ApiResponse.success(accountStatsBackfill.getProgress()));
+    }
+    
+    @PostMapping("/stats/backfill/stop")
+    @Operation(
+        summary = "Stop the account stats backfill",
+        description = "Stops the running backfill after its current chunk; the checkpoint is kept for a resume"
+    )
+    @io.swagger.v3.oas.annotations.responses.ApiResponse(
+        responseCode = "200",
+        description = "Stop requested",
+        content = @Content(mediaType = "application/json", 
+                          schema = @Schema(implementation = ApiResponse.class))
+    )
+    public ResponseEntity<ApiResponse<AccountStatsBackfillProgress>> stopStatsBackfill() {
+        logger.info("Account stats backfill stop requested");
+        return ResponseEntity.ok(ApiResponse.success(accountStatsBackfill.stopBackfill(), "Stop requested"));
+    }
+    
+    @PostMapping("/reconciliation")
+    @Operation(
+        summary = "Reconcile every balance with its ledger",
+        description = "Starts a read-only parallel pass over all balances in the background that checks the " +
+                     "BALANCE_BEFORE / BALANCE_AFTER chain of each account and compares the balance with its ledger. " +
+                     "Issues are written to an NDJSON report; progress can be followed with GET /api/admin/ledger/reconciliation."
+    )
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "202",
+            description = "Reconciliation started",
+            content = @Content(mediaType = "application/json", 
+                              schema = @Schema(implementation = ApiResponse.class))
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "409",
+            description = "A reconciliation is already running",
+            content = @Content(mediaType = "application/json", 
+                              schema = @Schema(implementation = ApiResponse.class))
+        )
+    })
+    public ResponseEntity<ApiResponse<LedgerReconciliationProgress>> startReconciliation() {
+        logger.info("Ledger reconciliation requested");
+        
+        LedgerReconciliationProgress progress = ledgerReconciliationService.startRun();
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.accepted(progress, "Ledger reconciliation started"));
+    }
+    
+    @GetMapping("/reconciliation")
+    @Operation(
+        summary = "Get the progress of the ledger reconciliation",
+        description = "Returns the state, counters, report file and first issues of the running reconciliation, or of the last one"
+    )
+    @io.swagger.v3.oas.annotations.responses.ApiResponse(
+        responseCode = "200",
+        description = "Progress retrieved successfully",
+        content = @Content(mediaType = "application/json", 
+                          schema = @Schema(implementation = ApiResponse.class))
+    )
+    public ResponseEntity<ApiResponse<LedgerReconciliationProgress>> getReconciliationProgress() {
+        return ResponseEntity.ok(ApiResponse.success(ledgerReconciliationService.getProgress()));
+    }
+    
+    @PostMapping("/reconciliation/stop")
+    @Operation(
+        summary = "Stop the ledger reconciliation",
+        description = "Stops the running reconciliation after its current chunks; the report keeps the issues found so far"
+    )
+    @io.swagger.v3.oas.annotations.responses.ApiResponse(
+        responseCode = "200",
+        description = "Stop requested",
+        content = @Content(mediaType = "application/json", 
+                          schema = @Schema(implementation = ApiResponse.class))
+    )
+    public ResponseEntity<ApiResponse<LedgerReconciliationProgress>> stopReconciliation() {
+        logger.info("Ledger reconciliation stop requested");
+        return ResponseEntity.ok(ApiResponse.success(ledgerReconciliationService.stopRun(), "Stop requested"));
+    }
+}
@@ -1,8 +1,17 @@
 package com.isa.transaction.controller;
 
 import com.isa.transaction.dto.ApiResponse;
+import com.isa.transaction.dto.BatchTransactionRequest;
+import com.isa.transaction.dto.BatchTransactionResponse;
+import com.isa.transaction.dto.TransactionHistoryPage;
 import com.isa.transaction.dto.TransactionRequest;
 import com.isa.transaction.dto.TransactionResponse;
+import com.isa.transaction.exception.TransactionException;
+import com.isa.transaction.service.AsyncTransactionExecutor;
+import com.isa.transaction.service.GroupCommitExecutor;
+import com.isa.transaction.service.IdempotencyService;
+import com.isa.transaction.service.TransactionExportService;
+import com.isa.transaction.service.TransactionLaneExecutor;
 import com.isa.transaction.service.TransactionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -14,9 +23,16 @@ import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("/api")
@@ -28,12 +44,30 @@ public class TransactionController {
     @Autowired
     private TransactionService transactionService;
     
+    @Autowired
+    private TransactionLaneExecutor transactionLaneExecutor;
+    
+    @Autowired
+    private GroupCommitExecutor groupCommitExecutor;
+    
+    @Autowired
+    private AsyncTransactionExecutor asyncTransactionExecutor;
+    
+    @Autowired
+    private IdempotencyService idempotencyService;
+    
+    @Autowired
+    private TransactionExportService transactionExportService;
+    
     @PostMapping("/transactions")
     @Operation(
         summary = "Process a financial transaction",
         description = "Processes a credit or debit transaction for a client account. " +
                      "If the account doesn't exist, it will be created automatically for the client. " +
-                     "Returns immediately with transaction ID and processes asynchronously."
+                     "Returns immediately with transaction ID and processes asynchronously. " +
+                     "The outcome can be followed with GET /api/transactions/{transactionId}. " +
+                     "Retries sent with the same Idempotency-Key header get the original response " +
+                     "instead of applying the amount again."
     )
     @ApiResponses(value = {
         @io.swagger.v3.oas.annotations.responses.ApiResponse(
@@ -56,7 +90,13 @@ public class TransactionController {
         ),
         @io.swagger.v3.oas.annotations.responses.ApiResponse(
             responseCode = "409",
-            description = "Business rule violation (e.g., insufficient funds)",
+            description = "Business rule violation (e.g., insufficient funds), or the request with this Idempotency-Key is still in process",
+            content = @Content(mediaType = "application/json", 
+                              schema = @Schema(implementation = ApiResponse.class))
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "422",
+            description = "Idempotency-Key already used with a different request",
             content = @Content(mediaType = "application/json", 
                               schema = @Schema(implementation = ApiResponse.class))
         ),
@@ -69,13 +109,17 @@ public class TransactionController {
     })
     public ResponseEntity<ApiResponse<TransactionResponse>> processTransaction(
             @Parameter(description = "Transaction request details", required = true)
-            @Valid @RequestBody TransactionRequest request) {
+            @Valid @RequestBody TransactionRequest request,
+            @Parameter(description = "Client-generated key that makes retries of this request safe", example = "3f1c9a7e-5b2d-4e8a-9c61-0d2b7f4e8a13")
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         
         logger.info("Received transaction request for client {} account {} amount {}", 
                    request.getClientIdentification(), request.getAccountNumber(), request.getAmount());
         
         try {
-            TransactionResponse response = transactionService.processTransaction(request);
+            TransactionResponse response = idempotencyKey != null
+                ? idempotencyService.execute(idempotencyKey, request, () -> dispatch(request))
+                : dispatch(request);
             
             ApiResponse<TransactionResponse> apiResponse = ApiResponse.accepted(response, 
                 "Transaction has been accepted and is being processed");
@@ -88,6 +132,46 @@ public class TransactionController {
         }
     }
     
+    @PostMapping("/transactions/batch")
+    @Operation(
+        summary = "Process a batch of financial transactions",
+        description = "Processes up to 1000 credit or debit transactions in a single database commit. " +
+                     "Each transaction gets its own result; transactions rejected by business rules " +
+                     "(e.g. insufficient funds) do not roll back the rest of the batch."
+    )
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "200",
+            description = "Batch processed, see the result of each transaction",
+            content = @Content(mediaType = "application/json", 
+                              schema = @Schema(implementation = ApiResponse.class))
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "400",
+            description = "Bad request - validation errors",
+            content = @Content(mediaType = "application/json", 
+                              schema = @Schema(implementation = ApiResponse.class))
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "500",
+            description = "Internal server error, no transaction of the batch was applied",
+            content = @Content(mediaType = "application/json", 
+                              schema = @Schema(implementation = ApiResponse.class))
+        )
+    })
+    public ResponseEntity<ApiResponse<BatchTransactionResponse>> processTransactionBatch(
+            @Parameter(description = "Batch of transaction requests", required = true)
+            @Valid @RequestBody BatchTransactionRequest request) {
+        
+        logger.info("Received batch of {} transactions", request.getTransactions().size());
+        
+        BatchTransactionResponse response = transactionService.processTransactionBatch(request.getTransactions());
+        String message = String.format("Batch processed: %d accepted, %d rejected", 
+                                       response.getAccepted(), response.getRejected());
+        
+        return ResponseEntity.ok(ApiResponse.success(response, message));
+    }
+    
     @GetMapping("/transactions/health")
     @Operation(
         summary = "Health check for transaction service",
@@ -130,13 +214,192 @@ public class TransactionController {
         
         logger.debug("Getting balance for client {} account {}", clientIdentification, accountNumber);
         
-        var balance = transactionService.getBalance(clientIdentification, accountNumber);
+        var balance = transactionService.getCurrentBalance(clientIdentification, accountNumber);
         
         if (balance != null) {
-            return ResponseEntity.ok(ApiResponse.success(balance.getCurrentBalance(), "Balance retrieved successfully"));
+            return ResponseEntity.ok(ApiResponse.success(balance, "Balance retrieved successfully"));
         } else {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(ApiResponse.notFound("Account not found for client " + clientIdentification + " and account " + accountNumber));
         }
     }
+    
+    @GetMapping("/transactions/history/{clientIdentification}/{accountNumber}")
+    @Operation(
+        summary = "Get the transaction history of an account",
+        description = "Returns the applied transactions of the account newest first, one page at a time. " +
+                     "Pass the nextCursor of a page as cursor to get the next one; it is empty on the last page."
+    )
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "200",
+            description = "History retrieved successfully",
+            content = @Content(mediaType = "application/json", 
+                              schema = @Schema(implementation = ApiResponse.class))
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "400",
+            description = "Invalid cursor or page size",
+            content = @Content(mediaType = "application/json", 
+                              schema = @Schema(implementation = ApiResponse.class))
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "404",
+            description = "Account not found",
+            content = @Content(mediaType = "application/json", 
+                              schema = @Schema(implementation = ApiResponse.class))
+        )
+    })
+    public ResponseEntity<ApiResponse<TransactionHistoryPage>> getTransactionHistory(
+            @Parameter(description = "Client identification", required = true, example = "12345678")
+            @PathVariable String clientIdentification,
+            @Parameter(description = "Account number", required = true, example = "ACC-123456")
+            @PathVariable String accountNumber,
+            @Parameter(description = "nextCursor of the previous page; omit for the first page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Transactions per page", example = "50")
+            @RequestParam(defaultValue = "50") int size) {
+        
+        logger.debug("Getting history for client {} account {}", clientIdentification, accountNumber);
+        
+        TransactionHistoryPage page = transactionService.getTransactionHistoryPage(clientIdentification, accountNumber, cursor, size);
+        
+        if (page != null) {
+            return ResponseEntity.ok(ApiResponse.success(page, "History retrieved successfully"));
+        } else {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ApiResponse.notFound("Account not found for client " + clientIdentification + " and account " + accountNumber));
+        }
+    }
+    
+    @GetMapping("/transactions/history/{clientIdentification}/{accountNumber}/export")
+    @Operation(
+        summary = "Export the transaction history of an account",
+        description = "Streams every applied transaction of the account, oldest first, as NDJSON (one JSON object per line) " +
+                     "or CSV. Optionally restricted to [from, to) and gzip-compressed."
+    )
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "200",
+            description = "History export streamed",
+            content = {@Content(mediaType = "application/x-ndjson"), @Content(mediaType = "text/csv")}
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "400",
+            description = "Unsupported format or invalid date range",
+            content = @Content(mediaType = "application/json", 
+                              schema = @Schema(implementation = ApiResponse.class))
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "404",
+            description = "Account not found",
+            content = @Content(mediaType = "application/json", 
+                              schema = @Schema(implementation = ApiResponse.class))
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "503",
+            description = "Too many exports running",
+            content = @Content(mediaType = "application/json", 
+                              schema = @Schema(implementation = ApiResponse.class))
+        )
+    })
+    public ResponseEntity<?> exportTransactionHistory(
+            @Parameter(description = "Client identification", required = true, example = "12345678")
+            @PathVariable String clientIdentification,
+            @Parameter(description = "Account number", required = true, example = "ACC-123456")
+            @PathVariable String accountNumber,
+            @Parameter(description = "ndjson or csv", example = "ndjson")
+            @RequestParam(defaultValue = "ndjson") String format,
+            @Parameter(description = "Gzip-compress the export")
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @Parameter(description = "Only transactions created at or after this time", example = "2026-01-01T00:00:00")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "Only transactions created before this time", example = "2026-02-01T00:00:00")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        
+        logger.debug("Exporting history for client {} account {} as {}", clientIdentification, accountNumber, format);
+        
+        TransactionExportService.Format exportFormat = TransactionExportService.Format.of(format);
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new TransactionException("from must be before to", "VALIDATION_ERROR");
+        }
+        StreamingResponseBody body = transactionExportService.export(clientIdentification, accountNumber, exportFormat, gzip, from, to);
+        
+        if (body == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ApiResponse.notFound("Account not found for client " + clientIdentification + " and account " + accountNumber));
+        }
+        String fileName = "history-" + clientIdentification + "-" + accountNumber + "." + exportFormat.getExtension();
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_TYPE, exportFormat.getContentType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"");
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+    
+    @GetMapping("/transactions/{transactionId}")
+    @Operation(
+        summary = "Get the status of a transaction",
+        description = "Returns IN_PROCESS while the transaction is waiting to be applied, " +
+                     "COMPLETED once it has been applied and FAILED if it was rejected"
+    )
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "200",
+            description = "Transaction status retrieved successfully",
+            content = @Content(mediaType = "application/json", 
+                              schema = @Schema(implementation = ApiResponse.class))
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "404",
+            description = "Transaction not found",
+            content = @Content(mediaType = "application/json", 
+                              schema = @Schema(implementation = ApiResponse.class))
+        )
+    })
+    public ResponseEntity<ApiResponse<TransactionResponse>> getTransactionStatus(
+            @Parameter(description = "Transaction ID returned when the transaction was submitted", required = true)
+            @PathVariable String transactionId) {
+        
+        logger.debug("Getting status of transaction {}", transactionId);
+        
+        TransactionResponse response = transactionService.getTransactionStatus(transactionId);
+        return ResponseEntity.ok(ApiResponse.success(response, "Transaction status retrieved successfully"));
+    }
+    
+    /**
+     * Process a single transaction with the configured execution mode
+     */
+    private TransactionResponse dispatch(TransactionRequest request) {
+        if (asyncTransactionExecutor.isEnabled()) {
+            // Async mode: the request is stored and applied by a worker, we do not wait for it
+            return asyncTransactionExecutor.accept(request);
+        } else if (transactionLaneExecutor.isEnabled()) {
+            // Single-writer mode: the account's lane applies the transaction, we wait for its result
+            return await(transactionLaneExecutor.submit(
+                request.getClientIdentification(), request.getAccountNumber(),
+                () -> transactionService.processTransaction(request)));
+        } else if (groupCommitExecutor.isEnabled()) {
+            // Group commit mode: the transaction is committed together with concurrent requests
+            return await(groupCommitExecutor.submit(request));
+        }
+        return transactionService.processTransaction(request);
+    }
+    
+    /**
+     * Wait for a lane or group commit result, rethrowing the original exception
+     * so the GlobalExceptionHandler can map it
+     */
+    private <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,105 @@
+package com.isa.transaction.controller;
+
+import com.isa.transaction.dto.ApiResponse;
+import com.isa.transaction.dto.TransactionImportProgress;
+import com.isa.transaction.service.TransactionImportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/imports")
+@Tag(name = "Transaction Import Administration", description = "APIs for applying files of transactions in bulk")
+public class TransactionImportController {
+    
+    private static final Logger logger = LoggerFactory.getLogger(TransactionImportController.class);
+    
+    @Autowired
+    private TransactionImportService transactionImportService;
+    
+    @PostMapping
+    @Operation(
+        summary = "Import a file of transactions",
+        description = "Starts applying a file from the import directory in the background, one transaction per line as " +
+                     "clientIdentification,accountNumber,amount. Invalid and refused lines are written to a rejects file. " +
+                     "Progress can be followed with GET /api/admin/imports."
+    )
+    @ApiResponses(value = {
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "202",
+            description = "Import started",
+            content = @Content(mediaType = "application/json", 
+                              schema = @Schema(implementation = ApiResponse.class))
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "400",
+            description = "Invalid file name",
+            content = @Content(mediaType = "application/json", 
+                              schema = @Schema(implementation = ApiResponse.class))
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "404",
+            description = "File not found in the import directory",
+            content = @Content(mediaType = "application/json", 
+                              schema = @Schema(implementation = ApiResponse.class))
+        ),
+        @io.swagger.v3.oas.annotations.responses.ApiResponse(
+            responseCode = "409",
+            description = "An import is already running",
+            content = @Content(mediaType = "application/json", 
+                              schema = @Schema(implementation = ApiResponse.class))
+        )
+    })
+    public ResponseEntity<ApiResponse<TransactionImportProgress>> startImport(
+            @Parameter(description = "Name of the file in the import directory", required = true)
+            @RequestParam String file,
+            @Parameter(description = "Continue after the saved checkpoint of the file instead of from its first line")
+            @RequestParam(defaultValue = "true") boolean resume) {
+        
+        logger.info("Transaction import of {} requested (resume={})", file, resume);
+        
+        TransactionImportProgress progress = transactionImportService.startImport(file, resume);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.accepted(progress, "Transaction import started"));
+    }
+    
+    @GetMapping
+    @Operation(
+        summary = "Get the progress of the transaction import",
+        description = "Returns the state, checkpoint and counters of the running import, or of the last one"
+    )
+    @io.swagger.v3.oas.annotations.responses.ApiResponse(
+        responseCode = "200",
+        description = "Progress retrieved successfully",
+        content = @Content(mediaType = "application/json", 
+                          schema = @Schema(implementation = ApiResponse.class))
+    )
+    public ResponseEntity<ApiResponse<TransactionImportProgress>> getImportProgress() {
+        return ResponseEntity.ok(ApiResponse.success(transactionImportService.getProgress()));
+    }
+    
+    @PostMapping("/stop")
+    @Operation(
+        summary = "Stop the transaction import",
+        description = "Stops the running import after its current batch; a later import of the same file with resume=true continues from there"
+    )
+    @io.swagger.v3.oas.annotations.responses.ApiResponse(
+        responseCode = "200",
+        description = "Stop requested",
+        content = @Content(mediaType = "application/json", 
+                          schema = @Schema(implementation = ApiResponse.class))
+    )
+    public ResponseEntity<ApiResponse<TransactionImportProgress>> stopImport() {
+        logger.info("Transaction import stop requested");
+        return ResponseEntity.ok(ApiResponse.success(transactionImportService.stopImport(), "Stop requested"));
+    }
+}
@@ -0,0 +1,120 @@
+package com.isa.transaction.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.LocalDateTime;
+
+@Schema(description = "Progress of the account stats backfill")
+public class AccountStatsBackfillProgress {
+    
+    @JsonProperty("state")
+    @Schema(description = "IDLE, RUNNING, COMPLETED, STOPPED or FAILED", example = "RUNNING")
+    private String state;
+    
+    @JsonProperty("startedAt")
+    @Schema(description = "Start time of the last run")
+    private LocalDateTime startedAt;
+    
+    @JsonProperty("finishedAt")
+    @Schema(description = "End time of the last run, empty while running")
+    private LocalDateTime finishedAt;
+    
+    @JsonProperty("checkpointId")
+    @Schema(description = "Last balance ID whose stats were rebuilt; a resumed run continues after it", example = "40200")
+    private long checkpointId;
+    
+    @JsonProperty("lastBalanceId")
+    @Schema(description = "Highest balance ID when the run started", example = "100000")
+    private long lastBalanceId;
+    
+    @JsonProperty("accounts")
+    @Schema(description = "Accounts whose stats were rebuilt so far", example = "40200")
+    private long accounts;
+    
+    @JsonProperty("transactions")
+    @Schema(description = "Ledger rows summed so far", example = "3500000")
+    private long transactions;
+    
+    @JsonProperty("accountsPerSecond")
+    @Schema(description = "Average backfill throughput of the run", example = "2000.0")
+    private double accountsPerSecond;
+    
+    @JsonProperty("error")
+    @Schema(description = "Cause of a FAILED run")
+    private String error;
+    
+    // Getters and setters
+    public String getState() {
+        return state;
+    }
+    
+    public void setState(String state) {
+        this.state = state;
+    }
+    
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+    
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+    
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+    
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+    
+    public long getCheckpointId() {
+        return checkpointId;
+    }
+    
+    public void setCheckpointId(long checkpointId) {
+        this.checkpointId = checkpointId;
+    }
+    
+    public long getLastBalanceId() {
+        return lastBalanceId;
+    }
+    
+    public void setLastBalanceId(long lastBalanceId) {
+        this.lastBalanceId = lastBalanceId;
+    }
+    
+    public long getAccounts() {
+        return accounts;
+    }
+    
+    public void setAccounts(long accounts) {
+        this.accounts = accounts;
+    }
+    
+    public long getTransactions() {
+        return transactions;
+    }
+    
+    public void setTransactions(long transactions) {
+        this.transactions = transactions;
+    }
+    
+    public double getAccountsPerSecond() {
+        return accountsPerSecond;
+    }
+    
+    public void setAccountsPerSecond(double accountsPerSecond) {
+        this.accountsPerSecond = accountsPerSecond;
+    }
+    
+    public String getError() {
+        return error;
+    }
+    
+    public void setError(String error) {
+        this.error = error;
+    }
+}
+
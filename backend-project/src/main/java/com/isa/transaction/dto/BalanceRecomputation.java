@@ -0,0 +1,131 @@
+package com.isa.transaction.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.math.BigDecimal;
+
+@Schema(description = "Balance of an account recomputed from its latest snapshot and the ledger rows after it")
+public class BalanceRecomputation {
+    
+    @JsonProperty("clientIdentification")
+    @Schema(description = "Client identification", example = "12345678")
+    private String clientIdentification;
+    
+    @JsonProperty("accountNumber")
+    @Schema(description = "Account number", example = "ACC001")
+    private String accountNumber;
+    
+    @JsonProperty("currentBalance")
+    @Schema(description = "CURRENT_BALANCE stored in BALANCE", example = "1500.00")
+    private BigDecimal currentBalance;
+    
+    @JsonProperty("recomputedBalance")
+    @Schema(description = "Balance recomputed from the ledger", example = "1500.00")
+    private BigDecimal recomputedBalance;
+    
+    @JsonProperty("snapshotBalance")
+    @Schema(description = "Balance of the snapshot the replay started from, empty without a snapshot", example = "1000.00")
+    private BigDecimal snapshotBalance;
+    
+    @JsonProperty("snapshotTransactionId")
+    @Schema(description = "Last ledger row ID included in the snapshot, 0 without a snapshot", example = "118200")
+    private long snapshotTransactionId;
+    
+    @JsonProperty("lastTransactionId")
+    @Schema(description = "Last ledger row ID included in the recomputed balance", example = "118250")
+    private long lastTransactionId;
+    
+    @JsonProperty("replayedTransactions")
+    @Schema(description = "Ledger rows applied on top of the snapshot", example = "3")
+    private int replayedTransactions;
+    
+    @JsonProperty("chainIntact")
+    @Schema(description = "False if the ledger rows do not chain; the balance was then recomputed from the whole history", example = "true")
+    private boolean chainIntact;
+    
+    @JsonProperty("consistent")
+    @Schema(description = "Whether CURRENT_BALANCE equals the recomputed balance", example = "true")
+    private boolean consistent;
+    
+    // Getters and setters
+    public String getClientIdentification() {
+        return clientIdentification;
+    }
+    
+    public void setClientIdentification(String clientIdentification) {
+        this.clientIdentification = clientIdentification;
+    }
+    
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+    
+    public void setAccountNumber(String accountNumber) {
+        this.accountNumber = accountNumber;
+    }
+    
+    public BigDecimal getCurrentBalance() {
+        return currentBalance;
+    }
+    
+    public void setCurrentBalance(BigDecimal currentBalance) {
+        this.currentBalance = currentBalance;
+    }
+    
+    public BigDecimal getRecomputedBalance() {
+        return recomputedBalance;
+    }
+    
+    public void setRecomputedBalance(BigDecimal recomputedBalance) {
+        this.recomputedBalance = recomputedBalance;
+    }
+    
+    public BigDecimal getSnapshotBalance() {
+        return snapshotBalance;
+    }
+    
+    public void setSnapshotBalance(BigDecimal snapshotBalance) {
+        this.snapshotBalance = snapshotBalance;
+    }
+    
+    public long getSnapshotTransactionId() {
+        return snapshotTransactionId;
+    }
+    
+    public void setSnapshotTransactionId(long snapshotTransactionId) {
+        this.snapshotTransactionId = snapshotTransactionId;
+    }
+    
+    public long getLastTransactionId() {
+        return lastTransactionId;
+    }
+    
+    public void setLastTransactionId(long lastTransactionId) {
+        this.lastTransactionId = lastTransactionId;
+    }
+    
+    public int getReplayedTransactions() {
+        return replayedTransactions;
+    }
+    
+    public void setReplayedTransactions(int replayedTransactions) {
+        this.replayedTransactions = replayedTransactions;
+    }
+    
+    public boolean isChainIntact() {
+        return chainIntact;
+    }
+    
+    public void setChainIntact(boolean chainIntact) {
+        this.chainIntact = chainIntact;
+    }
+    
+    public boolean isConsistent() {
+        return consistent;
+    }
+    
+    public void setConsistent(boolean consistent) {
+        this.consistent = consistent;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,38 @@
+package com.isa.transaction.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Committed amount of a balance together with its row version.
+ * The version orders snapshots of the same balance, so an older read never replaces a newer one.
+ */
+public class BalanceSnapshot {
+
+    private final BigDecimal currentBalance;
+    private final long version;
+
+    public BalanceSnapshot(BigDecimal currentBalance, Long version) {
+        this.currentBalance = currentBalance;
+        this.version = version != null ? version : 0L;
+    }
+
+    public BigDecimal getCurrentBalance() {
+        return currentBalance;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public boolean isNewerThan(BalanceSnapshot other) {
+        return version > other.version;
+    }
+
+    @Override
+    public String toString() {
+        return "BalanceSnapshot{" +
+                "currentBalance=" + currentBalance +
+                ", version=" + version +
+                '}';
+    }
+}
@@ -0,0 +1,44 @@
+package com.isa.transaction.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+@Schema(description = "Request object for processing a batch of transactions in a single commit")
+public class BatchTransactionRequest {
+    
+    @NotEmpty(message = "At least one transaction is required")
+    @Size(max = 1000, message = "A batch cannot contain more than 1000 transactions")
+    @Valid
+    @JsonProperty("transactions")
+    @Schema(description = "Transactions to process, applied in the given order")
+    private List<TransactionRequest> transactions;
+    
+    // Constructors
+    public BatchTransactionRequest() {
+    }
+    
+    public BatchTransactionRequest(List<TransactionRequest> transactions) {
+        this.transactions = transactions;
+    }
+    
+    // Getters and setters
+    public List<TransactionRequest> getTransactions() {
+        return transactions;
+    }
+    
+    public void setTransactions(List<TransactionRequest> transactions) {
+        this.transactions = transactions;
+    }
+    
+    @Override
+    public String toString() {
+        return "BatchTransactionRequest{" +
+                "transactions=" + (transactions != null ? transactions.size() : 0) +
+                '}';
+    }
+}
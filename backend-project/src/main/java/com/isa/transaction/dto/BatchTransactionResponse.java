@@ -0,0 +1,65 @@
+package com.isa.transaction.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Response object for a batch of transactions")
+public class BatchTransactionResponse {
+    
+    @JsonProperty("accepted")
+    @Schema(description = "Number of transactions applied", example = "98")
+    private int accepted;
+    
+    @JsonProperty("rejected")
+    @Schema(description = "Number of transactions rejected", example = "2")
+    private int rejected;
+    
+    @JsonProperty("results")
+    @Schema(description = "Result of each transaction, in request order")
+    private List<BatchTransactionResult> results;
+    
+    // Constructors
+    public BatchTransactionResponse() {
+    }
+    
+    public BatchTransactionResponse(List<BatchTransactionResult> results) {
+        this.results = results;
+        this.accepted = (int) results.stream().filter(BatchTransactionResult::isAccepted).count();
+        this.rejected = results.size() - accepted;
+    }
+    
+    // Getters and setters
+    public int getAccepted() {
+        return accepted;
+    }
+    
+    public void setAccepted(int accepted) {
+        this.accepted = accepted;
+    }
+    
+    public int getRejected() {
+        return rejected;
+    }
+    
+    public void setRejected(int rejected) {
+        this.rejected = rejected;
+    }
+    
+    public List<BatchTransactionResult> getResults() {
+        return results;
+    }
+    
+    public void setResults(List<BatchTransactionResult> results) {
+        this.results = results;
+    }
+    
+    @Override
+    public String toString() {
+        return "BatchTransactionResponse{" +
+                "accepted=" + accepted +
+                ", rejected=" + rejected +
+                '}';
+    }
+}
@@ -0,0 +1,123 @@
+package com.isa.transaction.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.math.BigDecimal;
+
+@Schema(description = "Result of a single transaction within a batch")
+public class BatchTransactionResult {
+    
+    @JsonProperty("index")
+    @Schema(description = "Position of the transaction in the batch request", example = "0")
+    private int index;
+    
+    @JsonProperty("transactionId")
+    @Schema(description = "Unique identifier assigned to the transaction", example = "txn_1234567890")
+    private String transactionId;
+    
+    @JsonProperty("status")
+    @Schema(description = "Result of the transaction", example = "ACCEPTED", allowableValues = {"ACCEPTED", "REJECTED"})
+    private String status;
+    
+    @JsonProperty("errorCode")
+    @Schema(description = "Error code if the transaction was rejected", example = "INSUFFICIENT_FUNDS")
+    private String errorCode;
+    
+    @JsonProperty("message")
+    @Schema(description = "Human-readable message about the transaction", example = "Transaction applied")
+    private String message;
+    
+    @JsonProperty("newBalance")
+    @Schema(description = "Balance after the transaction (if accepted)", example = "500.75")
+    private BigDecimal newBalance;
+    
+    // Constructors
+    public BatchTransactionResult() {
+    }
+    
+    public BatchTransactionResult(int index, String transactionId, String status, String errorCode, 
+                                  String message, BigDecimal newBalance) {
+        this.index = index;
+        this.transactionId = transactionId;
+        this.status = status;
+        this.errorCode = errorCode;
+        this.message = message;
+        this.newBalance = newBalance;
+    }
+    
+    // Static factory methods for common results
+    public static BatchTransactionResult accepted(int index, String transactionId, BigDecimal newBalance) {
+        return new BatchTransactionResult(index, transactionId, "ACCEPTED", null, "Transaction applied", newBalance);
+    }
+    
+    public static BatchTransactionResult rejected(int index, String transactionId, String errorCode, String message) {
+        return new BatchTransactionResult(index, transactionId, "REJECTED", errorCode, message, null);
+    }
+    
+    // Getters and setters
+    public int getIndex() {
+        return index;
+    }
+    
+    public void setIndex(int index) {
+        this.index = index;
+    }
+    
+    public String getTransactionId() {
+        return transactionId;
+    }
+    
+    public void setTransactionId(String transactionId) {
+        this.transactionId = transactionId;
+    }
+    
+    public String getStatus() {
+        return status;
+    }
+    
+    public void setStatus(String status) {
+        this.status = status;
+    }
+    
+    public String getErrorCode() {
+        return errorCode;
+    }
+    
+    public void setErrorCode(String errorCode) {
+        this.errorCode = errorCode;
+    }
+    
+    public String getMessage() {
+        return message;
+    }
+    
+    public void setMessage(String message) {
+        this.message = message;
+    }
+    
+    public BigDecimal getNewBalance() {
+        return newBalance;
+    }
+    
+    public void setNewBalance(BigDecimal newBalance) {
+        this.newBalance = newBalance;
+    }
+    
+    // Helper methods
+    public boolean isAccepted() {
+        return "ACCEPTED".equals(status);
+    }
+    
+    @Override
+    public String toString() {
+        return "BatchTransactionResult{" +
+                "index=" + index +
+                ", transactionId='" + transactionId + '\'' +
+                ", status='" + status + '\'' +
+                ", errorCode='" + errorCode + '\'' +
+                ", message='" + message + '\'' +
+                ", newBalance=" + newBalance +
+                '}';
+    }
+}
@@ -0,0 +1,154 @@
+package com.isa.transaction.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.LocalDateTime;
+
+@Schema(description = "Progress of a dead letter queue replay")
+public class DeadLetterReplayProgress {
+    
+    @JsonProperty("state")
+    @Schema(description = "IDLE, RUNNING, COMPLETED, STOPPED or FAILED", example = "RUNNING")
+    private String state;
+    
+    @JsonProperty("startedAt")
+    @Schema(description = "Start time of the last run")
+    private LocalDateTime startedAt;
+    
+    @JsonProperty("finishedAt")
+    @Schema(description = "End time of the last run, empty while running")
+    private LocalDateTime finishedAt;
+    
+    @JsonProperty("checkpointId")
+    @Schema(description = "Last dead letter message ID fully processed; a resumed run continues after it", example = "120500")
+    private long checkpointId;
+    
+    @JsonProperty("total")
+    @Schema(description = "Messages in the dead letter queue when the run started", example = "250000")
+    private long total;
+    
+    @JsonProperty("scanned")
+    @Schema(description = "Messages read so far", example = "120000")
+    private long scanned;
+    
+    @JsonProperty("replayed")
+    @Schema(description = "Messages published and deleted from the dead letter queue", example = "119950")
+    private long replayed;
+    
+    @JsonProperty("failed")
+    @Schema(description = "Messages that could not be published or read; they stay in the queue", example = "50")
+    private long failed;
+    
+    @JsonProperty("skipped")
+    @Schema(description = "Messages of topics the replay does not handle", example = "0")
+    private long skipped;
+    
+    @JsonProperty("recordsPerSecond")
+    @Schema(description = "Average replay throughput of the run", example = "500.0")
+    private double recordsPerSecond;
+    
+    @JsonProperty("error")
+    @Schema(description = "Cause of a FAILED run")
+    private String error;
+    
+    // Getters and setters
+    public String getState() {
+        return state;
+    }
+    
+    public void setState(String state) {
+        this.state = state;
+    }
+    
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+    
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+    
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+    
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+    
+    public long getCheckpointId() {
+        return checkpointId;
+    }
+    
+    public void setCheckpointId(long checkpointId) {
+        this.checkpointId = checkpointId;
+    }
+    
+    public long getTotal() {
+        return total;
+    }
+    
+    public void setTotal(long total) {
+        this.total = total;
+    }
+    
+    public long getScanned() {
+        return scanned;
+    }
+    
+    public void setScanned(long scanned) {
+        this.scanned = scanned;
+    }
+    
+    public long getReplayed() {
+        return replayed;
+    }
+    
+    public void setReplayed(long replayed) {
+        this.replayed = replayed;
+    }
+    
+    public long getFailed() {
+        return failed;
+    }
+    
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+    
+    public long getSkipped() {
+        return skipped;
+    }
+    
+    public void setSkipped(long skipped) {
+        this.skipped = skipped;
+    }
+    
+    public double getRecordsPerSecond() {
+        return recordsPerSecond;
+    }
+    
+    public void setRecordsPerSecond(double recordsPerSecond) {
+        this.recordsPerSecond = recordsPerSecond;
+    }
+    
+    public String getError() {
+        return error;
+    }
+    
+    public void setError(String error) {
+        this.error = error;
+    }
+    
+    @Override
+    public String toString() {
+        return "DeadLetterReplayProgress{" +
+                "state='" + state + '\'' +
+                ", checkpointId=" + checkpointId +
+                ", scanned=" + scanned +
+                ", replayed=" + replayed +
+                ", failed=" + failed +
+                '}';
+    }
+}
@@ -0,0 +1,62 @@
+package com.isa.transaction.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * One BALANCE_TRANSACTION row reduced to what a balance replay needs
+ */
+public class LedgerEntry {
+
+    private final long id;
+    private final Long clientId;
+    private final String accountNumber;
+    private final BigDecimal amount;
+    private final BigDecimal balanceBefore;
+    private final BigDecimal balanceAfter;
+
+    public LedgerEntry(Long id, Long clientId, String accountNumber,
+                       BigDecimal amount, BigDecimal balanceBefore, BigDecimal balanceAfter) {
+        this.id = id;
+        this.clientId = clientId;
+        this.accountNumber = accountNumber;
+        this.amount = amount;
+        this.balanceBefore = balanceBefore;
+        this.balanceAfter = balanceAfter;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public Long getClientId() {
+        return clientId;
+    }
+
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public BigDecimal getBalanceBefore() {
+        return balanceBefore;
+    }
+
+    public BigDecimal getBalanceAfter() {
+        return balanceAfter;
+    }
+
+    @Override
+    public String toString() {
+        return "LedgerEntry{" +
+                "id=" + id +
+                ", clientId=" + clientId +
+                ", accountNumber='" + accountNumber + '\'' +
+                ", amount=" + amount +
+                ", balanceBefore=" + balanceBefore +
+                ", balanceAfter=" + balanceAfter +
+                '}';
+    }
+}
@@ -0,0 +1,57 @@
+package com.isa.transaction.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.LocalDate;
+
+@Schema(description = "Monthly partition of the ledger (BALANCE_TRANSACTION)")
+public class LedgerPartition {
+    
+    @JsonProperty("name")
+    @Schema(description = "Partition table name", example = "balance_transaction_p202610")
+    private String name;
+    
+    @JsonProperty("from")
+    @Schema(description = "First day of the partition (inclusive, UTC)", example = "2026-10-01")
+    private LocalDate from;
+    
+    @JsonProperty("to")
+    @Schema(description = "First day after the partition (exclusive, UTC)", example = "2026-11-01")
+    private LocalDate to;
+    
+    // Constructors
+    public LedgerPartition() {
+    }
+    
+    public LedgerPartition(String name, LocalDate from, LocalDate to) {
+        this.name = name;
+        this.from = from;
+        this.to = to;
+    }
+    
+    // Getters and setters
+    public String getName() {
+        return name;
+    }
+    
+    public void setName(String name) {
+        this.name = name;
+    }
+    
+    public LocalDate getFrom() {
+        return from;
+    }
+    
+    public void setFrom(LocalDate from) {
+        this.from = from;
+    }
+    
+    public LocalDate getTo() {
+        return to;
+    }
+    
+    public void setTo(LocalDate to) {
+        this.to = to;
+    }
+}
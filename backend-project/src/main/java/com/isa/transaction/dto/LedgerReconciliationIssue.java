@@ -0,0 +1,109 @@
+package com.isa.transaction.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.math.BigDecimal;
+
+@Schema(description = "Discrepancy found by the ledger reconciliation")
+public class LedgerReconciliationIssue {
+    
+    @JsonProperty("type")
+    @Schema(description = "CHAIN_BREAK, ARITHMETIC or MISMATCH", example = "CHAIN_BREAK")
+    private String type;
+    
+    @JsonProperty("balanceId")
+    @Schema(description = "ID of the balance", example = "40200")
+    private Long balanceId;
+    
+    @JsonProperty("clientIdentification")
+    @Schema(description = "Client identification", example = "12345678")
+    private String clientIdentification;
+    
+    @JsonProperty("accountNumber")
+    @Schema(description = "Account number", example = "ACC001")
+    private String accountNumber;
+    
+    @JsonProperty("transactionRowId")
+    @Schema(description = "Ledger row ID where the issue was found, empty for MISMATCH", example = "118250")
+    private Long transactionRowId;
+    
+    @JsonProperty("expected")
+    @Schema(description = "CHAIN_BREAK: BALANCE_AFTER of the previous row; ARITHMETIC: BALANCE_BEFORE plus AMOUNT; MISMATCH: balance given by the ledger", example = "1500.00")
+    private BigDecimal expected;
+    
+    @JsonProperty("actual")
+    @Schema(description = "CHAIN_BREAK: BALANCE_BEFORE of the row; ARITHMETIC: BALANCE_AFTER of the row; MISMATCH: CURRENT_BALANCE", example = "1450.00")
+    private BigDecimal actual;
+    
+    public LedgerReconciliationIssue() {
+    }
+    
+    public LedgerReconciliationIssue(String type, Long balanceId, String clientIdentification, String accountNumber,
+                                     Long transactionRowId, BigDecimal expected, BigDecimal actual) {
+        this.type = type;
+        this.balanceId = balanceId;
+        this.clientIdentification = clientIdentification;
+        this.accountNumber = accountNumber;
+        this.transactionRowId = transactionRowId;
+        this.expected = expected;
+        this.actual = actual;
+    }
+    
+    // Getters and setters
+    public String getType() {
+        return type;
+    }
+    
+    public void setType(String type) {
+        this.type = type;
+    }
+    
+    public Long getBalanceId() {
+        return balanceId;
+    }
+    
+    public void setBalanceId(Long balanceId) {
+        this.balanceId = balanceId;
+    }
+    
+    public String getClientIdentification() {
+        return clientIdentification;
+    }
+    
+    public void setClientIdentification(String clientIdentification) {
+        this.clientIdentification = clientIdentification;
+    }
+    
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+    
+    public void setAccountNumber(String accountNumber) {
+        this.accountNumber = accountNumber;
+    }
+    
+    public Long getTransactionRowId() {
+        return transactionRowId;
+    }
+    
+    public void setTransactionRowId(Long transactionRowId) {
+        this.transactionRowId = transactionRowId;
+    }
+    
+    public BigDecimal getExpected() {
+        return expected;
+    }
+    
+    public void setExpected(BigDecimal expected) {
+        this.expected = expected;
+    }
+    
+    public BigDecimal getActual() {
+        return actual;
+    }
+    
+    public void setActual(BigDecimal actual) {
+        this.actual = actual;
+    }
+}
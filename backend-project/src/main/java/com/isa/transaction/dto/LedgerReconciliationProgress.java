@@ -0,0 +1,156 @@
+package com.isa.transaction.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Schema(description = "Progress of a ledger reconciliation run")
+public class LedgerReconciliationProgress {
+    
+    @JsonProperty("state")
+    @Schema(description = "IDLE, RUNNING, COMPLETED, STOPPED or FAILED", example = "RUNNING")
+    private String state;
+    
+    @JsonProperty("startedAt")
+    @Schema(description = "Start time of the last run")
+    private LocalDateTime startedAt;
+    
+    @JsonProperty("finishedAt")
+    @Schema(description = "End time of the last run, empty while running")
+    private LocalDateTime finishedAt;
+    
+    @JsonProperty("accounts")
+    @Schema(description = "Accounts verified so far", example = "40200")
+    private long accounts;
+    
+    @JsonProperty("ledgerRows")
+    @Schema(description = "Ledger rows verified so far", example = "3500000")
+    private long ledgerRows;
+    
+    @JsonProperty("chainBreaks")
+    @Schema(description = "Ledger rows whose BALANCE_BEFORE is not the BALANCE_AFTER of the previous row of the account", example = "0")
+    private long chainBreaks;
+    
+    @JsonProperty("arithmeticErrors")
+    @Schema(description = "Ledger rows whose BALANCE_AFTER is not BALANCE_BEFORE plus AMOUNT", example = "0")
+    private long arithmeticErrors;
+    
+    @JsonProperty("mismatches")
+    @Schema(description = "Balances whose CURRENT_BALANCE differs from the ledger", example = "0")
+    private long mismatches;
+    
+    @JsonProperty("rowsPerSecond")
+    @Schema(description = "Average ledger rows verified per second in the run", example = "5000.0")
+    private double rowsPerSecond;
+    
+    @JsonProperty("reportFile")
+    @Schema(description = "NDJSON file with every issue found, one per line", example = "/var/tmp/ledger-reconciliation/ledger-reconciliation-20260101-020000.ndjson")
+    private String reportFile;
+    
+    @JsonProperty("issues")
+    @Schema(description = "First issues found; the report file has all of them")
+    private List<LedgerReconciliationIssue> issues;
+    
+    @JsonProperty("error")
+    @Schema(description = "Cause of a FAILED run")
+    private String error;
+    
+    // Getters and setters
+    public String getState() {
+        return state;
+    }
+    
+    public void setState(String state) {
+        this.state = state;
+    }
+    
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+    
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+    
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+    
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+    
+    public long getAccounts() {
+        return accounts;
+    }
+    
+    public void setAccounts(long accounts) {
+        this.accounts = accounts;
+    }
+    
+    public long getLedgerRows() {
+        return ledgerRows;
+    }
+    
+    public void setLedgerRows(long ledgerRows) {
+        this.ledgerRows = ledgerRows;
+    }
+    
+    public long getChainBreaks() {
+        return chainBreaks;
+    }
+    
+    public void setChainBreaks(long chainBreaks) {
+        this.chainBreaks = chainBreaks;
+    }
+    
+    public long getArithmeticErrors() {
+        return arithmeticErrors;
+    }
+    
+    public void setArithmeticErrors(long arithmeticErrors) {
+        this.arithmeticErrors = arithmeticErrors;
+    }
+    
+    public long getMismatches() {
+        return mismatches;
+    }
+    
+    public void setMismatches(long mismatches) {
+        this.mismatches = mismatches;
+    }
+    
+    public double getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+    
+    public void setRowsPerSecond(double rowsPerSecond) {
+        this.rowsPerSecond = rowsPerSecond;
+    }
+    
+    public String getReportFile() {
+        return reportFile;
+    }
+    
+    public void setReportFile(String reportFile) {
+        this.reportFile = reportFile;
+    }
+    
+    public List<LedgerReconciliationIssue> getIssues() {
+        return issues;
+    }
+    
+    public void setIssues(List<LedgerReconciliationIssue> issues) {
+        this.issues = issues;
+    }
+    
+    public String getError() {
+        return error;
+    }
+    
+    public void setError(String error) {
+        this.error = error;
+    }
+}
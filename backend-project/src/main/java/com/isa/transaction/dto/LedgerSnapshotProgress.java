@@ -0,0 +1,167 @@
+package com.isa.transaction.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.LocalDateTime;
+
+@Schema(description = "Progress of a ledger snapshot or balance rebuild run")
+public class LedgerSnapshotProgress {
+    
+    @JsonProperty("state")
+    @Schema(description = "IDLE, RUNNING, COMPLETED, STOPPED or FAILED", example = "RUNNING")
+    private String state;
+    
+    @JsonProperty("repair")
+    @Schema(description = "Whether balances that differ from the ledger are overwritten", example = "false")
+    private boolean repair;
+    
+    @JsonProperty("startedAt")
+    @Schema(description = "Start time of the last run")
+    private LocalDateTime startedAt;
+    
+    @JsonProperty("finishedAt")
+    @Schema(description = "End time of the last run, empty while running")
+    private LocalDateTime finishedAt;
+    
+    @JsonProperty("accounts")
+    @Schema(description = "Balances checked so far", example = "250000")
+    private long accounts;
+    
+    @JsonProperty("ledgerRows")
+    @Schema(description = "Ledger rows read to bring the snapshots forward", example = "1200000")
+    private long ledgerRows;
+    
+    @JsonProperty("snapshotsWritten")
+    @Schema(description = "Snapshots created or moved forward", example = "180000")
+    private long snapshotsWritten;
+    
+    @JsonProperty("mismatches")
+    @Schema(description = "Balances whose CURRENT_BALANCE differs from the ledger", example = "0")
+    private long mismatches;
+    
+    @JsonProperty("repaired")
+    @Schema(description = "Balances overwritten with the ledger value", example = "0")
+    private long repaired;
+    
+    @JsonProperty("repairConflicts")
+    @Schema(description = "Balances not repaired because they changed during the run", example = "0")
+    private long repairConflicts;
+    
+    @JsonProperty("chainBreaks")
+    @Schema(description = "Accounts whose ledger rows do not chain (BALANCE_BEFORE differs from the previous BALANCE_AFTER)", example = "0")
+    private long chainBreaks;
+    
+    @JsonProperty("accountsPerSecond")
+    @Schema(description = "Average throughput of the run", example = "25000.0")
+    private double accountsPerSecond;
+    
+    @JsonProperty("error")
+    @Schema(description = "Cause of a FAILED run")
+    private String error;
+    
+    // Getters and setters
+    public String getState() {
+        return state;
+    }
+    
+    public void setState(String state) {
+        this.state = state;
+    }
+    
+    public boolean isRepair() {
+        return repair;
+    }
+    
+    public void setRepair(boolean repair) {
+        this.repair = repair;
+    }
+    
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+    
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+    
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+    
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+    
+    public long getAccounts() {
+        return accounts;
+    }
+    
+    public void setAccounts(long accounts) {
+        this.accounts = accounts;
+    }
+    
+    public long getLedgerRows() {
+        return ledgerRows;
+    }
+    
+    public void setLedgerRows(long ledgerRows) {
+        this.ledgerRows = ledgerRows;
+    }
+    
+    public long getSnapshotsWritten() {
+        return snapshotsWritten;
+    }
+    
+    public void setSnapshotsWritten(long snapshotsWritten) {
+        this.snapshotsWritten = snapshotsWritten;
+    }
+    
+    public long getMismatches() {
+        return mismatches;
+    }
+    
+    public void setMismatches(long mismatches) {
+        this.mismatches = mismatches;
+    }
+    
+    public long getRepaired() {
+        return repaired;
+    }
+    
+    public void setRepaired(long repaired) {
+        this.repaired = repaired;
+    }
+    
+    public long getRepairConflicts() {
+        return repairConflicts;
+    }
+    
+    public void setRepairConflicts(long repairConflicts) {
+        this.repairConflicts = repairConflicts;
+    }
+    
+    public long getChainBreaks() {
+        return chainBreaks;
+    }
+    
+    public void setChainBreaks(long chainBreaks) {
+        this.chainBreaks = chainBreaks;
+    }
+    
+    public double getAccountsPerSecond() {
+        return accountsPerSecond;
+    }
+    
+    public void setAccountsPerSecond(double accountsPerSecond) {
+        this.accountsPerSecond = accountsPerSecond;
+    }
+    
+    public String getError() {
+        return error;
+    }
+    
+    public void setError(String error) {
+        this.error = error;
+    }
+}
\ No newline at end of file
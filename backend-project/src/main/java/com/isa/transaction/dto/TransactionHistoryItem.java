@@ -0,0 +1,112 @@
+package com.isa.transaction.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Schema(description = "One applied transaction of an account")
+public class TransactionHistoryItem {
+    
+    // Ledger row ID, only used to build the page cursor
+    @JsonIgnore
+    private Long id;
+    
+    @JsonProperty("transactionId")
+    @Schema(description = "Transaction identifier", example = "txn_1234567890")
+    private String transactionId;
+    
+    @JsonProperty("transactionType")
+    @Schema(description = "CREDIT or DEBIT", example = "CREDIT")
+    private String transactionType;
+    
+    @JsonProperty("amount")
+    @Schema(description = "Signed amount, negative for debits", example = "100.50")
+    private BigDecimal amount;
+    
+    @JsonProperty("balanceBefore")
+    @Schema(description = "Balance before the transaction", example = "1000.00")
+    private BigDecimal balanceBefore;
+    
+    @JsonProperty("balanceAfter")
+    @Schema(description = "Balance after the transaction", example = "1100.50")
+    private BigDecimal balanceAfter;
+    
+    @JsonProperty("createdAt")
+    @Schema(description = "Time the transaction was applied")
+    private LocalDateTime createdAt;
+    
+    // Constructors
+    public TransactionHistoryItem() {
+    }
+    
+    public TransactionHistoryItem(Long id, String transactionId, BigDecimal amount,
+                                  BigDecimal balanceBefore, BigDecimal balanceAfter, LocalDateTime createdAt) {
+        this.id = id;
+        this.transactionId = transactionId;
+        this.transactionType = amount.signum() >= 0 ? "CREDIT" : "DEBIT";
+        this.amount = amount;
+        this.balanceBefore = balanceBefore;
+        this.balanceAfter = balanceAfter;
+        this.createdAt = createdAt;
+    }
+    
+    // Getters and setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public String getTransactionId() {
+        return transactionId;
+    }
+    
+    public void setTransactionId(String transactionId) {
+        this.transactionId = transactionId;
+    }
+    
+    public String getTransactionType() {
+        return transactionType;
+    }
+    
+    public void setTransactionType(String transactionType) {
+        this.transactionType = transactionType;
+    }
+    
+    public BigDecimal getAmount() {
+        return amount;
+    }
+    
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+    
+    public BigDecimal getBalanceBefore() {
+        return balanceBefore;
+    }
+    
+    public void setBalanceBefore(BigDecimal balanceBefore) {
+        this.balanceBefore = balanceBefore;
+    }
+    
+    public BigDecimal getBalanceAfter() {
+        return balanceAfter;
+    }
+    
+    public void setBalanceAfter(BigDecimal balanceAfter) {
+        this.balanceAfter = balanceAfter;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,57 @@
+package com.isa.transaction.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "One page of an account's transaction history, newest first")
+public class TransactionHistoryPage {
+    
+    @JsonProperty("transactions")
+    @Schema(description = "Transactions of the page")
+    private List<TransactionHistoryItem> transactions;
+    
+    @JsonProperty("nextCursor")
+    @Schema(description = "Opaque cursor of the next page, empty on the last page", example = "MjAyNi0xMC0xNlQxMDowMDowMC4xMjN8MTIzNDU")
+    private String nextCursor;
+    
+    @JsonProperty("hasMore")
+    @Schema(description = "Whether older transactions follow", example = "true")
+    private boolean hasMore;
+    
+    // Constructors
+    public TransactionHistoryPage() {
+    }
+    
+    public TransactionHistoryPage(List<TransactionHistoryItem> transactions, String nextCursor) {
+        this.transactions = transactions;
+        this.nextCursor = nextCursor;
+        this.hasMore = nextCursor != null;
+    }
+    
+    // Getters and setters
+    public List<TransactionHistoryItem> getTransactions() {
+        return transactions;
+    }
+    
+    public void setTransactions(List<TransactionHistoryItem> transactions) {
+        this.transactions = transactions;
+    }
+    
+    public String getNextCursor() {
+        return nextCursor;
+    }
+    
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+    
+    public boolean isHasMore() {
+        return hasMore;
+    }
+    
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
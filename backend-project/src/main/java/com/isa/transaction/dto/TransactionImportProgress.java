@@ -0,0 +1,155 @@
+package com.isa.transaction.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.LocalDateTime;
+
+@Schema(description = "Progress of a bulk transaction import from a file")
+public class TransactionImportProgress {
+    
+    @JsonProperty("state")
+    @Schema(description = "IDLE, RUNNING, COMPLETED, STOPPED or FAILED", example = "RUNNING")
+    private String state;
+    
+    @JsonProperty("file")
+    @Schema(description = "File being imported, relative to the import directory", example = "corrections-2026-10.csv")
+    private String file;
+    
+    @JsonProperty("startedAt")
+    @Schema(description = "Start time of the last run")
+    private LocalDateTime startedAt;
+    
+    @JsonProperty("finishedAt")
+    @Schema(description = "End time of the last run, empty while running")
+    private LocalDateTime finishedAt;
+    
+    @JsonProperty("fileBytes")
+    @Schema(description = "Size of the file in bytes")
+    private long fileBytes;
+    
+    @JsonProperty("checkpointOffset")
+    @Schema(description = "Byte offset up to which the file is committed; a resumed import continues here")
+    private long checkpointOffset;
+    
+    @JsonProperty("lines")
+    @Schema(description = "Lines read by this run")
+    private long lines;
+    
+    @JsonProperty("imported")
+    @Schema(description = "Transactions applied by this run")
+    private long imported;
+    
+    @JsonProperty("rejected")
+    @Schema(description = "Lines rejected by this run, invalid or refused by business rules")
+    private long rejected;
+    
+    @JsonProperty("rowsPerSecond")
+    @Schema(description = "Average lines per second of this run")
+    private double rowsPerSecond;
+    
+    @JsonProperty("rejectsFile")
+    @Schema(description = "NDJSON file with the rejected lines")
+    private String rejectsFile;
+    
+    @JsonProperty("error")
+    @Schema(description = "Error that stopped the last import, if any")
+    private String error;
+    
+    // Getters and setters
+    public String getState() {
+        return state;
+    }
+    
+    public void setState(String state) {
+        this.state = state;
+    }
+    
+    public String getFile() {
+        return file;
+    }
+    
+    public void setFile(String file) {
+        this.file = file;
+    }
+    
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+    
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+    
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+    
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+    
+    public long getFileBytes() {
+        return fileBytes;
+    }
+    
+    public void setFileBytes(long fileBytes) {
+        this.fileBytes = fileBytes;
+    }
+    
+    public long getCheckpointOffset() {
+        return checkpointOffset;
+    }
+    
+    public void setCheckpointOffset(long checkpointOffset) {
+        this.checkpointOffset = checkpointOffset;
+    }
+    
+    public long getLines() {
+        return lines;
+    }
+    
+    public void setLines(long lines) {
+        this.lines = lines;
+    }
+    
+    public long getImported() {
+        return imported;
+    }
+    
+    public void setImported(long imported) {
+        this.imported = imported;
+    }
+    
+    public long getRejected() {
+        return rejected;
+    }
+    
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+    
+    public double getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+    
+    public void setRowsPerSecond(double rowsPerSecond) {
+        this.rowsPerSecond = rowsPerSecond;
+    }
+    
+    public String getRejectsFile() {
+        return rejectsFile;
+    }
+    
+    public void setRejectsFile(String rejectsFile) {
+        this.rejectsFile = rejectsFile;
+    }
+    
+    public String getError() {
+        return error;
+    }
+    
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -41,6 +41,14 @@ public class TransactionResponse {
         return new TransactionResponse(transactionId, "IN_PROCESS", customMessage);
     }
     
+    public static TransactionResponse completed(String transactionId) {
+        return new TransactionResponse(transactionId, "COMPLETED", "Transaction has been completed");
+    }
+    
+    public static TransactionResponse failed(String transactionId, String reason) {
+        return new TransactionResponse(transactionId, "FAILED", reason);
+    }
+    
     // Getters and setters
     public String getTransactionId() {
         return transactionId;
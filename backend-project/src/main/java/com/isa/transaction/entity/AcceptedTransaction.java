@@ -0,0 +1,177 @@
+package com.isa.transaction.entity;
+
+import com.isa.transaction.dto.TransactionRequest;
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Transaction request accepted by the asynchronous ingestion path.
+ * The request is stored before the API answers, so it survives a restart until a worker applies it.
+ */
+@Entity
+@Table(name = "ACCEPTED_TRANSACTION", schema = "TESTHTC",
+       indexes = @Index(name = "IDX_ACCEPTED_TRANSACTION_STATUS", columnList = "STATUS, ID"))
+public class AcceptedTransaction {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "accepted_transaction_seq")
+    @SequenceGenerator(name = "accepted_transaction_seq", sequenceName = "ACCEPTED_TRANSACTION_SEQ", schema = "TESTHTC", allocationSize = 50)
+    @Column(name = "ID")
+    private Long id;
+    
+    @Column(name = "TRANSACTION_ID", length = 50, nullable = false, unique = true)
+    private String transactionId;
+    
+    @Column(name = "CLIENT_IDENTIFICATION", length = 50, nullable = false)
+    private String clientIdentification;
+    
+    @Column(name = "ACCOUNT_NUMBER", length = 25, nullable = false)
+    private String accountNumber;
+    
+    @Column(name = "AMOUNT", precision = 15, scale = 2, nullable = false)
+    private BigDecimal amount;
+    
+    @Column(name = "STATUS", length = 20, nullable = false)
+    @Enumerated(EnumType.STRING)
+    private TransactionStatus status;
+    
+    @Column(name = "ERROR_CODE", length = 50)
+    private String errorCode;
+    
+    @Column(name = "ERROR_MESSAGE", columnDefinition = "TEXT")
+    private String errorMessage;
+    
+    @Column(name = "CREATED_AT", nullable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "UPDATED_AT", nullable = false)
+    private LocalDateTime updatedAt;
+    
+    // Constructors
+    public AcceptedTransaction() {
+    }
+    
+    public AcceptedTransaction(String transactionId, TransactionRequest request) {
+        this.transactionId = transactionId;
+        this.clientIdentification = request.getClientIdentification();
+        this.accountNumber = request.getAccountNumber();
+        this.amount = request.getAmount();
+        this.status = TransactionStatus.IN_PROCESS;
+        this.createdAt = LocalDateTime.now();
+        this.updatedAt = this.createdAt;
+    }
+    
+    @PrePersist
+    protected void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+        if (updatedAt == null) {
+            updatedAt = createdAt;
+        }
+    }
+    
+    /**
+     * Rebuild the original request for processing
+     */
+    public TransactionRequest toRequest() {
+        return new TransactionRequest(clientIdentification, accountNumber, amount);
+    }
+    
+    // Getters and setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public String getTransactionId() {
+        return transactionId;
+    }
+    
+    public void setTransactionId(String transactionId) {
+        this.transactionId = transactionId;
+    }
+    
+    public String getClientIdentification() {
+        return clientIdentification;
+    }
+    
+    public void setClientIdentification(String clientIdentification) {
+        this.clientIdentification = clientIdentification;
+    }
+    
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+    
+    public void setAccountNumber(String accountNumber) {
+        this.accountNumber = accountNumber;
+    }
+    
+    public BigDecimal getAmount() {
+        return amount;
+    }
+    
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+    
+    public TransactionStatus getStatus() {
+        return status;
+    }
+    
+    public void setStatus(TransactionStatus status) {
+        this.status = status;
+    }
+    
+    public String getErrorCode() {
+        return errorCode;
+    }
+    
+    public void setErrorCode(String errorCode) {
+        this.errorCode = errorCode;
+    }
+    
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+    
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+    
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+    
+    @Override
+    public String toString() {
+        return "AcceptedTransaction{" +
+                "id=" + id +
+                ", transactionId='" + transactionId + '\'' +
+                ", clientIdentification='" + clientIdentification + '\'' +
+                ", accountNumber='" + accountNumber + '\'' +
+                ", amount=" + amount +
+                ", status=" + status +
+                ", errorCode='" + errorCode + '\'' +
+                ", createdAt=" + createdAt +
+                ", updatedAt=" + updatedAt +
+                '}';
+    }
+}
@@ -0,0 +1,142 @@
+package com.isa.transaction.entity;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Balance of an account as of one ledger row.
+ * SNAPSHOT_BALANCE is the balance after applying every BALANCE_TRANSACTION row of the account
+ * up to and including LAST_TRANSACTION_ID (0 when the account had no ledger rows yet), so the
+ * current balance is SNAPSHOT_BALANCE plus the amounts of the rows after that ID.
+ * There is one row per balance, replaced by each new snapshot.
+ */
+@Entity
+@Table(name = "BALANCE_SNAPSHOT", schema = "TESTHTC")
+public class AccountSnapshot implements Persistable<Long> {
+
+    @Id
+    @Column(name = "BALANCE_ID")
+    private Long balanceId;
+
+    @Column(name = "CLIENT_ID", nullable = false)
+    private Long clientId;
+
+    @Column(name = "ACCOUNT_NUMBER", length = 10, nullable = false)
+    private String accountNumber;
+
+    @Column(name = "SNAPSHOT_BALANCE", precision = 15, scale = 2, nullable = false)
+    private BigDecimal snapshotBalance;
+
+    @Column(name = "LAST_TRANSACTION_ID", nullable = false)
+    private Long lastTransactionId;
+
+    @Column(name = "CREATED_AT", nullable = false)
+    private LocalDateTime createdAt;
+
+    // The ID is the balance ID, so save() must insert new snapshots instead of merging them
+    @Transient
+    private boolean isNew = true;
+
+    // Constructors
+    public AccountSnapshot() {
+    }
+
+    public AccountSnapshot(Long balanceId, Long clientId, String accountNumber,
+                           BigDecimal snapshotBalance, Long lastTransactionId) {
+        this.balanceId = balanceId;
+        this.clientId = clientId;
+        this.accountNumber = accountNumber;
+        this.snapshotBalance = snapshotBalance;
+        this.lastTransactionId = lastTransactionId;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    @PostLoad
+    @PostPersist
+    protected void markNotNew() {
+        isNew = false;
+    }
+
+    /**
+     * Move the snapshot forward to a later ledger row
+     */
+    public void advance(BigDecimal snapshotBalance, Long lastTransactionId) {
+        this.snapshotBalance = snapshotBalance;
+        this.lastTransactionId = lastTransactionId;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    @Override
+    public Long getId() {
+        return balanceId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    // Getters and setters
+    public Long getBalanceId() {
+        return balanceId;
+    }
+
+    public void setBalanceId(Long balanceId) {
+        this.balanceId = balanceId;
+    }
+
+    public Long getClientId() {
+        return clientId;
+    }
+
+    public void setClientId(Long clientId) {
+        this.clientId = clientId;
+    }
+
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    public void setAccountNumber(String accountNumber) {
+        this.accountNumber = accountNumber;
+    }
+
+    public BigDecimal getSnapshotBalance() {
+        return snapshotBalance;
+    }
+
+    public void setSnapshotBalance(BigDecimal snapshotBalance) {
+        this.snapshotBalance = snapshotBalance;
+    }
+
+    public Long getLastTransactionId() {
+        return lastTransactionId;
+    }
+
+    public void setLastTransactionId(Long lastTransactionId) {
+        this.lastTransactionId = lastTransactionId;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    @Override
+    public String toString() {
+        return "AccountSnapshot{" +
+                "balanceId=" + balanceId +
+                ", clientId=" + clientId +
+                ", accountNumber='" + accountNumber + '\'' +
+                ", snapshotBalance=" + snapshotBalance +
+                ", lastTransactionId=" + lastTransactionId +
+                ", createdAt=" + createdAt +
+                '}';
+    }
+}
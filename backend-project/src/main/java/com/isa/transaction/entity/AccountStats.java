@@ -0,0 +1,151 @@
+package com.isa.transaction.entity;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Running totals of the BALANCE_TRANSACTION rows of one account.
+ * TOTAL_CREDITS and TOTAL_DEBITS are the sums of the positive and negative amounts (debits are
+ * negative, as in the ledger), TRANSACTION_COUNT the number of rows and LAST_TRANSACTION_AT the
+ * time of the latest one. The row is created with the balance and updated in the same DB
+ * transaction as every ledger insert; rows for older accounts are built by AccountStatsBackfill.
+ */
+@Entity
+@Table(name = "ACCOUNT_STATS", schema = "TESTHTC",
+       uniqueConstraints = @UniqueConstraint(name = "ACCOUNT_STATS_ACCOUNT_UK", columnNames = {"CLIENT_ID", "ACCOUNT_NUMBER"}))
+public class AccountStats implements Persistable<Long> {
+
+    @Id
+    @Column(name = "BALANCE_ID")
+    private Long balanceId;
+
+    @Column(name = "CLIENT_ID", nullable = false)
+    private Long clientId;
+
+    @Column(name = "ACCOUNT_NUMBER", length = 10, nullable = false)
+    private String accountNumber;
+
+    @Column(name = "TOTAL_CREDITS", precision = 19, scale = 2, nullable = false)
+    private BigDecimal totalCredits;
+
+    @Column(name = "TOTAL_DEBITS", precision = 19, scale = 2, nullable = false)
+    private BigDecimal totalDebits;
+
+    @Column(name = "TRANSACTION_COUNT", nullable = false)
+    private Long transactionCount;
+
+    @Column(name = "LAST_TRANSACTION_AT")
+    private LocalDateTime lastTransactionAt;
+
+    // The ID is the balance ID, so save() must insert new rows instead of merging them
+    @Transient
+    private boolean isNew = true;
+
+    // Constructors
+    public AccountStats() {
+    }
+
+    public AccountStats(Long balanceId, Long clientId, String accountNumber) {
+        this(balanceId, clientId, accountNumber, BigDecimal.ZERO, BigDecimal.ZERO, 0L, null);
+    }
+
+    public AccountStats(Long balanceId, Long clientId, String accountNumber, BigDecimal totalCredits,
+                        BigDecimal totalDebits, Long transactionCount, LocalDateTime lastTransactionAt) {
+        this.balanceId = balanceId;
+        this.clientId = clientId;
+        this.accountNumber = accountNumber;
+        this.totalCredits = totalCredits;
+        this.totalDebits = totalDebits;
+        this.transactionCount = transactionCount;
+        this.lastTransactionAt = lastTransactionAt;
+    }
+
+    @PostLoad
+    @PostPersist
+    protected void markNotNew() {
+        isNew = false;
+    }
+
+    @Override
+    public Long getId() {
+        return balanceId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    // Getters and setters
+    public Long getBalanceId() {
+        return balanceId;
+    }
+
+    public void setBalanceId(Long balanceId) {
+        this.balanceId = balanceId;
+    }
+
+    public Long getClientId() {
+        return clientId;
+    }
+
+    public void setClientId(Long clientId) {
+        this.clientId = clientId;
+    }
+
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    public void setAccountNumber(String accountNumber) {
+        this.accountNumber = accountNumber;
+    }
+
+    public BigDecimal getTotalCredits() {
+        return totalCredits;
+    }
+
+    public void setTotalCredits(BigDecimal totalCredits) {
+        this.totalCredits = totalCredits;
+    }
+
+    public BigDecimal getTotalDebits() {
+        return totalDebits;
+    }
+
+    public void setTotalDebits(BigDecimal totalDebits) {
+        this.totalDebits = totalDebits;
+    }
+
+    public Long getTransactionCount() {
+        return transactionCount;
+    }
+
+    public void setTransactionCount(Long transactionCount) {
+        this.transactionCount = transactionCount;
+    }
+
+    public LocalDateTime getLastTransactionAt() {
+        return lastTransactionAt;
+    }
+
+    public void setLastTransactionAt(LocalDateTime lastTransactionAt) {
+        this.lastTransactionAt = lastTransactionAt;
+    }
+
+    @Override
+    public String toString() {
+        return "AccountStats{" +
+                "balanceId=" + balanceId +
+                ", clientId=" + clientId +
+                ", accountNumber='" + accountNumber + '\'' +
+                ", totalCredits=" + totalCredits +
+                ", totalDebits=" + totalDebits +
+                ", transactionCount=" + transactionCount +
+                ", lastTransactionAt=" + lastTransactionAt +
+                '}';
+    }
+}
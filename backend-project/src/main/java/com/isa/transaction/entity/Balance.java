@@ -11,7 +11,8 @@ import java.time.LocalDateTime;
 public class Balance {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "balance_seq")
+    @SequenceGenerator(name = "balance_seq", sequenceName = "BALANCE_SEQ", schema = "TESTHTC", allocationSize = 50)
     @Column(name = "ID")
     private Long id;
     
@@ -31,6 +32,11 @@ public class Balance {
     @JoinColumn(name = "CLIENT_ID", nullable = false)
     private Client client;
     
+    // Optimistic locking version, incremented on every balance update
+    @Version
+    @Column(name = "VERSION", nullable = false, columnDefinition = "BIGINT DEFAULT 0")
+    private Long version;
+    
     // Note: Transactions are now queried via ClientId + AccountNumber
     
     // Constructors
@@ -111,6 +117,14 @@ public class Balance {
         this.client = client;
     }
     
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
     // Transactions getters removed - use TransactionService.getTransactionHistory() instead
     
     @Override
@@ -120,6 +134,7 @@ public class Balance {
                 ", createdAt=" + createdAt +
                 ", accountNumber='" + accountNumber + '\'' +
                 ", currentBalance=" + currentBalance +
+                ", version=" + version +
                 ", clientId=" + (client != null ? client.getId() : null) +
                 '}';
     }
@@ -9,11 +9,16 @@ enum TransactionType {
 }
 
 @Entity
-@Table(name = "BALANCE_TRANSACTION", schema = "TESTHTC")
+@Table(name = "BALANCE_TRANSACTION", schema = "TESTHTC",
+       indexes = {
+           @Index(name = "BALANCE_TRANSACTION_ACCOUNT_IDX", columnList = "CLIENT_ID, ACCOUNT_NUMBER, ID"),
+           @Index(name = "BALANCE_TRANSACTION_HISTORY_IDX", columnList = "CLIENT_ID, ACCOUNT_NUMBER, CREATED_AT, ID")
+       })
 public class BalanceTransaction {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "balance_transaction_seq")
+    @SequenceGenerator(name = "balance_transaction_seq", sequenceName = "BALANCE_TRANSACTION_SEQ", schema = "TESTHTC", allocationSize = 50)
     @Column(name = "ID")
     private Long id;
     
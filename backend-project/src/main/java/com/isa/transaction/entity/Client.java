@@ -9,7 +9,8 @@ import java.util.List;
 public class Client {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "client_seq")
+    @SequenceGenerator(name = "client_seq", sequenceName = "CLIENT_SEQ", schema = "TESTHTC", allocationSize = 50)
     @Column(name = "ID")
     private Long id;
     
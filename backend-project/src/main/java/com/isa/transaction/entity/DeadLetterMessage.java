@@ -8,7 +8,8 @@ import java.time.LocalDateTime;
 public class DeadLetterMessage {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "dead_letter_messages_seq")
+    @SequenceGenerator(name = "dead_letter_messages_seq", sequenceName = "DEAD_LETTER_MESSAGES_SEQ", schema = "TESTHTC", allocationSize = 50)
     @Column(name = "ID")
     private Long id;
     
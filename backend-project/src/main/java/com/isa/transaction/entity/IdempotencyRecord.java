@@ -0,0 +1,140 @@
+package com.isa.transaction.entity;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outcome of a POST /api/transactions request sent with an Idempotency-Key header.
+ * The row is inserted before the transaction runs (the key is the primary key, so only one
+ * request can claim it) and completed with the response once it has run; COMPLETED_AT is null
+ * while the original request is still in flight.
+ */
+@Entity
+@Table(name = "IDEMPOTENCY_KEY", schema = "TESTHTC")
+public class IdempotencyRecord implements Persistable<String> {
+    
+    @Id
+    @Column(name = "IDEMPOTENCY_KEY", length = 100)
+    private String idempotencyKey;
+    
+    @Column(name = "REQUEST_HASH", length = 64, nullable = false)
+    private String requestHash;
+    
+    @Column(name = "TRANSACTION_ID", length = 50)
+    private String transactionId;
+    
+    @Column(name = "RESPONSE_STATUS", length = 20)
+    private String responseStatus;
+    
+    @Column(name = "RESPONSE_MESSAGE", length = 255)
+    private String responseMessage;
+    
+    @Column(name = "CREATED_AT", nullable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "COMPLETED_AT")
+    private LocalDateTime completedAt;
+    
+    // The key is assigned by the client, so save() must insert (and fail on a duplicate) instead of merging
+    @Transient
+    private boolean isNew = true;
+    
+    // Constructors
+    public IdempotencyRecord() {
+    }
+    
+    public IdempotencyRecord(String idempotencyKey, String requestHash) {
+        this.idempotencyKey = idempotencyKey;
+        this.requestHash = requestHash;
+        this.createdAt = LocalDateTime.now();
+    }
+    
+    @PostLoad
+    @PostPersist
+    protected void markNotNew() {
+        isNew = false;
+    }
+    
+    @Override
+    public String getId() {
+        return idempotencyKey;
+    }
+    
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+    
+    public boolean isCompleted() {
+        return completedAt != null;
+    }
+    
+    // Getters and setters
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+    
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+    
+    public String getRequestHash() {
+        return requestHash;
+    }
+    
+    public void setRequestHash(String requestHash) {
+        this.requestHash = requestHash;
+    }
+    
+    public String getTransactionId() {
+        return transactionId;
+    }
+    
+    public void setTransactionId(String transactionId) {
+        this.transactionId = transactionId;
+    }
+    
+    public String getResponseStatus() {
+        return responseStatus;
+    }
+    
+    public void setResponseStatus(String responseStatus) {
+        this.responseStatus = responseStatus;
+    }
+    
+    public String getResponseMessage() {
+        return responseMessage;
+    }
+    
+    public void setResponseMessage(String responseMessage) {
+        this.responseMessage = responseMessage;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+    
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+    
+    public void setCompletedAt(LocalDateTime completedAt) {
+        this.completedAt = completedAt;
+    }
+    
+    @Override
+    public String toString() {
+        return "IdempotencyRecord{" +
+                "idempotencyKey='" + idempotencyKey + '\'' +
+                ", transactionId='" + transactionId + '\'' +
+                ", responseStatus='" + responseStatus + '\'' +
+                ", completedAt=" + completedAt +
+                '}';
+    }
+}
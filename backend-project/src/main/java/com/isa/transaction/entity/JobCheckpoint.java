@@ -0,0 +1,74 @@
+package com.isa.transaction.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Resume point of a long-running background job.
+ * Jobs that walk a table by keyset store the last ID they finished, so a restarted job
+ * continues from there instead of starting over.
+ */
+@Entity
+@Table(name = "JOB_CHECKPOINT", schema = "TESTHTC")
+public class JobCheckpoint {
+    
+    @Id
+    @Column(name = "JOB_NAME", length = 100)
+    private String jobName;
+    
+    @Column(name = "LAST_ID", nullable = false)
+    private Long lastId;
+    
+    @Column(name = "UPDATED_AT", nullable = false)
+    private LocalDateTime updatedAt;
+    
+    // Constructors
+    public JobCheckpoint() {
+    }
+    
+    public JobCheckpoint(String jobName, Long lastId) {
+        this.jobName = jobName;
+        this.lastId = lastId;
+        this.updatedAt = LocalDateTime.now();
+    }
+    
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        updatedAt = LocalDateTime.now();
+    }
+    
+    // Getters and setters
+    public String getJobName() {
+        return jobName;
+    }
+    
+    public void setJobName(String jobName) {
+        this.jobName = jobName;
+    }
+    
+    public Long getLastId() {
+        return lastId;
+    }
+    
+    public void setLastId(Long lastId) {
+        this.lastId = lastId;
+    }
+    
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+    
+    @Override
+    public String toString() {
+        return "JobCheckpoint{" +
+                "jobName='" + jobName + '\'' +
+                ", lastId=" + lastId +
+                ", updatedAt=" + updatedAt +
+                '}';
+    }
+}
@@ -0,0 +1,113 @@
+package com.isa.transaction.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Event waiting to be published to Kafka.
+ * Written in the same DB transaction as the change it describes, so only committed
+ * changes are published; the OutboxRelay sends the rows and deletes them once handed off.
+ * CLAIMED_UNTIL is the lease of the relay sending the row; until it expires no other relay picks it up.
+ */
+@Entity
+@Table(name = "OUTBOX", schema = "TESTHTC")
+public class OutboxEvent {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_seq")
+    @SequenceGenerator(name = "outbox_seq", sequenceName = "OUTBOX_SEQ", schema = "TESTHTC", allocationSize = 50)
+    @Column(name = "ID")
+    private Long id;
+    
+    @Column(name = "TOPIC", length = 100, nullable = false)
+    private String topic;
+    
+    @Column(name = "EVENT_KEY", length = 50, nullable = false)
+    private String eventKey;
+    
+    @Column(name = "PAYLOAD", columnDefinition = "TEXT", nullable = false)
+    private String payload;
+    
+    @Column(name = "CREATED_AT", nullable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "CLAIMED_UNTIL")
+    private LocalDateTime claimedUntil;
+    
+    // Constructors
+    public OutboxEvent() {
+    }
+    
+    public OutboxEvent(String topic, String eventKey, String payload) {
+        this.topic = topic;
+        this.eventKey = eventKey;
+        this.payload = payload;
+        this.createdAt = LocalDateTime.now();
+    }
+    
+    @PrePersist
+    protected void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
+    
+    // Getters and setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public String getTopic() {
+        return topic;
+    }
+    
+    public void setTopic(String topic) {
+        this.topic = topic;
+    }
+    
+    public String getEventKey() {
+        return eventKey;
+    }
+    
+    public void setEventKey(String eventKey) {
+        this.eventKey = eventKey;
+    }
+    
+    public String getPayload() {
+        return payload;
+    }
+    
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+    
+    public LocalDateTime getClaimedUntil() {
+        return claimedUntil;
+    }
+    
+    public void setClaimedUntil(LocalDateTime claimedUntil) {
+        this.claimedUntil = claimedUntil;
+    }
+    
+    @Override
+    public String toString() {
+        return "OutboxEvent{" +
+                "id=" + id +
+                ", topic='" + topic + '\'' +
+                ", eventKey='" + eventKey + '\'' +
+                ", createdAt=" + createdAt +
+                '}';
+    }
+}
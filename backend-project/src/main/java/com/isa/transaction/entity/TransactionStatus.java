@@ -0,0 +1,8 @@
+package com.isa.transaction.entity;
+
+/**
+ * Processing status of an accepted transaction
+ */
+public enum TransactionStatus {
+    IN_PROCESS, COMPLETED, FAILED
+}
@@ -0,0 +1,41 @@
+package com.isa.transaction.repository;
+
+import com.isa.transaction.entity.AcceptedTransaction;
+import com.isa.transaction.entity.TransactionStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface AcceptedTransactionRepository extends JpaRepository<AcceptedTransaction, Long> {
+    
+    /**
+     * Find an accepted transaction by its public transaction ID
+     */
+    Optional<AcceptedTransaction> findByTransactionId(String transactionId);
+    
+    /**
+     * Find transactions still waiting for a worker, oldest first
+     * Used to recover requests accepted before a restart or dropped from a full worker queue
+     */
+    List<AcceptedTransaction> findByStatusAndCreatedAtBeforeOrderByIdAsc(TransactionStatus status, LocalDateTime createdBefore, Pageable pageable);
+    
+    /**
+     * Move a transaction out of IN_PROCESS
+     * The conditional update locks the row, so only one worker can claim the transaction
+     * 
+     * @return 1 if the transaction was still in process, 0 if another worker already finished it
+     */
+    @Modifying
+    @Query("UPDATE AcceptedTransaction a SET a.status = :status, a.errorCode = :errorCode, a.errorMessage = :errorMessage, " +
+           "a.updatedAt = CURRENT_TIMESTAMP WHERE a.id = :id AND a.status = com.isa.transaction.entity.TransactionStatus.IN_PROCESS")
+    int finishIfInProcess(@Param("id") Long id, @Param("status") TransactionStatus status,
+                          @Param("errorCode") String errorCode, @Param("errorMessage") String errorMessage);
+}
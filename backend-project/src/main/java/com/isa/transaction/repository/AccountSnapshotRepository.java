@@ -0,0 +1,9 @@
+package com.isa.transaction.repository;
+
+import com.isa.transaction.entity.AccountSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface AccountSnapshotRepository extends JpaRepository<AccountSnapshot, Long> {
+}
@@ -0,0 +1,35 @@
+package com.isa.transaction.repository;
+
+import com.isa.transaction.entity.AccountStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+@Repository
+public interface AccountStatsRepository extends JpaRepository<AccountStats, Long> {
+
+    /**
+     * Add ledger rows to the totals of an account in a single statement.
+     * Pending changes are flushed first, so the balance row is already locked by this DB transaction
+     * and the backfill of the same account cannot interleave.
+     * Returns the number of updated rows (0 when the account has no stats row yet).
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE AccountStats s SET s.totalCredits = s.totalCredits + :credits, s.totalDebits = s.totalDebits + :debits, " +
+           "s.transactionCount = s.transactionCount + :count, s.lastTransactionAt = :lastTransactionAt WHERE s.balanceId = :balanceId")
+    int addTransactions(@Param("balanceId") Long balanceId, @Param("credits") BigDecimal credits, @Param("debits") BigDecimal debits,
+                        @Param("count") long count, @Param("lastTransactionAt") LocalDateTime lastTransactionAt);
+
+    /**
+     * Delete the stats rows of the given balances
+     */
+    @Modifying
+    @Query("DELETE FROM AccountStats s WHERE s.balanceId IN :balanceIds")
+    int deleteByBalanceIdIn(@Param("balanceIds") Collection<Long> balanceIds);
+}
@@ -1,17 +1,30 @@
 package com.isa.transaction.repository;
 
+import com.isa.transaction.dto.BalanceSnapshot;
 import com.isa.transaction.entity.Balance;
 import com.isa.transaction.entity.Client;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
-public interface BalanceRepository extends JpaRepository<Balance, Long> {
+public interface BalanceRepository extends JpaRepository<Balance, Long>, BalanceRepositoryCustom {
     
     /**
      * Find a balance by client ID and account number
@@ -23,6 +36,96 @@ public interface BalanceRepository extends JpaRepository<Balance, Long> {
      */
     Optional<Balance> findByClientAndAccountNumber(Client client, String accountNumber);
     
+    /**
+     * Find a balance by client and account number, locking the row (SELECT ... FOR UPDATE)
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Balance b WHERE b.client = :client AND b.accountNumber = :accountNumber")
+    Optional<Balance> findByClientAndAccountNumberForUpdate(@Param("client") Client client, @Param("accountNumber") String accountNumber);
+    
+    /**
+     * Find a balance by ID, locking the row (SELECT ... FOR UPDATE)
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Balance b WHERE b.id = :id")
+    Optional<Balance> findByIdForUpdate(@Param("id") Long id);
+    
+    /**
+     * IDs of the balances for the given clients and account numbers as [id, clientId, accountNumber], without locking.
+     * Matches every combination of the two lists; callers keep the pairs they need.
+     */
+    @Query("SELECT b.id, b.client.id, b.accountNumber FROM Balance b WHERE b.client.id IN :clientIds AND b.accountNumber IN :accountNumbers")
+    List<Object[]> findIdsByClientIdInAndAccountNumberIn(@Param("clientIds") Collection<Long> clientIds, 
+                                                         @Param("accountNumbers") Collection<String> accountNumbers);
+    
+    /**
+     * Lock the balances with the given IDs in one statement.
+     * Rows are locked in ID order so concurrent batches cannot deadlock each other.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Balance b WHERE b.id IN :ids ORDER BY b.id")
+    List<Balance> findAllByIdInForUpdate(@Param("ids") Collection<Long> ids);
+    
+    /**
+     * Add an amount to a balance in a single statement, only if the resulting balance is not negative.
+     * Returns the number of updated rows (0 when funds are insufficient).
+     */
+    @Modifying
+    @Query("UPDATE Balance b SET b.currentBalance = b.currentBalance + :amount, b.version = b.version + 1, " +
+           "b.updatedAt = CURRENT_TIMESTAMP WHERE b.id = :id AND b.currentBalance + :amount >= 0")
+    int applyAmountIfSufficientFunds(@Param("id") Long id, @Param("amount") BigDecimal amount);
+    
+    /**
+     * Read the current balance amount directly from the database, bypassing the persistence context
+     */
+    @Query("SELECT b.currentBalance FROM Balance b WHERE b.id = :id")
+    BigDecimal findCurrentBalanceById(@Param("id") Long id);
+    
+    /**
+     * Read the current balance amount and row version directly from the database
+     */
+    @Query("SELECT new com.isa.transaction.dto.BalanceSnapshot(b.currentBalance, b.version) FROM Balance b WHERE b.id = :id")
+    BalanceSnapshot findSnapshotById(@Param("id") Long id);
+    
+    /**
+     * Overwrite a balance amount, only if the row still has the given version.
+     * Returns the number of updated rows (0 when the balance changed meanwhile).
+     */
+    @Modifying
+    @Query("UPDATE Balance b SET b.currentBalance = :amount, b.version = b.version + 1, " +
+           "b.updatedAt = CURRENT_TIMESTAMP WHERE b.id = :id AND b.version = :version")
+    int restoreBalance(@Param("id") Long id, @Param("version") Long version, @Param("amount") BigDecimal amount);
+    
+    /**
+     * Balances with IDs in (afterId, toId], in ID order, as
+     * [id, clientId, clientIdentification, accountNumber, currentBalance, version]
+     */
+    @QueryHints(@QueryHint(name = HINT_READ_ONLY, value = "true"))
+    @Query("SELECT b.id, c.id, c.clientIdentification, b.accountNumber, b.currentBalance, b.version " +
+           "FROM Balance b JOIN b.client c WHERE b.id > :afterId AND b.id <= :toId ORDER BY b.id")
+    List<Object[]> findAccountsInRange(@Param("afterId") long afterId, @Param("toId") long toId, Pageable pageable);
+    
+    /**
+     * Next balances after the given ID, in ID order, locking the rows (SELECT ... FOR UPDATE)
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Balance b WHERE b.id > :afterId ORDER BY b.id")
+    List<Balance> findPageAfterIdForUpdate(@Param("afterId") long afterId, Pageable pageable);
+    
+    @Query("SELECT MIN(b.id) FROM Balance b")
+    Long findMinId();
+    
+    @Query("SELECT MAX(b.id) FROM Balance b")
+    Long findMaxId();
+    
+    /**
+     * Stream the client identification and account number of every balance as [identification, account] pairs;
+     * must be consumed inside a transaction
+     */
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "10000"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("SELECT c.clientIdentification, b.accountNumber FROM Balance b JOIN b.client c")
+    Stream<Object[]> streamAllAccountKeys();
+    
     /**
      * Find all balances for a specific client
      */
@@ -0,0 +1,21 @@
+package com.isa.transaction.repository;
+
+import com.isa.transaction.entity.Balance;
+
+import java.util.Optional;
+
+/**
+ * Balance writes that need SQL beyond what derived queries offer
+ */
+public interface BalanceRepositoryCustom {
+    
+    /**
+     * Insert a balance unless its client already has the account number, without failing on CLIENT_ACCOUNT_UK.
+     * On PostgreSQL this is one INSERT ... ON CONFLICT DO NOTHING RETURNING statement; other databases
+     * fall back to persist(), where a concurrent insert still fails at flush.
+     *
+     * @return the inserted balance, managed by the persistence context, or empty if another transaction
+     *         opened the same account first
+     */
+    Optional<Balance> insertIfAbsent(Balance balance);
+}
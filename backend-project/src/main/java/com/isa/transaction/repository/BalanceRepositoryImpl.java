@@ -0,0 +1,47 @@
+package com.isa.transaction.repository;
+
+import com.isa.transaction.entity.Balance;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Implementation of the BalanceRepositoryCustom fragment
+ */
+public class BalanceRepositoryImpl implements BalanceRepositoryCustom {
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    private volatile Boolean insertOnConflict;
+    
+    @Override
+    public Optional<Balance> insertIfAbsent(Balance balance) {
+        if (!insertOnConflict()) {
+            entityManager.persist(balance);
+            return Optional.of(balance);
+        }
+        // RETURNING maps the new row into a managed entity; no row comes back on conflict
+        List<?> inserted = entityManager.createNativeQuery(
+                "INSERT INTO TESTHTC.BALANCE (ID, CREATED_AT, UPDATED_AT, ACCOUNT_NUMBER, CURRENT_BALANCE, CLIENT_ID, VERSION) " +
+                "VALUES (:id, :createdAt, :updatedAt, :accountNumber, :currentBalance, :clientId, 0) " +
+                "ON CONFLICT (ACCOUNT_NUMBER, CLIENT_ID) DO NOTHING RETURNING *", Balance.class)
+                .setParameter("id", UpsertSupport.nextId(entityManager, balance))
+                .setParameter("createdAt", balance.getCreatedAt())
+                .setParameter("updatedAt", balance.getUpdatedAt())
+                .setParameter("accountNumber", balance.getAccountNumber())
+                .setParameter("currentBalance", balance.getCurrentBalance())
+                .setParameter("clientId", balance.getClient().getId())
+                .getResultList();
+        return inserted.isEmpty() ? Optional.empty() : Optional.of((Balance) inserted.get(0));
+    }
+    
+    private boolean insertOnConflict() {
+        if (insertOnConflict == null) {
+            insertOnConflict = UpsertSupport.supportsInsertOnConflict(entityManager);
+        }
+        return insertOnConflict;
+    }
+}
@@ -1,19 +1,29 @@
 package com.isa.transaction.repository;
 
+import com.isa.transaction.dto.LedgerEntry;
+import com.isa.transaction.dto.TransactionHistoryItem;
+import com.isa.transaction.entity.AccountStats;
 import com.isa.transaction.entity.BalanceTransaction;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
-public interface BalanceTransactionRepository extends JpaRepository<BalanceTransaction, Long> {
+public interface BalanceTransactionRepository extends JpaRepository<BalanceTransaction, Long>, BalanceTransactionRepositoryCustom {
     
     /**
      * Find all transactions for a specific client and account
@@ -59,19 +69,150 @@ public interface BalanceTransactionRepository extends JpaRepository<BalanceTrans
     List<BalanceTransaction> findDebitTransactionsByClientAndAccount(@Param("clientId") Long clientId, @Param("accountNumber") String accountNumber);
     
     /**
-     * Get total credit amount for a client and account
+     * Get total credit amount for a client and account, from ACCOUNT_STATS when the account has a stats row
+     */
+    default BigDecimal getTotalCreditsByClientAndAccount(Long clientId, String accountNumber) {
+        return findAccountStats(clientId, accountNumber).map(AccountStats::getTotalCredits)
+                .orElseGet(() -> sumCreditsByClientAndAccount(clientId, accountNumber));
+    }
+    
+    /**
+     * Get total debit amount for a client and account, from ACCOUNT_STATS when the account has a stats row
+     */
+    default BigDecimal getTotalDebitsByClientAndAccount(Long clientId, String accountNumber) {
+        return findAccountStats(clientId, accountNumber).map(AccountStats::getTotalDebits)
+                .orElseGet(() -> sumDebitsByClientAndAccount(clientId, accountNumber));
+    }
+    
+    /**
+     * Running totals of an account, maintained with every ledger insert
+     */
+    @Query("SELECT s FROM AccountStats s WHERE s.clientId = :clientId AND s.accountNumber = :accountNumber")
+    Optional<AccountStats> findAccountStats(@Param("clientId") Long clientId, @Param("accountNumber") String accountNumber);
+    
+    /**
+     * Sum the credits of an account over its whole history
      */
     @Query("SELECT COALESCE(SUM(bt.amount), 0) FROM BalanceTransaction bt WHERE bt.clientId = :clientId AND bt.accountNumber = :accountNumber AND bt.transactionType = 'CREDIT'")
-    BigDecimal getTotalCreditsByClientAndAccount(@Param("clientId") Long clientId, @Param("accountNumber") String accountNumber);
+    BigDecimal sumCreditsByClientAndAccount(@Param("clientId") Long clientId, @Param("accountNumber") String accountNumber);
     
     /**
-     * Get total debit amount for a client and account
+     * Sum the debits of an account over its whole history
      */
     @Query("SELECT COALESCE(SUM(bt.amount), 0) FROM BalanceTransaction bt WHERE bt.clientId = :clientId AND bt.accountNumber = :accountNumber AND bt.transactionType = 'DEBIT'")
-    BigDecimal getTotalDebitsByClientAndAccount(@Param("clientId") Long clientId, @Param("accountNumber") String accountNumber);
+    BigDecimal sumDebitsByClientAndAccount(@Param("clientId") Long clientId, @Param("accountNumber") String accountNumber);
+    
+    /**
+     * First page of an account's history, newest first
+     */
+    @Query("SELECT new com.isa.transaction.dto.TransactionHistoryItem(bt.id, bt.transactionId, bt.amount, bt.balanceBefore, bt.balanceAfter, bt.createdAt) " +
+           "FROM BalanceTransaction bt WHERE bt.clientId = :clientId AND bt.accountNumber = :accountNumber " +
+           "ORDER BY bt.createdAt DESC, bt.id DESC")
+    List<TransactionHistoryItem> findHistoryPage(@Param("clientId") Long clientId, @Param("accountNumber") String accountNumber,
+                                                 Pageable pageable);
+    
+    /**
+     * Page of an account's history that follows the row (createdAt, id), newest first.
+     * Keyset pagination: the redundant createdAt <= bound lets the (CLIENT_ID, ACCOUNT_NUMBER, CREATED_AT, ID)
+     * index start at the cursor, so every page costs the same however deep it is.
+     */
+    @Query("SELECT new com.isa.transaction.dto.TransactionHistoryItem(bt.id, bt.transactionId, bt.amount, bt.balanceBefore, bt.balanceAfter, bt.createdAt) " +
+           "FROM BalanceTransaction bt WHERE bt.clientId = :clientId AND bt.accountNumber = :accountNumber " +
+           "AND bt.createdAt <= :createdAt AND (bt.createdAt < :createdAt OR bt.id < :id) " +
+           "ORDER BY bt.createdAt DESC, bt.id DESC")
+    List<TransactionHistoryItem> findHistoryPageBefore(@Param("clientId") Long clientId, @Param("accountNumber") String accountNumber,
+                                                       @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id,
+                                                       Pageable pageable);
+    
+    /**
+     * Find the transactions of an account created in [from, to), newest first.
+     * The half-open range lets a table partitioned by month on CREATED_AT scan only the partitions it overlaps.
+     */
+    @Query("SELECT bt FROM BalanceTransaction bt WHERE bt.clientId = :clientId AND bt.accountNumber = :accountNumber " +
+           "AND bt.createdAt >= :from AND bt.createdAt < :to ORDER BY bt.createdAt DESC, bt.id DESC")
+    List<BalanceTransaction> findAccountHistory(@Param("clientId") Long clientId, @Param("accountNumber") String accountNumber,
+                                                @Param("from") LocalDateTime from, @Param("to") LocalDateTime to, Pageable pageable);
+    
+    /**
+     * Get total credit amount for a client and account created in [from, to)
+     */
+    @Query("SELECT COALESCE(SUM(bt.amount), 0) FROM BalanceTransaction bt WHERE bt.clientId = :clientId AND bt.accountNumber = :accountNumber " +
+           "AND bt.transactionType = 'CREDIT' AND bt.createdAt >= :from AND bt.createdAt < :to")
+    BigDecimal getTotalCreditsByClientAndAccountBetween(@Param("clientId") Long clientId, @Param("accountNumber") String accountNumber,
+                                                        @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+    
+    /**
+     * Get total debit amount for a client and account created in [from, to)
+     */
+    @Query("SELECT COALESCE(SUM(bt.amount), 0) FROM BalanceTransaction bt WHERE bt.clientId = :clientId AND bt.accountNumber = :accountNumber " +
+           "AND bt.transactionType = 'DEBIT' AND bt.createdAt >= :from AND bt.createdAt < :to")
+    BigDecimal getTotalDebitsByClientAndAccountBetween(@Param("clientId") Long clientId, @Param("accountNumber") String accountNumber,
+                                                       @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+    
+    /**
+     * Ledger rows of an account after the given row ID, in ID order
+     */
+    @Query("SELECT new com.isa.transaction.dto.LedgerEntry(bt.id, bt.clientId, bt.accountNumber, bt.amount, bt.balanceBefore, bt.balanceAfter) " +
+           "FROM BalanceTransaction bt WHERE bt.clientId = :clientId AND bt.accountNumber = :accountNumber AND bt.id > :afterId ORDER BY bt.id")
+    List<LedgerEntry> findLedgerTail(@Param("clientId") Long clientId, @Param("accountNumber") String accountNumber,
+                                     @Param("afterId") long afterId);
+    
+    /**
+     * Ledger rows of all accounts of the given clients after the given row ID, in ID order
+     */
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("SELECT new com.isa.transaction.dto.LedgerEntry(bt.id, bt.clientId, bt.accountNumber, bt.amount, bt.balanceBefore, bt.balanceAfter) " +
+           "FROM BalanceTransaction bt WHERE bt.clientId IN :clientIds AND bt.id > :afterId ORDER BY bt.id")
+    List<LedgerEntry> findLedgerTails(@Param("clientIds") Collection<Long> clientIds, @Param("afterId") long afterId);
+    
+    /**
+     * Page of the ledger rows of an account after the given row ID, in ID order, read through the
+     * (CLIENT_ID, ACCOUNT_NUMBER, ID) index
+     */
+    @QueryHints(@QueryHint(name = HINT_READ_ONLY, value = "true"))
+    @Query("SELECT new com.isa.transaction.dto.LedgerEntry(bt.id, bt.clientId, bt.accountNumber, bt.amount, bt.balanceBefore, bt.balanceAfter) " +
+           "FROM BalanceTransaction bt WHERE bt.clientId = :clientId AND bt.accountNumber = :accountNumber AND bt.id > :afterId ORDER BY bt.id")
+    List<LedgerEntry> findLedgerPage(@Param("clientId") Long clientId, @Param("accountNumber") String accountNumber,
+                                     @Param("afterId") long afterId, Pageable pageable);
+    
+    /**
+     * Ledger totals of every account of the given clients as [clientId, accountNumber, first row ID, last row ID, sum of amounts, row count]
+     */
+    @Query("SELECT bt.clientId, bt.accountNumber, MIN(bt.id), MAX(bt.id), SUM(bt.amount), COUNT(bt) FROM BalanceTransaction bt " +
+           "WHERE bt.clientId IN :clientIds GROUP BY bt.clientId, bt.accountNumber")
+    List<Object[]> summarizeLedgers(@Param("clientIds") Collection<Long> clientIds);
+    
+    /**
+     * Stats of every account of the given clients as
+     * [clientId, accountNumber, total credits, total debits, row count, last CREATED_AT]
+     */
+    @Query("SELECT bt.clientId, bt.accountNumber, SUM(CASE WHEN bt.amount >= 0 THEN bt.amount ELSE 0 END), " +
+           "SUM(CASE WHEN bt.amount < 0 THEN bt.amount ELSE 0 END), COUNT(bt), MAX(bt.createdAt) FROM BalanceTransaction bt " +
+           "WHERE bt.clientId IN :clientIds GROUP BY bt.clientId, bt.accountNumber")
+    List<Object[]> summarizeAccountStats(@Param("clientIds") Collection<Long> clientIds);
+    
+    /**
+     * BALANCE_BEFORE of the given rows as [id, balanceBefore]
+     */
+    @Query("SELECT bt.id, bt.balanceBefore FROM BalanceTransaction bt WHERE bt.id IN :ids")
+    List<Object[]> findBalancesBefore(@Param("ids") Collection<Long> ids);
+    
+    /**
+     * Check whether a transaction was applied
+     */
+    boolean existsByTransactionId(String transactionId);
+    
+    /**
+     * Count transactions for a client and account, from ACCOUNT_STATS when the account has a stats row
+     */
+    default long countByClientIdAndAccountNumber(Long clientId, String accountNumber) {
+        return findAccountStats(clientId, accountNumber).map(AccountStats::getTransactionCount)
+                .orElseGet(() -> countLedgerRows(clientId, accountNumber));
+    }
     
     /**
-     * Count transactions for a client and account
+     * Count the ledger rows of an account over its whole history
      */
-    long countByClientIdAndAccountNumber(Long clientId, String accountNumber);
+    @Query("SELECT COUNT(bt) FROM BalanceTransaction bt WHERE bt.clientId = :clientId AND bt.accountNumber = :accountNumber")
+    long countLedgerRows(@Param("clientId") Long clientId, @Param("accountNumber") String accountNumber);
 }
\ No newline at end of file
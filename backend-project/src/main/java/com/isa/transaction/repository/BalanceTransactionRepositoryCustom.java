@@ -0,0 +1,17 @@
+package com.isa.transaction.repository;
+
+import com.isa.transaction.entity.BalanceTransaction;
+
+import java.util.List;
+
+/**
+ * Bulk write operations for BalanceTransaction
+ */
+public interface BalanceTransactionRepositoryCustom {
+    
+    /**
+     * Persist the transaction records and flush them, so Hibernate sends the inserts as JDBC batches
+     * of app.jpa.batch-size rows (one round trip per batch instead of per row)
+     */
+    void insertAll(List<BalanceTransaction> transactions);
+}
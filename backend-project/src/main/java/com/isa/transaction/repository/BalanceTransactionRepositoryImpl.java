@@ -0,0 +1,29 @@
+package com.isa.transaction.repository;
+
+import com.isa.transaction.entity.BalanceTransaction;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import java.util.List;
+
+/**
+ * Implementation of the BalanceTransactionRepositoryCustom fragment.
+ * IDs come from a pooled sequence, so Hibernate sends the inserts as JDBC batches
+ * of app.jpa.batch-size rows (see JpaBatchingConfig).
+ */
+public class BalanceTransactionRepositoryImpl implements BalanceTransactionRepositoryCustom {
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Override
+    public void insertAll(List<BalanceTransaction> transactions) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+        for (BalanceTransaction transaction : transactions) {
+            entityManager.persist(transaction);
+        }
+        entityManager.flush();
+    }
+}
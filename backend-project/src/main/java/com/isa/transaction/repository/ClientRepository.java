@@ -1,15 +1,23 @@
 package com.isa.transaction.repository;
 
 import com.isa.transaction.entity.Client;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
-public interface ClientRepository extends JpaRepository<Client, Long> {
+public interface ClientRepository extends JpaRepository<Client, Long>, ClientRepositoryCustom {
     
     /**
      * Find a client by name and lastname
@@ -26,6 +34,18 @@ public interface ClientRepository extends JpaRepository<Client, Long> {
      */
     Optional<Client> findByClientIdentification(String clientIdentification);
     
+    /**
+     * Find all clients matching any of the given client identifications
+     */
+    List<Client> findByClientIdentificationIn(Collection<String> clientIdentifications);
+    
+    /**
+     * Stream every client identification; must be consumed inside a transaction
+     */
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "10000"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("SELECT c.clientIdentification FROM Client c")
+    Stream<String> streamAllClientIdentifications();
+    
     /**
      * Check if client exists by ID
      */
@@ -0,0 +1,21 @@
+package com.isa.transaction.repository;
+
+import com.isa.transaction.entity.Client;
+
+import java.util.Optional;
+
+/**
+ * Client writes that need SQL beyond what derived queries offer
+ */
+public interface ClientRepositoryCustom {
+    
+    /**
+     * Insert a client unless its client identification is already taken, without failing on the unique key.
+     * On PostgreSQL this is one INSERT ... ON CONFLICT DO NOTHING RETURNING statement; other databases
+     * fall back to persist(), where a concurrent insert still fails at flush.
+     *
+     * @return the inserted client, managed by the persistence context, or empty if another transaction
+     *         inserted the same identification first
+     */
+    Optional<Client> insertIfAbsent(Client client);
+}
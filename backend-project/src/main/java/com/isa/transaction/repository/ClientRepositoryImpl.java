@@ -0,0 +1,45 @@
+package com.isa.transaction.repository;
+
+import com.isa.transaction.entity.Client;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Implementation of the ClientRepositoryCustom fragment
+ */
+public class ClientRepositoryImpl implements ClientRepositoryCustom {
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    private volatile Boolean insertOnConflict;
+    
+    @Override
+    public Optional<Client> insertIfAbsent(Client client) {
+        if (!insertOnConflict()) {
+            entityManager.persist(client);
+            return Optional.of(client);
+        }
+        // RETURNING maps the new row into a managed entity; no row comes back on conflict
+        List<?> inserted = entityManager.createNativeQuery(
+                "INSERT INTO TESTHTC.CLIENT (ID, NAME, LASTNAME, CLIENT_IDENTIFICATION) " +
+                "VALUES (:id, :name, :lastname, :clientIdentification) " +
+                "ON CONFLICT (CLIENT_IDENTIFICATION) DO NOTHING RETURNING *", Client.class)
+                .setParameter("id", UpsertSupport.nextId(entityManager, client))
+                .setParameter("name", client.getName())
+                .setParameter("lastname", client.getLastname())
+                .setParameter("clientIdentification", client.getClientIdentification())
+                .getResultList();
+        return inserted.isEmpty() ? Optional.empty() : Optional.of((Client) inserted.get(0));
+    }
+    
+    private boolean insertOnConflict() {
+        if (insertOnConflict == null) {
+            insertOnConflict = UpsertSupport.supportsInsertOnConflict(entityManager);
+        }
+        return insertOnConflict;
+    }
+}
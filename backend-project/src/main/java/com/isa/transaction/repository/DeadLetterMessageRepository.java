@@ -4,11 +4,13 @@ import com.isa.transaction.entity.DeadLetterMessage;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -56,4 +58,18 @@ public interface DeadLetterMessageRepository extends JpaRepository<DeadLetterMes
      * Find all dead letter messages with pagination ordered by creation date
      */
     Page<DeadLetterMessage> findAllByOrderByCreatedDateDesc(Pageable pageable);
+    
+    /**
+     * Keyset page of dead letter messages after the given ID, oldest first
+     * Unlike an offset page, the cost does not grow with the position in the table
+     */
+    @Query("SELECT dlm FROM DeadLetterMessage dlm WHERE dlm.id > :afterId ORDER BY dlm.id")
+    List<DeadLetterMessage> findPageAfterId(@Param("afterId") Long afterId, Pageable pageable);
+    
+    /**
+     * Remove replayed messages with a single statement
+     */
+    @Modifying
+    @Query("DELETE FROM DeadLetterMessage dlm WHERE dlm.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
 }
\ No newline at end of file
@@ -0,0 +1,30 @@
+package com.isa.transaction.repository;
+
+import com.isa.transaction.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+    
+    /**
+     * Store the response of the request that claimed the key
+     */
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.transactionId = :transactionId, r.responseStatus = :status, " +
+           "r.responseMessage = :message, r.completedAt = CURRENT_TIMESTAMP WHERE r.idempotencyKey = :key")
+    int complete(@Param("key") String key, @Param("transactionId") String transactionId,
+                 @Param("status") String status, @Param("message") String message);
+    
+    /**
+     * Remove keys past the retention window
+     */
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") LocalDateTime before);
+}
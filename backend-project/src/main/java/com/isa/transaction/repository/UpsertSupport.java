@@ -0,0 +1,32 @@
+package com.isa.transaction.repository;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+/**
+ * Helpers for the single-statement "insert unless the unique key exists" of the repository fragments
+ */
+final class UpsertSupport {
+    
+    private UpsertSupport() {
+    }
+    
+    /**
+     * Whether the database runs INSERT ... ON CONFLICT DO NOTHING RETURNING (PostgreSQL)
+     */
+    static boolean supportsInsertOnConflict(EntityManager entityManager) {
+        return entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect() instanceof PostgreSQLDialect;
+    }
+    
+    /**
+     * Next ID of the entity from its Hibernate generator, so native inserts draw from the same
+     * pooled sequence blocks as persist() and usually need no extra round trip
+     */
+    static Long nextId(EntityManager entityManager, Object entity) {
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        return (Long) session.getEntityPersister(null, entity).getIdentifierGenerator().generate(session, entity);
+    }
+}
@@ -0,0 +1,263 @@
+package com.isa.transaction.service;
+
+import com.isa.transaction.dto.AccountStatsBackfillProgress;
+import com.isa.transaction.entity.AccountStats;
+import com.isa.transaction.entity.Balance;
+import com.isa.transaction.entity.JobCheckpoint;
+import com.isa.transaction.exception.TransactionException;
+import com.isa.transaction.repository.AccountStatsRepository;
+import com.isa.transaction.repository.BalanceRepository;
+import com.isa.transaction.repository.BalanceTransactionRepository;
+import com.isa.transaction.repository.JobCheckpointRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Builds ACCOUNT_STATS from the ledger for accounts that existed before the table.
+ *
+ * Balances are walked in keyset chunks of app.stats.backfill.chunk-size on ID. Each chunk runs in one
+ * DB transaction that locks its balance rows, sums their ledger rows and replaces their stats rows.
+ * Transactions on those accounts also lock the balance row before they touch the stats, so they either
+ * commit before the sums are taken or add their row to the new stats afterwards; none is lost or counted
+ * twice. The last balance ID of each chunk is saved to JOB_CHECKPOINT in the same DB transaction, so a
+ * stopped or crashed run can resume where it left off. Runs are started from the admin endpoint.
+ * They are refused while ledger partition retention is enabled, since detached months would be missing from the sums.
+ */
+@Component
+public class AccountStatsBackfill {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccountStatsBackfill.class);
+
+    static final String CHECKPOINT_NAME = "account-stats-backfill";
+
+    @Autowired
+    private BalanceRepository balanceRepository;
+
+    @Autowired
+    private BalanceTransactionRepository balanceTransactionRepository;
+
+    @Autowired
+    private AccountStatsRepository accountStatsRepository;
+
+    @Autowired
+    private JobCheckpointRepository jobCheckpointRepository;
+
+    @Autowired
+    private LedgerPartitionManager ledgerPartitionManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.stats.backfill.chunk-size:200}")
+    private int chunkSize;
+
+    private ExecutorService executor;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile boolean stopRequested;
+
+    // Progress of the current or last run
+    private volatile String state = "IDLE";
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile String error;
+    private final AtomicLong checkpointId = new AtomicLong();
+    private final AtomicLong lastBalanceId = new AtomicLong();
+    private final AtomicLong accounts = new AtomicLong();
+    private final AtomicLong transactions = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        Gauge.builder("stats.backfill.checkpoint", checkpointId, AtomicLong::get)
+                .description("Last balance ID whose account stats were rebuilt by the backfill")
+                .register(meterRegistry);
+        Gauge.builder("stats.backfill.running", running, flag -> flag.get() ? 1 : 0)
+                .description("1 while the account stats backfill is running")
+                .register(meterRegistry);
+
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "stats-backfill");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor == null) {
+            return;
+        }
+        stopRequested = true;
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Start a backfill in the background
+     *
+     * @param resume continue after the saved checkpoint instead of from the first balance
+     * @return the progress right after starting
+     */
+    public AccountStatsBackfillProgress startBackfill(boolean resume) {
+        if (ledgerPartitionManager.isRetentionEnabled()) {
+            throw new TransactionException("The account stats backfill needs the whole ledger; " +
+                                           "disable app.ledger.partitions.retention-months to run it", "BACKFILL_UNAVAILABLE");
+        }
+        if (!running.compareAndSet(false, true)) {
+            throw new TransactionException("An account stats backfill is already running", "BACKFILL_IN_PROGRESS");
+        }
+        beginRun();
+        executor.execute(() -> backfill(resume));
+        return getProgress();
+    }
+
+    /**
+     * Ask the running backfill to stop after its current chunk; the checkpoint is kept for a resume
+     */
+    public AccountStatsBackfillProgress stopBackfill() {
+        if (running.get()) {
+            stopRequested = true;
+        }
+        return getProgress();
+    }
+
+    public AccountStatsBackfillProgress getProgress() {
+        AccountStatsBackfillProgress progress = new AccountStatsBackfillProgress();
+        progress.setState(state);
+        progress.setStartedAt(startedAt);
+        progress.setFinishedAt(finishedAt);
+        progress.setCheckpointId(checkpointId.get());
+        progress.setLastBalanceId(lastBalanceId.get());
+        progress.setAccounts(accounts.get());
+        progress.setTransactions(transactions.get());
+        progress.setError(error);
+        if (startedAt != null) {
+            LocalDateTime end = finishedAt != null ? finishedAt : LocalDateTime.now();
+            long millis = Math.max(1, Duration.between(startedAt, end).toMillis());
+            progress.setAccountsPerSecond(accounts.get() * 1000.0 / millis);
+        }
+        return progress;
+    }
+
+    private void beginRun() {
+        stopRequested = false;
+        state = "RUNNING";
+        startedAt = LocalDateTime.now();
+        finishedAt = null;
+        error = null;
+        accounts.set(0);
+        transactions.set(0);
+    }
+
+    /**
+     * Run one backfill on the calling thread; the caller must have set the running flag
+     */
+    void backfill(boolean resume) {
+        try {
+            long afterId = resume ? jobCheckpointRepository.findById(CHECKPOINT_NAME).map(JobCheckpoint::getLastId).orElse(0L) : 0L;
+            checkpointId.set(afterId);
+            Long maxId = balanceRepository.findMaxId();
+            lastBalanceId.set(maxId != null ? maxId : 0L);
+            logger.info("Starting account stats backfill after balance ID {} (last balance ID {})", afterId, lastBalanceId.get());
+
+            while (!stopRequested) {
+                long from = afterId;
+                Long next = transactionTemplate.execute(status -> backfillChunk(from));
+                if (next == null) {
+                    break;
+                }
+                afterId = next;
+                checkpointId.set(afterId);
+            }
+            state = stopRequested ? "STOPPED" : "COMPLETED";
+            logger.info("Account stats backfill {}: {} accounts, {} ledger rows", state.toLowerCase(), accounts.get(), transactions.get());
+        } catch (Exception e) {
+            state = "FAILED";
+            error = e.getMessage();
+            logger.error("Account stats backfill failed at checkpoint {}: {}", checkpointId.get(), e.getMessage(), e);
+        } finally {
+            finishedAt = LocalDateTime.now();
+            running.set(false);
+        }
+    }
+
+    /**
+     * Rebuild the stats of the next chunk of balances within the current DB transaction
+     *
+     * @return the last balance ID of the chunk, or null when no balance is left
+     */
+    private Long backfillChunk(long afterId) {
+        List<Balance> balances = balanceRepository.findPageAfterIdForUpdate(afterId, PageRequest.of(0, chunkSize));
+        if (balances.isEmpty()) {
+            return null;
+        }
+
+        Set<Long> clientIds = new HashSet<>();
+        List<Long> balanceIds = new ArrayList<>(balances.size());
+        for (Balance balance : balances) {
+            clientIds.add(balance.getClient().getId());
+            balanceIds.add(balance.getId());
+        }
+        Map<String, Object[]> sums = new HashMap<>();
+        for (Object[] row : balanceTransactionRepository.summarizeAccountStats(clientIds)) {
+            sums.put(row[0] + ":" + row[1], row);
+        }
+
+        List<AccountStats> stats = new ArrayList<>(balances.size());
+        long rows = 0;
+        for (Balance balance : balances) {
+            Long clientId = balance.getClient().getId();
+            Object[] sum = sums.get(clientId + ":" + balance.getAccountNumber());
+            if (sum == null) {
+                stats.add(new AccountStats(balance.getId(), clientId, balance.getAccountNumber()));
+                continue;
+            }
+            long count = ((Number) sum[4]).longValue();
+            rows += count;
+            stats.add(new AccountStats(balance.getId(), clientId, balance.getAccountNumber(), (BigDecimal) sum[2],
+                                       (BigDecimal) sum[3], count, (LocalDateTime) sum[5]));
+        }
+        accountStatsRepository.deleteByBalanceIdIn(balanceIds);
+        accountStatsRepository.saveAll(stats);
+
+        long lastId = balanceIds.get(balanceIds.size() - 1);
+        jobCheckpointRepository.save(new JobCheckpoint(CHECKPOINT_NAME, lastId));
+        accounts.addAndGet(balances.size());
+        transactions.addAndGet(rows);
+        return lastId;
+    }
+}
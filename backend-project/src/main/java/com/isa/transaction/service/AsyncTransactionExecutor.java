@@ -0,0 +1,237 @@
+package com.isa.transaction.service;
+
+import com.isa.transaction.dto.TransactionRequest;
+import com.isa.transaction.dto.TransactionResponse;
+import com.isa.transaction.entity.AcceptedTransaction;
+import com.isa.transaction.entity.TransactionStatus;
+import com.isa.transaction.repository.AcceptedTransactionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asynchronous ingestion path for single transactions.
+ *
+ * The request thread only stores the request (status IN_PROCESS) and returns its transaction ID;
+ * a pool of workers applies it afterwards. Each account is hashed onto one single-threaded worker,
+ * so transactions of an account are applied in the order they were accepted. Requests that could not
+ * be queued, or that were pending when the application stopped, are picked up by a periodic recovery
+ * sweep over the ACCEPTED_TRANSACTION table.
+ * Enabled with app.transaction.async.enabled; the worker count defaults to the number of cores.
+ */
+@Component
+public class AsyncTransactionExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncTransactionExecutor.class);
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AcceptedTransactionRepository acceptedTransactionRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.transaction.async.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.transaction.async.workers:0}")
+    private int workerCount;
+
+    @Value("${app.transaction.async.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${app.transaction.async.recovery-interval-ms:10000}")
+    private long recoveryIntervalMs;
+
+    @Value("${app.transaction.async.recovery-batch-size:500}")
+    private int recoveryBatchSize;
+
+    private ThreadPoolExecutor[] workers;
+    private ScheduledExecutorService recoveryScheduler;
+
+    // Transactions queued on this node, so the recovery sweep does not queue them twice
+    private final Set<Long> queued = ConcurrentHashMap.newKeySet();
+
+    private Counter acceptedCounter;
+    private Counter recoveredCounter;
+    private Timer completedTimer;
+    private Timer failedTimer;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        int count = workerCount > 0 ? workerCount : Runtime.getRuntime().availableProcessors();
+        workers = new ThreadPoolExecutor[count];
+        for (int i = 0; i < count; i++) {
+            String workerName = String.valueOf(i);
+            workers[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(queueCapacity), runnable -> {
+                        Thread thread = new Thread(runnable, "txn-async-" + workerName);
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        }
+
+        Gauge.builder("transaction.async.pending", queued, Set::size)
+                .description("Accepted transactions queued on this node and not yet applied")
+                .register(meterRegistry);
+        acceptedCounter = Counter.builder("transaction.async.accepted")
+                .description("Transactions accepted for asynchronous processing")
+                .register(meterRegistry);
+        recoveredCounter = Counter.builder("transaction.async.recovered")
+                .description("Pending transactions re-queued by the recovery sweep")
+                .register(meterRegistry);
+        completedTimer = Timer.builder("transaction.async.latency")
+                .description("Time from acceptance until the transaction is applied or rejected")
+                .tag("status", TransactionStatus.COMPLETED.name())
+                .register(meterRegistry);
+        failedTimer = Timer.builder("transaction.async.latency")
+                .description("Time from acceptance until the transaction is applied or rejected")
+                .tag("status", TransactionStatus.FAILED.name())
+                .register(meterRegistry);
+
+        recoveryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "txn-async-recovery");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // The first sweep runs right away to pick up requests left pending by the previous run
+        recoveryScheduler.scheduleWithFixedDelay(this::recoverPending, 0, recoveryIntervalMs, TimeUnit.MILLISECONDS);
+        logger.info("Started {} asynchronous transaction workers with queue capacity {}", count, queueCapacity);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (workers == null) {
+            return;
+        }
+        recoveryScheduler.shutdownNow();
+        for (ThreadPoolExecutor worker : workers) {
+            worker.shutdown();
+        }
+        for (ThreadPoolExecutor worker : workers) {
+            try {
+                if (!worker.awaitTermination(10, TimeUnit.SECONDS)) {
+                    // Whatever is still queued stays IN_PROCESS and is recovered on the next start
+                    worker.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                worker.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return workers != null;
+    }
+
+    /**
+     * Store the request and queue it for a worker
+     *
+     * @return an IN_PROCESS response carrying the transaction ID to poll
+     */
+    public TransactionResponse accept(TransactionRequest request) {
+        if (workers == null) {
+            throw new IllegalStateException("Asynchronous transaction processing is not enabled");
+        }
+        AcceptedTransaction accepted = transactionService.acceptTransaction(request);
+        acceptedCounter.increment();
+        dispatch(accepted);
+        return TransactionResponse.processing(accepted.getTransactionId());
+    }
+
+    /**
+     * Queue a transaction on the worker that owns its account
+     * A full queue is not an error: the request is already stored and the recovery sweep will retry it
+     */
+    void dispatch(AcceptedTransaction accepted) {
+        if (!queued.add(accepted.getId())) {
+            return;
+        }
+        int workerIndex = workerFor(accepted.getClientIdentification(), accepted.getAccountNumber());
+        try {
+            workers[workerIndex].execute(() -> process(accepted));
+        } catch (RejectedExecutionException e) {
+            queued.remove(accepted.getId());
+            logger.warn("Asynchronous worker {} is full, transaction {} will be picked up by the recovery sweep",
+                       workerIndex, accepted.getTransactionId());
+        }
+    }
+
+    private void process(AcceptedTransaction accepted) {
+        try {
+            TransactionStatus status = transactionService.processAcceptedTransaction(accepted);
+            Duration latency = Duration.between(accepted.getCreatedAt(), LocalDateTime.now());
+            if (status == TransactionStatus.COMPLETED) {
+                completedTimer.record(latency);
+            } else if (status == TransactionStatus.FAILED) {
+                failedTimer.record(latency);
+            }
+        } catch (Exception e) {
+            // The transaction stays IN_PROCESS and is retried by the recovery sweep
+            logger.error("Could not process transaction {}, it will be retried", accepted.getTransactionId(), e);
+        } finally {
+            queued.remove(accepted.getId());
+        }
+    }
+
+    /**
+     * Queue transactions that are still IN_PROCESS and older than one recovery interval
+     */
+    void recoverPending() {
+        try {
+            LocalDateTime createdBefore = LocalDateTime.now().minusNanos(TimeUnit.MILLISECONDS.toNanos(recoveryIntervalMs));
+            List<AcceptedTransaction> pending = acceptedTransactionRepository.findByStatusAndCreatedAtBeforeOrderByIdAsc(
+                    TransactionStatus.IN_PROCESS, createdBefore, PageRequest.of(0, recoveryBatchSize));
+            int recovered = 0;
+            for (AcceptedTransaction accepted : pending) {
+                if (!queued.contains(accepted.getId())) {
+                    recoveredCounter.increment();
+                    dispatch(accepted);
+                    recovered++;
+                }
+            }
+            if (recovered > 0) {
+                logger.info("Recovered {} pending asynchronous transactions", recovered);
+            }
+        } catch (Exception e) {
+            logger.error("Recovery sweep of pending transactions failed", e);
+        }
+    }
+
+    /**
+     * Worker index for an account; the same account always maps to the same worker
+     */
+    int workerFor(String clientIdentification, String accountNumber) {
+        int hash = Objects.hash(clientIdentification, accountNumber);
+        hash ^= (hash >>> 16);
+        return Math.floorMod(hash, workers.length);
+    }
+}
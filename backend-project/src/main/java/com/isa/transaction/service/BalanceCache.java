@@ -0,0 +1,79 @@
+package com.isa.transaction.service;
+
+import com.isa.transaction.dto.BalanceSnapshot;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Cache of committed balances for GET /api/transactions/balance, keyed by (clientIdentification, accountNumber).
+ *
+ * The write path stores the new balance once its DB transaction commits, and reads fill the cache on a miss.
+ * Both go through the balance row version, so a read that started before a commit cannot overwrite the
+ * value that commit stored: on this node a read never returns a balance older than the latest committed
+ * write. Writes made on other nodes are picked up when the entry expires (app.balance-cache.ttl-ms).
+ */
+@Component
+public class BalanceCache {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.balance-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.balance-cache.max-size:100000}")
+    private int maxSize;
+
+    @Value("${app.balance-cache.ttl-ms:30000}")
+    private long ttlMs;
+
+    private LruCache<String, BalanceSnapshot> balances;
+
+    @PostConstruct
+    public void start() {
+        balances = new LruCache<String, BalanceSnapshot>(maxSize, ttlMs, TimeUnit.MILLISECONDS)
+                .bindTo(meterRegistry, "balance");
+    }
+
+    /**
+     * @return the cached balance, or null if it is not cached
+     */
+    public BalanceSnapshot get(String clientIdentification, String accountNumber) {
+        return enabled ? balances.get(key(clientIdentification, accountNumber)) : null;
+    }
+
+    /**
+     * Cache a committed balance unless a newer version is already cached
+     */
+    public void offer(String clientIdentification, String accountNumber, BalanceSnapshot snapshot) {
+        if (enabled) {
+            balances.merge(key(clientIdentification, accountNumber), snapshot,
+                           (cached, offered) -> offered.isNewerThan(cached) ? offered : cached);
+        }
+    }
+
+    /**
+     * Cache the balance written by the current DB transaction once it commits.
+     * The snapshot is taken after commit, when the flushed entity carries its new version.
+     * Nothing is cached if the transaction rolls back.
+     */
+    public void offerAfterCommit(String clientIdentification, String accountNumber, Supplier<BalanceSnapshot> snapshot) {
+        if (enabled) {
+            AfterCommit.run(() -> offer(clientIdentification, accountNumber, snapshot.get()));
+        }
+    }
+
+    public void invalidate(String clientIdentification, String accountNumber) {
+        balances.invalidate(key(clientIdentification, accountNumber));
+    }
+
+    private static String key(String clientIdentification, String accountNumber) {
+        return clientIdentification + '\n' + accountNumber;
+    }
+}
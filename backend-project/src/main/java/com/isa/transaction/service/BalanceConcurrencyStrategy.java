@@ -0,0 +1,25 @@
+package com.isa.transaction.service;
+
+/**
+ * Concurrency control used when applying a transaction amount to a Balance row.
+ * Selected with the property app.transaction.concurrency-strategy.
+ */
+public enum BalanceConcurrencyStrategy {
+    
+    /**
+     * Read the balance, apply the amount in Java and rely on the @Version column
+     * to detect lost updates. Conflicting transactions are retried.
+     */
+    OPTIMISTIC,
+    
+    /**
+     * Lock the balance row with SELECT ... FOR UPDATE before validating and updating it.
+     */
+    PESSIMISTIC,
+    
+    /**
+     * Apply the amount with a single conditional UPDATE that only succeeds
+     * when the resulting balance is not negative.
+     */
+    ATOMIC
+}
@@ -0,0 +1,82 @@
+package com.isa.transaction.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Contention metrics for balance updates, tagged by concurrency strategy
+ * so the strategies can be compared under the same traffic.
+ */
+@Component
+public class ConcurrencyMetrics {
+
+    private final MeterRegistry meterRegistry;
+
+    public ConcurrencyMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Record the end-to-end time of a balance update, including retries
+     */
+    public void recordUpdate(BalanceConcurrencyStrategy strategy, String outcome, long elapsedNanos) {
+        Timer.builder("transaction.balance.update")
+                .description("Time to apply a transaction to a balance, including retries")
+                .tag("strategy", strategy.name())
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Record the time spent waiting for a row lock (pessimistic strategy)
+     */
+    public void recordLockWait(BalanceConcurrencyStrategy strategy, long elapsedNanos) {
+        Timer.builder("transaction.balance.lock.wait")
+                .description("Time spent acquiring the balance row lock")
+                .tag("strategy", strategy.name())
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Record a concurrency failure (version conflict, lock timeout or deadlock)
+     */
+    public void recordConflict(BalanceConcurrencyStrategy strategy) {
+        counter("transaction.balance.conflicts", "Concurrency failures while updating a balance", strategy).increment();
+    }
+
+    /**
+     * Record a retry after a concurrency failure
+     */
+    public void recordRetry(BalanceConcurrencyStrategy strategy) {
+        counter("transaction.balance.retries", "Retries after a concurrency failure", strategy).increment();
+    }
+
+    /**
+     * Record a transaction that failed after using all of its attempts
+     */
+    public void recordRetriesExhausted(BalanceConcurrencyStrategy strategy) {
+        counter("transaction.balance.retries.exhausted", "Transactions that exhausted their retry attempts", strategy).increment();
+    }
+
+    /**
+     * Record a debit rejected by the conditional update guard (atomic strategy)
+     */
+    public void recordGuardRejection(BalanceConcurrencyStrategy strategy) {
+        counter("transaction.balance.guard.rejections", "Debits rejected by the conditional update", strategy).increment();
+    }
+
+    private Counter counter(String name, String description, BalanceConcurrencyStrategy strategy) {
+        return Counter.builder(name)
+                .description(description)
+                .tag("strategy", strategy.name())
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,161 @@
+package com.isa.transaction.service;
+
+import com.isa.transaction.entity.DeadLetterMessage;
+import com.isa.transaction.exception.TransactionException;
+import com.isa.transaction.repository.DeadLetterMessageRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Buffered writer for the dead letter queue.
+ *
+ * Messages are queued and a single thread inserts them in batches of up to app.dlq.writer.batch-size
+ * in one transaction (JDBC batched through the pooled sequence), instead of one save and commit per
+ * message. The future of each message completes once its batch is committed, so callers such as the
+ * outbox relay only forget an event after it is durably stored. When the buffer is full the message
+ * is refused with SERVICE_BUSY.
+ */
+@Component
+public class DeadLetterBatchWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeadLetterBatchWriter.class);
+
+    @Autowired
+    private DeadLetterMessageRepository deadLetterMessageRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.dlq.writer.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.dlq.writer.queue-capacity:100000}")
+    private int queueCapacity;
+
+    @Value("${app.dlq.writer.flush-interval-ms:50}")
+    private long flushIntervalMs;
+
+    private BlockingQueue<PendingMessage> queue;
+    private Thread writer;
+    private volatile boolean running;
+
+    private Counter writtenCounter;
+    private DistributionSummary batchSizeSummary;
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        Gauge.builder("dlq.writer.queue", queue, BlockingQueue::size)
+                .description("Dead letter messages waiting to be written")
+                .register(meterRegistry);
+        writtenCounter = Counter.builder("dlq.writer.written")
+                .description("Dead letter messages written")
+                .register(meterRegistry);
+        batchSizeSummary = DistributionSummary.builder("dlq.writer.batch.size")
+                .description("Dead letter messages written per transaction")
+                .register(meterRegistry);
+
+        running = true;
+        writer = new Thread(this::run, "dlq-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (writer == null) {
+            return;
+        }
+        // The writer flushes what is queued before it exits
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Queue a message for the next batch
+     *
+     * @return a future completed once the message is committed
+     */
+    public CompletableFuture<Void> write(DeadLetterMessage message) {
+        PendingMessage pending = new PendingMessage(message);
+        if (!running || !queue.offer(pending)) {
+            pending.written.completeExceptionally(new TransactionException(
+                "Dead letter queue buffer is full, please retry later", "SERVICE_BUSY"));
+        }
+        return pending.written;
+    }
+
+    private void run() {
+        List<PendingMessage> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingMessage first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<PendingMessage> batch) {
+        List<DeadLetterMessage> messages = new ArrayList<>(batch.size());
+        for (PendingMessage pending : batch) {
+            messages.add(pending.message);
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> deadLetterMessageRepository.saveAll(messages));
+        } catch (Exception e) {
+            logger.error("Failed to write {} dead letter messages: {}", batch.size(), e.getMessage(), e);
+            for (PendingMessage pending : batch) {
+                pending.written.completeExceptionally(e);
+            }
+            return;
+        }
+        writtenCounter.increment(batch.size());
+        batchSizeSummary.record(batch.size());
+        for (PendingMessage pending : batch) {
+            pending.written.complete(null);
+        }
+    }
+
+    private static final class PendingMessage {
+        private final DeadLetterMessage message;
+        private final CompletableFuture<Void> written = new CompletableFuture<>();
+
+        private PendingMessage(DeadLetterMessage message) {
+            this.message = message;
+        }
+    }
+}
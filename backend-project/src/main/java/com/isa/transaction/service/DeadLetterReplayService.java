@@ -0,0 +1,361 @@
+package com.isa.transaction.service;
+
+import com.isa.transaction.dto.DeadLetterReplayProgress;
+import com.isa.transaction.dto.TransactionResultEvent;
+import com.isa.transaction.entity.DeadLetterMessage;
+import com.isa.transaction.entity.JobCheckpoint;
+import com.isa.transaction.exception.TransactionException;
+import com.isa.transaction.repository.DeadLetterMessageRepository;
+import com.isa.transaction.repository.JobCheckpointRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Replays the dead letter queue to Kafka.
+ *
+ * The queue is read in keyset pages on ID, so memory use does not depend on the queue size.
+ * Sends are paced to app.dlq.replay.records-per-second with at most app.dlq.replay.parallelism
+ * in flight; after each page the published messages are deleted with one statement and the last
+ * ID is saved to JOB_CHECKPOINT, so a stopped or crashed run can resume where it left off.
+ * Messages that fail again stay in the queue and are retried by the next full run.
+ * Replays are started from the admin endpoint, or every app.dlq.replay.schedule-interval-ms when set.
+ */
+@Component
+public class DeadLetterReplayService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeadLetterReplayService.class);
+
+    static final String CHECKPOINT_NAME = "dlq-replay";
+
+    @Autowired
+    private DeadLetterMessageRepository deadLetterMessageRepository;
+
+    @Autowired
+    private JobCheckpointRepository jobCheckpointRepository;
+
+    @Autowired
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private TransactionResultEventCodec eventCodec;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.kafka.transaction-results-topic:transaction-results}")
+    private String transactionResultsTopic;
+
+    @Value("${app.dlq.replay.page-size:500}")
+    private int pageSize;
+
+    @Value("${app.dlq.replay.parallelism:16}")
+    private int parallelism;
+
+    @Value("${app.dlq.replay.records-per-second:500}")
+    private double recordsPerSecond;
+
+    @Value("${app.dlq.replay.send-timeout-ms:30000}")
+    private long sendTimeoutMs;
+
+    @Value("${app.dlq.replay.schedule-interval-ms:0}")
+    private long scheduleIntervalMs;
+
+    private ScheduledExecutorService executor;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile boolean stopRequested;
+
+    // Progress of the current or last run
+    private volatile String state = "IDLE";
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile String error;
+    private final AtomicLong checkpointId = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong scanned = new AtomicLong();
+    private final AtomicLong replayed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+
+    private Counter replayedCounter;
+    private Counter failedCounter;
+
+    @PostConstruct
+    public void start() {
+        replayedCounter = Counter.builder("dlq.replay.replayed")
+                .description("Dead letter messages published again and removed from the queue")
+                .register(meterRegistry);
+        failedCounter = Counter.builder("dlq.replay.failed")
+                .description("Dead letter messages that could not be replayed")
+                .register(meterRegistry);
+        Gauge.builder("dlq.replay.checkpoint", checkpointId, AtomicLong::get)
+                .description("Last dead letter message ID processed by the replay")
+                .register(meterRegistry);
+        Gauge.builder("dlq.replay.running", running, flag -> flag.get() ? 1 : 0)
+                .description("1 while a dead letter replay is running")
+                .register(meterRegistry);
+
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "dlq-replay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (scheduleIntervalMs > 0) {
+            executor.scheduleWithFixedDelay(this::scheduledReplay, scheduleIntervalMs, scheduleIntervalMs, TimeUnit.MILLISECONDS);
+            logger.info("Scheduled dead letter replay every {} ms", scheduleIntervalMs);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor == null) {
+            return;
+        }
+        stopRequested = true;
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(sendTimeoutMs, TimeUnit.MILLISECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Start a replay in the background
+     *
+     * @param resume continue after the saved checkpoint instead of from the start of the queue
+     * @return the progress right after starting
+     */
+    public DeadLetterReplayProgress startReplay(boolean resume) {
+        if (!running.compareAndSet(false, true)) {
+            throw new TransactionException("A dead letter replay is already running", "REPLAY_IN_PROGRESS");
+        }
+        beginRun();
+        executor.execute(() -> replay(resume));
+        return getProgress();
+    }
+
+    /**
+     * Ask the running replay to stop after its in-flight sends; the checkpoint is kept for a resume
+     */
+    public DeadLetterReplayProgress stopReplay() {
+        if (running.get()) {
+            stopRequested = true;
+        }
+        return getProgress();
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    public DeadLetterReplayProgress getProgress() {
+        DeadLetterReplayProgress progress = new DeadLetterReplayProgress();
+        progress.setState(state);
+        progress.setStartedAt(startedAt);
+        progress.setFinishedAt(finishedAt);
+        progress.setCheckpointId(checkpointId.get());
+        progress.setTotal(total.get());
+        progress.setScanned(scanned.get());
+        progress.setReplayed(replayed.get());
+        progress.setFailed(failed.get());
+        progress.setSkipped(skipped.get());
+        progress.setError(error);
+        if (startedAt != null) {
+            LocalDateTime end = finishedAt != null ? finishedAt : LocalDateTime.now();
+            long millis = Math.max(1, Duration.between(startedAt, end).toMillis());
+            progress.setRecordsPerSecond(replayed.get() * 1000.0 / millis);
+        }
+        return progress;
+    }
+
+    private void scheduledReplay() {
+        try {
+            if (deadLetterMessageRepository.count() > 0 && running.compareAndSet(false, true)) {
+                beginRun();
+                replay(true);
+            }
+        } catch (Exception e) {
+            logger.error("Scheduled dead letter replay failed to start: {}", e.getMessage());
+        }
+    }
+
+    private void beginRun() {
+        stopRequested = false;
+        state = "RUNNING";
+        startedAt = LocalDateTime.now();
+        finishedAt = null;
+        error = null;
+        total.set(0);
+        scanned.set(0);
+        replayed.set(0);
+        failed.set(0);
+        skipped.set(0);
+    }
+
+    /**
+     * Run one replay on the calling thread; the caller must have set the running flag
+     */
+    void replay(boolean resume) {
+        try {
+            long afterId = resume ? loadCheckpoint() : 0L;
+            checkpointId.set(afterId);
+            total.set(deadLetterMessageRepository.count());
+            logger.info("Starting dead letter replay of {} messages after ID {}", total.get(), afterId);
+
+            RateLimiter rateLimiter = new RateLimiter(recordsPerSecond);
+            Semaphore window = new Semaphore(parallelism);
+            while (!stopRequested) {
+                List<DeadLetterMessage> page = deadLetterMessageRepository.findPageAfterId(afterId, PageRequest.of(0, pageSize));
+                if (page.isEmpty()) {
+                    // Full pass done, the next run starts over with whatever failed again
+                    saveCheckpoint(0L, List.of());
+                    break;
+                }
+                afterId = replayPage(page, rateLimiter, window);
+            }
+            state = stopRequested ? "STOPPED" : "COMPLETED";
+            logger.info("Dead letter replay {}: {} replayed, {} failed, {} skipped",
+                       state.toLowerCase(), replayed.get(), failed.get(), skipped.get());
+        } catch (Exception e) {
+            state = "FAILED";
+            error = e.getMessage();
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            logger.error("Dead letter replay failed at checkpoint {}: {}", checkpointId.get(), e.getMessage(), e);
+        } finally {
+            finishedAt = LocalDateTime.now();
+            running.set(false);
+        }
+    }
+
+    /**
+     * Send the messages of one page, wait for the broker, then delete the published ones and move the checkpoint
+     *
+     * @return the new checkpoint
+     */
+    private long replayPage(List<DeadLetterMessage> page, RateLimiter rateLimiter, Semaphore window)
+            throws InterruptedException, TimeoutException {
+        ConcurrentLinkedQueue<Long> replayedIds = new ConcurrentLinkedQueue<>();
+        List<CompletableFuture<SendResult<String, Object>>> sends = new ArrayList<>(page.size());
+        long lastId = checkpointId.get();
+
+        for (DeadLetterMessage message : page) {
+            if (stopRequested) {
+                break;
+            }
+            lastId = message.getId();
+            scanned.incrementAndGet();
+            if (!transactionResultsTopic.equals(message.getTopic())) {
+                skipped.incrementAndGet();
+                continue;
+            }
+            TransactionResultEvent event = toEvent(message);
+            if (event == null) {
+                recordFailure();
+                continue;
+            }
+
+            rateLimiter.acquire();
+            window.acquire();
+            CompletableFuture<SendResult<String, Object>> send;
+            try {
+                send = kafkaTemplate.send(message.getTopic(), event.getTransactionId(), event);
+            } catch (Exception e) {
+                send = CompletableFuture.failedFuture(e);
+            }
+            sends.add(send.whenComplete((result, throwable) -> {
+                window.release();
+                if (throwable == null) {
+                    replayedIds.add(message.getId());
+                } else {
+                    logger.warn("Failed to replay dead letter message {}: {}", message.getId(), throwable.getMessage());
+                    recordFailure();
+                }
+            }));
+        }
+
+        boolean timedOut = false;
+        try {
+            CompletableFuture.allOf(sends.toArray(new CompletableFuture[0])).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            timedOut = true;
+        } catch (ExecutionException e) {
+            // Individual failures are already counted, the messages stay in the queue
+        }
+
+        // Messages acknowledged so far are removed even if the page timed out; the checkpoint only moves
+        // past a page that was fully answered
+        List<Long> ids = new ArrayList<>(replayedIds);
+        long newCheckpoint = timedOut ? checkpointId.get() : lastId;
+        saveCheckpoint(newCheckpoint, ids);
+        replayed.addAndGet(ids.size());
+        replayedCounter.increment(ids.size());
+        if (timedOut) {
+            throw new TimeoutException("Kafka did not answer the replayed messages within " + sendTimeoutMs + " ms");
+        }
+        return newCheckpoint;
+    }
+
+    private void recordFailure() {
+        failed.incrementAndGet();
+        failedCounter.increment();
+    }
+
+    private TransactionResultEvent toEvent(DeadLetterMessage message) {
+        try {
+            return eventCodec.fromPayload(message.getMessagePayload());
+        } catch (Exception e) {
+            logger.error("Failed to deserialize dead letter message {}: {}", message.getId(), e.getMessage());
+            return null;
+        }
+    }
+
+    private long loadCheckpoint() {
+        return jobCheckpointRepository.findById(CHECKPOINT_NAME).map(JobCheckpoint::getLastId).orElse(0L);
+    }
+
+    private void saveCheckpoint(long lastId, List<Long> replayedIds) {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!replayedIds.isEmpty()) {
+                deadLetterMessageRepository.deleteByIdIn(replayedIds);
+            }
+            jobCheckpointRepository.save(new JobCheckpoint(CHECKPOINT_NAME, lastId));
+        });
+        checkpointId.set(lastId);
+    }
+}
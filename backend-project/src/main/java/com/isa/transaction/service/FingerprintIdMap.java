@@ -0,0 +1,213 @@
+package com.isa.transaction.service;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Map from a 64-bit key fingerprint to a 64-bit ID, stored in primitive arrays.
+ *
+ * Open addressing with linear probing in 64 segments, each a pair of long[] arrays that doubles
+ * at 75% load; an entry costs 16 bytes per slot and nothing is allocated per entry, so tens of millions
+ * of IDs fit in a few hundred MB without adding objects for the GC to trace. Reads are lock-free
+ * (optimistic StampedLock reads), writes lock one segment. Entries are never removed: the map is meant
+ * for mappings that do not change once created. Once maxEntries is reached new keys are rejected.
+ *
+ * Keys are fingerprints, not the original strings, so two different keys can share a fingerprint;
+ * with n entries a lookup of an unknown key matches by accident with probability about n / 2^64.
+ */
+public class FingerprintIdMap {
+
+    /**
+     * Returned by get for unknown keys; IDs come from sequences starting at 1
+     */
+    public static final long ABSENT = 0;
+
+    private static final int SEGMENT_BITS = 6;
+    private static final int INITIAL_SEGMENT_CAPACITY = 1 << 10;
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final Segment[] segments = new Segment[1 << SEGMENT_BITS];
+    private final long maxEntriesPerSegment;
+
+    public FingerprintIdMap(long maxEntries) {
+        this.maxEntriesPerSegment = Math.max(1, maxEntries >> SEGMENT_BITS);
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    /**
+     * @return the ID stored for the fingerprint, or ABSENT
+     */
+    public long get(long fingerprint) {
+        return segmentFor(fingerprint).get(nonZero(fingerprint));
+    }
+
+    /**
+     * @return false if the map is full and the key was not stored
+     */
+    public boolean put(long fingerprint, long id) {
+        return segmentFor(fingerprint).put(nonZero(fingerprint), id, maxEntriesPerSegment);
+    }
+
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.count;
+        }
+        return size;
+    }
+
+    /**
+     * Bytes held by the slot arrays
+     */
+    public long memoryBytes() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            bytes += 16L * segment.keys.length;
+        }
+        return bytes;
+    }
+
+    public static long fingerprint(String value) {
+        return fmix(hash(FNV_OFFSET, value));
+    }
+
+    public static long fingerprint(String first, String second) {
+        return fmix(hash(hash(FNV_OFFSET, first), second));
+    }
+
+    public static long fingerprint(long id, String value) {
+        long hash = FNV_OFFSET;
+        for (int shift = 0; shift < 64; shift += 16) {
+            hash = (hash ^ ((id >>> shift) & 0xFFFF)) * FNV_PRIME;
+        }
+        return fmix(hash(hash, value));
+    }
+
+    /**
+     * FNV-1a over the length and the UTF-16 chars, so ("ab", "c") and ("a", "bc") differ
+     */
+    private static long hash(long hash, String value) {
+        hash = (hash ^ value.length()) * FNV_PRIME;
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * MurmurHash3 finalizer, spreads FNV's weak high bits over the whole word
+     */
+    private static long fmix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private Segment segmentFor(long fingerprint) {
+        return segments[(int) (fingerprint >>> (64 - SEGMENT_BITS))];
+    }
+
+    private static long nonZero(long fingerprint) {
+        // 0 marks an empty slot
+        return fingerprint != 0 ? fingerprint : 1;
+    }
+
+    private static final class Segment {
+        private final StampedLock lock = new StampedLock();
+        private long[] keys = new long[INITIAL_SEGMENT_CAPACITY];
+        private long[] values = new long[INITIAL_SEGMENT_CAPACITY];
+        private volatile int count;
+
+        private long get(long key) {
+            long stamp = lock.tryOptimisticRead();
+            long id = find(keys, values, key);
+            if (lock.validate(stamp)) {
+                return id;
+            }
+            stamp = lock.readLock();
+            try {
+                return find(keys, values, key);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        private boolean put(long key, long id, long maxEntries) {
+            long stamp = lock.writeLock();
+            try {
+                int slot = slot(keys, key);
+                if (keys[slot] == key) {
+                    values[slot] = id;
+                    return true;
+                }
+                if (count >= maxEntries) {
+                    return false;
+                }
+                if ((count + 1) * 4L > keys.length * 3L) {
+                    resize();
+                    slot = slot(keys, key);
+                }
+                // Value before key: an optimistic reader that sees the key must not see a missing ID
+                values[slot] = id;
+                keys[slot] = key;
+                count++;
+                return true;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            long[] oldValues = values;
+            long[] newKeys = new long[oldKeys.length * 2];
+            long[] newValues = new long[oldKeys.length * 2];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    int slot = slot(newKeys, oldKeys[i]);
+                    newKeys[slot] = oldKeys[i];
+                    newValues[slot] = oldValues[i];
+                }
+            }
+            values = newValues;
+            keys = newKeys;
+        }
+
+        /**
+         * Tolerates arrays being replaced concurrently: the result is discarded unless the stamp validates
+         */
+        private static long find(long[] keys, long[] values, long key) {
+            if (values.length != keys.length) {
+                return ABSENT;
+            }
+            int mask = keys.length - 1;
+            for (int slot = (int) key & mask, probes = 0; probes < keys.length; slot = (slot + 1) & mask, probes++) {
+                long current = keys[slot];
+                if (current == key) {
+                    return values[slot];
+                }
+                if (current == 0) {
+                    return ABSENT;
+                }
+            }
+            return ABSENT;
+        }
+
+        /**
+         * Slot holding the key, or the first empty slot of its probe sequence
+         */
+        private static int slot(long[] keys, long key) {
+            int mask = keys.length - 1;
+            int slot = (int) key & mask;
+            while (keys[slot] != 0 && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.isa.transaction.service;
+
+import com.isa.transaction.dto.BatchTransactionResponse;
+import com.isa.transaction.dto.BatchTransactionResult;
+import com.isa.transaction.dto.TransactionRequest;
+import com.isa.transaction.dto.TransactionResponse;
+import com.isa.transaction.exception.TransactionException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Group commit stage for single-transaction requests.
+ *
+ * Concurrent requests are queued and collected into groups that close when the commit window
+ * elapses or the group reaches its size cap. Each group is applied in one DB transaction through
+ * TransactionService.processTransactionBatch, then every caller is released with its own
+ * TransactionResponse or TransactionException.
+ * Enabled with app.transaction.group-commit.enabled.
+ */
+@Component
+public class GroupCommitExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(GroupCommitExecutor.class);
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.transaction.group-commit.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.transaction.group-commit.window-ms:2}")
+    private long windowMs;
+
+    @Value("${app.transaction.group-commit.max-batch-size:100}")
+    private int maxBatchSize;
+
+    @Value("${app.transaction.group-commit.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${app.transaction.group-commit.committers:1}")
+    private int committers;
+
+    private BlockingQueue<PendingTransaction> queue;
+    private ExecutorService committerPool;
+    private volatile boolean running;
+
+    private DistributionSummary batchSizeSummary;
+    private Timer latencyTimer;
+    private Timer commitTimer;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        batchSizeSummary = DistributionSummary.builder("transaction.group-commit.batch.size")
+                .description("Number of transactions applied per group commit")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        latencyTimer = Timer.builder("transaction.group-commit.latency")
+                .description("Time from enqueue until the caller is released")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        commitTimer = Timer.builder("transaction.group-commit.commit")
+                .description("Time to apply and commit one group")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("transaction.group-commit.queue.depth", queue, BlockingQueue::size)
+                .description("Transactions waiting for the next group commit")
+                .register(meterRegistry);
+
+        running = true;
+        AtomicInteger threadCount = new AtomicInteger();
+        committerPool = Executors.newFixedThreadPool(committers, runnable -> {
+            Thread thread = new Thread(runnable, "txn-group-commit-" + threadCount.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < committers; i++) {
+            committerPool.execute(this::runCommitter);
+        }
+        logger.info("Started group commit with window {} ms, max batch size {} and {} committer(s)",
+                   windowMs, maxBatchSize, committers);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (committerPool == null) {
+            return;
+        }
+        // Committers drain whatever is still queued before exiting
+        running = false;
+        committerPool.shutdown();
+        try {
+            if (!committerPool.awaitTermination(10, TimeUnit.SECONDS)) {
+                committerPool.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            committerPool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public boolean isEnabled() {
+        return committerPool != null;
+    }
+
+    /**
+     * Queue a transaction for the next group commit
+     *
+     * @return a future completed with the transaction response, or exceptionally with a TransactionException
+     */
+    public CompletableFuture<TransactionResponse> submit(TransactionRequest request) {
+        if (committerPool == null) {
+            throw new IllegalStateException("Group commit is not enabled");
+        }
+        PendingTransaction pending = new PendingTransaction(request);
+        if (!running || !queue.offer(pending)) {
+            throw new TransactionException("Too many pending transactions, please retry later", "SERVICE_BUSY");
+        }
+        return pending.future;
+    }
+
+    private void runCommitter() {
+        while (running || !queue.isEmpty()) {
+            try {
+                List<PendingTransaction> group = nextGroup();
+                if (!group.isEmpty()) {
+                    commitGroup(group);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error("Unexpected error in group commit loop", e);
+            }
+        }
+    }
+
+    /**
+     * Wait for the first transaction, then collect more until the window elapses or the group is full
+     */
+    private List<PendingTransaction> nextGroup() throws InterruptedException {
+        List<PendingTransaction> group = new ArrayList<>();
+        PendingTransaction first = queue.poll(100, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return group;
+        }
+        group.add(first);
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(windowMs);
+        while (group.size() < maxBatchSize) {
+            // Take whatever is already queued without waiting
+            queue.drainTo(group, maxBatchSize - group.size());
+            long remaining = deadline - System.nanoTime();
+            if (group.size() >= maxBatchSize || remaining <= 0) {
+                break;
+            }
+            PendingTransaction next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            group.add(next);
+        }
+        return group;
+    }
+
+    private void commitGroup(List<PendingTransaction> group) {
+        batchSizeSummary.record(group.size());
+        List<TransactionRequest> requests = new ArrayList<>(group.size());
+        for (PendingTransaction pending : group) {
+            requests.add(pending.request);
+        }
+
+        long commitStart = System.nanoTime();
+        BatchTransactionResponse response;
+        try {
+            response = transactionService.processTransactionBatch(requests);
+        } catch (RuntimeException e) {
+            // The whole group was rolled back, every caller gets the same failure
+            commitTimer.record(System.nanoTime() - commitStart, TimeUnit.NANOSECONDS);
+            for (PendingTransaction pending : group) {
+                release(pending, null, e);
+            }
+            return;
+        }
+        commitTimer.record(System.nanoTime() - commitStart, TimeUnit.NANOSECONDS);
+
+        List<BatchTransactionResult> results = response.getResults();
+        for (int i = 0; i < group.size(); i++) {
+            BatchTransactionResult result = results.get(i);
+            if (result.isAccepted()) {
+                release(group.get(i), TransactionResponse.accepted(result.getTransactionId()), null);
+            } else {
+                release(group.get(i), null, new TransactionException(result.getMessage(), result.getErrorCode()));
+            }
+        }
+    }
+
+    private void release(PendingTransaction pending, TransactionResponse response, RuntimeException error) {
+        latencyTimer.record(System.nanoTime() - pending.enqueuedAt, TimeUnit.NANOSECONDS);
+        if (error != null) {
+            pending.future.completeExceptionally(error);
+        } else {
+            pending.future.complete(response);
+        }
+    }
+
+    private static class PendingTransaction {
+        private final TransactionRequest request;
+        private final long enqueuedAt = System.nanoTime();
+        private final CompletableFuture<TransactionResponse> future = new CompletableFuture<>();
+
+        private PendingTransaction(TransactionRequest request) {
+            this.request = request;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.isa.transaction.service;
+
+import com.isa.transaction.exception.TransactionException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Position in an account's history, newest first: the (createdAt, id) of the last row returned.
+ * Clients get it as an opaque URL-safe string and send it back unchanged to read the next page.
+ */
+final class HistoryCursor {
+
+    final LocalDateTime createdAt;
+    final long id;
+
+    HistoryCursor(LocalDateTime createdAt, long id) {
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+
+    String encode() {
+        String position = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static HistoryCursor decode(String cursor) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = position.lastIndexOf('|');
+            return new HistoryCursor(LocalDateTime.parse(position.substring(0, separator)),
+                                     Long.parseLong(position.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new TransactionException("Invalid history cursor: " + cursor, "VALIDATION_ERROR");
+        }
+    }
+}
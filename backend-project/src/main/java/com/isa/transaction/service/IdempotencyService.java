@@ -0,0 +1,345 @@
+package com.isa.transaction.service;
+
+import com.isa.transaction.dto.TransactionRequest;
+import com.isa.transaction.dto.TransactionResponse;
+import com.isa.transaction.entity.IdempotencyRecord;
+import com.isa.transaction.exception.TransactionException;
+import com.isa.transaction.repository.IdempotencyRecordRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Deduplication of POST /api/transactions retries by Idempotency-Key.
+ *
+ * Lookups go through three tiers: requests with the same key in flight on this node (the duplicate
+ * waits for the original and gets its response), a bounded LRU of recent responses, and the
+ * IDEMPOTENCY_KEY table, which keeps keys for app.idempotency.retention-hours. A new key is claimed
+ * by inserting its row before the transaction runs, so a duplicate arriving on another node waits
+ * for the row to be completed instead of applying the amount again. If the original request fails,
+ * the key is released so the client can retry; reusing a key with a different request is rejected, without
+ * waiting for the original. If the response cannot be written to the key row after the transaction committed,
+ * the client still gets it and the write is retried in the background.
+ */
+@Component
+public class IdempotencyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+
+    public static final int MAX_KEY_LENGTH = 100;
+
+    // Attempts to write the response to the key row, the first one on the request thread
+    private static final int COMPLETE_ATTEMPTS = 4;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.idempotency.cache-size:100000}")
+    private int cacheSize;
+
+    @Value("${app.idempotency.retention-hours:24}")
+    private long retentionHours;
+
+    @Value("${app.idempotency.wait-timeout-ms:30000}")
+    private long waitTimeoutMs;
+
+    @Value("${app.idempotency.poll-interval-ms:50}")
+    private long pollIntervalMs;
+
+    @Value("${app.idempotency.cleanup-interval-ms:3600000}")
+    private long cleanupIntervalMs;
+
+    private LruCache<String, IdempotencyRecord> recentResponses;
+    private final ConcurrentHashMap<String, CompletableFuture<IdempotencyRecord>> inFlight = new ConcurrentHashMap<>();
+    private ScheduledExecutorService cleaner;
+
+    private Counter memoryHits;
+    private Counter databaseHits;
+    private Counter inFlightHits;
+    private Counter misses;
+    private Timer dedupTimer;
+
+    @PostConstruct
+    public void start() {
+        recentResponses = new LruCache<String, IdempotencyRecord>(cacheSize, retentionHours, TimeUnit.HOURS)
+                .bindTo(meterRegistry, "idempotency");
+        memoryHits = lookupCounter("memory");
+        databaseHits = lookupCounter("database");
+        inFlightHits = lookupCounter("in-flight");
+        misses = lookupCounter("miss");
+        Gauge.builder("idempotency.hit.ratio", this, IdempotencyService::hitRatio)
+                .description("Share of keyed requests answered from an earlier request with the same key")
+                .register(meterRegistry);
+        dedupTimer = Timer.builder("idempotency.dedup.latency")
+                .description("Time to answer a duplicate request, including waiting for the original")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+
+        cleaner = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "idempotency-cleanup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        cleaner.scheduleWithFixedDelay(this::deleteExpired, cleanupIntervalMs, cleanupIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (cleaner != null) {
+            cleaner.shutdownNow();
+        }
+    }
+
+    /**
+     * Run the request once per key
+     *
+     * @param action processes the request; only called for the first request with this key
+     * @return the response of the first request with this key
+     */
+    public TransactionResponse execute(String key, TransactionRequest request, Supplier<TransactionResponse> action) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new TransactionException("Idempotency-Key must have between 1 and " + MAX_KEY_LENGTH + " characters",
+                                           "VALIDATION_ERROR");
+        }
+        long start = System.nanoTime();
+        String requestHash = hash(request);
+
+        IdempotencyRecord cached = recentResponses.get(key);
+        if (cached != null) {
+            memoryHits.increment();
+            return replay(cached, requestHash, start);
+        }
+
+        CompletableFuture<IdempotencyRecord> original = new CompletableFuture<>();
+        CompletableFuture<IdempotencyRecord> existing = inFlight.putIfAbsent(key, original);
+        if (existing != null) {
+            inFlightHits.increment();
+            IdempotencyRecord record = await(existing);
+            if (!record.isCompleted() && record.getRequestHash().equals(requestHash)) {
+                // The original was rejected for another request hash; this one matches the key, so it waits for the owner
+                record = pollUntilCompleted(key);
+            }
+            return replay(record, requestHash, start);
+        }
+
+        try {
+            IdempotencyRecord record = claimOrFind(key, requestHash);
+            if (record != null) {
+                databaseHits.increment();
+                if (!record.getRequestHash().equals(requestHash)) {
+                    // Duplicates waiting on this request get the stored record and compare their own hash with it
+                    if (record.isCompleted()) {
+                        recentResponses.put(key, record);
+                    }
+                    original.complete(record);
+                    throw keyMismatch();
+                }
+                record = record.isCompleted() ? record : pollUntilCompleted(key);
+                recentResponses.put(key, record);
+                original.complete(record);
+                return replay(record, requestHash, start);
+            }
+
+            misses.increment();
+            TransactionResponse response;
+            try {
+                response = action.get();
+            } catch (RuntimeException e) {
+                // Nothing was applied, release the key so the client can retry
+                release(key);
+                original.completeExceptionally(e);
+                throw e;
+            }
+            // The transaction is committed, so the response is returned even if recording it fails
+            completeOrRetry(key, response, 1);
+            record = completedRecord(key, requestHash, response);
+            recentResponses.put(key, record);
+            original.complete(record);
+            return response;
+        } catch (RuntimeException e) {
+            original.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, original);
+        }
+    }
+
+    double hitRatio() {
+        double hits = memoryHits.count() + databaseHits.count() + inFlightHits.count();
+        double total = hits + misses.count();
+        return total == 0 ? 0 : hits / total;
+    }
+
+    /**
+     * Insert the key row, or return the row of an earlier request that already claimed the key
+     */
+    private IdempotencyRecord claimOrFind(String key, String requestHash) {
+        IdempotencyRecord existing = idempotencyRecordRepository.findById(key).orElse(null);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            idempotencyRecordRepository.saveAndFlush(new IdempotencyRecord(key, requestHash));
+            return null;
+        } catch (DataIntegrityViolationException e) {
+            // Claimed by another node between the lookup and the insert
+            return idempotencyRecordRepository.findById(key)
+                .orElseThrow(() -> new TransactionException("Could not claim Idempotency-Key", "SYSTEM_ERROR", e));
+        }
+    }
+
+    /**
+     * Write the response to the key row; until it is written, duplicates on other nodes wait and time out
+     */
+    private void completeOrRetry(String key, TransactionResponse response, int attempt) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> idempotencyRecordRepository.complete(
+                key, response.getTransactionId(), response.getStatus(), response.getMessage()));
+        } catch (RuntimeException e) {
+            if (attempt >= COMPLETE_ATTEMPTS || cleaner == null || cleaner.isShutdown()) {
+                logger.error("Could not record the response of transaction {} for Idempotency-Key {}, " +
+                             "the key stays in progress until it expires: {}", response.getTransactionId(), key, e.getMessage());
+                return;
+            }
+            long delayMs = pollIntervalMs << attempt;
+            logger.warn("Could not record the response of transaction {} for Idempotency-Key {}, retrying in {} ms: {}",
+                        response.getTransactionId(), key, delayMs, e.getMessage());
+            cleaner.schedule(() -> completeOrRetry(key, response, attempt + 1), delayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static IdempotencyRecord completedRecord(String key, String requestHash, TransactionResponse response) {
+        IdempotencyRecord record = new IdempotencyRecord(key, requestHash);
+        record.setTransactionId(response.getTransactionId());
+        record.setResponseStatus(response.getStatus());
+        record.setResponseMessage(response.getMessage());
+        record.setCompletedAt(LocalDateTime.now());
+        return record;
+    }
+
+    private void release(String key) {
+        try {
+            idempotencyRecordRepository.deleteById(key);
+        } catch (Exception e) {
+            // The row expires with the retention window; until then retries wait and time out
+            logger.error("Could not release Idempotency-Key {}: {}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * Wait for a request on another node to complete the key row
+     */
+    private IdempotencyRecord pollUntilCompleted(String key) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitTimeoutMs);
+        while (System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(pollIntervalMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            IdempotencyRecord record = idempotencyRecordRepository.findById(key).orElse(null);
+            if (record == null) {
+                throw new TransactionException("The original request with this Idempotency-Key failed, please retry",
+                                               "IDEMPOTENCY_IN_PROGRESS");
+            }
+            if (record.isCompleted()) {
+                return record;
+            }
+        }
+        throw new TransactionException("A request with this Idempotency-Key is still being processed",
+                                       "IDEMPOTENCY_IN_PROGRESS");
+    }
+
+    private IdempotencyRecord await(CompletableFuture<IdempotencyRecord> original) {
+        try {
+            return original.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            // The duplicate fails the same way as the original
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new TransactionException("System error processing transaction", "SYSTEM_ERROR", e.getCause());
+        } catch (TimeoutException e) {
+            throw new TransactionException("A request with this Idempotency-Key is still being processed",
+                                           "IDEMPOTENCY_IN_PROGRESS");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TransactionException("Interrupted while waiting for the original request", "SYSTEM_ERROR", e);
+        }
+    }
+
+    private TransactionResponse replay(IdempotencyRecord record, String requestHash, long start) {
+        if (!record.getRequestHash().equals(requestHash)) {
+            throw keyMismatch();
+        }
+        dedupTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        logger.info("Replayed response of transaction {} for a duplicate request", record.getTransactionId());
+        return new TransactionResponse(record.getTransactionId(), record.getResponseStatus(), record.getResponseMessage());
+    }
+
+    private static TransactionException keyMismatch() {
+        return new TransactionException("Idempotency-Key was already used with a different request",
+                                        "IDEMPOTENCY_KEY_MISMATCH");
+    }
+
+    private void deleteExpired() {
+        try {
+            Integer deleted = transactionTemplate.execute(status ->
+                idempotencyRecordRepository.deleteCreatedBefore(LocalDateTime.now().minusHours(retentionHours)));
+            logger.debug("Deleted {} expired idempotency keys", deleted);
+        } catch (Exception e) {
+            logger.error("Failed to delete expired idempotency keys: {}", e.getMessage());
+        }
+    }
+
+    private Counter lookupCounter(String result) {
+        return Counter.builder("idempotency.lookups")
+                .description("Requests with an Idempotency-Key, by where the key was found")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static String hash(TransactionRequest request) {
+        BigDecimal amount = request.getAmount();
+        String canonical = request.getClientIdentification() + '\n' + request.getAccountNumber() + '\n'
+            + (amount != null ? amount.stripTrailingZeros().toPlainString() : "");
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(canonical.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.isa.transaction.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-process resolution of natural keys to surrogate IDs:
+ * clientIdentification to CLIENT.ID and (CLIENT.ID, accountNumber) to BALANCE.ID.
+ *
+ * Both mappings never change once the rows exist, so entries are never invalidated. IDs of rows
+ * created by a transaction are only added after it commits, so a rolled back insert cannot leave
+ * an ID behind. Storage is a FingerprintIdMap per mapping, 16 bytes per slot or 21 to 43 bytes per entry
+ * depending on load; app.identity-cache.max-entries bounds each map.
+ */
+@Component
+public class IdentityCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdentityCache.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.identity-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.identity-cache.max-entries:10000000}")
+    private long maxEntries;
+
+    private FingerprintIdMap clientIds;
+    private FingerprintIdMap balanceIds;
+
+    private Counter clientHits;
+    private Counter clientMisses;
+    private Counter balanceHits;
+    private Counter balanceMisses;
+    private Counter rejected;
+
+    @PostConstruct
+    public void start() {
+        clientIds = new FingerprintIdMap(maxEntries);
+        balanceIds = new FingerprintIdMap(maxEntries);
+        clientHits = lookupCounter("client", "hit");
+        clientMisses = lookupCounter("client", "miss");
+        balanceHits = lookupCounter("balance", "hit");
+        balanceMisses = lookupCounter("balance", "miss");
+        rejected = Counter.builder("identity.cache.rejected")
+                .description("IDs not cached because the map reached app.identity-cache.max-entries")
+                .register(meterRegistry);
+        registerGauges("client", clientIds);
+        registerGauges("balance", balanceIds);
+    }
+
+    /**
+     * @return the client ID, or FingerprintIdMap.ABSENT if unknown
+     */
+    public long clientId(String clientIdentification) {
+        if (!enabled) {
+            return FingerprintIdMap.ABSENT;
+        }
+        long id = clientIds.get(FingerprintIdMap.fingerprint(clientIdentification));
+        (id != FingerprintIdMap.ABSENT ? clientHits : clientMisses).increment();
+        return id;
+    }
+
+    /**
+     * @return the balance ID, or FingerprintIdMap.ABSENT if unknown
+     */
+    public long balanceId(long clientId, String accountNumber) {
+        if (!enabled) {
+            return FingerprintIdMap.ABSENT;
+        }
+        long id = balanceIds.get(FingerprintIdMap.fingerprint(clientId, accountNumber));
+        (id != FingerprintIdMap.ABSENT ? balanceHits : balanceMisses).increment();
+        return id;
+    }
+
+    /**
+     * Remember the IDs of a client and one of its balances once the current DB transaction commits
+     */
+    public void putAfterCommit(String clientIdentification, long clientId, String accountNumber, long balanceId) {
+        if (enabled) {
+            AfterCommit.run(() -> {
+                store(clientIds, FingerprintIdMap.fingerprint(clientIdentification), clientId);
+                store(balanceIds, FingerprintIdMap.fingerprint(clientId, accountNumber), balanceId);
+            });
+        }
+    }
+
+    private void store(FingerprintIdMap map, long fingerprint, long id) {
+        if (!map.put(fingerprint, id)) {
+            rejected.increment();
+            logger.debug("Identity cache full, ID {} not cached", id);
+        }
+    }
+
+    private Counter lookupCounter(String map, String result) {
+        return Counter.builder("identity.cache.lookups")
+                .description("Natural key to ID lookups")
+                .tag("map", map)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private void registerGauges(String name, FingerprintIdMap map) {
+        Gauge.builder("identity.cache.size", map, FingerprintIdMap::size)
+                .description("Cached IDs")
+                .tag("map", name)
+                .register(meterRegistry);
+        Gauge.builder("identity.cache.memory", map, FingerprintIdMap::memoryBytes)
+                .description("Bytes held by the cached IDs")
+                .tag("map", name)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,149 @@
+package com.isa.transaction.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Circuit breaker around the Kafka producer.
+ *
+ * CLOSED: sends go through; app.kafka.breaker.failure-threshold consecutive failed sends open it.
+ * OPEN: sends are skipped and the events spilled to the dead letter queue; after
+ * app.kafka.breaker.open-duration-ms the next send is let through as a probe.
+ * HALF_OPEN: one probe at a time; a successful probe closes the breaker, a failed one opens it again.
+ * Listeners registered with onClose run when the breaker closes, e.g. to drain what was spilled.
+ */
+@Component
+public class KafkaCircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(KafkaCircuitBreaker.class);
+
+    public enum State {
+        CLOSED, HALF_OPEN, OPEN
+    }
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.kafka.breaker.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.kafka.breaker.failure-threshold:20}")
+    private int failureThreshold;
+
+    @Value("${app.kafka.breaker.open-duration-ms:10000}")
+    private long openDurationMs;
+
+    private volatile State state = State.CLOSED;
+    private volatile long openedAtNanos;
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicBoolean probeInFlight = new AtomicBoolean();
+    private final List<Runnable> closeListeners = new CopyOnWriteArrayList<>();
+
+    private Counter openedCounter;
+    private Counter closedCounter;
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("kafka.breaker.state", this, breaker -> breaker.state.ordinal())
+                .description("Kafka circuit breaker state: 0 closed, 1 half-open, 2 open")
+                .register(meterRegistry);
+        openedCounter = Counter.builder("kafka.breaker.transitions")
+                .description("Kafka circuit breaker state changes")
+                .tag("to", "open")
+                .register(meterRegistry);
+        closedCounter = Counter.builder("kafka.breaker.transitions")
+                .description("Kafka circuit breaker state changes")
+                .tag("to", "closed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Whether a send may go to the broker now; a true answer in HALF_OPEN makes the caller the probe,
+     * and every allowed send must report back with onSuccess or onFailure
+     */
+    public boolean allowRequest() {
+        if (!enabled) {
+            return true;
+        }
+        State current = state;
+        if (current == State.CLOSED) {
+            return true;
+        }
+        if (current == State.OPEN) {
+            if (System.nanoTime() - openedAtNanos < TimeUnit.MILLISECONDS.toNanos(openDurationMs)) {
+                return false;
+            }
+            synchronized (this) {
+                if (state == State.OPEN) {
+                    state = State.HALF_OPEN;
+                    logger.info("Kafka circuit breaker half-open, probing the broker");
+                }
+            }
+        }
+        return probeInFlight.compareAndSet(false, true);
+    }
+
+    public void onSuccess() {
+        consecutiveFailures.set(0);
+        if (state == State.CLOSED) {
+            return;
+        }
+        boolean closed = false;
+        synchronized (this) {
+            if (state != State.CLOSED) {
+                state = State.CLOSED;
+                probeInFlight.set(false);
+                closed = true;
+            }
+        }
+        if (closed) {
+            closedCounter.increment();
+            logger.info("Kafka circuit breaker closed, the broker is reachable again");
+            for (Runnable listener : closeListeners) {
+                try {
+                    listener.run();
+                } catch (Exception e) {
+                    logger.error("Circuit breaker close listener failed: {}", e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    public void onFailure() {
+        if (!enabled) {
+            return;
+        }
+        int failures = consecutiveFailures.incrementAndGet();
+        synchronized (this) {
+            if (state == State.HALF_OPEN || (state == State.CLOSED && failures >= failureThreshold)) {
+                state = State.OPEN;
+                openedAtNanos = System.nanoTime();
+                probeInFlight.set(false);
+                openedCounter.increment();
+                logger.warn("Kafka circuit breaker opened after {} consecutive failures, spilling to the dead letter queue for {} ms",
+                           failures, openDurationMs);
+            }
+        }
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public void onClose(Runnable listener) {
+        closeListeners.add(listener);
+    }
+}
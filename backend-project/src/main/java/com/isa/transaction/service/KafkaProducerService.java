@@ -1,10 +1,21 @@
 package com.isa.transaction.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.isa.transaction.dto.TransactionResultEvent;
 import com.isa.transaction.entity.DeadLetterMessage;
+import com.isa.transaction.exception.TransactionException;
 import com.isa.transaction.repository.DeadLetterMessageRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.errors.InvalidMetadataException;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.apache.kafka.common.utils.Utils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,7 +24,21 @@ import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class KafkaProducerService {
@@ -27,7 +52,7 @@ public class KafkaProducerService {
     private DeadLetterMessageRepository deadLetterMessageRepository;
     
     @Autowired
-    private ObjectMapper objectMapper;
+    private TransactionResultEventCodec eventCodec;
     
     @Value("${app.kafka.transaction-results-topic:transaction-results}")
     private String transactionResultsTopic;
@@ -35,61 +60,329 @@ public class KafkaProducerService {
     @Value("${app.kafka.retry-attempts:3}")
     private int retryAttempts;
     
+    @Value("${app.kafka.max-in-flight:1000}")
+    private int maxInFlight;
+    
+    @Value("${app.kafka.in-flight-wait-ms:5000}")
+    private long inFlightWaitMs;
+    
+    @Value("${app.kafka.partition-refresh-ms:60000}")
+    private long partitionRefreshMs;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Autowired
+    private KafkaRetryScheduler retryScheduler;
+    
+    @Autowired
+    private DeadLetterReplayService deadLetterReplayService;
+    
+    @Autowired
+    private KafkaCircuitBreaker circuitBreaker;
+    
+    @Autowired
+    private DeadLetterBatchWriter deadLetterBatchWriter;
+    
+    // One permit per event sent and not yet acknowledged or dead-lettered; retries keep the permit
+    private Semaphore inFlight;
+    
+    // Partition count per topic, read in the background so a send never waits up to max.block.ms for metadata
+    private final Map<String, Integer> partitionCounts = new ConcurrentHashMap<>();
+    private final Set<String> partitionRefreshes = ConcurrentHashMap.newKeySet();
+    private ScheduledExecutorService metadataRefresher;
+    
+    private DistributionSummary partitionBatchSize;
+    private Timer sendSuccessTimer;
+    private Timer sendFailureTimer;
+    private Counter spilledBreakerOpenCounter;
+    private Counter spilledRetriesExhaustedCounter;
+    
+    @PostConstruct
+    public void init() {
+        inFlight = new Semaphore(maxInFlight);
+        Gauge.builder("kafka.producer.in-flight", inFlight, semaphore -> maxInFlight - semaphore.availablePermits())
+                .description("Transaction result events sent and not yet acknowledged or dead-lettered")
+                .register(meterRegistry);
+        partitionBatchSize = DistributionSummary.builder("kafka.producer.batch.size")
+                .description("Transaction result events sent together to one partition")
+                .register(meterRegistry);
+        sendSuccessTimer = Timer.builder("kafka.producer.send.latency")
+                .description("Time from send until the broker answers")
+                .tag("outcome", "success")
+                .register(meterRegistry);
+        sendFailureTimer = Timer.builder("kafka.producer.send.latency")
+                .description("Time from send until the broker answers")
+                .tag("outcome", "failure")
+                .register(meterRegistry);
+        spilledBreakerOpenCounter = Counter.builder("kafka.producer.spilled")
+                .description("Transaction result events written to the dead letter queue instead of Kafka")
+                .tag("reason", "breaker-open")
+                .register(meterRegistry);
+        spilledRetriesExhaustedCounter = Counter.builder("kafka.producer.spilled")
+                .description("Transaction result events written to the dead letter queue instead of Kafka")
+                .tag("reason", "retries-exhausted")
+                .register(meterRegistry);
+        
+        // Once the broker is back, publish what was spilled during the outage
+        circuitBreaker.onClose(this::drainDeadLetterQueue);
+        
+        if (metadataRefresher == null) {
+            metadataRefresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "kafka-metadata");
+                thread.setDaemon(true);
+                return thread;
+            });
+            metadataRefresher.scheduleWithFixedDelay(() -> partitionCounts.keySet().forEach(this::requestPartitionRefresh),
+                                                     partitionRefreshMs, partitionRefreshMs, TimeUnit.MILLISECONDS);
+        }
+        requestPartitionRefresh(transactionResultsTopic);
+    }
+    
+    @PreDestroy
+    public void stop() {
+        if (metadataRefresher != null) {
+            metadataRefresher.shutdownNow();
+        }
+    }
+    
     /**
      * Send a transaction result event to Kafka
      * Implements retry logic and dead letter queue for failed messages
+     * 
+     * @return a future completed once the event is either acknowledged by the broker or saved to the dead letter queue
+     */
+    public CompletableFuture<Void> sendTransactionResult(TransactionResultEvent event) {
+        return sendTransactionResults(List.of(event));
+    }
+    
+    /**
+     * Send several transaction result events to Kafka
+     * Events are grouped by target partition so each group fills the same producer batch.
+     * At most app.kafka.max-in-flight events are outstanding at a time; when the window is full
+     * the caller blocks until sends complete, and fails with SERVICE_BUSY after app.kafka.in-flight-wait-ms.
+     * 
+     * @return a future completed once every event is either acknowledged or saved to the dead letter queue,
+     *         or completed exceptionally if any of them could not be handed off
      */
-    public void sendTransactionResult(TransactionResultEvent event) {
-        sendMessageWithRetry(transactionResultsTopic, event.getTransactionId(), event, 0);
+    public CompletableFuture<Void> sendTransactionResults(Collection<TransactionResultEvent> events) {
+        if (events.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.allOf(sendEachTransactionResult(new ArrayList<>(events)).toArray(new CompletableFuture[0]));
+    }
+    
+    /**
+     * Same as sendTransactionResults, with one future per event so callers can tell which events were handed off
+     * 
+     * @return the future of each event, in the order of the given events
+     */
+    public List<CompletableFuture<Void>> sendEachTransactionResult(List<TransactionResultEvent> events) {
+        Map<TransactionResultEvent, CompletableFuture<Void>> handled = new IdentityHashMap<>(events.size());
+        for (TransactionResultEvent event : events) {
+            handled.put(event, new CompletableFuture<>());
+        }
+        boolean saturated = false;
+        
+        for (List<TransactionResultEvent> partitionBatch : groupByPartition(transactionResultsTopic, events).values()) {
+            partitionBatchSize.record(partitionBatch.size());
+            for (TransactionResultEvent event : partitionBatch) {
+                CompletableFuture<Void> eventHandled = handled.get(event);
+                
+                // Once the window stayed full for a whole wait, fail the rest of the call without waiting again
+                if (saturated || !acquireInFlight()) {
+                    saturated = true;
+                    eventHandled.completeExceptionally(new TransactionException(
+                        "Too many Kafka sends in flight, please retry later", "SERVICE_BUSY"));
+                    continue;
+                }
+                eventHandled.whenComplete((result, throwable) -> inFlight.release());
+                sendMessageWithRetry(transactionResultsTopic, event.getTransactionId(), event, 0, 0L, eventHandled);
+            }
+        }
+        return events.stream().map(handled::get).toList();
     }
     
-    private void sendMessageWithRetry(String topic, String key, TransactionResultEvent event, int attemptCount) {
+    private boolean acquireInFlight() {
+        try {
+            return inFlight.tryAcquire(inFlightWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+    
+    /**
+     * Group events by the partition the default partitioner picks for their key (murmur2 of the key bytes),
+     * keeping the original order within each partition
+     */
+    private Map<Integer, List<TransactionResultEvent>> groupByPartition(String topic, Collection<TransactionResultEvent> events) {
+        Map<Integer, List<TransactionResultEvent>> batches = new LinkedHashMap<>();
+        int partitionCount = partitionCount(topic);
+        for (TransactionResultEvent event : events) {
+            int partition = partitionCount > 0 && event.getTransactionId() != null
+                ? Utils.toPositive(Utils.murmur2(event.getTransactionId().getBytes(StandardCharsets.UTF_8))) % partitionCount
+                : -1;
+            batches.computeIfAbsent(partition, key -> new ArrayList<>()).add(event);
+        }
+        return batches;
+    }
+    
+    /**
+     * Cached partition count of the topic, or 0 until the first background lookup succeeds.
+     * Without it the events are sent as one group; the producer still partitions them.
+     */
+    private int partitionCount(String topic) {
+        Integer partitions = partitionCounts.get(topic);
+        if (partitions == null) {
+            requestPartitionRefresh(topic);
+            return 0;
+        }
+        return partitions;
+    }
+    
+    /**
+     * Look the partitions of the topic up on the metadata thread, at most one lookup per topic at a time.
+     * Nothing is looked up while the circuit breaker is open, since the lookup would only wait for the broker.
+     */
+    private void requestPartitionRefresh(String topic) {
+        if (circuitBreaker.getState() == KafkaCircuitBreaker.State.OPEN || !partitionRefreshes.add(topic)) {
+            return;
+        }
+        try {
+            metadataRefresher.execute(() -> {
+                try {
+                    refreshPartitionCount(topic);
+                } finally {
+                    partitionRefreshes.remove(topic);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            partitionRefreshes.remove(topic);
+        }
+    }
+    
+    void refreshPartitionCount(String topic) {
+        try {
+            List<PartitionInfo> partitions = kafkaTemplate.partitionsFor(topic);
+            if (partitions != null && !partitions.isEmpty()) {
+                partitionCounts.put(topic, partitions.size());
+            }
+        } catch (Exception e) {
+            // The cached count stays until the next refresh
+            logger.debug("Could not read partitions of topic {}: {}", topic, e.getMessage());
+        }
+    }
+    
+    /**
+     * Metadata errors mean the cached partition count may be stale, e.g. after partitions were added
+     */
+    private static boolean isMetadataError(Throwable throwable) {
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause instanceof InvalidMetadataException || cause instanceof TimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Send one event; a failed attempt is retried after an exponential backoff on the retry timer,
+     * never from the producer network thread that reports the failure.
+     * While the circuit breaker is open the event is spilled to the dead letter queue without a send.
+     * 
+     * @param totalDelayMs backoff already spent on this event by earlier retries
+     */
+    private void sendMessageWithRetry(String topic, String key, TransactionResultEvent event, int attemptCount,
+                                      long totalDelayMs, CompletableFuture<Void> handled) {
+        if (!circuitBreaker.allowRequest()) {
+            spillToDeadLetterQueue(topic, event, "Kafka circuit breaker open", spilledBreakerOpenCounter, handled);
+            return;
+        }
         logger.debug("Sending transaction result to topic {} (attempt {})", topic, attemptCount + 1);
         
-        CompletableFuture<SendResult<String, Object>> future = kafkaTemplate.send(topic, key, event);
+        long sentAt = System.nanoTime();
+        CompletableFuture<SendResult<String, Object>> future;
+        try {
+            future = kafkaTemplate.send(topic, key, event);
+        } catch (Exception e) {
+            future = CompletableFuture.failedFuture(e);
+        }
         
         future.whenComplete((result, throwable) -> {
+            (throwable == null ? sendSuccessTimer : sendFailureTimer).record(System.nanoTime() - sentAt, TimeUnit.NANOSECONDS);
             if (throwable == null) {
                 // Success
+                circuitBreaker.onSuccess();
                 logger.info("Transaction result sent successfully for transaction {} to topic {} at offset {}", 
                            event.getTransactionId(), topic, result.getRecordMetadata().offset());
-            } else {
-                // Failure
-                logger.error("Failed to send transaction result for transaction {} to topic {} (attempt {}): {}", 
-                            event.getTransactionId(), topic, attemptCount + 1, throwable.getMessage());
-                
-                if (attemptCount < retryAttempts - 1) {
-                    // Retry
-                    logger.info("Retrying to send transaction result for transaction {} (attempt {})", 
-                               event.getTransactionId(), attemptCount + 2);
-                    sendMessageWithRetry(topic, key, event, attemptCount + 1);
-                } else {
-                    // All retries exhausted, send to dead letter queue
-                    logger.error("All retry attempts exhausted for transaction {}. Sending to dead letter queue.", 
-                                event.getTransactionId());
-                    saveToDeadLetterQueue(topic, event, throwable);
+                handled.complete(null);
+                return;
+            }
+            
+            // Failure
+            circuitBreaker.onFailure();
+            if (isMetadataError(throwable)) {
+                requestPartitionRefresh(topic);
+            }
+            logger.error("Failed to send transaction result for transaction {} to topic {} (attempt {}): {}", 
+                        event.getTransactionId(), topic, attemptCount + 1, throwable.getMessage());
+            
+            if (attemptCount < retryAttempts - 1 && circuitBreaker.getState() != KafkaCircuitBreaker.State.OPEN) {
+                // Retry after a backoff, keeping the in-flight permit
+                long delayMs = retryScheduler.nextDelayMillis(attemptCount);
+                long nextTotalDelayMs = totalDelayMs + delayMs;
+                if (retryScheduler.scheduleRetry(delayMs, nextTotalDelayMs, () ->
+                        sendMessageWithRetry(topic, key, event, attemptCount + 1, nextTotalDelayMs, handled))) {
+                    logger.info("Retrying to send transaction result for transaction {} (attempt {}) in {} ms", 
+                               event.getTransactionId(), attemptCount + 2, delayMs);
+                    return;
                 }
+                logger.warn("Retry refused for transaction {} after {} ms of backoff", 
+                           event.getTransactionId(), totalDelayMs);
             }
+            
+            // All retries exhausted, send to dead letter queue
+            logger.error("All retry attempts exhausted for transaction {}. Sending to dead letter queue.", 
+                        event.getTransactionId());
+            spillToDeadLetterQueue(topic, event, throwable.getMessage(), spilledRetriesExhaustedCounter, handled);
         });
     }
     
     /**
      * Save failed message to dead letter queue in database
+     * The message goes through the batch writer, so this never blocks the producer network thread;
+     * handled completes once the message is committed
      */
-    private void saveToDeadLetterQueue(String topic, TransactionResultEvent event, Throwable error) {
+    private void spillToDeadLetterQueue(String topic, TransactionResultEvent event, String error, Counter reason,
+                                        CompletableFuture<Void> handled) {
+        String messagePayload;
         try {
-            String messagePayload = objectMapper.writeValueAsString(event);
-            String errorMessage = error != null ? error.getMessage() : "Unknown error";
-            
-            DeadLetterMessage deadLetterMessage = new DeadLetterMessage(topic, messagePayload, errorMessage);
-            deadLetterMessageRepository.save(deadLetterMessage);
-            
-            logger.info("Transaction result for transaction {} saved to dead letter queue", event.getTransactionId());
-            
+            messagePayload = eventCodec.toPayload(event);
         } catch (JsonProcessingException e) {
             logger.error("Failed to serialize transaction result event for dead letter queue: {}", e.getMessage());
-        } catch (Exception e) {
-            logger.error("Failed to save transaction result to dead letter queue: {}", e.getMessage());
+            handled.completeExceptionally(e);
+            return;
+        }
+        
+        DeadLetterMessage deadLetterMessage = new DeadLetterMessage(topic, messagePayload, error != null ? error : "Unknown error");
+        deadLetterBatchWriter.write(deadLetterMessage).whenComplete((result, throwable) -> {
+            if (throwable == null) {
+                reason.increment();
+                logger.info("Transaction result for transaction {} saved to dead letter queue", event.getTransactionId());
+                handled.complete(null);
+            } else {
+                logger.error("Failed to save transaction result to dead letter queue: {}", throwable.getMessage());
+                handled.completeExceptionally(throwable);
+            }
+        });
+    }
+    
+    private void drainDeadLetterQueue() {
+        try {
+            deadLetterReplayService.startReplay(true);
+        } catch (TransactionException e) {
+            logger.debug("Dead letter drain not started: {}", e.getMessage());
         }
     }
     
@@ -108,46 +401,10 @@ public class KafkaProducerService {
     
     /**
      * Retry failed messages from dead letter queue
-     * This could be called by a scheduled job or admin endpoint
+     * Starts a paged, rate-limited replay in the background, resuming from its last checkpoint
      */
     public void retryDeadLetterMessages() {
-        try {
-            java.util.List<DeadLetterMessage> deadLetterMessages = 
-                deadLetterMessageRepository.findAllByOrderByCreatedDateDesc();
-            
-            logger.info("Found {} messages in dead letter queue to retry", deadLetterMessages.size());
-            
-            for (DeadLetterMessage dlm : deadLetterMessages) {
-                if (dlm.getTopic().equals(transactionResultsTopic)) {
-                    try {
-                        TransactionResultEvent event = objectMapper.readValue(dlm.getMessagePayload(), 
-                                                                             TransactionResultEvent.class);
-                        
-                        // Try to resend
-                        CompletableFuture<SendResult<String, Object>> future = 
-                            kafkaTemplate.send(dlm.getTopic(), event.getTransactionId(), event);
-                        
-                        future.whenComplete((result, throwable) -> {
-                            if (throwable == null) {
-                                // Success - remove from dead letter queue
-                                deadLetterMessageRepository.delete(dlm);
-                                logger.info("Successfully retried dead letter message {} for transaction {}", 
-                                           dlm.getId(), event.getTransactionId());
-                            } else {
-                                logger.warn("Failed to retry dead letter message {} for transaction {}: {}", 
-                                           dlm.getId(), event.getTransactionId(), throwable.getMessage());
-                            }
-                        });
-                        
-                    } catch (JsonProcessingException e) {
-                        logger.error("Failed to deserialize dead letter message {}: {}", dlm.getId(), e.getMessage());
-                    }
-                }
-            }
-            
-        } catch (Exception e) {
-            logger.error("Failed to retry dead letter messages: {}", e.getMessage());
-        }
+        deadLetterReplayService.startReplay(true);
     }
     
     /**
@@ -0,0 +1,149 @@
+package com.isa.transaction.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Delayed retries for Kafka sends.
+ *
+ * Retries are scheduled on a hashed wheel timer with exponential backoff and jitter, so a broker blip
+ * does not burn every attempt within milliseconds. Expired retries run on a small executor and never
+ * on the producer network thread. A retry is refused once the event's total backoff would exceed
+ * app.kafka.retry.max-total-delay-ms or app.kafka.retry.max-pending retries are already waiting.
+ */
+@Component
+public class KafkaRetryScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(KafkaRetryScheduler.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.kafka.retry.initial-backoff-ms:100}")
+    private long initialBackoffMs;
+
+    @Value("${app.kafka.retry.max-backoff-ms:10000}")
+    private long maxBackoffMs;
+
+    @Value("${app.kafka.retry.max-total-delay-ms:60000}")
+    private long maxTotalDelayMs;
+
+    @Value("${app.kafka.retry.max-pending:1000000}")
+    private int maxPending;
+
+    @Value("${app.kafka.retry.tick-ms:10}")
+    private long tickMs;
+
+    @Value("${app.kafka.retry.wheel-size:512}")
+    private int wheelSize;
+
+    @Value("${app.kafka.retry.threads:2}")
+    private int threads;
+
+    private HashedWheelTimer timer;
+    private ExecutorService executor;
+
+    private Counter scheduledCounter;
+    private Counter rejectedPendingCounter;
+    private Counter rejectedDelayCounter;
+
+    @PostConstruct
+    public void start() {
+        timer = new HashedWheelTimer("kafka-retry-timer", tickMs, TimeUnit.MILLISECONDS, wheelSize);
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "kafka-retry-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Gauge.builder("kafka.producer.retry.pending", timer, HashedWheelTimer::pending)
+                .description("Kafka send retries waiting for their backoff to elapse")
+                .register(meterRegistry);
+        scheduledCounter = Counter.builder("kafka.producer.retry.scheduled")
+                .description("Kafka send retries scheduled")
+                .register(meterRegistry);
+        rejectedPendingCounter = Counter.builder("kafka.producer.retry.rejected")
+                .description("Kafka send retries refused, the event goes to the dead letter queue")
+                .tag("reason", "max-pending")
+                .register(meterRegistry);
+        rejectedDelayCounter = Counter.builder("kafka.producer.retry.rejected")
+                .description("Kafka send retries refused, the event goes to the dead letter queue")
+                .tag("reason", "max-total-delay")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (timer == null) {
+            return;
+        }
+        int dropped = timer.stop();
+        if (dropped > 0) {
+            logger.warn("Dropped {} pending Kafka send retries on shutdown", dropped);
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Backoff before the retry that follows the given failed attempt (0-based):
+     * initial * 2^attempt capped at max, with equal jitter (half fixed, half random)
+     */
+    long nextDelayMillis(int failedAttempt) {
+        long exponential = initialBackoffMs << Math.min(failedAttempt, 30);
+        long capped = Math.min(maxBackoffMs, exponential < 0 ? maxBackoffMs : exponential);
+        long half = capped / 2;
+        return half + ThreadLocalRandom.current().nextLong(capped - half + 1);
+    }
+
+    /**
+     * Schedule a retry after the given delay
+     *
+     * @param delayMillis      backoff before this retry, from nextDelayMillis
+     * @param totalDelayMillis backoff accumulated by the event including this retry
+     * @return false if the retry was refused and the caller should give up on the event
+     */
+    public boolean scheduleRetry(long delayMillis, long totalDelayMillis, Runnable retry) {
+        if (totalDelayMillis > maxTotalDelayMs) {
+            rejectedDelayCounter.increment();
+            return false;
+        }
+        if (timer.pending() >= maxPending) {
+            rejectedPendingCounter.increment();
+            return false;
+        }
+        timer.schedule(() -> execute(retry), delayMillis, TimeUnit.MILLISECONDS);
+        scheduledCounter.increment();
+        return true;
+    }
+
+    /**
+     * Run follow-up work of a send callback off the producer network thread
+     */
+    public void execute(Runnable task) {
+        executor.execute(task);
+    }
+}
@@ -0,0 +1,247 @@
+package com.isa.transaction.service;
+
+import com.isa.transaction.repository.BalanceRepository;
+import com.isa.transaction.repository.ClientRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Bloom filters of the client identifications and (clientIdentification, accountNumber) pairs in the database.
+ *
+ * A negative answer means the client or account does not exist, so the write path can go straight to the
+ * insert and the balance endpoint can answer 404 without querying. The filters are loaded from the database
+ * in the background at startup and then get every key this node inserts; until the load finishes, and when
+ * a filter is saturated, every key is reported as possibly known.
+ *
+ * Keys are added again once their insert commits, so a reload whose snapshot was taken before the commit
+ * still ends up with them.
+ *
+ * Keys inserted by other nodes only reach this node's filters with the next reload
+ * (app.bloom.rebuild-interval-ms). Until then an insert of such a key fails on the unique constraint and
+ * the transaction is retried with a regular lookup. The balance endpoint would answer 404 for it, so it
+ * only skips the query when app.bloom.skip-balance-lookups=true, which is safe with a single writing node.
+ */
+@Component
+public class KnownKeysFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(KnownKeysFilter.class);
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private BalanceRepository balanceRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.bloom.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.bloom.expected-keys:1000000}")
+    private long expectedKeys;
+
+    @Value("${app.bloom.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Value("${app.bloom.max-memory-mb:64}")
+    private long maxMemoryMb;
+
+    @Value("${app.bloom.rebuild-interval-ms:600000}")
+    private long rebuildIntervalMs;
+
+    @Value("${app.bloom.skip-balance-lookups:false}")
+    private boolean skipBalanceLookups;
+
+    private volatile Filters filters;
+    // Filters being loaded; keys inserted meanwhile are added to both
+    private volatile Filters loading;
+    private ScheduledExecutorService loader;
+
+    private Counter clientNegatives;
+    private Counter clientPositives;
+    private Counter accountNegatives;
+    private Counter accountPositives;
+
+    @PostConstruct
+    public void start() {
+        clientNegatives = lookupCounter("client", "negative");
+        clientPositives = lookupCounter("client", "positive");
+        accountNegatives = lookupCounter("account", "negative");
+        accountPositives = lookupCounter("account", "positive");
+        registerGauges("client", f -> f.clients);
+        registerGauges("account", f -> f.accounts);
+        if (!enabled) {
+            return;
+        }
+
+        loader = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "bloom-filter-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        loader.execute(this::reload);
+        if (rebuildIntervalMs > 0) {
+            loader.scheduleWithFixedDelay(this::reload, rebuildIntervalMs, rebuildIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (loader != null) {
+            loader.shutdownNow();
+        }
+    }
+
+    /**
+     * @return true only if the client certainly does not exist
+     */
+    public boolean isUnknownClient(String clientIdentification) {
+        Filters current = filters;
+        if (current == null) {
+            return false;
+        }
+        boolean unknown = !current.clients.mightContain(FingerprintIdMap.fingerprint(clientIdentification));
+        (unknown ? clientNegatives : clientPositives).increment();
+        return unknown;
+    }
+
+    /**
+     * @return true only if the account certainly does not exist
+     */
+    public boolean isUnknownAccount(String clientIdentification, String accountNumber) {
+        Filters current = filters;
+        if (current == null) {
+            return false;
+        }
+        boolean unknown = !current.accounts.mightContain(FingerprintIdMap.fingerprint(clientIdentification, accountNumber));
+        (unknown ? accountNegatives : accountPositives).increment();
+        return unknown;
+    }
+
+    /**
+     * Same as isUnknownAccount, for read paths that may answer "not found" without querying
+     */
+    public boolean isUnknownAccountForRead(String clientIdentification, String accountNumber) {
+        return skipBalanceLookups && isUnknownAccount(clientIdentification, accountNumber);
+    }
+
+    /**
+     * Record a client about to be inserted, and again after commit; a rollback only leaves a false positive
+     */
+    public void addClient(String clientIdentification) {
+        long hash = FingerprintIdMap.fingerprint(clientIdentification);
+        add(hash, true);
+        AfterCommit.run(() -> add(hash, true));
+    }
+
+    /**
+     * Record an account about to be inserted, and again after commit; a rollback only leaves a false positive
+     */
+    public void addAccount(String clientIdentification, String accountNumber) {
+        long hash = FingerprintIdMap.fingerprint(clientIdentification, accountNumber);
+        add(hash, false);
+        AfterCommit.run(() -> add(hash, false));
+    }
+
+    /**
+     * Build new filters from the database and swap them in
+     */
+    void reload() {
+        long start = System.nanoTime();
+        long maxBytes = maxMemoryMb << 20;
+        Filters next = new Filters(new ScalableBloomFilter(expectedKeys, falsePositiveRate, maxBytes / 2),
+                                   new ScalableBloomFilter(expectedKeys, falsePositiveRate, maxBytes / 2));
+        loading = next;
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                try (var identifications = clientRepository.streamAllClientIdentifications()) {
+                    identifications.forEach(identification -> next.clients.add(FingerprintIdMap.fingerprint(identification)));
+                }
+                try (var accountKeys = balanceRepository.streamAllAccountKeys()) {
+                    accountKeys.forEach(key -> next.accounts.add(FingerprintIdMap.fingerprint((String) key[0], (String) key[1])));
+                }
+            });
+            filters = next;
+            logger.info("Loaded Bloom filters in {} ms: {} clients, {} accounts, {} KB, estimated false positive rate {}",
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), next.clients.insertions(),
+                        next.accounts.insertions(), (next.clients.memoryBytes() + next.accounts.memoryBytes()) >> 10,
+                        String.format("%.4f", Math.max(next.clients.estimatedFalsePositiveRate(),
+                                                       next.accounts.estimatedFalsePositiveRate())));
+            if (next.clients.isSaturated() || next.accounts.isSaturated()) {
+                logger.warn("Bloom filter reached app.bloom.max-memory-mb={}, lookups are no longer skipped", maxMemoryMb);
+            }
+        } catch (Exception e) {
+            logger.error("Failed to load Bloom filters, keeping the previous ones: {}", e.getMessage());
+        } finally {
+            loading = null;
+        }
+    }
+
+    private void add(long hash, boolean client) {
+        // Read loading first: reload publishes filters before clearing loading, so one of the two is the new set
+        Filters pending = loading;
+        addTo(pending, hash, client);
+        addTo(filters, hash, client);
+    }
+
+    private static void addTo(Filters target, long hash, boolean client) {
+        if (target != null) {
+            (client ? target.clients : target.accounts).add(hash);
+        }
+    }
+
+    private Counter lookupCounter(String filter, String result) {
+        return Counter.builder("bloom.filter.lookups")
+                .description("Bloom filter lookups; negative lookups skipped a database query")
+                .tag("filter", filter)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private void registerGauges(String name, Function<Filters, ScalableBloomFilter> filter) {
+        gauge("bloom.filter.memory", "Bytes held by the Bloom filter", name, filter, ScalableBloomFilter::memoryBytes);
+        gauge("bloom.filter.keys", "Keys added to the Bloom filter", name, filter, ScalableBloomFilter::insertions);
+        gauge("bloom.filter.fpp.configured", "Configured false positive rate", name, filter,
+              ScalableBloomFilter::configuredFalsePositiveRate);
+        gauge("bloom.filter.fpp.estimated", "False positive rate expected for the keys added", name, filter,
+              ScalableBloomFilter::estimatedFalsePositiveRate);
+    }
+
+    private void gauge(String meter, String description, String name,
+                       Function<Filters, ScalableBloomFilter> filter,
+                       ToDoubleFunction<ScalableBloomFilter> value) {
+        Gauge.builder(meter, this, self -> self.filters == null ? Double.NaN : value.applyAsDouble(filter.apply(self.filters)))
+                .description(description)
+                .tag("filter", name)
+                .register(meterRegistry);
+    }
+
+    private static final class Filters {
+        private final ScalableBloomFilter clients;
+        private final ScalableBloomFilter accounts;
+
+        private Filters(ScalableBloomFilter clients, ScalableBloomFilter accounts) {
+            this.clients = clients;
+            this.accounts = accounts;
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package com.isa.transaction.service;
+
+import com.isa.transaction.dto.LedgerPartition;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Monthly partitions of BALANCE_TRANSACTION.
+ *
+ * The table itself is created outside the application, as a PostgreSQL table partitioned by range on CREATED_AT.
+ * Its primary key and unique keys must include the partition key: PRIMARY KEY (ID, CREATED_AT) and
+ * UNIQUE (TRANSACTION_ID, CREATED_AT) replace the unique ID and TRANSACTION_ID of the plain table. That key
+ * no longer rejects a transaction ID issued twice, so a partitioned table needs collision-free IDs: the
+ * SNOWFLAKE generator with a distinct app.transaction.id.node-id per instance. Maintenance logs an error
+ * while that is not configured. A DEFAULT partition is recommended, so a missing month never rejects inserts.
+ *
+ * This job creates the partitions for the current month and app.ledger.partitions.months-ahead months
+ * ahead, named BALANCE_TRANSACTION_PYYYYMM with month bounds in UTC. It runs at startup and then every
+ * app.ledger.partitions.interval-ms. With app.ledger.partitions.retention-months set, partitions whose
+ * month ended before the retention window are detached instead of deleted row by row; they
+ * stay behind as plain tables to archive or drop, or are dropped right away when
+ * app.ledger.partitions.drop-detached is set. DDL runs with a short lock_timeout, so a busy table
+ * postpones maintenance instead of blocking writers. On databases other than PostgreSQL, or when the
+ * table is not partitioned, the job does nothing.
+ *
+ * Balances are recomputed from BALANCE_SNAPSHOT plus the ledger rows after it, so a partition is only
+ * detached once every account with rows in it has a snapshot at or past its last row there; otherwise it
+ * is kept until a balance snapshot run catches up. The reconciliation and the snapshot runs then start
+ * each account from the BALANCE_BEFORE of its oldest attached row. The account stats backfill sums whole
+ * histories and refuses to run while retention is enabled.
+ */
+@Component
+public class LedgerPartitionManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(LedgerPartitionManager.class);
+
+    private static final String SCHEMA = "TESTHTC";
+    private static final String TABLE = "BALANCE_TRANSACTION";
+    private static final Pattern PARTITION_NAME = Pattern.compile("balance_transaction_p(\\d{6})");
+    private static final DateTimeFormatter MONTH_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TransactionIdGenerator transactionIdGenerator;
+
+    @Value("${app.ledger.partitions.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.ledger.partitions.months-ahead:3}")
+    private int monthsAhead;
+
+    @Value("${app.ledger.partitions.retention-months:0}")
+    private int retentionMonths;
+
+    @Value("${app.ledger.partitions.drop-detached:false}")
+    private boolean dropDetached;
+
+    @Value("${app.ledger.partitions.interval-ms:86400000}")
+    private long intervalMs;
+
+    @Value("${app.ledger.partitions.lock-timeout-ms:5000}")
+    private long lockTimeoutMs;
+
+    private ScheduledExecutorService executor;
+    private final AtomicInteger attachedPartitions = new AtomicInteger();
+    // Null until the first check
+    private volatile Boolean partitioned;
+
+    @PostConstruct
+    public void start() {
+        Gauge.builder("ledger.partitions", attachedPartitions, AtomicInteger::get)
+                .description("Monthly partitions attached to BALANCE_TRANSACTION")
+                .register(meterRegistry);
+        if (!enabled) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ledger-partitions");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::scheduledMaintenance, 0, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Create the missing partitions and detach the expired ones
+     *
+     * @return the partitions attached afterwards
+     */
+    public synchronized List<LedgerPartition> maintain() {
+        try (Connection connection = dataSource.getConnection()) {
+            if (!isPartitioned(connection)) {
+                return List.of();
+            }
+            connection.setAutoCommit(true);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET lock_timeout = " + lockTimeoutMs);
+            }
+            try {
+                YearMonth current = YearMonth.now(ZoneOffset.UTC);
+                for (int i = 0; i <= monthsAhead; i++) {
+                    createPartition(connection, current.plusMonths(i));
+                }
+                if (retentionMonths > 0) {
+                    boolean concurrently = !hasDefaultPartition(connection);
+                    for (LedgerPartition partition : expiredPartitions(listPartitions(connection), current, retentionMonths)) {
+                        long uncovered = countUnsnapshottedAccounts(connection, partition.getName());
+                        if (uncovered > 0) {
+                            logger.warn("Keeping ledger partition {}: {} accounts have rows in it after their balance snapshot",
+                                        partition.getName(), uncovered);
+                            continue;
+                        }
+                        detachPartition(connection, partition.getName(), concurrently);
+                    }
+                }
+            } finally {
+                // The connection goes back to the pool
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("RESET lock_timeout");
+                }
+            }
+            List<LedgerPartition> partitions = listPartitions(connection);
+            attachedPartitions.set(partitions.size());
+            return partitions;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Ledger partition maintenance failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return the monthly partitions attached to BALANCE_TRANSACTION, oldest first
+     */
+    public List<LedgerPartition> getPartitions() {
+        try (Connection connection = dataSource.getConnection()) {
+            return isPartitioned(connection) ? listPartitions(connection) : List.of();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to list ledger partitions: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return true when old partitions are detached, so the ledger no longer holds every account's whole history
+     */
+    public boolean isRetentionEnabled() {
+        return enabled && retentionMonths > 0;
+    }
+
+    private void scheduledMaintenance() {
+        try {
+            List<LedgerPartition> partitions = maintain();
+            if (Boolean.TRUE.equals(partitioned)) {
+                logger.info("Ledger partition maintenance done, {} monthly partitions attached", partitions.size());
+            }
+        } catch (Exception e) {
+            logger.error("Scheduled ledger partition maintenance failed, retrying in {} ms: {}", intervalMs, e.getMessage());
+        }
+    }
+
+    private boolean isPartitioned(Connection connection) throws SQLException {
+        boolean current = "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName())
+                && queryPartitioned(connection);
+        if (!current && !Boolean.FALSE.equals(partitioned)) {
+            logger.info("{}.{} is not a partitioned PostgreSQL table, skipping partition maintenance", SCHEMA, TABLE);
+        }
+        if (current && !transactionIdGenerator.isCollisionFree()) {
+            logger.error("{}.{} is partitioned and only enforces UNIQUE (TRANSACTION_ID, CREATED_AT), but transaction " +
+                         "IDs may collide. Use app.transaction.id.generator=SNOWFLAKE with a distinct " +
+                         "app.transaction.id.node-id per instance", SCHEMA, TABLE);
+        }
+        partitioned = current;
+        return current;
+    }
+
+    private static boolean queryPartitioned(Connection connection) throws SQLException {
+        try (PreparedStatement query = connection.prepareStatement(
+                "SELECT 1 FROM pg_partitioned_table p JOIN pg_class c ON c.oid = p.partrelid " +
+                "JOIN pg_namespace n ON n.oid = c.relnamespace WHERE n.nspname = ? AND c.relname = ?")) {
+            query.setString(1, SCHEMA.toLowerCase(Locale.ROOT));
+            query.setString(2, TABLE.toLowerCase(Locale.ROOT));
+            try (ResultSet result = query.executeQuery()) {
+                return result.next();
+            }
+        }
+    }
+
+    private static boolean hasDefaultPartition(Connection connection) throws SQLException {
+        try (PreparedStatement query = connection.prepareStatement(
+                "SELECT 1 FROM pg_partitioned_table WHERE partrelid = CAST(? AS regclass) AND partdefid <> 0")) {
+            query.setString(1, SCHEMA.toLowerCase(Locale.ROOT) + "." + TABLE.toLowerCase(Locale.ROOT));
+            try (ResultSet result = query.executeQuery()) {
+                return result.next();
+            }
+        }
+    }
+
+    private static List<LedgerPartition> listPartitions(Connection connection) throws SQLException {
+        List<LedgerPartition> partitions = new ArrayList<>();
+        try (PreparedStatement query = connection.prepareStatement(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                "WHERE i.inhparent = CAST(? AS regclass) ORDER BY c.relname")) {
+            query.setString(1, SCHEMA.toLowerCase(Locale.ROOT) + "." + TABLE.toLowerCase(Locale.ROOT));
+            try (ResultSet result = query.executeQuery()) {
+                while (result.next()) {
+                    LedgerPartition partition = parsePartition(result.getString(1));
+                    if (partition != null) {
+                        partitions.add(partition);
+                    }
+                }
+            }
+        }
+        return partitions;
+    }
+
+    /**
+     * Accounts with rows in the partition that their BALANCE_SNAPSHOT does not cover yet
+     */
+    private static long countUnsnapshottedAccounts(Connection connection, String name) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery(
+                     "SELECT COUNT(*) FROM (SELECT CLIENT_ID, ACCOUNT_NUMBER, MAX(ID) AS LAST_ID FROM " + SCHEMA + "." + name +
+                     " GROUP BY CLIENT_ID, ACCOUNT_NUMBER) p LEFT JOIN " + SCHEMA + ".BALANCE_SNAPSHOT s" +
+                     " ON s.CLIENT_ID = p.CLIENT_ID AND s.ACCOUNT_NUMBER = p.ACCOUNT_NUMBER" +
+                     " WHERE s.LAST_TRANSACTION_ID IS NULL OR s.LAST_TRANSACTION_ID < p.LAST_ID")) {
+            result.next();
+            return result.getLong(1);
+        }
+    }
+
+    private void createPartition(Connection connection, YearMonth month) {
+        String name = partitionName(month);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(createPartitionSql(month));
+        } catch (SQLException e) {
+            // Another node may have created it first; a busy table is retried by the next run
+            logger.warn("Could not create ledger partition {}: {}", name, e.getMessage());
+        }
+    }
+
+    /**
+     * CONCURRENTLY only waits for running queries instead of locking out writers, but PostgreSQL
+     * does not allow it while the table has a DEFAULT partition
+     */
+    private void detachPartition(Connection connection, String name, boolean concurrently) {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE " + SCHEMA + "." + TABLE + " DETACH PARTITION " + SCHEMA + "." + name +
+                              (concurrently ? " CONCURRENTLY" : ""));
+            logger.info("Detached ledger partition {}", name);
+            if (dropDetached) {
+                statement.execute("DROP TABLE " + SCHEMA + "." + name);
+                logger.info("Dropped ledger partition {}", name);
+            }
+        } catch (SQLException e) {
+            logger.warn("Could not detach ledger partition {}: {}", name, e.getMessage());
+        }
+    }
+
+    static String partitionName(YearMonth month) {
+        return TABLE + "_P" + month.format(MONTH_SUFFIX);
+    }
+
+    static String createPartitionSql(YearMonth month) {
+        return "CREATE TABLE IF NOT EXISTS " + SCHEMA + "." + partitionName(month) + " PARTITION OF " + SCHEMA + "." + TABLE +
+               " FOR VALUES FROM (" + bound(month.atDay(1)) + ") TO (" + bound(month.plusMonths(1).atDay(1)) + ")";
+    }
+
+    /**
+     * @return the monthly partition named by a catalog relname, or null for other partitions such as DEFAULT
+     */
+    static LedgerPartition parsePartition(String relname) {
+        Matcher matcher = PARTITION_NAME.matcher(relname);
+        if (!matcher.matches()) {
+            return null;
+        }
+        YearMonth month = YearMonth.parse(matcher.group(1), MONTH_SUFFIX);
+        return new LedgerPartition(relname, month.atDay(1), month.plusMonths(1).atDay(1));
+    }
+
+    /**
+     * @return the partitions older than the current month and the retentionMonths months before it
+     */
+    static List<LedgerPartition> expiredPartitions(List<LedgerPartition> partitions, YearMonth current, int retentionMonths) {
+        YearMonth oldestKept = current.minusMonths(retentionMonths);
+        return partitions.stream()
+                .filter(partition -> YearMonth.from(partition.getFrom()).isBefore(oldestKept))
+                .toList();
+    }
+
+    private static String bound(LocalDate day) {
+        return "'" + day + " 00:00:00+00'";
+    }
+}
@@ -0,0 +1,444 @@
+package com.isa.transaction.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.isa.transaction.dto.LedgerEntry;
+import com.isa.transaction.dto.LedgerReconciliationIssue;
+import com.isa.transaction.dto.LedgerReconciliationProgress;
+import com.isa.transaction.exception.TransactionException;
+import com.isa.transaction.repository.BalanceRepository;
+import com.isa.transaction.repository.BalanceTransactionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Verifies BALANCE against the BALANCE_BEFORE / BALANCE_AFTER chain of BALANCE_TRANSACTION, without writing anything.
+ *
+ * The balance ID range is split in halves on a fork-join pool of app.ledger.reconciliation.parallelism threads
+ * until each range holds a few chunks; idle threads steal the remaining ranges. A range is walked in keyset
+ * chunks of app.ledger.reconciliation.chunk-size balances, each read in one read-only repeatable-read
+ * transaction, so a balance and its ledger are seen at the same point in time while transactions go on. Each
+ * account's ledger rows are read in keyset pages of app.ledger.reconciliation.page-size rows on the
+ * (CLIENT_ID, ACCOUNT_NUMBER, ID) index. Each thread holds at most one connection, and all threads together
+ * read at most app.ledger.reconciliation.rows-per-second ledger rows, so a full pass can run next to live
+ * traffic; a thread waits for the rows of a chunk after its transaction ends, so no snapshot is held open
+ * while throttled.
+ *
+ * Every ledger row must satisfy BALANCE_AFTER = BALANCE_BEFORE + AMOUNT (ARITHMETIC) and start from the
+ * BALANCE_AFTER of the previous row of the account (CHAIN_BREAK), and CURRENT_BALANCE must equal the
+ * BALANCE_BEFORE of the first row plus all amounts (MISMATCH). Rows are chained in ID order, which follows
+ * commit order per account only while one node writes it (see LedgerSnapshotService); a break on an account
+ * whose balance still matches usually comes from interleaved sequence blocks. With ledger partition retention
+ * the first row is the oldest attached one, so detached months are not verified (see LedgerPartitionManager).
+ * Each issue is appended to an NDJSON report in app.ledger.reconciliation.report-dir, and the first ones are
+ * kept for the progress endpoint.
+ */
+@Component
+public class LedgerReconciliationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LedgerReconciliationService.class);
+
+    // A range is split further while it spans more than this many chunks of IDs
+    private static final int CHUNKS_PER_TASK = 8;
+    private static final DateTimeFormatter REPORT_SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    @Autowired
+    private BalanceRepository balanceRepository;
+
+    @Autowired
+    private BalanceTransactionRepository balanceTransactionRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.ledger.reconciliation.parallelism:2}")
+    private int parallelism;
+
+    @Value("${app.ledger.reconciliation.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${app.ledger.reconciliation.page-size:5000}")
+    private int pageSize;
+
+    @Value("${app.ledger.reconciliation.rows-per-second:5000}")
+    private double rowsPerSecond;
+
+    @Value("${app.ledger.reconciliation.report-dir:${java.io.tmpdir}/ledger-reconciliation}")
+    private String reportDir;
+
+    @Value("${app.ledger.reconciliation.max-listed-issues:100}")
+    private int maxListedIssues;
+
+    private ExecutorService executor;
+    private TransactionTemplate readTemplate;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile boolean stopRequested;
+
+    // Progress of the current or last run
+    private volatile String state = "IDLE";
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile String error;
+    private volatile String reportFile;
+    private final AtomicLong accounts = new AtomicLong();
+    private final AtomicLong ledgerRows = new AtomicLong();
+    private final AtomicLong chainBreaks = new AtomicLong();
+    private final AtomicLong arithmeticErrors = new AtomicLong();
+    private final AtomicLong mismatches = new AtomicLong();
+    private final List<LedgerReconciliationIssue> listedIssues = new ArrayList<>();
+    private Writer report;
+
+    private Counter rowsCounter;
+    private Counter issuesCounter;
+
+    @PostConstruct
+    public void start() {
+        rowsCounter = Counter.builder("ledger.reconciliation.rows")
+                .description("Ledger rows verified by the reconciliation")
+                .register(meterRegistry);
+        issuesCounter = Counter.builder("ledger.reconciliation.issues")
+                .description("Chain breaks, arithmetic errors and balance mismatches found by the reconciliation")
+                .register(meterRegistry);
+        Gauge.builder("ledger.reconciliation.running", running, flag -> flag.get() ? 1 : 0)
+                .description("1 while a ledger reconciliation is running")
+                .register(meterRegistry);
+
+        readTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        readTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        readTemplate.setReadOnly(true);
+
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ledger-reconciliation");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor == null) {
+            return;
+        }
+        stopRequested = true;
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Start a reconciliation of every balance in the background
+     *
+     * @return the progress right after starting
+     */
+    public LedgerReconciliationProgress startRun() {
+        if (!running.compareAndSet(false, true)) {
+            throw new TransactionException("A ledger reconciliation is already running", "RECONCILIATION_IN_PROGRESS");
+        }
+        beginRun();
+        executor.execute(this::run);
+        return getProgress();
+    }
+
+    /**
+     * Ask the running reconciliation to stop after its current chunks; the report keeps the issues found so far
+     */
+    public LedgerReconciliationProgress stopRun() {
+        if (running.get()) {
+            stopRequested = true;
+        }
+        return getProgress();
+    }
+
+    public LedgerReconciliationProgress getProgress() {
+        LedgerReconciliationProgress progress = new LedgerReconciliationProgress();
+        progress.setState(state);
+        progress.setStartedAt(startedAt);
+        progress.setFinishedAt(finishedAt);
+        progress.setAccounts(accounts.get());
+        progress.setLedgerRows(ledgerRows.get());
+        progress.setChainBreaks(chainBreaks.get());
+        progress.setArithmeticErrors(arithmeticErrors.get());
+        progress.setMismatches(mismatches.get());
+        progress.setReportFile(reportFile);
+        synchronized (listedIssues) {
+            progress.setIssues(new ArrayList<>(listedIssues));
+        }
+        progress.setError(error);
+        if (startedAt != null) {
+            LocalDateTime end = finishedAt != null ? finishedAt : LocalDateTime.now();
+            long millis = Math.max(1, Duration.between(startedAt, end).toMillis());
+            progress.setRowsPerSecond(ledgerRows.get() * 1000.0 / millis);
+        }
+        return progress;
+    }
+
+    private void beginRun() {
+        stopRequested = false;
+        state = "RUNNING";
+        startedAt = LocalDateTime.now();
+        finishedAt = null;
+        error = null;
+        reportFile = null;
+        accounts.set(0);
+        ledgerRows.set(0);
+        chainBreaks.set(0);
+        arithmeticErrors.set(0);
+        mismatches.set(0);
+        synchronized (listedIssues) {
+            listedIssues.clear();
+        }
+    }
+
+    /**
+     * Run one pass over all balances on the calling thread and the fork-join pool; the caller must have set the running flag
+     */
+    void run() {
+        ForkJoinPool pool = null;
+        try {
+            Path directory = Paths.get(reportDir);
+            Files.createDirectories(directory);
+            Path path = directory.resolve("ledger-reconciliation-" + LocalDateTime.now().format(REPORT_SUFFIX) + ".ndjson");
+            reportFile = path.toString();
+
+            try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+                synchronized (this) {
+                    report = writer;
+                }
+                Long minId = balanceRepository.findMinId();
+                Long maxId = balanceRepository.findMaxId();
+                logger.info("Starting ledger reconciliation over balance IDs {} to {}, report {}", minId, maxId, reportFile);
+                if (minId != null) {
+                    pool = new ForkJoinPool(parallelism, forkJoinPool -> {
+                        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+                        thread.setName("ledger-reconciliation-" + thread.getPoolIndex());
+                        thread.setDaemon(true);
+                        return thread;
+                    }, null, false);
+                    pool.invoke(new RangeTask(minId - 1, maxId, new RateLimiter(rowsPerSecond)));
+                }
+                synchronized (this) {
+                    report = null;
+                }
+            }
+            state = stopRequested ? "STOPPED" : "COMPLETED";
+            logger.info("Ledger reconciliation {}: {} accounts, {} ledger rows, {} chain breaks, {} arithmetic errors, {} mismatches",
+                       state.toLowerCase(), accounts.get(), ledgerRows.get(), chainBreaks.get(), arithmeticErrors.get(),
+                       mismatches.get());
+        } catch (Exception e) {
+            state = "FAILED";
+            error = e.getMessage();
+            logger.error("Ledger reconciliation failed: {}", e.getMessage(), e);
+        } finally {
+            if (pool != null) {
+                pool.shutdownNow();
+            }
+            synchronized (this) {
+                report = null;
+            }
+            finishedAt = LocalDateTime.now();
+            running.set(false);
+        }
+    }
+
+    /**
+     * Balances with IDs in (afterId, toId]; split in halves until small enough, then verified chunk by chunk
+     */
+    private final class RangeTask extends RecursiveAction {
+        private final long afterId;
+        private final long toId;
+        private final RateLimiter rateLimiter;
+
+        private RangeTask(long afterId, long toId, RateLimiter rateLimiter) {
+            this.afterId = afterId;
+            this.toId = toId;
+            this.rateLimiter = rateLimiter;
+        }
+
+        @Override
+        protected void compute() {
+            if (stopRequested) {
+                return;
+            }
+            if (toId - afterId > (long) chunkSize * CHUNKS_PER_TASK) {
+                long middle = afterId + (toId - afterId) / 2;
+                invokeAll(new RangeTask(afterId, middle, rateLimiter), new RangeTask(middle, toId, rateLimiter));
+                return;
+            }
+            long after = afterId;
+            while (!stopRequested) {
+                long from = after;
+                ChunkResult chunk = readTemplate.execute(status -> verifyChunk(from, toId));
+                if (chunk == null) {
+                    return;
+                }
+                throttle(rateLimiter, chunk.ledgerRows);
+                after = chunk.lastBalanceId;
+            }
+        }
+    }
+
+    /**
+     * Verify the next chunk of balances after afterId and their whole ledgers within the current DB transaction
+     *
+     * @return the last balance ID of the chunk and the ledger rows read, or null when the range is done
+     */
+    private ChunkResult verifyChunk(long afterId, long toId) {
+        List<Object[]> rows = balanceRepository.findAccountsInRange(afterId, toId, PageRequest.of(0, chunkSize));
+        if (rows.isEmpty()) {
+            return null;
+        }
+        long read = 0;
+        for (Object[] row : rows) {
+            Long clientId = (Long) row[1];
+            AccountCheck check = new AccountCheck((Long) row[0], (String) row[2], (String) row[3], (BigDecimal) row[4]);
+            long afterLedgerId = 0L;
+            while (true) {
+                List<LedgerEntry> page = balanceTransactionRepository.findLedgerPage(clientId, check.accountNumber, afterLedgerId,
+                                                                                     PageRequest.of(0, pageSize));
+                for (LedgerEntry entry : page) {
+                    check.add(entry);
+                }
+                read += page.size();
+                if (page.size() < pageSize) {
+                    break;
+                }
+                afterLedgerId = page.get(page.size() - 1).getId();
+            }
+            check.finish();
+        }
+        ledgerRows.addAndGet(read);
+        rowsCounter.increment(read);
+        accounts.addAndGet(rows.size());
+        return new ChunkResult((Long) rows.get(rows.size() - 1)[0], read);
+    }
+
+    private static void throttle(RateLimiter rateLimiter, long rows) {
+        try {
+            rateLimiter.acquire((int) Math.min(rows, Integer.MAX_VALUE));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Ledger reconciliation interrupted", e);
+        }
+    }
+
+    private void record(LedgerReconciliationIssue issue, AtomicLong counter) {
+        counter.incrementAndGet();
+        issuesCounter.increment();
+        synchronized (listedIssues) {
+            if (listedIssues.size() < maxListedIssues) {
+                listedIssues.add(issue);
+            }
+        }
+        try {
+            String line = objectMapper.writeValueAsString(issue);
+            synchronized (this) {
+                if (report != null) {
+                    report.write(line);
+                    report.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write the reconciliation report: " + e.getMessage(), e);
+        }
+    }
+
+    private static final class ChunkResult {
+        private final long lastBalanceId;
+        private final long ledgerRows;
+
+        private ChunkResult(long lastBalanceId, long ledgerRows) {
+            this.lastBalanceId = lastBalanceId;
+            this.ledgerRows = ledgerRows;
+        }
+    }
+
+    /**
+     * Running state of one account while its ledger rows are read in ID order
+     */
+    private final class AccountCheck {
+        private final Long balanceId;
+        private final String clientIdentification;
+        private final String accountNumber;
+        private final BigDecimal currentBalance;
+        private BigDecimal opening;
+        private BigDecimal sum = BigDecimal.ZERO;
+        private BigDecimal lastBalanceAfter;
+
+        private AccountCheck(Long balanceId, String clientIdentification, String accountNumber, BigDecimal currentBalance) {
+            this.balanceId = balanceId;
+            this.clientIdentification = clientIdentification;
+            this.accountNumber = accountNumber;
+            this.currentBalance = currentBalance;
+        }
+
+        private void add(LedgerEntry entry) {
+            if (opening == null) {
+                opening = entry.getBalanceBefore();
+            } else if (entry.getBalanceBefore().compareTo(lastBalanceAfter) != 0) {
+                record(issue("CHAIN_BREAK", entry.getId(), lastBalanceAfter, entry.getBalanceBefore()), chainBreaks);
+            }
+            BigDecimal expectedAfter = entry.getBalanceBefore().add(entry.getAmount());
+            if (expectedAfter.compareTo(entry.getBalanceAfter()) != 0) {
+                record(issue("ARITHMETIC", entry.getId(), expectedAfter, entry.getBalanceAfter()), arithmeticErrors);
+            }
+            sum = sum.add(entry.getAmount());
+            lastBalanceAfter = entry.getBalanceAfter();
+        }
+
+        private void finish() {
+            BigDecimal ledgerBalance = opening != null ? opening.add(sum) : BigDecimal.ZERO;
+            if (ledgerBalance.compareTo(currentBalance) != 0) {
+                record(issue("MISMATCH", null, ledgerBalance, currentBalance), mismatches);
+            }
+        }
+
+        private LedgerReconciliationIssue issue(String type, Long transactionRowId, BigDecimal expected, BigDecimal actual) {
+            return new LedgerReconciliationIssue(type, balanceId, clientIdentification, accountNumber, transactionRowId, expected, actual);
+        }
+    }
+}
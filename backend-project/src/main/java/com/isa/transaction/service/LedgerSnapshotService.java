@@ -0,0 +1,550 @@
+package com.isa.transaction.service;
+
+import com.isa.transaction.dto.BalanceRecomputation;
+import com.isa.transaction.dto.LedgerEntry;
+import com.isa.transaction.dto.LedgerSnapshotProgress;
+import com.isa.transaction.entity.AccountSnapshot;
+import com.isa.transaction.entity.Balance;
+import com.isa.transaction.entity.Client;
+import com.isa.transaction.exception.TransactionException;
+import com.isa.transaction.repository.AccountSnapshotRepository;
+import com.isa.transaction.repository.BalanceRepository;
+import com.isa.transaction.repository.BalanceTransactionRepository;
+import com.isa.transaction.repository.ClientRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-account balance snapshots, and balances recomputed from them and the ledger.
+ *
+ * A snapshot (BALANCE_SNAPSHOT) holds an account's balance as of one BALANCE_TRANSACTION row, so its
+ * balance is the snapshot plus the amounts of the ledger rows after that row, read through the
+ * (CLIENT_ID, ACCOUNT_NUMBER, ID) index. A run walks BALANCE in keyset chunks, split in ID ranges over
+ * app.ledger.snapshot.parallelism threads (each holds a connection while it reads or writes a chunk).
+ * Each chunk is read in one repeatable-read transaction, so balances and ledger rows are seen at the same
+ * point in time; accounts without a snapshot are summed from their whole history, once. The recomputed
+ * balances become the new snapshots and are compared with CURRENT_BALANCE; a repair run also overwrites the
+ * balances that differ, unless they changed after the read. Runs without repair are scheduled every
+ * app.ledger.snapshot.interval-ms, so the ledger tails stay short.
+ *
+ * The replay checks that each row's BALANCE_BEFORE equals the previous row's BALANCE_AFTER. Ledger IDs follow
+ * commit order per account only while one node writes it (writers serialize on the balance row, but pooled
+ * sequence blocks of different nodes interleave); when the chain breaks the account is summed from its whole
+ * history instead and its snapshot is left where it was.
+ *
+ * Ledger partition retention only detaches months that the snapshots cover, so an account without a snapshot
+ * still has its whole history attached; a whole-history sum after a chain break starts from the oldest attached row.
+ */
+@Component
+public class LedgerSnapshotService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LedgerSnapshotService.class);
+
+    // Ranges per thread, so threads that finish early take over the remaining ones
+    private static final int RANGES_PER_THREAD = 4;
+
+    @Autowired
+    private BalanceRepository balanceRepository;
+
+    @Autowired
+    private BalanceTransactionRepository balanceTransactionRepository;
+
+    @Autowired
+    private AccountSnapshotRepository accountSnapshotRepository;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private BalanceCache balanceCache;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.ledger.snapshot.interval-ms:3600000}")
+    private long intervalMs;
+
+    @Value("${app.ledger.snapshot.parallelism:4}")
+    private int parallelism;
+
+    @Value("${app.ledger.snapshot.chunk-size:1000}")
+    private int chunkSize;
+
+    private TransactionTemplate readTemplate;
+    private ScheduledExecutorService executor;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile boolean stopRequested;
+
+    // Progress of the current or last run
+    private volatile String state = "IDLE";
+    private volatile boolean repair;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile String error;
+    private final AtomicLong accounts = new AtomicLong();
+    private final AtomicLong ledgerRows = new AtomicLong();
+    private final AtomicLong snapshotsWritten = new AtomicLong();
+    private final AtomicLong mismatches = new AtomicLong();
+    private final AtomicLong repaired = new AtomicLong();
+    private final AtomicLong repairConflicts = new AtomicLong();
+    private final AtomicLong chainBreaks = new AtomicLong();
+
+    private Counter mismatchCounter;
+    private Counter chainBreakCounter;
+    private Counter repairedCounter;
+
+    @PostConstruct
+    public void start() {
+        mismatchCounter = Counter.builder("ledger.snapshot.mismatches")
+                .description("Balances whose CURRENT_BALANCE differs from the ledger")
+                .register(meterRegistry);
+        chainBreakCounter = Counter.builder("ledger.snapshot.chain.breaks")
+                .description("Accounts whose ledger rows do not chain")
+                .register(meterRegistry);
+        repairedCounter = Counter.builder("ledger.snapshot.repaired")
+                .description("Balances overwritten with the value recomputed from the ledger")
+                .register(meterRegistry);
+        Gauge.builder("ledger.snapshot.running", running, flag -> flag.get() ? 1 : 0)
+                .description("1 while a snapshot or rebuild run is in progress")
+                .register(meterRegistry);
+
+        readTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        readTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        readTemplate.setReadOnly(true);
+
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ledger-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (intervalMs > 0) {
+            executor.scheduleWithFixedDelay(this::scheduledRun, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+            logger.info("Scheduled balance snapshots every {} ms", intervalMs);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor == null) {
+            return;
+        }
+        stopRequested = true;
+        executor.shutdownNow();
+    }
+
+    /**
+     * Start a snapshot run in the background
+     *
+     * @param repair also overwrite the balances that differ from the ledger
+     * @return the progress right after starting
+     */
+    public LedgerSnapshotProgress startRun(boolean repair) {
+        if (!running.compareAndSet(false, true)) {
+            throw new TransactionException("A balance snapshot run is already in progress", "SNAPSHOT_IN_PROGRESS");
+        }
+        beginRun(repair);
+        executor.execute(() -> run(repair));
+        return getProgress();
+    }
+
+    /**
+     * Ask the running run to stop after its current chunks
+     */
+    public LedgerSnapshotProgress stopRun() {
+        if (running.get()) {
+            stopRequested = true;
+        }
+        return getProgress();
+    }
+
+    public LedgerSnapshotProgress getProgress() {
+        LedgerSnapshotProgress progress = new LedgerSnapshotProgress();
+        progress.setState(state);
+        progress.setRepair(repair);
+        progress.setStartedAt(startedAt);
+        progress.setFinishedAt(finishedAt);
+        progress.setAccounts(accounts.get());
+        progress.setLedgerRows(ledgerRows.get());
+        progress.setSnapshotsWritten(snapshotsWritten.get());
+        progress.setMismatches(mismatches.get());
+        progress.setRepaired(repaired.get());
+        progress.setRepairConflicts(repairConflicts.get());
+        progress.setChainBreaks(chainBreaks.get());
+        progress.setError(error);
+        if (startedAt != null) {
+            LocalDateTime end = finishedAt != null ? finishedAt : LocalDateTime.now();
+            long millis = Math.max(1, Duration.between(startedAt, end).toMillis());
+            progress.setAccountsPerSecond(accounts.get() * 1000.0 / millis);
+        }
+        return progress;
+    }
+
+    /**
+     * Recompute one balance from its latest snapshot and the ledger rows after it; nothing is written
+     *
+     * @return null if the account does not exist
+     */
+    public BalanceRecomputation recompute(String clientIdentification, String accountNumber) {
+        return readTemplate.execute(status -> {
+            Optional<Client> client = clientRepository.findByClientIdentification(clientIdentification);
+            Optional<Balance> balance = client.flatMap(c -> balanceRepository.findByClientIdAndAccountNumber(c.getId(), accountNumber));
+            if (balance.isEmpty()) {
+                return null;
+            }
+            Long clientId = client.get().getId();
+            AccountSnapshot snapshot = accountSnapshotRepository.findById(balance.get().getId()).orElse(null);
+            long afterId = snapshot != null ? snapshot.getLastTransactionId() : 0L;
+            List<LedgerEntry> tail = balanceTransactionRepository.findLedgerTail(clientId, accountNumber, afterId);
+            Replay replay = replay(snapshot, tail);
+            if (replay != null && !replay.chainIntact) {
+                replay = fromHistory(clientId, accountNumber);
+            }
+
+            BalanceRecomputation result = new BalanceRecomputation();
+            result.setClientIdentification(clientIdentification);
+            result.setAccountNumber(accountNumber);
+            result.setCurrentBalance(balance.get().getCurrentBalance());
+            if (snapshot != null) {
+                result.setSnapshotBalance(snapshot.getSnapshotBalance());
+                result.setSnapshotTransactionId(snapshot.getLastTransactionId());
+            }
+            result.setReplayedTransactions(tail.size());
+            result.setChainIntact(replay == null || replay.chainIntact);
+            if (replay != null) {
+                result.setRecomputedBalance(replay.balance);
+                result.setLastTransactionId(replay.lastTransactionId);
+                result.setConsistent(replay.balance.compareTo(balance.get().getCurrentBalance()) == 0);
+            } else {
+                // No ledger rows to recompute from
+                result.setConsistent(true);
+            }
+            return result;
+        });
+    }
+
+    private void scheduledRun() {
+        try {
+            if (running.compareAndSet(false, true)) {
+                beginRun(false);
+                run(false);
+            }
+        } catch (Exception e) {
+            logger.error("Scheduled balance snapshot run failed to start: {}", e.getMessage());
+        }
+    }
+
+    private void beginRun(boolean repair) {
+        stopRequested = false;
+        this.repair = repair;
+        state = "RUNNING";
+        startedAt = LocalDateTime.now();
+        finishedAt = null;
+        error = null;
+        accounts.set(0);
+        ledgerRows.set(0);
+        snapshotsWritten.set(0);
+        mismatches.set(0);
+        repaired.set(0);
+        repairConflicts.set(0);
+        chainBreaks.set(0);
+    }
+
+    /**
+     * Run one pass over all balances on the calling thread and its workers; the caller must have set the running flag
+     */
+    void run(boolean repair) {
+        ExecutorService workers = null;
+        try {
+            Long minId = balanceRepository.findMinId();
+            Long maxId = balanceRepository.findMaxId();
+            logger.info("Starting balance snapshot run over balance IDs {} to {} (repair={})", minId, maxId, repair);
+            if (minId != null) {
+                AtomicInteger threadNumber = new AtomicInteger();
+                workers = Executors.newFixedThreadPool(parallelism, runnable -> {
+                    Thread thread = new Thread(runnable, "ledger-snapshot-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                int ranges = parallelism * RANGES_PER_THREAD;
+                long span = Math.max(1, (maxId - minId + ranges) / ranges);
+                List<CompletableFuture<Void>> futures = new ArrayList<>();
+                for (long from = minId - 1; from < maxId; from += span) {
+                    long afterId = from;
+                    long toId = Math.min(maxId, from + span);
+                    futures.add(CompletableFuture.runAsync(() -> processRange(afterId, toId, repair), workers));
+                }
+                CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+            }
+            state = stopRequested ? "STOPPED" : "COMPLETED";
+            logger.info("Balance snapshot run {}: {} accounts, {} ledger rows, {} snapshots written, {} mismatches, " +
+                       "{} repaired, {} repair conflicts, {} chain breaks", state.toLowerCase(), accounts.get(),
+                       ledgerRows.get(), snapshotsWritten.get(), mismatches.get(), repaired.get(),
+                       repairConflicts.get(), chainBreaks.get());
+        } catch (Exception e) {
+            state = "FAILED";
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            error = cause.getMessage();
+            logger.error("Balance snapshot run failed: {}", cause.getMessage(), cause);
+        } finally {
+            if (workers != null) {
+                workers.shutdownNow();
+            }
+            finishedAt = LocalDateTime.now();
+            running.set(false);
+        }
+    }
+
+    /**
+     * Process the balances with IDs in (afterId, toId] chunk by chunk
+     */
+    private void processRange(long afterId, long toId, boolean repair) {
+        while (!stopRequested) {
+            long after = afterId;
+            List<Account> chunk = readTemplate.execute(status -> readChunk(after, toId));
+            if (chunk == null || chunk.isEmpty()) {
+                return;
+            }
+            transactionTemplate.executeWithoutResult(status -> writeChunk(chunk, repair));
+            accounts.addAndGet(chunk.size());
+            afterId = chunk.get(chunk.size() - 1).balanceId;
+        }
+    }
+
+    /**
+     * Read a chunk of balances with their snapshots and ledger tails, and recompute them
+     */
+    List<Account> readChunk(long afterId, long toId) {
+        List<Object[]> rows = balanceRepository.findAccountsInRange(afterId, toId, PageRequest.of(0, chunkSize));
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        List<Account> chunk = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            chunk.add(new Account((Long) row[0], (Long) row[1], (String) row[2], (String) row[3],
+                                  (BigDecimal) row[4], (Long) row[5]));
+        }
+        Map<Long, AccountSnapshot> snapshots = new HashMap<>();
+        accountSnapshotRepository.findAllById(chunk.stream().map(account -> account.balanceId).toList())
+                .forEach(snapshot -> snapshots.put(snapshot.getBalanceId(), snapshot));
+
+        // One query for the tails of the snapshotted accounts, one for the history of the others
+        Set<Long> tailClients = new HashSet<>();
+        Set<Long> historyClients = new HashSet<>();
+        long tailAfterId = Long.MAX_VALUE;
+        for (Account account : chunk) {
+            AccountSnapshot snapshot = snapshots.get(account.balanceId);
+            if (snapshot != null) {
+                tailClients.add(account.clientId);
+                tailAfterId = Math.min(tailAfterId, snapshot.getLastTransactionId());
+            } else {
+                historyClients.add(account.clientId);
+            }
+        }
+        Map<String, List<LedgerEntry>> tails = new HashMap<>();
+        if (!tailClients.isEmpty()) {
+            for (LedgerEntry entry : balanceTransactionRepository.findLedgerTails(tailClients, tailAfterId)) {
+                tails.computeIfAbsent(key(entry.getClientId(), entry.getAccountNumber()), k -> new ArrayList<>()).add(entry);
+            }
+        }
+        Map<String, Replay> histories = historyClients.isEmpty() ? Map.of() : summarize(historyClients);
+
+        for (Account account : chunk) {
+            String key = key(account.clientId, account.accountNumber);
+            AccountSnapshot snapshot = snapshots.get(account.balanceId);
+            if (snapshot == null) {
+                account.replay = histories.get(key);
+                continue;
+            }
+            List<LedgerEntry> tail = tails.getOrDefault(key, List.of()).stream()
+                    .filter(entry -> entry.getId() > snapshot.getLastTransactionId())
+                    .toList();
+            Replay replay = replay(snapshot, tail);
+            if (!replay.chainIntact) {
+                logger.warn("Ledger of client {} account {} does not chain after transaction ID {}, summing its whole history",
+                           account.clientIdentification, account.accountNumber, snapshot.getLastTransactionId());
+                replay = fromHistory(account.clientId, account.accountNumber);
+            }
+            account.replay = replay;
+        }
+        return chunk;
+    }
+
+    /**
+     * Move the snapshots of a chunk forward and compare (and optionally repair) the balances
+     */
+    private void writeChunk(List<Account> chunk, boolean repair) {
+        Map<Long, AccountSnapshot> snapshots = new HashMap<>();
+        accountSnapshotRepository.findAllById(chunk.stream().map(account -> account.balanceId).toList())
+                .forEach(snapshot -> snapshots.put(snapshot.getBalanceId(), snapshot));
+        List<AccountSnapshot> created = new ArrayList<>();
+
+        for (Account account : chunk) {
+            Replay replay = account.replay;
+            if (replay == null) {
+                continue;
+            }
+            ledgerRows.addAndGet(replay.rows);
+            if (replay.chainIntact) {
+                // Another run may have moved the snapshot further meanwhile
+                AccountSnapshot snapshot = snapshots.get(account.balanceId);
+                if (snapshot == null) {
+                    created.add(new AccountSnapshot(account.balanceId, account.clientId, account.accountNumber,
+                                                    replay.balance, replay.lastTransactionId));
+                } else if (replay.lastTransactionId > snapshot.getLastTransactionId()) {
+                    snapshot.advance(replay.balance, replay.lastTransactionId);
+                    snapshotsWritten.incrementAndGet();
+                }
+            } else {
+                chainBreaks.incrementAndGet();
+                chainBreakCounter.increment();
+            }
+
+            if (replay.balance.compareTo(account.currentBalance) != 0) {
+                mismatches.incrementAndGet();
+                mismatchCounter.increment();
+                logger.warn("Balance of client {} account {} is {} but its ledger gives {}",
+                           account.clientIdentification, account.accountNumber, account.currentBalance, replay.balance);
+                if (repair) {
+                    restore(account);
+                }
+            }
+        }
+        if (!created.isEmpty()) {
+            accountSnapshotRepository.saveAll(created);
+            snapshotsWritten.addAndGet(created.size());
+        }
+    }
+
+    private void restore(Account account) {
+        if (balanceRepository.restoreBalance(account.balanceId, account.version, account.replay.balance) == 0) {
+            // Changed after the read, the next run compares it again
+            repairConflicts.incrementAndGet();
+            return;
+        }
+        repaired.incrementAndGet();
+        repairedCounter.increment();
+        AfterCommit.run(() -> balanceCache.invalidate(account.clientIdentification, account.accountNumber));
+    }
+
+    /**
+     * Apply the ledger rows after a snapshot, checking that they chain.
+     * Without a snapshot the replay starts from the BALANCE_BEFORE of the first row.
+     *
+     * @return null if there is neither a snapshot nor any ledger row
+     */
+    static Replay replay(AccountSnapshot snapshot, List<LedgerEntry> tail) {
+        if (snapshot == null && tail.isEmpty()) {
+            return null;
+        }
+        BigDecimal balance = snapshot != null ? snapshot.getSnapshotBalance() : tail.get(0).getBalanceBefore();
+        long lastId = snapshot != null ? snapshot.getLastTransactionId() : 0L;
+        boolean chainIntact = true;
+        for (LedgerEntry entry : tail) {
+            chainIntact &= entry.getBalanceBefore().compareTo(balance) == 0
+                    && entry.getBalanceBefore().add(entry.getAmount()).compareTo(entry.getBalanceAfter()) == 0;
+            balance = balance.add(entry.getAmount());
+            lastId = entry.getId();
+        }
+        return new Replay(balance, lastId, tail.size(), chainIntact);
+    }
+
+    /**
+     * Balance of one account from its whole history, independent of the order of its rows
+     */
+    private Replay fromHistory(Long clientId, String accountNumber) {
+        Replay replay = summarize(Set.of(clientId)).get(key(clientId, accountNumber));
+        return replay != null ? new Replay(replay.balance, replay.lastTransactionId, replay.rows, false) : null;
+    }
+
+    /**
+     * Balances of every account of the given clients: BALANCE_BEFORE of the first row plus the sum of all amounts
+     */
+    private Map<String, Replay> summarize(Set<Long> clientIds) {
+        List<Object[]> summaries = balanceTransactionRepository.summarizeLedgers(clientIds);
+        Map<Long, BigDecimal> openings = new HashMap<>();
+        if (!summaries.isEmpty()) {
+            for (Object[] row : balanceTransactionRepository.findBalancesBefore(summaries.stream().map(row -> (Long) row[2]).toList())) {
+                openings.put((Long) row[0], (BigDecimal) row[1]);
+            }
+        }
+        Map<String, Replay> replays = new HashMap<>();
+        for (Object[] row : summaries) {
+            BigDecimal opening = openings.getOrDefault((Long) row[2], BigDecimal.ZERO);
+            replays.put(key((Long) row[0], (String) row[1]),
+                        new Replay(opening.add((BigDecimal) row[4]), (Long) row[3], ((Number) row[5]).longValue(), true));
+        }
+        return replays;
+    }
+
+    private static String key(Long clientId, String accountNumber) {
+        return clientId + "\n" + accountNumber;
+    }
+
+    static final class Account {
+        final long balanceId;
+        final Long clientId;
+        final String clientIdentification;
+        final String accountNumber;
+        final BigDecimal currentBalance;
+        final Long version;
+        Replay replay;
+
+        Account(long balanceId, Long clientId, String clientIdentification, String accountNumber,
+                BigDecimal currentBalance, Long version) {
+            this.balanceId = balanceId;
+            this.clientId = clientId;
+            this.clientIdentification = clientIdentification;
+            this.accountNumber = accountNumber;
+            this.currentBalance = currentBalance;
+            this.version = version;
+        }
+    }
+
+    static final class Replay {
+        final BigDecimal balance;
+        final long lastTransactionId;
+        final long rows;
+        final boolean chainIntact;
+
+        Replay(BigDecimal balance, long lastTransactionId, long rows, boolean chainIntact) {
+            this.balance = balance;
+            this.lastTransactionId = lastTransactionId;
+            this.rows = rows;
+            this.chainIntact = chainIntact;
+        }
+    }
+}
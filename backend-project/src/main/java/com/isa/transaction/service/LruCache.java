@@ -0,0 +1,155 @@
+package com.isa.transaction.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BinaryOperator;
+
+/**
+ * Size-bounded LRU cache with an optional time to live.
+ *
+ * A LinkedHashMap in access order behind one lock; the least recently used entry is evicted
+ * once maxSize is exceeded and entries older than the TTL are treated as absent and dropped on read.
+ * Hits, misses and evictions are published with the standard cache.* meter names, tagged by cache name.
+ */
+public class LruCache<K, V> {
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param ttl time to live, 0 or less to keep entries until they are evicted by size
+     */
+    public LruCache(int maxSize, long ttl, TimeUnit unit) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl > 0 ? unit.toNanos(ttl) : 0;
+        this.entries = new LinkedHashMap<>(Math.min(maxSize, 1 << 16), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > LruCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @return the cached value, or null if absent or expired
+     */
+    public V get(K key) {
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && ttlNanos > 0 && System.nanoTime() - entry.storedAt > ttlNanos) {
+                entries.remove(key);
+                evictions.increment();
+                entry = null;
+            }
+            if (entry == null) {
+                misses.increment();
+                return null;
+            }
+            hits.increment();
+            return entry.value;
+        }
+    }
+
+    public void put(K key, V value) {
+        synchronized (entries) {
+            entries.put(key, new Entry<>(value, System.nanoTime()));
+        }
+    }
+
+    /**
+     * Store the value, or the result of remapping(current, value) when a live entry exists
+     */
+    public void merge(K key, V value, BinaryOperator<V> remapping) {
+        synchronized (entries) {
+            Entry<V> current = entries.get(key);
+            if (current != null && (ttlNanos <= 0 || System.nanoTime() - current.storedAt <= ttlNanos)) {
+                V merged = remapping.apply(current.value, value);
+                if (merged == current.value) {
+                    return;
+                }
+                value = merged;
+            }
+            entries.put(key, new Entry<>(value, System.nanoTime()));
+        }
+    }
+
+    public void invalidate(K key) {
+        synchronized (entries) {
+            entries.remove(key);
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * Publish cache.gets, cache.evictions and cache.size for this cache
+     */
+    public LruCache<K, V> bindTo(MeterRegistry meterRegistry, String name) {
+        FunctionCounter.builder("cache.gets", hits, LongAdder::sum)
+                .description("Cache lookups that found a value")
+                .tag("cache", name)
+                .tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("cache.gets", misses, LongAdder::sum)
+                .description("Cache lookups that found no value")
+                .tag("cache", name)
+                .tag("result", "miss")
+                .register(meterRegistry);
+        FunctionCounter.builder("cache.evictions", evictions, LongAdder::sum)
+                .description("Entries evicted by size or expired")
+                .tag("cache", name)
+                .register(meterRegistry);
+        Gauge.builder("cache.size", this, LruCache::size)
+                .description("Entries in the cache")
+                .tag("cache", name)
+                .register(meterRegistry);
+        return this;
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long storedAt;
+
+        private Entry(V value, long storedAt) {
+            this.value = value;
+            this.storedAt = storedAt;
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package com.isa.transaction.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.isa.transaction.dto.TransactionResultEvent;
+import com.isa.transaction.entity.DeadLetterMessage;
+import com.isa.transaction.entity.OutboxEvent;
+import com.isa.transaction.repository.DeadLetterMessageRepository;
+import com.isa.transaction.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read side of the transactional outbox.
+ *
+ * Polls the OUTBOX table in batches. A short DB transaction claims a batch by setting a lease of
+ * app.outbox.relay.lease-ms on its rows, which must be longer than app.outbox.relay.send-timeout-ms.
+ * Every event is then sent to Kafka without waiting between sends and outside any DB transaction, so
+ * no connection or row lock is held while the broker answers. A second short transaction deletes the
+ * events that were handed off (acknowledged by the broker or saved to the dead letter queue) and
+ * releases the ones that failed, so only those are sent again. Delivery is at least once: a crash
+ * between the send and the delete publishes the batch again once its lease expires.
+ * Enabled by default with app.outbox.relay.enabled.
+ */
+@Component
+public class OutboxRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private DeadLetterMessageRepository deadLetterMessageRepository;
+
+    @Autowired
+    private KafkaProducerService kafkaProducerService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.outbox.relay.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.outbox.relay.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.outbox.relay.poll-interval-ms:100}")
+    private long pollIntervalMs;
+
+    @Value("${app.outbox.relay.send-timeout-ms:30000}")
+    private long sendTimeoutMs;
+
+    @Value("${app.outbox.relay.lease-ms:60000}")
+    private long leaseMs;
+
+    private ScheduledExecutorService scheduler;
+
+    // Age of the oldest event of the last batch, in milliseconds
+    private final AtomicLong lagMillis = new AtomicLong();
+
+    private Counter publishedCounter;
+    private DistributionSummary batchSizeSummary;
+    private Timer eventLagTimer;
+    private Timer batchTimer;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        Gauge.builder("outbox.relay.lag", lagMillis, AtomicLong::get)
+                .description("Age of the oldest outbox event in the last relayed batch")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        publishedCounter = Counter.builder("outbox.relay.published")
+                .description("Outbox events published to Kafka")
+                .register(meterRegistry);
+        batchSizeSummary = DistributionSummary.builder("outbox.relay.batch.size")
+                .description("Outbox events relayed per batch")
+                .register(meterRegistry);
+        eventLagTimer = Timer.builder("outbox.relay.event.lag")
+                .description("Time from writing an outbox event until it is published")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        batchTimer = Timer.builder("outbox.relay.batch.duration")
+                .description("Time to claim, send and delete one outbox batch")
+                .register(meterRegistry);
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "outbox-relay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::drain, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+        logger.info("Started outbox relay with batch size {} and poll interval {} ms", batchSize, pollIntervalMs);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(sendTimeoutMs, TimeUnit.MILLISECONDS)) {
+                scheduler.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            scheduler.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Relay batches until the outbox has no full batch left
+     */
+    void drain() {
+        try {
+            int relayed;
+            do {
+                relayed = relayBatch();
+            } while (relayed == batchSize && !Thread.currentThread().isInterrupted());
+        } catch (Exception e) {
+            // The batch stays in the outbox and is retried on the next poll
+            logger.error("Outbox relay failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Claim, publish and delete one batch of outbox events
+     *
+     * @return the number of events removed from the outbox
+     */
+    int relayBatch() {
+        long start = System.nanoTime();
+        Batch batch = transactionTemplate.execute(status -> claimBatch());
+        if (batch == null || batch.claimed.isEmpty()) {
+            return batch != null ? batch.deadLettered : 0;
+        }
+
+        // Pipelined sends outside any DB transaction: all records of the batch are in flight together
+        List<TransactionResultEvent> events = new ArrayList<>(batch.claimed.size());
+        for (Claimed claimed : batch.claimed) {
+            events.add(claimed.event);
+        }
+        List<CompletableFuture<Void>> handled = kafkaProducerService.sendEachTransactionResult(events);
+        try {
+            CompletableFuture.allOf(handled.toArray(new CompletableFuture[0])).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            // Some sends failed or are still pending, the handed off ones are deleted below
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        List<Long> published = new ArrayList<>(handled.size());
+        List<Long> failed = new ArrayList<>();
+        LocalDateTime publishedAt = LocalDateTime.now();
+        for (int i = 0; i < handled.size(); i++) {
+            CompletableFuture<Void> future = handled.get(i);
+            OutboxEvent outboxEvent = batch.claimed.get(i).outboxEvent;
+            if (future.isDone() && !future.isCompletedExceptionally()) {
+                published.add(outboxEvent.getId());
+                eventLagTimer.record(Duration.between(outboxEvent.getCreatedAt(), publishedAt));
+            } else if (future.isCompletedExceptionally()) {
+                failed.add(outboxEvent.getId());
+            }
+            // Sends still pending keep their lease; if they never complete the events are sent again once it expires
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!published.isEmpty()) {
+                outboxEventRepository.deleteByIdIn(published);
+            }
+            if (!failed.isEmpty()) {
+                outboxEventRepository.claim(failed, null);
+            }
+        });
+
+        if (!published.isEmpty()) {
+            publishedCounter.increment(published.size());
+            batchSizeSummary.record(published.size());
+            batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            logger.debug("Relayed {} outbox events", published.size());
+        }
+        if (published.size() < batch.claimed.size()) {
+            logger.warn("{} of {} outbox events were not handed off, retrying them on a later poll",
+                        batch.claimed.size() - published.size(), batch.claimed.size());
+        }
+        return batch.deadLettered + published.size();
+    }
+
+    /**
+     * Lease the next batch within the current DB transaction; unreadable events are dead-lettered and deleted right away
+     */
+    private Batch claimBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEvent> rows = outboxEventRepository.findNextBatchForUpdate(now, PageRequest.of(0, batchSize));
+        if (rows.isEmpty()) {
+            lagMillis.set(0);
+            return new Batch(List.of(), 0);
+        }
+        lagMillis.set(Duration.between(rows.get(0).getCreatedAt(), now).toMillis());
+
+        List<Claimed> claimed = new ArrayList<>(rows.size());
+        List<Long> unreadable = new ArrayList<>();
+        for (OutboxEvent outboxEvent : rows) {
+            TransactionResultEvent event = toEvent(outboxEvent);
+            if (event != null) {
+                claimed.add(new Claimed(outboxEvent, event));
+            } else {
+                unreadable.add(outboxEvent.getId());
+            }
+        }
+        if (!unreadable.isEmpty()) {
+            outboxEventRepository.deleteByIdIn(unreadable);
+        }
+        if (!claimed.isEmpty()) {
+            outboxEventRepository.claim(claimed.stream().map(c -> c.outboxEvent.getId()).toList(),
+                                        now.plus(Duration.ofMillis(leaseMs)));
+        }
+        return new Batch(claimed, unreadable.size());
+    }
+
+    /**
+     * Read the event back from its payload; unreadable payloads are moved to the dead letter queue
+     * so they do not block the rest of the outbox
+     */
+    private TransactionResultEvent toEvent(OutboxEvent outboxEvent) {
+        try {
+            return objectMapper.readValue(outboxEvent.getPayload(), TransactionResultEvent.class);
+        } catch (Exception e) {
+            logger.error("Could not deserialize outbox event {}, moving it to the dead letter queue: {}",
+                        outboxEvent.getId(), e.getMessage());
+            deadLetterMessageRepository.save(new DeadLetterMessage(outboxEvent.getTopic(), outboxEvent.getPayload(), e.getMessage()));
+            return null;
+        }
+    }
+
+    private static final class Claimed {
+        private final OutboxEvent outboxEvent;
+        private final TransactionResultEvent event;
+
+        private Claimed(OutboxEvent outboxEvent, TransactionResultEvent event) {
+            this.outboxEvent = outboxEvent;
+            this.event = event;
+        }
+    }
+
+    private static final class Batch {
+        private final List<Claimed> claimed;
+        private final int deadLettered;
+
+        private Batch(List<Claimed> claimed, int deadLettered) {
+            this.claimed = claimed;
+            this.deadLettered = deadLettered;
+        }
+    }
+}
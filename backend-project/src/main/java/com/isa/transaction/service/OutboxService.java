@@ -0,0 +1,60 @@
+package com.isa.transaction.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.isa.transaction.dto.TransactionResultEvent;
+import com.isa.transaction.entity.OutboxEvent;
+import com.isa.transaction.repository.OutboxEventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Write side of the transactional outbox.
+ * Events are stored in the OUTBOX table within the caller's DB transaction (or their own one
+ * when there is none) and published later by the OutboxRelay.
+ */
+@Service
+public class OutboxService {
+    
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Value("${app.kafka.transaction-results-topic:transaction-results}")
+    private String transactionResultsTopic;
+    
+    /**
+     * Store a transaction result event for publishing
+     */
+    public void add(TransactionResultEvent event) {
+        outboxEventRepository.save(toOutboxEvent(event));
+    }
+    
+    /**
+     * Store several transaction result events for publishing, inserted in JDBC batches
+     */
+    public void addAll(List<TransactionResultEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        List<OutboxEvent> outboxEvents = new ArrayList<>(events.size());
+        for (TransactionResultEvent event : events) {
+            outboxEvents.add(toOutboxEvent(event));
+        }
+        outboxEventRepository.saveAll(outboxEvents);
+    }
+    
+    private OutboxEvent toOutboxEvent(TransactionResultEvent event) {
+        try {
+            return new OutboxEvent(transactionResultsTopic, event.getTransactionId(), objectMapper.writeValueAsString(event));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize result event for transaction " + event.getTransactionId(), e);
+        }
+    }
+}
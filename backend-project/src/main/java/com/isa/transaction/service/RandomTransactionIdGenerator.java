@@ -0,0 +1,21 @@
+package com.isa.transaction.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Legacy scheme: first 10 hex characters (40 bits) of a random UUID.
+ * Not ordered, so inserts land on random pages of the TRANSACTION_ID index, and not collision-free:
+ * it relies on the unique TRANSACTION_ID key, so it must not be used with a partitioned BALANCE_TRANSACTION.
+ */
+@Component
+@ConditionalOnProperty(name = "app.transaction.id.generator", havingValue = "RANDOM")
+public class RandomTransactionIdGenerator implements TransactionIdGenerator {
+    
+    @Override
+    public String nextId() {
+        return PREFIX + UUID.randomUUID().toString().replace("-", "").substring(0, 10);
+    }
+}
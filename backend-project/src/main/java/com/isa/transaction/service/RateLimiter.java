@@ -0,0 +1,51 @@
+package com.isa.transaction.service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Paces callers to a fixed number of permits per second.
+ *
+ * Each permit reserves the next free slot on a timeline spaced 1/rate apart and the caller sleeps
+ * until its slot; unused time is not saved up beyond one second, so a pause is not followed by an
+ * unbounded burst. A rate of zero or less disables the limit.
+ */
+public class RateLimiter {
+
+    private final long intervalNanos;
+    private final long maxBurstNanos;
+    private long nextFreeNanos;
+
+    public RateLimiter(double permitsPerSecond) {
+        this.intervalNanos = permitsPerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond) : 0;
+        this.maxBurstNanos = TimeUnit.SECONDS.toNanos(1);
+        this.nextFreeNanos = System.nanoTime();
+    }
+
+    /**
+     * Wait until the next permit is available
+     */
+    public void acquire() throws InterruptedException {
+        acquire(1);
+    }
+
+    /**
+     * Wait until the given number of permits is available, e.g. one per row of a page already read
+     */
+    public void acquire(int permits) throws InterruptedException {
+        if (intervalNanos == 0 || permits <= 0) {
+            return;
+        }
+        long waitNanos = reserve(permits);
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    private synchronized long reserve(int permits) {
+        long now = System.nanoTime();
+        nextFreeNanos = Math.max(nextFreeNanos, now - maxBurstNanos);
+        long slot = nextFreeNanos;
+        nextFreeNanos += intervalNanos * permits;
+        return slot - now;
+    }
+}
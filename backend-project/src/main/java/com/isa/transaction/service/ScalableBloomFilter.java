@@ -0,0 +1,189 @@
+package com.isa.transaction.service;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bloom filter that grows with the number of keys (Almeida et al., "Scalable Bloom Filters").
+ *
+ * Keys go to the newest stage; once it holds its capacity a new stage twice as large is added,
+ * with half the false positive rate of the previous one, so the compound rate stays below the
+ * configured one however many stages are added. A lookup checks every stage. Bits live in
+ * AtomicLongArrays, so adds and lookups run concurrently without locks.
+ *
+ * When the next stage would exceed maxBytes the filter is saturated: keys can no longer be added,
+ * and callers must treat every key as possibly present.
+ */
+public class ScalableBloomFilter {
+
+    private static final int GROWTH = 2;
+    private static final double TIGHTENING = 0.5;
+
+    private final double falsePositiveRate;
+    private final long maxBytes;
+    private final CopyOnWriteArrayList<Stage> stages = new CopyOnWriteArrayList<>();
+    private final LongAdder insertions = new LongAdder();
+    private volatile boolean saturated;
+
+    /**
+     * @param initialCapacity keys of the first stage
+     * @param falsePositiveRate bound on the compound false positive rate
+     * @param maxBytes bound on the memory of all stages
+     */
+    public ScalableBloomFilter(long initialCapacity, double falsePositiveRate, long maxBytes) {
+        this.falsePositiveRate = falsePositiveRate;
+        this.maxBytes = maxBytes;
+        // Rates p(1-r), p(1-r)r, p(1-r)r^2, ... add up to at most p
+        Stage first = new Stage(Math.max(1, initialCapacity), falsePositiveRate * (1 - TIGHTENING));
+        if (first.bytes() > maxBytes) {
+            saturated = true;
+        } else {
+            stages.add(first);
+        }
+    }
+
+    /**
+     * @return false if the filter is saturated and the key could not be added
+     */
+    public boolean add(long hash) {
+        if (saturated) {
+            return false;
+        }
+        Stage stage = stages.get(stages.size() - 1);
+        if (stage.isFull()) {
+            stage = grow(stage);
+            if (stage == null) {
+                return false;
+            }
+        }
+        stage.add(hash);
+        insertions.increment();
+        return true;
+    }
+
+    public boolean mightContain(long hash) {
+        if (saturated) {
+            return true;
+        }
+        for (Stage stage : stages) {
+            if (stage.mightContain(hash)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isSaturated() {
+        return saturated;
+    }
+
+    public long insertions() {
+        return insertions.sum();
+    }
+
+    public long memoryBytes() {
+        long bytes = 0;
+        for (Stage stage : stages) {
+            bytes += stage.bytes();
+        }
+        return bytes;
+    }
+
+    public double configuredFalsePositiveRate() {
+        return falsePositiveRate;
+    }
+
+    /**
+     * False positive rate expected for the keys added so far
+     */
+    public double estimatedFalsePositiveRate() {
+        if (saturated) {
+            return 1.0;
+        }
+        double allNegative = 1.0;
+        for (Stage stage : stages) {
+            allNegative *= 1 - stage.estimatedFalsePositiveRate();
+        }
+        return 1 - allNegative;
+    }
+
+    private synchronized Stage grow(Stage full) {
+        Stage last = stages.get(stages.size() - 1);
+        if (last != full) {
+            // Another thread already grew the filter
+            return last;
+        }
+        Stage next = new Stage(full.capacity * GROWTH, full.falsePositiveRate * TIGHTENING);
+        if (memoryBytes() + next.bytes() > maxBytes) {
+            saturated = true;
+            return null;
+        }
+        stages.add(next);
+        return next;
+    }
+
+    private static final class Stage {
+        private final long capacity;
+        private final double falsePositiveRate;
+        private final long bitCount;
+        private final int hashCount;
+        private final AtomicLongArray bits;
+        private final LongAdder count = new LongAdder();
+
+        private Stage(long capacity, double falsePositiveRate) {
+            this.capacity = capacity;
+            this.falsePositiveRate = falsePositiveRate;
+            // m = -n ln p / (ln 2)^2, k = m/n ln 2
+            long optimalBits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            this.bitCount = Math.max(64, (optimalBits + 63) & ~63L);
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / capacity * Math.log(2)));
+            this.bits = new AtomicLongArray((int) Math.min(Integer.MAX_VALUE, bitCount >>> 6));
+        }
+
+        private boolean isFull() {
+            return count.sum() >= capacity;
+        }
+
+        private long bytes() {
+            return bitCount >>> 3;
+        }
+
+        /**
+         * Double hashing: bit i is h1 + i * h2, with h1 and h2 the halves of the 64-bit hash
+         */
+        private void add(long hash) {
+            long h1 = hash & 0xFFFFFFFFL;
+            long h2 = hash >>> 32 | 1;
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long current = bits.get(word);
+                while ((current & mask) == 0 && !bits.weakCompareAndSetVolatile(word, current, current | mask)) {
+                    current = bits.get(word);
+                }
+            }
+            count.increment();
+        }
+
+        private boolean mightContain(long hash) {
+            long h1 = hash & 0xFFFFFFFFL;
+            long h2 = hash >>> 32 | 1;
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * (1 - e^(-kn/m))^k for the n keys added so far
+         */
+        private double estimatedFalsePositiveRate() {
+            return Math.pow(1 - Math.exp(-(double) hashCount * count.sum() / bitCount), hashCount);
+        }
+    }
+}
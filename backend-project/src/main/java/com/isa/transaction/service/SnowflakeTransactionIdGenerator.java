@@ -0,0 +1,110 @@
+package com.isa.transaction.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * k-sorted, coordination-free transaction IDs (Snowflake layout).
+ *
+ * 64-bit value: 41 bits of milliseconds since 2024-01-01 UTC, 10 bits of node ID
+ * and 12 bits of per-millisecond sequence, rendered as 13 fixed-width Crockford base32
+ * characters so that string order matches generation order.
+ * IDs are unique as long as every instance uses a distinct app.transaction.id.node-id (0-1023).
+ */
+@Component
+@ConditionalOnProperty(name = "app.transaction.id.generator", havingValue = "SNOWFLAKE", matchIfMissing = true)
+public class SnowflakeTransactionIdGenerator implements TransactionIdGenerator {
+    
+    private static final Logger logger = LoggerFactory.getLogger(SnowflakeTransactionIdGenerator.class);
+    
+    static final long EPOCH_MILLIS = 1704067200000L; // 2024-01-01T00:00:00Z
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    static final long MAX_SEQUENCE = (1L << SEQUENCE_BITS) - 1;
+    
+    private static final char[] CROCKFORD_BASE32 = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int ENCODED_LENGTH = 13;
+    
+    private final long nodeId;
+    private final boolean nodeIdConfigured;
+    
+    // (timestamp << SEQUENCE_BITS) | sequence of the last issued ID
+    private final AtomicLong lastState = new AtomicLong();
+    
+    @Autowired
+    public SnowflakeTransactionIdGenerator(@Value("${app.transaction.id.node-id:-1}") long nodeId) {
+        if (nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Transaction ID node ID must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        nodeIdConfigured = nodeId >= 0;
+        if (nodeId < 0) {
+            nodeId = defaultNodeId();
+            logger.warn("app.transaction.id.node-id is not set, derived node ID {} from host name and PID. " +
+                       "Configure a distinct node ID per instance to guarantee unique transaction IDs", nodeId);
+        }
+        this.nodeId = nodeId;
+    }
+    
+    @Override
+    public String nextId() {
+        return PREFIX + encode(nextLong());
+    }
+    
+    /**
+     * Next raw 64-bit ID. Lock-free; when the clock moves backwards or the sequence of the current
+     * millisecond is exhausted, the sequence carries into the next millisecond instead of blocking.
+     */
+    long nextLong() {
+        long now = System.currentTimeMillis() - EPOCH_MILLIS;
+        long state = lastState.updateAndGet(previous -> {
+            long previousTimestamp = previous >>> SEQUENCE_BITS;
+            return now > previousTimestamp ? now << SEQUENCE_BITS : previous + 1;
+        });
+        long timestamp = state >>> SEQUENCE_BITS;
+        long sequence = state & MAX_SEQUENCE;
+        return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+    }
+    
+    /**
+     * Only a configured node ID is known to be distinct; a derived one may collide with another instance
+     */
+    @Override
+    public boolean isCollisionFree() {
+        return nodeIdConfigured;
+    }
+    
+    long getNodeId() {
+        return nodeId;
+    }
+    
+    /**
+     * Fixed-width Crockford base32, most significant character first
+     */
+    static String encode(long value) {
+        char[] chars = new char[ENCODED_LENGTH];
+        for (int i = ENCODED_LENGTH - 1; i >= 0; i--) {
+            chars[i] = CROCKFORD_BASE32[(int) (value & 31)];
+            value >>>= 5;
+        }
+        return new String(chars);
+    }
+    
+    private static long defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown";
+        }
+        long pid = ProcessHandle.current().pid();
+        return (host.hashCode() * 31L + pid) & MAX_NODE_ID;
+    }
+}
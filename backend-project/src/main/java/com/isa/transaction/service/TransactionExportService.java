@@ -0,0 +1,372 @@
+package com.isa.transaction.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.isa.transaction.entity.Client;
+import com.isa.transaction.exception.TransactionException;
+import com.isa.transaction.repository.BalanceRepository;
+import com.isa.transaction.repository.ClientRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams an account's whole transaction history as NDJSON or CSV, oldest first.
+ *
+ * Rows are read with plain JDBC from a forward-only, read-only cursor fetching app.export.fetch-size rows
+ * per round trip (PostgreSQL only streams with auto-commit off), and each row is written to the response
+ * as soon as it is read. Nothing is kept per row, so heap use does not depend on the size of the export.
+ * Each export holds one database connection until it finishes, so at most app.export.max-concurrent run
+ * at a time; further requests get SERVICE_BUSY. The slot is reserved when the request is accepted and
+ * released when the body finishes; if the body has not started within app.export.start-timeout-ms (the
+ * request timed out or the async executor never ran it) the reservation is released, and a body that
+ * starts later has to take a free slot. Rows written are counted in export.rows as the export
+ * progresses, so its rate gives the live throughput.
+ */
+@Component
+public class TransactionExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionExportService.class);
+
+    private static final String CSV_HEADER = "transactionId,transactionType,amount,balanceBefore,balanceAfter,createdAt";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int METRIC_BATCH = 10_000;
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format of(String format) {
+            try {
+                return valueOf(format.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new TransactionException("Unsupported export format: " + format + " (use ndjson or csv)", "VALIDATION_ERROR");
+            }
+        }
+    }
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private BalanceRepository balanceRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.export.fetch-size:5000}")
+    private int fetchSize;
+
+    @Value("${app.export.max-concurrent:4}")
+    private int maxConcurrent;
+
+    @Value("${app.export.start-timeout-ms:60000}")
+    private long startTimeoutMs;
+
+    private Semaphore permits;
+    private ScheduledExecutorService expiry;
+
+    @PostConstruct
+    public void start() {
+        permits = new Semaphore(maxConcurrent);
+        expiry = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "export-slot-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (expiry != null) {
+            expiry.shutdownNow();
+        }
+    }
+
+    /**
+     * Check the account and reserve an export slot
+     *
+     * @param from optional lower bound on CREATED_AT (inclusive)
+     * @param to optional upper bound on CREATED_AT (exclusive)
+     * @return the body that writes the export, or null if the account does not exist
+     */
+    public StreamingResponseBody export(String clientIdentification, String accountNumber, Format format, boolean gzip,
+                                        LocalDateTime from, LocalDateTime to) {
+        Long clientId = clientRepository.findByClientIdentification(clientIdentification).map(Client::getId).orElse(null);
+        if (clientId == null || !balanceRepository.existsByClientIdAndAccountNumber(clientId, accountNumber)) {
+            return null;
+        }
+        if (!permits.tryAcquire()) {
+            throw new TransactionException("Too many exports running, please retry later", "SERVICE_BUSY");
+        }
+        Slot slot = new Slot();
+        slot.expiry = expiry.schedule(slot::expire, startTimeoutMs, TimeUnit.MILLISECONDS);
+        return out -> {
+            if (!slot.start()) {
+                throw new IOException("Export started after its slot expired and no slot is free");
+            }
+            try {
+                write(out, clientIdentification, clientId, accountNumber, format, gzip, from, to);
+            } finally {
+                permits.release();
+            }
+        };
+    }
+
+    /**
+     * Export slot reserved for a body that has not started yet; either the body takes it over or it expires
+     */
+    private final class Slot {
+        private static final int RESERVED = 0;
+        private static final int STARTED = 1;
+        private static final int EXPIRED = 2;
+
+        private final AtomicInteger state = new AtomicInteger(RESERVED);
+        private volatile ScheduledFuture<?> expiry;
+
+        /**
+         * @return true if the body holds a slot, which it must release
+         */
+        private boolean start() {
+            if (state.compareAndSet(RESERVED, STARTED)) {
+                ScheduledFuture<?> pending = expiry;
+                if (pending != null) {
+                    pending.cancel(false);
+                }
+                return true;
+            }
+            return permits.tryAcquire();
+        }
+
+        private void expire() {
+            if (state.compareAndSet(RESERVED, EXPIRED)) {
+                permits.release();
+                logger.warn("Released an export slot whose body did not start within {} ms", startTimeoutMs);
+            }
+        }
+    }
+
+    private void write(OutputStream out, String clientIdentification, Long clientId, String accountNumber,
+                       Format format, boolean gzip, LocalDateTime from, LocalDateTime to) throws IOException {
+        Counter rowsCounter = Counter.builder("export.rows")
+                .description("Transaction history rows exported")
+                .tag("format", format.getExtension())
+                .register(meterRegistry);
+        long start = System.nanoTime();
+        long rows = 0;
+        String outcome = "completed";
+        GZIPOutputStream compressed = gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : null;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(compressed != null ? compressed : out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            connection.setReadOnly(true);
+            try (PreparedStatement query = prepare(connection, clientId, accountNumber, from, to);
+                 ResultSet result = query.executeQuery()) {
+                RowWriter rowWriter = format == Format.CSV ? new CsvRowWriter(writer) : new NdjsonRowWriter(writer, objectMapper);
+                long pending = 0;
+                while (result.next()) {
+                    Timestamp createdAt = result.getTimestamp(6);
+                    rowWriter.write(result.getString(1), result.getString(2), result.getBigDecimal(3),
+                                    result.getBigDecimal(4), result.getBigDecimal(5),
+                                    createdAt != null ? createdAt.toLocalDateTime() : null);
+                    rows++;
+                    if (++pending == METRIC_BATCH) {
+                        rowsCounter.increment(pending);
+                        pending = 0;
+                    }
+                }
+                rowWriter.finish();
+                rowsCounter.increment(pending);
+            } finally {
+                connection.rollback();
+                connection.setReadOnly(false);
+                connection.setAutoCommit(true);
+            }
+            writer.flush();
+            if (compressed != null) {
+                compressed.finish();
+            }
+        } catch (SQLException e) {
+            outcome = "failed";
+            logger.error("Export of client {} account {} failed after {} rows: {}", clientIdentification, accountNumber, rows, e.getMessage());
+            throw new IOException("Export failed: " + e.getMessage(), e);
+        } catch (IOException e) {
+            // Usually the client went away; the cursor is closed above
+            outcome = "aborted";
+            logger.warn("Export of client {} account {} aborted after {} rows: {}", clientIdentification, accountNumber, rows, e.getMessage());
+            throw e;
+        } finally {
+            long nanos = System.nanoTime() - start;
+            Timer.builder("export.duration")
+                    .description("Time to stream one transaction history export")
+                    .tag("format", format.getExtension())
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(nanos, TimeUnit.NANOSECONDS);
+            logger.info("Exported {} rows of client {} account {} as {}{} in {} ms ({} rows/s)", rows, clientIdentification,
+                        accountNumber, format.getExtension(), gzip ? " (gzip)" : "", TimeUnit.NANOSECONDS.toMillis(nanos),
+                        String.format("%.0f", rows * 1e9 / Math.max(1, nanos)));
+        }
+    }
+
+    private PreparedStatement prepare(Connection connection, Long clientId, String accountNumber,
+                                      LocalDateTime from, LocalDateTime to) throws SQLException {
+        StringBuilder sql = new StringBuilder(
+            "SELECT TRANSACTION_ID, TRANSACTION_TYPE, AMOUNT, BALANCE_BEFORE, BALANCE_AFTER, CREATED_AT FROM TESTHTC.BALANCE_TRANSACTION " +
+            "WHERE CLIENT_ID = ? AND ACCOUNT_NUMBER = ?");
+        if (from != null) {
+            sql.append(" AND CREATED_AT >= ?");
+        }
+        if (to != null) {
+            sql.append(" AND CREATED_AT < ?");
+        }
+        sql.append(" ORDER BY CREATED_AT, ID");
+
+        PreparedStatement query = connection.prepareStatement(sql.toString(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        query.setFetchSize(fetchSize);
+        int parameter = 1;
+        query.setLong(parameter++, clientId);
+        query.setString(parameter++, accountNumber);
+        if (from != null) {
+            query.setTimestamp(parameter++, Timestamp.valueOf(from));
+        }
+        if (to != null) {
+            query.setTimestamp(parameter, Timestamp.valueOf(to));
+        }
+        return query;
+    }
+
+    private interface RowWriter {
+        void write(String transactionId, String type, BigDecimal amount, BigDecimal balanceBefore,
+                   BigDecimal balanceAfter, LocalDateTime createdAt) throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    /**
+     * One JSON object per line, written with a streaming generator
+     */
+    private static final class NdjsonRowWriter implements RowWriter {
+        private final Writer writer;
+        private final JsonGenerator generator;
+
+        private NdjsonRowWriter(Writer writer, ObjectMapper objectMapper) throws IOException {
+            this.writer = writer;
+            this.generator = objectMapper.getFactory().createGenerator(writer);
+            this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            this.generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void write(String transactionId, String type, BigDecimal amount, BigDecimal balanceBefore,
+                          BigDecimal balanceAfter, LocalDateTime createdAt) throws IOException {
+            generator.writeStartObject();
+            generator.writeStringField("transactionId", transactionId);
+            generator.writeStringField("transactionType", type);
+            generator.writeNumberField("amount", amount);
+            generator.writeNumberField("balanceBefore", balanceBefore);
+            generator.writeNumberField("balanceAfter", balanceAfter);
+            generator.writeStringField("createdAt", createdAt != null ? createdAt.toString() : null);
+            generator.writeEndObject();
+            generator.flush();
+            writer.write('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.close();
+        }
+    }
+
+    private static final class CsvRowWriter implements RowWriter {
+        private final Writer writer;
+
+        private CsvRowWriter(Writer writer) throws IOException {
+            this.writer = writer;
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        @Override
+        public void write(String transactionId, String type, BigDecimal amount, BigDecimal balanceBefore,
+                          BigDecimal balanceAfter, LocalDateTime createdAt) throws IOException {
+            writer.write(escape(transactionId));
+            writer.write(',');
+            writer.write(type);
+            writer.write(',');
+            writer.write(amount.toPlainString());
+            writer.write(',');
+            writer.write(balanceBefore.toPlainString());
+            writer.write(',');
+            writer.write(balanceAfter.toPlainString());
+            writer.write(',');
+            writer.write(createdAt != null ? createdAt.toString() : "");
+            writer.write('\n');
+        }
+
+        @Override
+        public void finish() {
+            // Nothing after the last row
+        }
+
+        private static String escape(String value) {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+    }
+}
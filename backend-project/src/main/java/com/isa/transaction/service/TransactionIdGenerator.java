@@ -0,0 +1,23 @@
+package com.isa.transaction.service;
+
+/**
+ * Generates the public TRANSACTION_ID of a BalanceTransaction.
+ * The implementation is selected with app.transaction.id.generator (SNOWFLAKE or RANDOM).
+ */
+public interface TransactionIdGenerator {
+    
+    String PREFIX = "txn_";
+    
+    /**
+     * Return a new, unique transaction ID
+     */
+    String nextId();
+    
+    /**
+     * Whether two instances can never issue the same ID. A partitioned BALANCE_TRANSACTION
+     * only enforces UNIQUE (TRANSACTION_ID, CREATED_AT), so it relies on this
+     */
+    default boolean isCollisionFree() {
+        return false;
+    }
+}
@@ -0,0 +1,474 @@
+package com.isa.transaction.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.isa.transaction.dto.BatchTransactionResponse;
+import com.isa.transaction.dto.BatchTransactionResult;
+import com.isa.transaction.dto.TransactionImportProgress;
+import com.isa.transaction.dto.TransactionRequest;
+import com.isa.transaction.entity.JobCheckpoint;
+import com.isa.transaction.exception.TransactionException;
+import com.isa.transaction.repository.JobCheckpointRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Applies large files of transactions (corrections, migrations) without one HTTP call per row.
+ *
+ * Files are read from app.import.dir, one transaction per line as clientIdentification,accountNumber,amount
+ * with an optional header line. The file is memory-mapped in segments of app.import.segment-size bytes cut
+ * at line ends; app.import.parser-threads threads parse and validate segments ahead of the writer with the
+ * same constraints as TransactionRequest. The writer takes the parsed segments in file order and applies
+ * them in batches of app.import.batch-size lines through TransactionService.processTransactionBatch,
+ * ordered by account within the batch (rows of one account keep their file order), so a batch locks and
+ * writes each account once. The byte offset after the last line of a batch is saved to JOB_CHECKPOINT in
+ * the same DB transaction as the batch, so a stopped or crashed import resumes exactly after the last
+ * committed line. Resuming assumes the file was not changed in between.
+ *
+ * Lines that fail validation or are refused by business rules (e.g. insufficient funds) are skipped and
+ * written to an NDJSON rejects file in app.import.rejects-dir. Imports are started from the admin endpoint.
+ */
+@Component
+public class TransactionImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionImportService.class);
+
+    static final String CHECKPOINT_PREFIX = "transaction-import:";
+    private static final String HEADER_PREFIX = "clientIdentification";
+    private static final int MAX_FILE_NAME_LENGTH = 80;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private JobCheckpointRepository jobCheckpointRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.import.dir:${java.io.tmpdir}/transaction-import}")
+    private String importDir;
+
+    @Value("${app.import.rejects-dir:${java.io.tmpdir}/transaction-import/rejects}")
+    private String rejectsDir;
+
+    @Value("${app.import.parser-threads:4}")
+    private int parserThreads;
+
+    @Value("${app.import.segment-size:4194304}")
+    private int segmentSize;
+
+    @Value("${app.import.batch-size:1000}")
+    private int batchSize;
+
+    private ExecutorService executor;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile boolean stopRequested;
+
+    // Progress of the current or last import
+    private volatile String state = "IDLE";
+    private volatile String file;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+    private volatile String error;
+    private volatile String rejectsFile;
+    private volatile long fileBytes;
+    private final AtomicLong checkpointOffset = new AtomicLong();
+    private final AtomicLong lines = new AtomicLong();
+    private final AtomicLong imported = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    private Counter importedCounter;
+    private Counter rejectedCounter;
+
+    @PostConstruct
+    public void start() {
+        importedCounter = Counter.builder("import.rows")
+                .description("File lines processed by the transaction import")
+                .tag("result", "imported")
+                .register(meterRegistry);
+        rejectedCounter = Counter.builder("import.rows")
+                .description("File lines processed by the transaction import")
+                .tag("result", "rejected")
+                .register(meterRegistry);
+        Gauge.builder("import.running", running, flag -> flag.get() ? 1 : 0)
+                .description("1 while a transaction import is running")
+                .register(meterRegistry);
+
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "transaction-import");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor == null) {
+            return;
+        }
+        stopRequested = true;
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Start importing a file in the background
+     *
+     * @param fileName name of the file in the import directory
+     * @param resume   continue after the saved checkpoint of this file instead of from its first line
+     * @return the progress right after starting
+     */
+    public TransactionImportProgress startImport(String fileName, boolean resume) {
+        Path path = resolveFile(fileName);
+        if (!running.compareAndSet(false, true)) {
+            throw new TransactionException("A transaction import is already running", "IMPORT_IN_PROGRESS");
+        }
+        beginRun(fileName);
+        executor.execute(() -> runImport(path, fileName, resume));
+        return getProgress();
+    }
+
+    /**
+     * Ask the running import to stop after its current batch; the checkpoint is kept for a resume
+     */
+    public TransactionImportProgress stopImport() {
+        if (running.get()) {
+            stopRequested = true;
+        }
+        return getProgress();
+    }
+
+    public TransactionImportProgress getProgress() {
+        TransactionImportProgress progress = new TransactionImportProgress();
+        progress.setState(state);
+        progress.setFile(file);
+        progress.setStartedAt(startedAt);
+        progress.setFinishedAt(finishedAt);
+        progress.setFileBytes(fileBytes);
+        progress.setCheckpointOffset(checkpointOffset.get());
+        progress.setLines(lines.get());
+        progress.setImported(imported.get());
+        progress.setRejected(rejected.get());
+        progress.setRejectsFile(rejectsFile);
+        progress.setError(error);
+        if (startedAt != null) {
+            LocalDateTime end = finishedAt != null ? finishedAt : LocalDateTime.now();
+            long millis = Math.max(1, Duration.between(startedAt, end).toMillis());
+            progress.setRowsPerSecond(lines.get() * 1000.0 / millis);
+        }
+        return progress;
+    }
+
+    /**
+     * File in the import directory; names that would leave it are refused
+     */
+    private Path resolveFile(String fileName) {
+        if (fileName == null || fileName.isBlank() || fileName.length() > MAX_FILE_NAME_LENGTH) {
+            throw new TransactionException("File name must be between 1 and " + MAX_FILE_NAME_LENGTH + " characters",
+                                           "VALIDATION_ERROR");
+        }
+        Path directory = Paths.get(importDir).toAbsolutePath().normalize();
+        Path path = directory.resolve(fileName).normalize();
+        if (!path.getParent().equals(directory)) {
+            throw new TransactionException("File must be directly in the import directory", "VALIDATION_ERROR");
+        }
+        if (!Files.isRegularFile(path)) {
+            throw new TransactionException("Import file " + fileName + " not found", "IMPORT_FILE_NOT_FOUND");
+        }
+        return path;
+    }
+
+    private void beginRun(String fileName) {
+        stopRequested = false;
+        state = "RUNNING";
+        file = fileName;
+        startedAt = LocalDateTime.now();
+        finishedAt = null;
+        error = null;
+        rejectsFile = null;
+        fileBytes = 0;
+        checkpointOffset.set(0);
+        lines.set(0);
+        imported.set(0);
+        rejected.set(0);
+    }
+
+    /**
+     * Run one import on the calling thread; the caller must have set the running flag
+     */
+    void runImport(Path path, String fileName, boolean resume) {
+        String checkpointName = CHECKPOINT_PREFIX + fileName;
+        AtomicInteger parserIndex = new AtomicInteger();
+        ExecutorService parsers = Executors.newFixedThreadPool(parserThreads, runnable -> {
+            Thread thread = new Thread(runnable, "transaction-import-parser-" + parserIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            fileBytes = size;
+            long position = resume ? jobCheckpointRepository.findById(checkpointName).map(JobCheckpoint::getLastId).orElse(0L) : 0L;
+            if (position > size) {
+                throw new IllegalStateException("Checkpoint " + position + " is past the end of " + fileName + " (" + size + " bytes)");
+            }
+            checkpointOffset.set(position);
+
+            Path rejectsPath = Paths.get(rejectsDir);
+            Files.createDirectories(rejectsPath);
+            rejectsPath = rejectsPath.resolve(fileName + ".rejects.ndjson");
+            rejectsFile = rejectsPath.toString();
+            logger.info("Starting import of {} ({} bytes) at offset {}", fileName, size, position);
+
+            StandardOpenOption mode = position > 0 ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING;
+            try (Writer rejects = Files.newBufferedWriter(rejectsPath, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                                                          StandardOpenOption.WRITE, mode)) {
+                // Segments are parsed ahead of the writer, at most two per parser thread
+                Deque<Future<List<ImportLine>>> parsed = new ArrayDeque<>();
+                List<ImportLine> batch = new ArrayList<>(batchSize);
+                boolean header = position == 0;
+                while (!stopRequested && (position < size || !parsed.isEmpty())) {
+                    while (position < size && parsed.size() < parserThreads * 2) {
+                        ByteBuffer segment = nextSegment(channel, position, size);
+                        long offset = position;
+                        boolean skipHeader = header;
+                        position += segment.remaining();
+                        parsed.add(parsers.submit(() -> parseSegment(segment, offset, skipHeader)));
+                        header = false;
+                    }
+                    for (ImportLine line : parsed.poll().get()) {
+                        batch.add(line);
+                        if (batch.size() == batchSize) {
+                            writeBatch(batch, checkpointName, rejects);
+                            batch.clear();
+                            if (stopRequested) {
+                                break;
+                            }
+                        }
+                    }
+                }
+                if (!stopRequested && !batch.isEmpty()) {
+                    writeBatch(batch, checkpointName, rejects);
+                }
+            }
+            state = stopRequested ? "STOPPED" : "COMPLETED";
+            logger.info("Import of {} {}: {} lines, {} imported, {} rejected, checkpoint {}", fileName, state.toLowerCase(),
+                       lines.get(), imported.get(), rejected.get(), checkpointOffset.get());
+        } catch (Exception e) {
+            Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+            state = "FAILED";
+            error = cause.getMessage();
+            logger.error("Import of {} failed at offset {}: {}", fileName, checkpointOffset.get(), cause.getMessage(), cause);
+        } finally {
+            parsers.shutdownNow();
+            finishedAt = LocalDateTime.now();
+            running.set(false);
+        }
+    }
+
+    /**
+     * Map the next segment of the file, cut after its last line end unless it reaches the end of the file
+     */
+    private ByteBuffer nextSegment(FileChannel channel, long position, long size) throws IOException {
+        long length = Math.min(segmentSize, size - position);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+        if (position + length == size) {
+            return buffer;
+        }
+        int end = (int) length - 1;
+        while (end >= 0 && buffer.get(end) != '\n') {
+            end--;
+        }
+        if (end < 0) {
+            throw new IllegalStateException("Line at offset " + position + " is longer than the segment size " + segmentSize);
+        }
+        return buffer.slice(0, end + 1);
+    }
+
+    /**
+     * Split a segment into lines and parse them; runs on the parser threads
+     */
+    private List<ImportLine> parseSegment(ByteBuffer segment, long offset, boolean skipHeader) {
+        byte[] bytes = new byte[segment.remaining()];
+        segment.get(bytes);
+        List<ImportLine> parsed = new ArrayList<>();
+        int start = 0;
+        while (start < bytes.length) {
+            int end = start;
+            while (end < bytes.length && bytes[end] != '\n') {
+                end++;
+            }
+            int length = end - start;
+            if (length > 0 && bytes[end - 1] == '\r') {
+                length--;
+            }
+            String text = new String(bytes, start, length, StandardCharsets.UTF_8);
+            boolean header = skipHeader && start == 0 && text.startsWith(HEADER_PREFIX);
+            if (!header && !text.isBlank()) {
+                parsed.add(parseLine(text, offset + start, offset + Math.min(end + 1, bytes.length)));
+            }
+            start = end + 1;
+        }
+        return parsed;
+    }
+
+    private ImportLine parseLine(String text, long offset, long endOffset) {
+        String[] fields = text.split(",", -1);
+        if (fields.length != 3) {
+            return ImportLine.invalid(offset, endOffset, text, "Expected 3 fields: clientIdentification,accountNumber,amount");
+        }
+        BigDecimal amount;
+        try {
+            amount = new BigDecimal(fields[2].trim());
+        } catch (NumberFormatException e) {
+            return ImportLine.invalid(offset, endOffset, text, "Amount is not a number");
+        }
+        TransactionRequest request = new TransactionRequest(fields[0].trim(), fields[1].trim(), amount);
+        Set<ConstraintViolation<TransactionRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            String message = violations.stream().map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining("; "));
+            return ImportLine.invalid(offset, endOffset, text, message);
+        }
+        return new ImportLine(offset, endOffset, text, request, null);
+    }
+
+    /**
+     * Apply a batch of consecutive lines and move the checkpoint after the last one in the same DB transaction
+     */
+    private void writeBatch(List<ImportLine> batch, String checkpointName, Writer rejects) throws IOException {
+        long checkpoint = batch.get(batch.size() - 1).endOffset;
+        Runnable saveCheckpoint = () -> jobCheckpointRepository.save(new JobCheckpoint(checkpointName, checkpoint));
+
+        List<ImportLine> valid = new ArrayList<>(batch.size());
+        List<Map<String, Object>> refused = new ArrayList<>();
+        for (ImportLine line : batch) {
+            if (line.request != null) {
+                valid.add(line);
+            } else {
+                refused.add(rejection(line, "VALIDATION_ERROR", line.error));
+            }
+        }
+        // Stable sort: the rows of each account stay together and in file order
+        valid.sort(Comparator.comparing((ImportLine line) -> line.request.getClientIdentification())
+                             .thenComparing(line -> line.request.getAccountNumber()));
+
+        int accepted = 0;
+        if (valid.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> saveCheckpoint.run());
+        } else {
+            List<TransactionRequest> requests = new ArrayList<>(valid.size());
+            for (ImportLine line : valid) {
+                requests.add(line.request);
+            }
+            BatchTransactionResponse response = transactionService.processTransactionBatch(requests, saveCheckpoint);
+            accepted = response.getAccepted();
+            for (BatchTransactionResult result : response.getResults()) {
+                if (!result.isAccepted()) {
+                    refused.add(rejection(valid.get(result.getIndex()), result.getErrorCode(), result.getMessage()));
+                }
+            }
+        }
+
+        // Written once the batch is committed, so a resumed import does not report the same line twice
+        for (Map<String, Object> rejection : refused) {
+            rejects.write(objectMapper.writeValueAsString(rejection));
+            rejects.write('\n');
+        }
+        checkpointOffset.set(checkpoint);
+        lines.addAndGet(batch.size());
+        imported.addAndGet(accepted);
+        rejected.addAndGet(refused.size());
+        importedCounter.increment(accepted);
+        rejectedCounter.increment(refused.size());
+    }
+
+    private static Map<String, Object> rejection(ImportLine line, String errorCode, String message) {
+        Map<String, Object> rejection = new LinkedHashMap<>();
+        rejection.put("offset", line.offset);
+        rejection.put("line", line.text);
+        rejection.put("errorCode", errorCode);
+        rejection.put("message", message);
+        return rejection;
+    }
+
+    /**
+     * One non-blank line of the file: a valid request, or the reason it is invalid
+     */
+    private static final class ImportLine {
+        private final long offset;
+        private final long endOffset;
+        private final String text;
+        private final TransactionRequest request;
+        private final String error;
+
+        private ImportLine(long offset, long endOffset, String text, TransactionRequest request, String error) {
+            this.offset = offset;
+            this.endOffset = endOffset;
+            this.text = text;
+            this.request = request;
+            this.error = error;
+        }
+
+        private static ImportLine invalid(long offset, long endOffset, String text, String error) {
+            return new ImportLine(offset, endOffset, text, null, error);
+        }
+    }
+}
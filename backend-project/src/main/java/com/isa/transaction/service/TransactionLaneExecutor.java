@@ -0,0 +1,163 @@
+package com.isa.transaction.service;
+
+import com.isa.transaction.exception.TransactionException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Single-writer execution lanes for the transaction write path.
+ *
+ * Each (clientIdentification, accountNumber) pair is hashed onto one of N single-threaded lanes,
+ * so all updates to an account are serialized in memory while different accounts run in parallel.
+ * Enabled with app.transaction.lanes.enabled; the lane count defaults to the number of cores.
+ */
+@Component
+public class TransactionLaneExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionLaneExecutor.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.transaction.lanes.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.transaction.lanes.count:0}")
+    private int laneCount;
+
+    @Value("${app.transaction.lanes.queue-capacity:10000}")
+    private int queueCapacity;
+
+    private ThreadPoolExecutor[] lanes;
+    private Timer[] waitTimers;
+    private Timer[] serviceTimers;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        int count = laneCount > 0 ? laneCount : Runtime.getRuntime().availableProcessors();
+        lanes = new ThreadPoolExecutor[count];
+        waitTimers = new Timer[count];
+        serviceTimers = new Timer[count];
+
+        for (int i = 0; i < count; i++) {
+            String laneName = String.valueOf(i);
+            ThreadPoolExecutor lane = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(queueCapacity), runnable -> {
+                        Thread thread = new Thread(runnable, "txn-lane-" + laneName);
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            lanes[i] = lane;
+
+            Gauge.builder("transaction.lane.queue.depth", lane, executor -> executor.getQueue().size())
+                    .description("Transactions waiting in the lane queue")
+                    .tag("lane", laneName)
+                    .register(meterRegistry);
+            waitTimers[i] = Timer.builder("transaction.lane.wait")
+                    .description("Time a transaction waits in the lane queue before it starts")
+                    .tag("lane", laneName)
+                    .register(meterRegistry);
+            serviceTimers[i] = Timer.builder("transaction.lane.service")
+                    .description("Time the lane thread spends processing a transaction")
+                    .tag("lane", laneName)
+                    .register(meterRegistry);
+        }
+        logger.info("Started {} transaction lanes with queue capacity {}", count, queueCapacity);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (lanes == null) {
+            return;
+        }
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+        for (ThreadPoolExecutor lane : lanes) {
+            try {
+                if (!lane.awaitTermination(10, TimeUnit.SECONDS)) {
+                    lane.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                lane.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return lanes != null;
+    }
+
+    /**
+     * Run a task on the lane that owns the given account
+     *
+     * @return a future completed with the task result, or exceptionally with the exception it threw
+     */
+    public <T> CompletableFuture<T> submit(String clientIdentification, String accountNumber, Supplier<T> task) {
+        if (lanes == null) {
+            throw new IllegalStateException("Transaction lanes are not enabled");
+        }
+        int laneIndex = laneFor(clientIdentification, accountNumber);
+        CompletableFuture<T> future = new CompletableFuture<>();
+        long enqueuedAt = System.nanoTime();
+
+        try {
+            lanes[laneIndex].execute(() -> {
+                long startedAt = System.nanoTime();
+                waitTimers[laneIndex].record(startedAt - enqueuedAt, TimeUnit.NANOSECONDS);
+                T result = null;
+                Throwable failure = null;
+                try {
+                    result = task.get();
+                } catch (Throwable t) {
+                    failure = t;
+                }
+                // Record before completing so the caller never observes a result without its metric
+                serviceTimers[laneIndex].record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+                if (failure != null) {
+                    future.completeExceptionally(failure);
+                } else {
+                    future.complete(result);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.warn("Transaction lane {} is full, rejecting transaction for account {}", laneIndex, accountNumber);
+            throw new TransactionException("Too many pending transactions for this account, please retry later", "SERVICE_BUSY", e);
+        }
+        return future;
+    }
+
+    /**
+     * Lane index for an account; the same account always maps to the same lane
+     */
+    int laneFor(String clientIdentification, String accountNumber) {
+        int hash = Objects.hash(clientIdentification, accountNumber);
+        // Spread the high bits so account numbers with similar prefixes do not cluster
+        hash ^= (hash >>> 16);
+        return Math.floorMod(hash, lanes.length);
+    }
+
+    public int getLaneCount() {
+        return lanes != null ? lanes.length : 0;
+    }
+}
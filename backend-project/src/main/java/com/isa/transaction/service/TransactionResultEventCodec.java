@@ -0,0 +1,301 @@
+package com.isa.transaction.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.isa.transaction.dto.TransactionResultEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Compact binary format for TransactionResultEvent.
+ *
+ * Layout of version 1, after the magic byte 0xC5 and the version byte:
+ * a varint of presence flags, then each present field in declaration order. Client IDs are zigzag
+ * varints, amounts are a scale plus a zigzag varint unscaled value (BigInteger bytes when it does not
+ * fit a long), completedAt is epoch seconds (UTC) plus nanos, and statuses and stock error messages
+ * are indexes into fixed tables with 0 meaning a literal string follows. The tables and flags are
+ * append-only; any incompatible change must bump the version byte.
+ *
+ * Dead letter payloads use the same bytes in Base64; payloads starting with '{' are read as JSON,
+ * so rows written before the binary format still replay.
+ * The format is chosen with app.kafka.event-format (json, the default, or binary).
+ */
+@Component
+public class TransactionResultEventCodec {
+
+    public static final byte MAGIC = (byte) 0xC5;
+    public static final byte VERSION_1 = 1;
+
+    private static final String TRANSACTION_ID_PREFIX = "txn_";
+
+    // Append-only: the index is part of the wire format
+    private static final List<String> STATUSES = List.of(
+        "COMPLETED", "FAILED_INSUFFICIENT_FUNDS", "FAILED_CLIENT_NOT_FOUND", "FAILED_VALIDATION_ERROR", "FAILED_SYSTEM_ERROR");
+    private static final List<String> ERROR_MESSAGES = List.of(
+        "Insufficient funds for this transaction", "Client not found");
+
+    private static final int HAS_TRANSACTION_ID = 1;
+    private static final int HAS_CLIENT_ID = 1 << 1;
+    private static final int HAS_ACCOUNT_NUMBER = 1 << 2;
+    private static final int HAS_AMOUNT = 1 << 3;
+    private static final int HAS_STATUS = 1 << 4;
+    private static final int HAS_ERROR_MESSAGE = 1 << 5;
+    private static final int HAS_COMPLETED_AT = 1 << 6;
+    private static final int HAS_NEW_BALANCE = 1 << 7;
+    private static final int PREFIXED_TRANSACTION_ID = 1 << 8;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.kafka.event-format:json}")
+    private String eventFormat;
+
+    public boolean isBinary() {
+        return "binary".equalsIgnoreCase(eventFormat);
+    }
+
+    /**
+     * Text form for DEAD_LETTER_MESSAGES.MESSAGE_PAYLOAD
+     */
+    public String toPayload(TransactionResultEvent event) throws JsonProcessingException {
+        return isBinary() ? Base64.getEncoder().encodeToString(encode(event)) : objectMapper.writeValueAsString(event);
+    }
+
+    /**
+     * Read a payload written by toPayload in either format
+     */
+    public TransactionResultEvent fromPayload(String payload) throws JsonProcessingException {
+        if (payload.startsWith("{")) {
+            return objectMapper.readValue(payload, TransactionResultEvent.class);
+        }
+        return decode(Base64.getDecoder().decode(payload));
+    }
+
+    public static boolean isEncoded(byte[] data) {
+        return data != null && data.length >= 2 && data[0] == MAGIC;
+    }
+
+    public static byte[] encode(TransactionResultEvent event) {
+        Writer out = new Writer(64);
+        out.writeByte(MAGIC);
+        out.writeByte(VERSION_1);
+
+        String transactionId = event.getTransactionId();
+        boolean prefixed = transactionId != null && transactionId.startsWith(TRANSACTION_ID_PREFIX);
+        int flags = (transactionId != null ? HAS_TRANSACTION_ID : 0)
+            | (prefixed ? PREFIXED_TRANSACTION_ID : 0)
+            | (event.getClientId() != null ? HAS_CLIENT_ID : 0)
+            | (event.getAccountNumber() != null ? HAS_ACCOUNT_NUMBER : 0)
+            | (event.getAmount() != null ? HAS_AMOUNT : 0)
+            | (event.getFinalStatus() != null ? HAS_STATUS : 0)
+            | (event.getErrorMessage() != null ? HAS_ERROR_MESSAGE : 0)
+            | (event.getCompletedAt() != null ? HAS_COMPLETED_AT : 0)
+            | (event.getNewBalance() != null ? HAS_NEW_BALANCE : 0);
+        out.writeVarLong(flags);
+
+        if (transactionId != null) {
+            out.writeString(prefixed ? transactionId.substring(TRANSACTION_ID_PREFIX.length()) : transactionId);
+        }
+        if (event.getClientId() != null) {
+            out.writeZigZag(event.getClientId());
+        }
+        if (event.getAccountNumber() != null) {
+            out.writeString(event.getAccountNumber());
+        }
+        if (event.getAmount() != null) {
+            out.writeDecimal(event.getAmount());
+        }
+        if (event.getFinalStatus() != null) {
+            out.writeInterned(STATUSES, event.getFinalStatus());
+        }
+        if (event.getErrorMessage() != null) {
+            out.writeInterned(ERROR_MESSAGES, event.getErrorMessage());
+        }
+        if (event.getCompletedAt() != null) {
+            out.writeZigZag(event.getCompletedAt().toEpochSecond(ZoneOffset.UTC));
+            out.writeVarLong(event.getCompletedAt().getNano());
+        }
+        if (event.getNewBalance() != null) {
+            out.writeDecimal(event.getNewBalance());
+        }
+        return out.toByteArray();
+    }
+
+    public static TransactionResultEvent decode(byte[] data) {
+        if (!isEncoded(data)) {
+            throw new IllegalArgumentException("Not a binary transaction result event");
+        }
+        if (data[1] != VERSION_1) {
+            throw new IllegalArgumentException("Unsupported transaction result event version " + data[1]);
+        }
+        Reader in = new Reader(data, 2);
+        int flags = (int) in.readVarLong();
+
+        TransactionResultEvent event = new TransactionResultEvent();
+        if ((flags & HAS_TRANSACTION_ID) != 0) {
+            String transactionId = in.readString();
+            event.setTransactionId((flags & PREFIXED_TRANSACTION_ID) != 0 ? TRANSACTION_ID_PREFIX + transactionId : transactionId);
+        }
+        if ((flags & HAS_CLIENT_ID) != 0) {
+            event.setClientId(in.readZigZag());
+        }
+        if ((flags & HAS_ACCOUNT_NUMBER) != 0) {
+            event.setAccountNumber(in.readString());
+        }
+        if ((flags & HAS_AMOUNT) != 0) {
+            event.setAmount(in.readDecimal());
+        }
+        if ((flags & HAS_STATUS) != 0) {
+            event.setFinalStatus(in.readInterned(STATUSES));
+        }
+        if ((flags & HAS_ERROR_MESSAGE) != 0) {
+            event.setErrorMessage(in.readInterned(ERROR_MESSAGES));
+        }
+        if ((flags & HAS_COMPLETED_AT) != 0) {
+            long epochSecond = in.readZigZag();
+            int nanos = (int) in.readVarLong();
+            event.setCompletedAt(LocalDateTime.ofEpochSecond(epochSecond, nanos, ZoneOffset.UTC));
+        }
+        if ((flags & HAS_NEW_BALANCE) != 0) {
+            event.setNewBalance(in.readDecimal());
+        }
+        return event;
+    }
+
+    private static final class Writer {
+        private byte[] buffer;
+        private int position;
+
+        private Writer(int capacity) {
+            buffer = new byte[capacity];
+        }
+
+        private void writeByte(int value) {
+            if (position == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        private void writeBytes(byte[] bytes) {
+            if (position + bytes.length > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + bytes.length));
+            }
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        private void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                writeByte((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            writeByte((int) value);
+        }
+
+        private void writeZigZag(long value) {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        private void writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length);
+            writeBytes(bytes);
+        }
+
+        private void writeInterned(List<String> table, String value) {
+            int index = table.indexOf(value);
+            writeVarLong(index + 1);
+            if (index < 0) {
+                writeString(value);
+            }
+        }
+
+        /**
+         * Zigzag scale shifted left by one; the low bit tells whether the unscaled value
+         * follows as a zigzag varint (0) or as BigInteger bytes (1)
+         */
+        private void writeDecimal(BigDecimal value) {
+            BigInteger unscaled = value.unscaledValue();
+            boolean fitsLong = unscaled.bitLength() < 64;
+            long scale = value.scale();
+            writeVarLong((((scale << 1) ^ (scale >> 63)) << 1) | (fitsLong ? 0 : 1));
+            if (fitsLong) {
+                writeZigZag(unscaled.longValue());
+            } else {
+                byte[] bytes = unscaled.toByteArray();
+                writeVarLong(bytes.length);
+                writeBytes(bytes);
+            }
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] data;
+        private int position;
+
+        private Reader(byte[] data, int position) {
+            this.data = data;
+            this.position = position;
+        }
+
+        private long readVarLong() {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = data[position++];
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+
+        private long readZigZag() {
+            long value = readVarLong();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        private byte[] readBytes() {
+            int length = (int) readVarLong();
+            byte[] bytes = Arrays.copyOfRange(data, position, position + length);
+            position += length;
+            return bytes;
+        }
+
+        private String readString() {
+            int length = (int) readVarLong();
+            String value = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        private String readInterned(List<String> table) {
+            int index = (int) readVarLong();
+            return index == 0 ? readString() : table.get(index - 1);
+        }
+
+        private BigDecimal readDecimal() {
+            long header = readVarLong();
+            long zigZagScale = header >>> 1;
+            int scale = (int) ((zigZagScale >>> 1) ^ -(zigZagScale & 1));
+            return (header & 1) == 0
+                ? BigDecimal.valueOf(readZigZag(), scale)
+                : new BigDecimal(new BigInteger(readBytes()), scale);
+        }
+    }
+}
@@ -1,24 +1,47 @@
 package com.isa.transaction.service;
 
+import com.isa.transaction.dto.BalanceSnapshot;
+import com.isa.transaction.dto.BatchTransactionResponse;
+import com.isa.transaction.dto.BatchTransactionResult;
+import com.isa.transaction.dto.TransactionHistoryItem;
+import com.isa.transaction.dto.TransactionHistoryPage;
 import com.isa.transaction.dto.TransactionRequest;
 import com.isa.transaction.dto.TransactionResponse;
 import com.isa.transaction.dto.TransactionResultEvent;
+import com.isa.transaction.entity.AcceptedTransaction;
+import com.isa.transaction.entity.AccountStats;
 import com.isa.transaction.entity.Balance;
 import com.isa.transaction.entity.BalanceTransaction;
 import com.isa.transaction.entity.Client;
+import com.isa.transaction.entity.TransactionStatus;
 import com.isa.transaction.exception.TransactionException;
+import com.isa.transaction.repository.AcceptedTransactionRepository;
+import com.isa.transaction.repository.AccountStatsRepository;
 import com.isa.transaction.repository.BalanceRepository;
 import com.isa.transaction.repository.BalanceTransactionRepository;
 import com.isa.transaction.repository.ClientRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
-import java.util.UUID;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class TransactionService {
@@ -35,7 +58,40 @@ public class TransactionService {
     private BalanceTransactionRepository balanceTransactionRepository;
     
     @Autowired
-    private KafkaProducerService kafkaProducerService;
+    private AccountStatsRepository accountStatsRepository;
+    
+    @Autowired
+    private OutboxService outboxService;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private ConcurrencyMetrics concurrencyMetrics;
+    
+    @Autowired
+    private TransactionIdGenerator transactionIdGenerator;
+    
+    @Autowired
+    private AcceptedTransactionRepository acceptedTransactionRepository;
+    
+    @Autowired
+    private BalanceCache balanceCache;
+    
+    @Autowired
+    private IdentityCache identityCache;
+    
+    @Autowired
+    private KnownKeysFilter knownKeysFilter;
+    
+    @Value("${app.transaction.concurrency-strategy:OPTIMISTIC}")
+    private BalanceConcurrencyStrategy concurrencyStrategy = BalanceConcurrencyStrategy.OPTIMISTIC;
+    
+    @Value("${app.transaction.concurrency-max-attempts:3}")
+    private int concurrencyMaxAttempts = 3;
+    
+    @Value("${app.history.max-page-size:500}")
+    private int maxHistoryPageSize = 500;
     
     /**
      * Process a transaction request
@@ -44,84 +100,596 @@ public class TransactionService {
      * 2. Find or create the balance/account
      * 3. Validate the transaction (for debits)
      * 4. Update the balance
-     * 5. Save the transaction record
-     * 6. Send result to Kafka
+     * 5. Save the transaction record and add it to the account stats
+     * 6. Write the result event to the outbox
+     * 
+     * Steps 1-6 run in a single DB transaction, using the configured concurrency strategy.
+     * The whole DB transaction is retried on concurrency failures, up to the configured attempts.
      */
-    @Transactional
     public TransactionResponse processTransaction(TransactionRequest request) {
         String transactionId = generateTransactionId();
         logger.info("Processing transaction {} for client {} account {} amount {}", 
                    transactionId, request.getClientIdentification(), request.getAccountNumber(), request.getAmount());
         
+        long startTime = System.nanoTime();
         try {
-            // Step 1: Find or create the client
-            Client client = findOrCreateClient(request.getClientIdentification());
-            
-            // Step 2: Find or create the balance
-            Balance balance = findOrCreateBalance(client, request.getAccountNumber(), request.getAmount());
-            
-            // Step 3: Validate transaction (for debits)
-            validateTransaction(request, balance);
-            
-            // Step 4: Update balance
-            BigDecimal newBalanceAmount = balance.getCurrentBalance().add(request.getAmount());
-            balance.setCurrentBalance(newBalanceAmount);
-            balanceRepository.save(balance);
-            
-            // Step 5: Save transaction record
-            BigDecimal balanceBefore = balance.getCurrentBalance().subtract(request.getAmount());
-            BalanceTransaction transaction = new BalanceTransaction(
-                transactionId,
-                client.getId(),
-                request.getAccountNumber(),
-                request.getAmount(),
-                balanceBefore,
-                newBalanceAmount
-            );
-            balanceTransactionRepository.save(transaction);
-            
-            // Step 6: Send success event to Kafka (async)
-            sendSuccessEventAsync(transactionId, client.getId(), request, newBalanceAmount);
+            BigDecimal newBalanceAmount = executeWithRetry(transactionId, request);
+            concurrencyMetrics.recordUpdate(concurrencyStrategy, "success", System.nanoTime() - startTime);
             
             logger.info("Transaction {} completed successfully. New balance: {}", transactionId, newBalanceAmount);
             return TransactionResponse.accepted(transactionId);
             
         } catch (TransactionException e) {
+            concurrencyMetrics.recordUpdate(concurrencyStrategy, e.getErrorCode(), System.nanoTime() - startTime);
             logger.error("Transaction {} failed: {}", transactionId, e.getMessage());
-            sendFailureEventAsync(transactionId, null, request, e);
+            publishFailureEvent(transactionId, null, request, e);
             throw e;
         } catch (Exception e) {
+            concurrencyMetrics.recordUpdate(concurrencyStrategy, "SYSTEM_ERROR", System.nanoTime() - startTime);
             logger.error("Unexpected error processing transaction {}", transactionId, e);
             TransactionException transactionException = new TransactionException("System error processing transaction", "SYSTEM_ERROR", e);
-            sendFailureEventAsync(transactionId, null, request, transactionException);
+            publishFailureEvent(transactionId, null, request, transactionException);
             throw transactionException;
         }
     }
     
-    private Client findOrCreateClient(String clientIdentification) {
-        return clientRepository.findByClientIdentification(clientIdentification)
-                .orElseGet(() -> {
-                    logger.info("Creating new client with identification {}", clientIdentification);
-                    Client client = new Client();
-                    client.setName("N/A");
-                    client.setLastname("N/A");
-                    client.setClientIdentification(clientIdentification);
-                    return clientRepository.save(client);
+    /**
+     * Store a transaction request for asynchronous processing
+     * The request is committed before returning, so a worker can apply it even after a restart.
+     */
+    public AcceptedTransaction acceptTransaction(TransactionRequest request) {
+        String transactionId = generateTransactionId();
+        AcceptedTransaction accepted = acceptedTransactionRepository.save(new AcceptedTransaction(transactionId, request));
+        logger.info("Accepted transaction {} for client {} account {} amount {}", 
+                   transactionId, request.getClientIdentification(), request.getAccountNumber(), request.getAmount());
+        return accepted;
+    }
+    
+    /**
+     * Apply a transaction accepted by acceptTransaction
+     * The status moves to COMPLETED in the same DB transaction that updates the balance, so a request
+     * is applied at most once even if several workers pick it up. Business failures are stored as FAILED.
+     * 
+     * @return the final status, or IN_PROCESS if another worker had already finished the transaction
+     */
+    public TransactionStatus processAcceptedTransaction(AcceptedTransaction accepted) {
+        String transactionId = accepted.getTransactionId();
+        TransactionRequest request = accepted.toRequest();
+        
+        long startTime = System.nanoTime();
+        try {
+            Boolean applied = executeWithRetry("transaction " + transactionId + " on account " + request.getAccountNumber(),
+                status -> {
+                    if (acceptedTransactionRepository.finishIfInProcess(accepted.getId(), TransactionStatus.COMPLETED, null, null) == 0) {
+                        return false;
+                    }
+                    applyTransaction(transactionId, request);
+                    return true;
                 });
+            if (!Boolean.TRUE.equals(applied)) {
+                logger.debug("Transaction {} was already processed, skipping", transactionId);
+                return TransactionStatus.IN_PROCESS;
+            }
+            concurrencyMetrics.recordUpdate(concurrencyStrategy, "success", System.nanoTime() - startTime);
+            logger.info("Transaction {} completed successfully", transactionId);
+            return TransactionStatus.COMPLETED;
+            
+        } catch (TransactionException e) {
+            concurrencyMetrics.recordUpdate(concurrencyStrategy, e.getErrorCode(), System.nanoTime() - startTime);
+            logger.error("Transaction {} failed: {}", transactionId, e.getMessage());
+            return markFailed(accepted, request, e);
+        } catch (Exception e) {
+            concurrencyMetrics.recordUpdate(concurrencyStrategy, "SYSTEM_ERROR", System.nanoTime() - startTime);
+            logger.error("Unexpected error processing transaction {}", transactionId, e);
+            return markFailed(accepted, request, new TransactionException("System error processing transaction", "SYSTEM_ERROR", e));
+        }
+    }
+    
+    private TransactionStatus markFailed(AcceptedTransaction accepted, TransactionRequest request, TransactionException exception) {
+        Integer updatedRows = transactionTemplate.execute(status -> {
+            int rows = acceptedTransactionRepository.finishIfInProcess(
+                accepted.getId(), TransactionStatus.FAILED, exception.getErrorCode(), exception.getMessage());
+            if (rows > 0) {
+                outboxService.add(failureEvent(accepted.getTransactionId(), null, request, exception));
+            }
+            return rows;
+        });
+        return updatedRows == null || updatedRows == 0 ? TransactionStatus.IN_PROCESS : TransactionStatus.FAILED;
+    }
+    
+    /**
+     * Get the processing status of a transaction
+     * Transactions processed synchronously have no accepted record and are reported
+     * as COMPLETED once their balance transaction exists.
+     */
+    public TransactionResponse getTransactionStatus(String transactionId) {
+        AcceptedTransaction accepted = acceptedTransactionRepository.findByTransactionId(transactionId).orElse(null);
+        if (accepted != null) {
+            return switch (accepted.getStatus()) {
+                case COMPLETED -> TransactionResponse.completed(transactionId);
+                case FAILED -> TransactionResponse.failed(transactionId, accepted.getErrorMessage());
+                default -> TransactionResponse.processing(transactionId);
+            };
+        }
+        if (balanceTransactionRepository.existsByTransactionId(transactionId)) {
+            return TransactionResponse.completed(transactionId);
+        }
+        throw new TransactionException("Transaction " + transactionId + " not found", "TRANSACTION_NOT_FOUND");
     }
     
-    private Balance findOrCreateBalance(Client client, String accountNumber, BigDecimal initialAmount) {
-        return balanceRepository.findByClientAndAccountNumber(client, accountNumber)
-                .orElseGet(() -> {
-                    logger.info("Creating new account {} for client {}", accountNumber, client.getId());
-                    
-                    // For account creation, we use the transaction amount as initial balance
-                    // But we need to ensure it's not a debit that would create a negative balance
-                    BigDecimal initialBalance = initialAmount.compareTo(BigDecimal.ZERO) >= 0 ? initialAmount : BigDecimal.ZERO;
-                    
-                    Balance newBalance = new Balance(accountNumber, initialBalance, client);
-                    return balanceRepository.save(newBalance);
+    /**
+     * Run the transaction in its own DB transaction, retrying the whole unit of work
+     * when it fails because of a concurrent update on the same balance
+     */
+    private BigDecimal executeWithRetry(String transactionId, TransactionRequest request) {
+        return executeWithRetry("transaction " + transactionId + " on account " + request.getAccountNumber(),
+                                status -> applyTransaction(transactionId, request));
+    }
+    
+    private <T> T executeWithRetry(String workDescription, TransactionCallback<T> work) {
+        int attempt = 1;
+        while (true) {
+            try {
+                return transactionTemplate.execute(work);
+            } catch (ConcurrencyFailureException e) {
+                concurrencyMetrics.recordConflict(concurrencyStrategy);
+                if (attempt >= concurrencyMaxAttempts) {
+                    concurrencyMetrics.recordRetriesExhausted(concurrencyStrategy);
+                    throw new TransactionException(
+                        String.format("Concurrent update while processing %s, please retry", workDescription),
+                        "CONCURRENT_UPDATE", e);
+                }
+                logger.warn("Concurrent update while processing {} (attempt {}), retrying", workDescription, attempt);
+                concurrencyMetrics.recordRetry(concurrencyStrategy);
+                attempt++;
+            } catch (DataIntegrityViolationException e) {
+                // Usually a client or account inserted concurrently, possibly by another node after the Bloom filter
+                // reported it unknown; the failed insert added the key to the filter, so the retry looks it up
+                if (attempt >= concurrencyMaxAttempts) {
+                    throw e;
+                }
+                logger.warn("Constraint violation while processing {} (attempt {}), retrying: {}", workDescription, attempt, e.getMessage());
+                concurrencyMetrics.recordRetry(concurrencyStrategy);
+                attempt++;
+            }
+        }
+    }
+    
+    /**
+     * Apply the transaction to the balance within the current DB transaction
+     * and return the new balance
+     */
+    private BigDecimal applyTransaction(String transactionId, TransactionRequest request) {
+        // Step 1: Find or create the client, known clients only need their ID
+        Client client = resolveClient(request.getClientIdentification());
+        
+        // Steps 2-4: Find or create the balance, validate and update it
+        BigDecimal newBalanceAmount = switch (concurrencyStrategy) {
+            case PESSIMISTIC -> applyWithPessimisticLock(client, request);
+            case ATOMIC -> applyWithAtomicUpdate(client, request);
+            default -> applyWithOptimisticLock(client, request);
+        };
+        
+        // Step 5: Save transaction record
+        BigDecimal balanceBefore = newBalanceAmount.subtract(request.getAmount());
+        BalanceTransaction transaction = new BalanceTransaction(
+            transactionId,
+            client.getId(),
+            request.getAccountNumber(),
+            request.getAmount(),
+            balanceBefore,
+            newBalanceAmount
+        );
+        balanceTransactionRepository.save(transaction);
+        
+        // Step 6: Write the success event to the outbox, it is published only if this DB transaction commits
+        outboxService.add(successEvent(transactionId, client.getId(), request, newBalanceAmount));
+        
+        return newBalanceAmount;
+    }
+    
+    /**
+     * Read-modify-write; lost updates are detected by the @Version column on commit
+     */
+    private BigDecimal applyWithOptimisticLock(Client client, TransactionRequest request) {
+        Balance balance = findCachedBalance(client, request.getAccountNumber(), false);
+        if (balance == null) {
+            balance = findOrCreateBalance(client, request);
+            rememberIds(request, client, balance.getId());
+        }
+        validateTransaction(request, balance);
+        
+        BigDecimal newBalanceAmount = balance.getCurrentBalance().add(request.getAmount());
+        balance.setCurrentBalance(newBalanceAmount);
+        balanceRepository.save(balance);
+        addToStats(balance.getId(), request.getAmount());
+        cacheAfterCommit(request, balance);
+        return newBalanceAmount;
+    }
+    
+    /**
+     * Read-modify-write holding the row lock (SELECT ... FOR UPDATE) until commit
+     */
+    private BigDecimal applyWithPessimisticLock(Client client, TransactionRequest request) {
+        long lockStart = System.nanoTime();
+        Balance balance = findCachedBalance(client, request.getAccountNumber(), true);
+        if (balance == null) {
+            balance = knownKeysFilter.isUnknownAccount(request.getClientIdentification(), request.getAccountNumber())
+                ? createBalance(client, request, true)
+                : balanceRepository.findByClientAndAccountNumberForUpdate(client, request.getAccountNumber())
+                    .orElseGet(() -> createBalance(client, request, true));
+            rememberIds(request, client, balance.getId());
+        }
+        concurrencyMetrics.recordLockWait(concurrencyStrategy, System.nanoTime() - lockStart);
+        validateTransaction(request, balance);
+        
+        BigDecimal newBalanceAmount = balance.getCurrentBalance().add(request.getAmount());
+        balance.setCurrentBalance(newBalanceAmount);
+        balanceRepository.save(balance);
+        addToStats(balance.getId(), request.getAmount());
+        cacheAfterCommit(request, balance);
+        return newBalanceAmount;
+    }
+    
+    /**
+     * Single conditional UPDATE; the database checks for sufficient funds and applies the amount atomically
+     */
+    private BigDecimal applyWithAtomicUpdate(Client client, TransactionRequest request) {
+        // Known accounts go straight to the UPDATE by primary key
+        long balanceId = identityCache.balanceId(client.getId(), request.getAccountNumber());
+        if (balanceId == FingerprintIdMap.ABSENT) {
+            balanceId = findOrCreateBalance(client, request).getId();
+            rememberIds(request, client, balanceId);
+        }
+        
+        int updatedRows = balanceRepository.applyAmountIfSufficientFunds(balanceId, request.getAmount());
+        if (updatedRows == 0) {
+            concurrencyMetrics.recordGuardRejection(concurrencyStrategy);
+            BigDecimal available = balanceRepository.findCurrentBalanceById(balanceId);
+            throw insufficientFunds(request, available);
+        }
+        addToStats(balanceId, request.getAmount());
+        // The updated row stays locked until commit, so this read is consistent with our update
+        BalanceSnapshot snapshot = balanceRepository.findSnapshotById(balanceId);
+        balanceCache.offerAfterCommit(request.getClientIdentification(), request.getAccountNumber(), () -> snapshot);
+        return snapshot.getCurrentBalance();
+    }
+    
+    /**
+     * Add one ledger row to the stats of its account. Runs after the balance update, so the balance
+     * row is locked first, as the stats backfill does.
+     */
+    private void addToStats(Long balanceId, BigDecimal amount) {
+        boolean credit = amount.signum() >= 0;
+        accountStatsRepository.addTransactions(balanceId, credit ? amount : BigDecimal.ZERO, credit ? BigDecimal.ZERO : amount,
+                                               1, LocalDateTime.now());
+    }
+    
+    /**
+     * Cache the balance once the current DB transaction commits; the version is read
+     * from the entity after commit, when the flush has incremented it
+     */
+    private void cacheAfterCommit(TransactionRequest request, Balance balance) {
+        balanceCache.offerAfterCommit(request.getClientIdentification(), request.getAccountNumber(),
+                                      () -> new BalanceSnapshot(balance.getCurrentBalance(), balance.getVersion()));
+    }
+    
+    /**
+     * Process a batch of transaction requests in a single DB transaction
+     * Clients and balances are resolved with set-based queries, the touched balances are locked
+     * in ID order, and the transaction records are inserted with JDBC batching.
+     * Items rejected by business rules (e.g. insufficient funds) are reported individually
+     * and do not roll back the rest of the batch.
+     */
+    public BatchTransactionResponse processTransactionBatch(List<TransactionRequest> requests) {
+        return processTransactionBatch(requests, () -> { });
+    }
+    
+    /**
+     * Process a batch of transaction requests in a single DB transaction, running extra work in the
+     * same DB transaction after the batch is applied (e.g. saving the resume point of an import),
+     * so both commit or roll back together
+     */
+    public BatchTransactionResponse processTransactionBatch(List<TransactionRequest> requests, Runnable inTransaction) {
+        List<String> transactionIds = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            transactionIds.add(generateTransactionId());
+        }
+        logger.info("Processing batch of {} transactions ({} .. {})", 
+                   requests.size(), transactionIds.get(0), transactionIds.get(transactionIds.size() - 1));
+        
+        try {
+            List<BatchTransactionResult> results = executeWithRetry(
+                "batch of " + requests.size() + " transactions",
+                status -> {
+                    List<BatchTransactionResult> applied = applyBatch(transactionIds, requests);
+                    inTransaction.run();
+                    return applied;
                 });
+            
+            BatchTransactionResponse response = new BatchTransactionResponse(results);
+            logger.info("Batch completed: {} accepted, {} rejected", response.getAccepted(), response.getRejected());
+            return response;
+            
+        } catch (Exception e) {
+            TransactionException transactionException = e instanceof TransactionException te ? te
+                : new TransactionException("System error processing transaction batch", "SYSTEM_ERROR", e);
+            logger.error("Batch of {} transactions failed: {}", requests.size(), e.getMessage(), e);
+            List<TransactionResultEvent> events = new ArrayList<>(requests.size());
+            for (int i = 0; i < requests.size(); i++) {
+                events.add(failureEvent(transactionIds.get(i), null, requests.get(i), transactionException));
+            }
+            publishFailureEvents(events);
+            throw transactionException;
+        }
+    }
+    
+    /**
+     * Apply every request of a batch within the current DB transaction
+     */
+    private List<BatchTransactionResult> applyBatch(List<String> transactionIds, List<TransactionRequest> requests) {
+        Map<String, Client> clients = resolveClients(requests);
+        Map<String, Balance> balances = lockBalances(clients, requests);
+        
+        List<BatchTransactionResult> results = new ArrayList<>(requests.size());
+        List<BalanceTransaction> records = new ArrayList<>();
+        List<Balance> newBalances = new ArrayList<>();
+        List<TransactionResultEvent> events = new ArrayList<>(requests.size());
+        Map<String, TransactionRequest> touched = new HashMap<>();
+        
+        for (int i = 0; i < requests.size(); i++) {
+            TransactionRequest request = requests.get(i);
+            String transactionId = transactionIds.get(i);
+            Client client = clients.get(request.getClientIdentification());
+            
+            String key = balanceKey(client.getId(), request.getAccountNumber());
+            Balance balance = balances.get(key);
+            if (balance == null) {
+                balance = newBalance(client, request);
+                balances.put(key, balance);
+                newBalances.add(balance);
+            }
+            
+            try {
+                validateTransaction(request, balance);
+            } catch (TransactionException e) {
+                // Rejected items leave the balance untouched, the rest of the batch goes on
+                results.add(BatchTransactionResult.rejected(i, transactionId, e.getErrorCode(), e.getMessage()));
+                events.add(failureEvent(transactionId, client.getId(), request, e));
+                continue;
+            }
+            
+            BigDecimal balanceBefore = balance.getCurrentBalance();
+            BigDecimal newBalanceAmount = balanceBefore.add(request.getAmount());
+            balance.setCurrentBalance(newBalanceAmount);
+            records.add(new BalanceTransaction(transactionId, client.getId(), request.getAccountNumber(),
+                                               request.getAmount(), balanceBefore, newBalanceAmount));
+            results.add(BatchTransactionResult.accepted(i, transactionId, newBalanceAmount));
+            events.add(successEvent(transactionId, client.getId(), request, newBalanceAmount));
+            touched.put(key, request);
+        }
+        
+        // One cache update per balance, with the amount after the last applied item
+        for (Map.Entry<String, TransactionRequest> entry : touched.entrySet()) {
+            cacheAfterCommit(entry.getValue(), balances.get(entry.getKey()));
+        }
+        
+        // Only open the accounts that received at least one applied transaction
+        Set<String> appliedKeys = new HashSet<>();
+        for (BalanceTransaction record : records) {
+            appliedKeys.add(balanceKey(record.getClientId(), record.getAccountNumber()));
+        }
+        newBalances.removeIf(balance -> !appliedKeys.contains(balanceKey(balance.getClient().getId(), balance.getAccountNumber())));
+        balanceRepository.saveAll(newBalances);
+        for (Map.Entry<String, TransactionRequest> entry : touched.entrySet()) {
+            rememberIds(entry.getValue(), clients.get(entry.getValue().getClientIdentification()),
+                        balances.get(entry.getKey()).getId());
+        }
+        
+        List<AccountStats> newStats = new ArrayList<>(newBalances.size());
+        for (Balance balance : newBalances) {
+            newStats.add(new AccountStats(balance.getId(), balance.getClient().getId(), balance.getAccountNumber()));
+        }
+        accountStatsRepository.saveAll(newStats);
+        
+        // Existing balances are managed entities and are updated on commit
+        balanceTransactionRepository.insertAll(records);
+        addToStats(records, balances);
+        outboxService.addAll(events);
+        return results;
+    }
+    
+    /**
+     * Add the ledger rows of a batch to the stats of their accounts, one update per account
+     */
+    private void addToStats(List<BalanceTransaction> records, Map<String, Balance> balances) {
+        Map<String, AccountStats> deltas = new LinkedHashMap<>();
+        for (BalanceTransaction record : records) {
+            String key = balanceKey(record.getClientId(), record.getAccountNumber());
+            AccountStats delta = deltas.computeIfAbsent(key, k -> new AccountStats(balances.get(k).getId(),
+                                                                                   record.getClientId(), record.getAccountNumber()));
+            if (record.getAmount().signum() >= 0) {
+                delta.setTotalCredits(delta.getTotalCredits().add(record.getAmount()));
+            } else {
+                delta.setTotalDebits(delta.getTotalDebits().add(record.getAmount()));
+            }
+            delta.setTransactionCount(delta.getTransactionCount() + 1);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        for (AccountStats delta : deltas.values()) {
+            accountStatsRepository.addTransactions(delta.getBalanceId(), delta.getTotalCredits(), delta.getTotalDebits(),
+                                                   delta.getTransactionCount(), now);
+        }
+    }
+    
+    /**
+     * Load all clients of a batch with one query, creating the ones that do not exist yet
+     */
+    private Map<String, Client> resolveClients(List<TransactionRequest> requests) {
+        Set<String> identifications = new LinkedHashSet<>();
+        for (TransactionRequest request : requests) {
+            identifications.add(request.getClientIdentification());
+        }
+        
+        Map<String, Client> clients = new HashMap<>();
+        for (Client client : clientRepository.findByClientIdentificationIn(identifications)) {
+            clients.put(client.getClientIdentification(), client);
+        }
+        for (String identification : identifications) {
+            if (!clients.containsKey(identification)) {
+                clients.put(identification, createClient(identification));
+            }
+        }
+        return clients;
+    }
+    
+    /**
+     * Lock all existing balances of a batch with one query, keyed by balanceKey.
+     * Only the (client, account) pairs of the batch are locked: their IDs come from the identity cache or an
+     * unlocked lookup, which also returns other accounts of the same clients that are filtered out here.
+     */
+    private Map<String, Balance> lockBalances(Map<String, Client> clients, List<TransactionRequest> requests) {
+        Set<String> keys = new HashSet<>();
+        Set<Long> balanceIds = new HashSet<>();
+        Set<Long> unknownClientIds = new HashSet<>();
+        Set<String> unknownAccountNumbers = new HashSet<>();
+        for (TransactionRequest request : requests) {
+            Long clientId = clients.get(request.getClientIdentification()).getId();
+            if (!keys.add(balanceKey(clientId, request.getAccountNumber()))) {
+                continue;
+            }
+            long balanceId = identityCache.balanceId(clientId, request.getAccountNumber());
+            if (balanceId != FingerprintIdMap.ABSENT) {
+                balanceIds.add(balanceId);
+            } else {
+                unknownClientIds.add(clientId);
+                unknownAccountNumbers.add(request.getAccountNumber());
+            }
+        }
+        if (!unknownClientIds.isEmpty()) {
+            for (Object[] row : balanceRepository.findIdsByClientIdInAndAccountNumberIn(unknownClientIds, unknownAccountNumbers)) {
+                if (keys.contains(balanceKey((Long) row[1], (String) row[2]))) {
+                    balanceIds.add((Long) row[0]);
+                }
+            }
+        }
+        
+        Map<String, Balance> balances = new HashMap<>();
+        if (balanceIds.isEmpty()) {
+            return balances;
+        }
+        for (Balance balance : balanceRepository.findAllByIdInForUpdate(balanceIds)) {
+            balances.put(balanceKey(balance.getClient().getId(), balance.getAccountNumber()), balance);
+        }
+        return balances;
+    }
+    
+    private static String balanceKey(Long clientId, String accountNumber) {
+        return clientId + ":" + accountNumber;
+    }
+    
+    /**
+     * Client for a transaction; when the identity cache knows the ID, a reference is returned without a query
+     */
+    private Client resolveClient(String clientIdentification) {
+        long clientId = identityCache.clientId(clientIdentification);
+        if (clientId != FingerprintIdMap.ABSENT) {
+            return clientRepository.getReferenceById(clientId);
+        }
+        return findOrCreateClient(clientIdentification);
+    }
+    
+    /**
+     * Load the balance by the ID in the identity cache, or return null if the account is not cached.
+     * The loaded row is checked against the natural key, so a fingerprint collision falls back to the regular lookup.
+     */
+    private Balance findCachedBalance(Client client, String accountNumber, boolean forUpdate) {
+        long balanceId = identityCache.balanceId(client.getId(), accountNumber);
+        if (balanceId == FingerprintIdMap.ABSENT) {
+            return null;
+        }
+        Balance balance = (forUpdate ? balanceRepository.findByIdForUpdate(balanceId) : balanceRepository.findById(balanceId))
+                .orElse(null);
+        if (balance == null || !accountNumber.equals(balance.getAccountNumber())
+                || !client.getId().equals(balance.getClient().getId())) {
+            logger.warn("Identity cache entry for account {} of client {} does not match balance {}, resolving by account number",
+                        accountNumber, client.getId(), balanceId);
+            return null;
+        }
+        return balance;
+    }
+    
+    private void rememberIds(TransactionRequest request, Client client, Long balanceId) {
+        if (client.getId() == null || balanceId == null) {
+            return;
+        }
+        identityCache.putAfterCommit(request.getClientIdentification(), client.getId(), request.getAccountNumber(), balanceId);
+    }
+    
+    private Client findOrCreateClient(String clientIdentification) {
+        if (knownKeysFilter.isUnknownClient(clientIdentification)) {
+            return createClient(clientIdentification);
+        }
+        return clientRepository.findByClientIdentification(clientIdentification)
+                .orElseGet(() -> createClient(clientIdentification));
+    }
+    
+    /**
+     * Insert the client, or load it when another transaction inserted the same identification first
+     * (e.g. two first-time requests for a new client), instead of failing on the unique key
+     */
+    private Client createClient(String clientIdentification) {
+        logger.info("Creating new client with identification {}", clientIdentification);
+        knownKeysFilter.addClient(clientIdentification);
+        Client client = new Client();
+        client.setName("N/A");
+        client.setLastname("N/A");
+        client.setClientIdentification(clientIdentification);
+        return clientRepository.insertIfAbsent(client)
+                .or(() -> clientRepository.findByClientIdentification(clientIdentification))
+                .orElseThrow(() -> new TransactionException(
+                    "Client " + clientIdentification + " could not be created", "ACCOUNT_CREATION_ERROR"));
+    }
+    
+    private Balance findOrCreateBalance(Client client, TransactionRequest request) {
+        if (knownKeysFilter.isUnknownAccount(request.getClientIdentification(), request.getAccountNumber())) {
+            return createBalance(client, request, false);
+        }
+        return balanceRepository.findByClientAndAccountNumber(client, request.getAccountNumber())
+                .orElseGet(() -> createBalance(client, request, false));
+    }
+    
+    /**
+     * Open the account, or load it (locked when forUpdate) when another transaction opened it first;
+     * the stats row is only created by the transaction that inserted the balance
+     */
+    private Balance createBalance(Client client, TransactionRequest request, boolean forUpdate) {
+        Optional<Balance> inserted = balanceRepository.insertIfAbsent(newBalance(client, request));
+        if (inserted.isPresent()) {
+            Balance balance = inserted.get();
+            accountStatsRepository.save(new AccountStats(balance.getId(), client.getId(), balance.getAccountNumber()));
+            return balance;
+        }
+        logger.info("Account {} of client {} was opened concurrently, using the existing balance",
+                   request.getAccountNumber(), client.getId());
+        Optional<Balance> existing = forUpdate
+            ? balanceRepository.findByClientAndAccountNumberForUpdate(client, request.getAccountNumber())
+            : balanceRepository.findByClientAndAccountNumber(client, request.getAccountNumber());
+        return existing.orElseThrow(() -> new TransactionException(
+            "Account " + request.getAccountNumber() + " could not be created", "ACCOUNT_CREATION_ERROR"));
+    }
+    
+    private Balance newBalance(Client client, TransactionRequest request) {
+        String accountNumber = request.getAccountNumber();
+        BigDecimal initialAmount = request.getAmount();
+        logger.info("Creating new account {} for client {}", accountNumber, client.getId());
+        knownKeysFilter.addAccount(request.getClientIdentification(), accountNumber);
+        
+        // For account creation, we use the transaction amount as initial balance
+        // But we need to ensure it's not a debit that would create a negative balance
+        BigDecimal initialBalance = initialAmount.compareTo(BigDecimal.ZERO) >= 0 ? initialAmount : BigDecimal.ZERO;
+        
+        return new Balance(accountNumber, initialBalance, client);
     }
     
     private void validateTransaction(TransactionRequest request, Balance balance) {
@@ -129,77 +697,138 @@ public class TransactionService {
         if (request.getAmount().compareTo(BigDecimal.ZERO) < 0) {
             BigDecimal requestedDebitAmount = request.getAmount().abs();
             if (balance.getCurrentBalance().compareTo(requestedDebitAmount) < 0) {
-                throw new TransactionException(
-                    String.format("Insufficient funds in account %s. Requested: %s, Available: %s", 
-                                 request.getAccountNumber(), requestedDebitAmount, balance.getCurrentBalance()),
-                    "INSUFFICIENT_FUNDS"
-                );
+                throw insufficientFunds(request, balance.getCurrentBalance());
             }
         }
     }
     
-    @Async
-    private void sendSuccessEventAsync(String transactionId, Long clientId, TransactionRequest request, BigDecimal newBalance) {
-        try {
-            TransactionResultEvent event = TransactionResultEvent.completed(
-                transactionId, 
-                clientId, 
-                request.getAccountNumber(), 
-                request.getAmount(), 
-                newBalance
-            );
-            kafkaProducerService.sendTransactionResult(event);
-            logger.debug("Success event sent for transaction {}", transactionId);
-        } catch (Exception e) {
-            logger.error("Failed to send success event for transaction {}: {}", transactionId, e.getMessage());
-            // We don't throw here to avoid rolling back the successful transaction
-        }
+    private TransactionException insufficientFunds(TransactionRequest request, BigDecimal available) {
+        return new TransactionException(
+            String.format("Insufficient funds in account %s. Requested: %s, Available: %s", 
+                         request.getAccountNumber(), request.getAmount().abs(), available),
+            "INSUFFICIENT_FUNDS"
+        );
+    }
+    
+    private TransactionResultEvent successEvent(String transactionId, Long clientId, TransactionRequest request, BigDecimal newBalance) {
+        return TransactionResultEvent.completed(
+            transactionId, 
+            clientId, 
+            request.getAccountNumber(), 
+            request.getAmount(), 
+            newBalance
+        );
     }
     
-    @Async
-    private void sendFailureEventAsync(String transactionId, Long clientId, TransactionRequest request, TransactionException exception) {
+    private TransactionResultEvent failureEvent(String transactionId, Long clientId, TransactionRequest request, TransactionException exception) {
+        return switch (exception.getErrorCode()) {
+            case "CLIENT_NOT_FOUND" -> TransactionResultEvent.clientNotFound(transactionId, clientId, 
+                                                                           request.getAccountNumber(), request.getAmount());
+            case "INSUFFICIENT_FUNDS" -> TransactionResultEvent.insufficientFunds(transactionId, clientId, 
+                                                                                request.getAccountNumber(), request.getAmount());
+            case "VALIDATION_ERROR" -> TransactionResultEvent.validationError(transactionId, clientId, 
+                                                                            request.getAccountNumber(), request.getAmount(), exception.getMessage());
+            default -> TransactionResultEvent.systemError(transactionId, clientId, 
+                                                        request.getAccountNumber(), request.getAmount(), exception.getMessage());
+        };
+    }
+    
+    /**
+     * Write the failure event of a rolled back transaction to the outbox in its own DB transaction
+     */
+    private void publishFailureEvent(String transactionId, Long clientId, TransactionRequest request, TransactionException exception) {
+        publishFailureEvents(List.of(failureEvent(transactionId, clientId, request, exception)));
+    }
+    
+    private void publishFailureEvents(List<TransactionResultEvent> events) {
         try {
-            TransactionResultEvent event;
-            switch (exception.getErrorCode()) {
-                case "CLIENT_NOT_FOUND":
-                    event = TransactionResultEvent.clientNotFound(transactionId, clientId, 
-                                                                request.getAccountNumber(), request.getAmount());
-                    break;
-                case "INSUFFICIENT_FUNDS":
-                    event = TransactionResultEvent.insufficientFunds(transactionId, clientId, 
-                                                                   request.getAccountNumber(), request.getAmount());
-                    break;
-                case "VALIDATION_ERROR":
-                    event = TransactionResultEvent.validationError(transactionId, clientId, 
-                                                                 request.getAccountNumber(), request.getAmount(), exception.getMessage());
-                    break;
-                default:
-                    event = TransactionResultEvent.systemError(transactionId, clientId, 
-                                                             request.getAccountNumber(), request.getAmount(), exception.getMessage());
-                    break;
-            }
-            kafkaProducerService.sendTransactionResult(event);
-            logger.debug("Failure event sent for transaction {}", transactionId);
+            outboxService.addAll(events);
+            logger.debug("{} failure events written to the outbox", events.size());
         } catch (Exception e) {
-            logger.error("Failed to send failure event for transaction {}: {}", transactionId, e.getMessage());
+            // We don't throw here so the caller still gets the original error
+            logger.error("Failed to write {} failure events to the outbox: {}", events.size(), e.getMessage());
         }
     }
     
     private String generateTransactionId() {
-        return "txn_" + UUID.randomUUID().toString().replace("-", "").substring(0, 10);
+        return transactionIdGenerator.nextId();
+    }
+    
+    /**
+     * Current balance of an account, served from the balance cache when possible
+     * 
+     * @return the balance amount, or null if the client or account does not exist
+     */
+    public BigDecimal getCurrentBalance(String clientIdentification, String accountNumber) {
+        BalanceSnapshot cached = balanceCache.get(clientIdentification, accountNumber);
+        if (cached != null) {
+            return cached.getCurrentBalance();
+        }
+        Balance balance = getBalance(clientIdentification, accountNumber);
+        if (balance == null) {
+            return null;
+        }
+        balanceCache.offer(clientIdentification, accountNumber, new BalanceSnapshot(balance.getCurrentBalance(), balance.getVersion()));
+        return balance.getCurrentBalance();
     }
     
     // Helper methods for testing and monitoring
     public Balance getBalance(String clientIdentification, String accountNumber) {
-        Client client = clientRepository.findByClientIdentification(clientIdentification).orElse(null);
-        if (client == null) {
+        Long clientId = findClientIdForRead(clientIdentification, accountNumber);
+        if (clientId == null) {
             return null;
         }
-        return balanceRepository.findByClientIdAndAccountNumber(client.getId(), accountNumber)
-                .orElse(null);
+        return balanceRepository.findByClientIdAndAccountNumber(clientId, accountNumber).orElse(null);
     }
     
     public java.util.List<BalanceTransaction> getTransactionHistory(Long clientId, String accountNumber) {
         return balanceTransactionRepository.findByClientIdAndAccountNumberOrderByCreatedAtDesc(clientId, accountNumber);
     }
+    
+    /**
+     * Get one page of an account's transaction history, newest first
+     *
+     * @param cursor nextCursor of the previous page, or null for the first page
+     * @return null if the account does not exist
+     */
+    public TransactionHistoryPage getTransactionHistoryPage(String clientIdentification, String accountNumber,
+                                                            String cursor, int size) {
+        if (size < 1 || size > maxHistoryPageSize) {
+            throw new TransactionException("Page size must be between 1 and " + maxHistoryPageSize, "VALIDATION_ERROR");
+        }
+        HistoryCursor after = cursor != null && !cursor.isEmpty() ? HistoryCursor.decode(cursor) : null;
+        Long clientId = findClientIdForRead(clientIdentification, accountNumber);
+        if (clientId == null) {
+            return null;
+        }
+        
+        // One extra row tells whether another page follows
+        PageRequest limit = PageRequest.of(0, size + 1);
+        List<TransactionHistoryItem> items = after == null
+            ? balanceTransactionRepository.findHistoryPage(clientId, accountNumber, limit)
+            : balanceTransactionRepository.findHistoryPageBefore(clientId, accountNumber, after.createdAt, after.id, limit);
+        if (items.isEmpty() && after == null && !balanceRepository.existsByClientIdAndAccountNumber(clientId, accountNumber)) {
+            return null;
+        }
+        if (items.size() <= size) {
+            return new TransactionHistoryPage(items, null);
+        }
+        items = items.subList(0, size);
+        TransactionHistoryItem last = items.get(size - 1);
+        return new TransactionHistoryPage(items, new HistoryCursor(last.getCreatedAt(), last.getId()).encode());
+    }
+    
+    /**
+     * Client ID of an account for read paths, or null if the client or account certainly does not exist
+     */
+    private Long findClientIdForRead(String clientIdentification, String accountNumber) {
+        if (knownKeysFilter.isUnknownAccountForRead(clientIdentification, accountNumber)) {
+            return null;
+        }
+        long clientId = identityCache.clientId(clientIdentification);
+        if (clientId != FingerprintIdMap.ABSENT) {
+            return clientId;
+        }
+        return clientRepository.findByClientIdentification(clientIdentification).map(Client::getId).orElse(null);
+    }
 }
\ No newline at end of file
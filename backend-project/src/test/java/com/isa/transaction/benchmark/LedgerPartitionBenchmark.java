@@ -0,0 +1,192 @@
+package com.isa.transaction.benchmark;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assumptions.*;
+
+/**
+ * Benchmark de consultas de historial: BALANCE_TRANSACTION sin particionar contra particionada por mes
+ *
+ * Carga las mismas filas (repartidas en benchmark.months meses) en una tabla normal y en una tabla
+ * particionada por rango mensual de CREATED_AT, ambas con indice (CLIENT_ID, ACCOUNT_NUMBER, CREATED_AT),
+ * y reporta la latencia p50/p99 de:
+ * - el historial de los ultimos 30 dias de una cuenta (rango semiabierto, como findAccountHistory)
+ * - el historial sin rango de fechas (como findByClientIdAndAccountNumberOrderByCreatedAtDesc)
+ * - la suma de creditos de un mes (como getTotalCreditsByClientAndAccountBetween)
+ * Al final compara borrar el mes mas antiguo fila por fila contra desvincular su particion.
+ *
+ * Requiere PostgreSQL y no se ejecuta en el build normal. Ejemplo con 10M y 100M filas:
+ *   mvn test -Dtest=LedgerPartitionBenchmark -Dbenchmark=true -Dbenchmark.rows=10000000 \
+ *       -Dbenchmark.jdbc.url=jdbc:postgresql://localhost:5432/transaction_db \
+ *       -Dbenchmark.jdbc.user=postgres -Dbenchmark.jdbc.password=postgres
+ *   mvn test -Dtest=LedgerPartitionBenchmark -Dbenchmark=true -Dbenchmark.rows=100000000 ...
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Benchmark de Particionado del Libro Mayor")
+class LedgerPartitionBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerPartitionBenchmark.class);
+
+    private static final long LOAD_CHUNK = 1_000_000;
+
+    private final String jdbcUrl = System.getProperty("benchmark.jdbc.url", "jdbc:postgresql://localhost:5432/transaction_db");
+    private final String jdbcUser = System.getProperty("benchmark.jdbc.user", "postgres");
+    private final String jdbcPassword = System.getProperty("benchmark.jdbc.password", "postgres");
+    private final long rows = Long.getLong("benchmark.rows", 10_000_000L);
+    private final int accounts = Integer.getInteger("benchmark.accounts", 200_000);
+    private final int months = Integer.getInteger("benchmark.months", 24);
+    private final int samples = Integer.getInteger("benchmark.samples", 2_000);
+
+    @Test
+    @DisplayName("Debe comparar la latencia de consultas de historial con y sin particiones mensuales")
+    void shouldCompareHistoryLatencyWithAndWithoutPartitions() throws Exception {
+        try (Connection connection = DriverManager.getConnection(jdbcUrl, jdbcUser, jdbcPassword)) {
+            assumeThat(connection.getMetaData().getDatabaseProductName()).isEqualTo("PostgreSQL");
+            LocalDate firstMonth = LocalDate.now().withDayOfMonth(1).minusMonths(months - 1);
+            log.info("=== BENCHMARK DE PARTICIONES: {} filas, {} cuentas, {} meses ===", rows, accounts, months);
+
+            createTables(connection, firstMonth);
+            load(connection, firstMonth);
+
+            for (String table : new String[]{"BENCH_LEDGER_PLAIN", "BENCH_LEDGER_PART"}) {
+                LocalDateTime now = LocalDateTime.now();
+                measure(connection, table, "historial 30 dias",
+                        "SELECT ID, AMOUNT, CREATED_AT FROM " + table + " WHERE CLIENT_ID = ? AND ACCOUNT_NUMBER = ? " +
+                        "AND CREATED_AT >= ? AND CREATED_AT < ? ORDER BY CREATED_AT DESC, ID DESC LIMIT 50",
+                        now.minusDays(30), now.plusDays(1));
+                measure(connection, table, "historial sin rango",
+                        "SELECT ID, AMOUNT, CREATED_AT FROM " + table + " WHERE CLIENT_ID = ? AND ACCOUNT_NUMBER = ? " +
+                        "ORDER BY CREATED_AT DESC LIMIT 50", null, null);
+                LocalDateTime month = firstMonth.plusMonths(months / 2).atStartOfDay();
+                measure(connection, table, "suma de un mes",
+                        "SELECT COALESCE(SUM(AMOUNT), 0) FROM " + table + " WHERE CLIENT_ID = ? AND ACCOUNT_NUMBER = ? " +
+                        "AND AMOUNT > 0 AND CREATED_AT >= ? AND CREATED_AT < ?", month, month.plusMonths(1));
+            }
+
+            compareRetention(connection, firstMonth);
+        }
+    }
+
+    private void createTables(Connection connection, LocalDate firstMonth) throws Exception {
+        String columns = "(ID BIGINT NOT NULL, TRANSACTION_ID VARCHAR(50) NOT NULL, CLIENT_ID BIGINT NOT NULL, " +
+                         "ACCOUNT_NUMBER VARCHAR(10) NOT NULL, AMOUNT NUMERIC(15,2) NOT NULL, " +
+                         "CREATED_AT TIMESTAMP WITH TIME ZONE NOT NULL)";
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS BENCH_LEDGER_PLAIN");
+            statement.execute("DROP TABLE IF EXISTS BENCH_LEDGER_PART CASCADE");
+            for (int i = 0; i <= months; i++) {
+                // Partitions detached by a previous run are plain tables now
+                statement.execute("DROP TABLE IF EXISTS " + partitionName(firstMonth.plusMonths(i)));
+            }
+            statement.execute("CREATE TABLE BENCH_LEDGER_PLAIN " + columns);
+            statement.execute("CREATE TABLE BENCH_LEDGER_PART " + columns + " PARTITION BY RANGE (CREATED_AT)");
+            for (int i = 0; i <= months; i++) {
+                LocalDate from = firstMonth.plusMonths(i);
+                statement.execute("CREATE TABLE " + partitionName(from) + " PARTITION OF BENCH_LEDGER_PART " +
+                                  "FOR VALUES FROM ('" + from + "') TO ('" + from.plusMonths(1) + "')");
+            }
+        }
+    }
+
+    /**
+     * Generate the rows on the server, spread evenly over the months, and copy them to the partitioned table
+     */
+    private void load(Connection connection, LocalDate firstMonth) throws Exception {
+        long start = System.nanoTime();
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO BENCH_LEDGER_PLAIN SELECT g, 'TXN-' || g, g % ?, 'ACC' || (g % ?), " +
+                "ROUND((random() * 2000 - 1000)::numeric, 2), " +
+                "CAST(? AS TIMESTAMPTZ) + random() * (CAST(? AS TIMESTAMPTZ) - CAST(? AS TIMESTAMPTZ)) " +
+                "FROM generate_series(?, ?) g")) {
+            Timestamp from = Timestamp.valueOf(firstMonth.atStartOfDay());
+            Timestamp to = Timestamp.valueOf(LocalDateTime.now());
+            for (long first = 1; first <= rows; first += LOAD_CHUNK) {
+                insert.setInt(1, accounts);
+                insert.setInt(2, 3);
+                insert.setTimestamp(3, from);
+                insert.setTimestamp(4, to);
+                insert.setTimestamp(5, from);
+                insert.setLong(6, first);
+                insert.setLong(7, Math.min(rows, first + LOAD_CHUNK - 1));
+                insert.executeUpdate();
+            }
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO BENCH_LEDGER_PART SELECT * FROM BENCH_LEDGER_PLAIN");
+            statement.execute("CREATE INDEX BENCH_LEDGER_PLAIN_IDX ON BENCH_LEDGER_PLAIN (CLIENT_ID, ACCOUNT_NUMBER, CREATED_AT)");
+            statement.execute("CREATE INDEX BENCH_LEDGER_PART_IDX ON BENCH_LEDGER_PART (CLIENT_ID, ACCOUNT_NUMBER, CREATED_AT)");
+            statement.execute("ANALYZE BENCH_LEDGER_PLAIN");
+            statement.execute("ANALYZE BENCH_LEDGER_PART");
+        }
+        log.info("Carga de {} filas en ambas tablas: {} s", rows, String.format("%.1f", (System.nanoTime() - start) / 1e9));
+    }
+
+    private void measure(Connection connection, String table, String name, String sql,
+                         LocalDateTime from, LocalDateTime to) throws Exception {
+        Random random = new Random(42);
+        long[] nanos = new long[samples];
+        try (PreparedStatement query = connection.prepareStatement(sql)) {
+            for (int i = -samples / 10; i < samples; i++) {
+                long account = random.nextInt(accounts);
+                query.setLong(1, account);
+                query.setString(2, "ACC" + (account % 3));
+                if (from != null) {
+                    query.setTimestamp(3, Timestamp.valueOf(from));
+                    query.setTimestamp(4, Timestamp.valueOf(to));
+                }
+                long start = System.nanoTime();
+                try (ResultSet result = query.executeQuery()) {
+                    while (result.next()) {
+                        // Read the whole result
+                    }
+                }
+                // Negative iterations warm up the caches and the plan cache
+                if (i >= 0) {
+                    nanos[i] = System.nanoTime() - start;
+                }
+            }
+        }
+        Arrays.sort(nanos);
+        log.info("{} - {}: p50 {} ms, p99 {} ms, media {} ms", table, name,
+                 millis(nanos[samples / 2]), millis(nanos[(int) (samples * 0.99)]),
+                 millis((long) Arrays.stream(nanos).average().orElse(0)));
+    }
+
+    /**
+     * Remove the oldest month from each table: DELETE on the plain table, DETACH on the partitioned one
+     */
+    private void compareRetention(Connection connection, LocalDate firstMonth) throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            long start = System.nanoTime();
+            int deleted = statement.executeUpdate("DELETE FROM BENCH_LEDGER_PLAIN WHERE CREATED_AT < '" + firstMonth.plusMonths(1) + "'");
+            log.info("DELETE del mes mas antiguo ({} filas): {} ms", deleted, millis(System.nanoTime() - start));
+
+            start = System.nanoTime();
+            statement.execute("ALTER TABLE BENCH_LEDGER_PART DETACH PARTITION " + partitionName(firstMonth) + " CONCURRENTLY");
+            log.info("DETACH de la particion mas antigua: {} ms", millis(System.nanoTime() - start));
+        }
+    }
+
+    private static String partitionName(LocalDate month) {
+        return "BENCH_LEDGER_P" + month.getYear() + String.format("%02d", month.getMonthValue());
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.3f", nanos / 1e6);
+    }
+}
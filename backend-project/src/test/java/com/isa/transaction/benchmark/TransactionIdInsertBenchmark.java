@@ -0,0 +1,109 @@
+package com.isa.transaction.benchmark;
+
+import com.isa.transaction.service.RandomTransactionIdGenerator;
+import com.isa.transaction.service.SnowflakeTransactionIdGenerator;
+import com.isa.transaction.service.TransactionIdGenerator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Benchmark de insercion: IDs aleatorios (esquema actual) contra IDs ordenados por tiempo
+ *
+ * Inserta la misma cantidad de filas en una tabla con indice unico sobre TRANSACTION_ID
+ * y reporta filas por segundo y, en PostgreSQL, el tamano del indice.
+ *
+ * No se ejecuta en el build normal. Ejemplo contra PostgreSQL:
+ *   mvn test -Dtest=TransactionIdInsertBenchmark -Dbenchmark=true -Dbenchmark.rows=5000000 \
+ *       -Dbenchmark.jdbc.url=jdbc:postgresql://localhost:5432/transaction_db \
+ *       -Dbenchmark.jdbc.user=postgres -Dbenchmark.jdbc.password=postgres
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Benchmark de IDs de Transaccion")
+class TransactionIdInsertBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionIdInsertBenchmark.class);
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final String jdbcUrl = System.getProperty("benchmark.jdbc.url", "jdbc:h2:mem:idbench;DB_CLOSE_DELAY=-1");
+    private final String jdbcUser = System.getProperty("benchmark.jdbc.user", "sa");
+    private final String jdbcPassword = System.getProperty("benchmark.jdbc.password", "");
+    private final int rows = Integer.getInteger("benchmark.rows", 500_000);
+
+    @Test
+    @DisplayName("Debe comparar throughput de insercion y tamano de indice entre esquemas de ID")
+    void shouldCompareInsertThroughputAndIndexSize() throws Exception {
+        try (Connection connection = DriverManager.getConnection(jdbcUrl, jdbcUser, jdbcPassword)) {
+            log.info("=== BENCHMARK DE IDS: {} filas en {} ===", rows, connection.getMetaData().getDatabaseProductName());
+
+            run(connection, "RANDOM", new RandomTransactionIdGenerator());
+            run(connection, "SNOWFLAKE", new SnowflakeTransactionIdGenerator(1));
+        }
+    }
+
+    private void run(Connection connection, String scheme, TransactionIdGenerator generator) throws Exception {
+        recreateTable(connection);
+        connection.setAutoCommit(false);
+
+        long start = System.nanoTime();
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO BENCH_TRANSACTION_ID (TRANSACTION_ID, CREATED_AT) VALUES (?, ?)")) {
+            Timestamp now = new Timestamp(System.currentTimeMillis());
+            for (int i = 1; i <= rows; i++) {
+                insert.setString(1, generator.nextId());
+                insert.setTimestamp(2, now);
+                insert.addBatch();
+                if (i % BATCH_SIZE == 0 || i == rows) {
+                    insert.executeBatch();
+                    connection.commit();
+                }
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        connection.setAutoCommit(true);
+
+        assertThat(countRows(connection)).isEqualTo(rows);
+        log.info("{}: {} filas/s ({} s), tamano del indice: {}",
+                 scheme, String.format("%,.0f", rows / seconds), String.format("%.2f", seconds), indexSize(connection));
+    }
+
+    private void recreateTable(Connection connection) throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS BENCH_TRANSACTION_ID");
+            statement.execute("CREATE TABLE BENCH_TRANSACTION_ID (TRANSACTION_ID VARCHAR(50) NOT NULL, CREATED_AT TIMESTAMP NOT NULL)");
+            statement.execute("CREATE UNIQUE INDEX BENCH_TRANSACTION_ID_UK ON BENCH_TRANSACTION_ID (TRANSACTION_ID)");
+        }
+    }
+
+    private long countRows(Connection connection) throws Exception {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM BENCH_TRANSACTION_ID")) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    private String indexSize(Connection connection) throws Exception {
+        if (!"PostgreSQL".equals(connection.getMetaData().getDatabaseProductName())) {
+            return "n/a (solo PostgreSQL)";
+        }
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(
+                 "SELECT pg_size_pretty(pg_relation_size('bench_transaction_id_uk'))")) {
+            resultSet.next();
+            return resultSet.getString(1);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.isa.transaction.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.isa.transaction.dto.TransactionResultEvent;
+import com.isa.transaction.service.SnowflakeTransactionIdGenerator;
+import com.isa.transaction.service.TransactionResultEventCodec;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Benchmark de serializacion: formato binario contra JSON de Jackson
+ *
+ * Codifica y decodifica los mismos eventos con ambos formatos y reporta bytes por evento
+ * y nanosegundos por operacion, tras una fase de calentamiento del JIT.
+ *
+ * No se ejecuta en el build normal. Ejemplo:
+ *   mvn test -Dtest=TransactionResultEventCodecBenchmark -Dbenchmark=true -Dbenchmark.events=2000000
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Benchmark de Serializacion de Eventos")
+class TransactionResultEventCodecBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionResultEventCodecBenchmark.class);
+
+    private static final int DISTINCT_EVENTS = 1024;
+
+    private final int events = Integer.getInteger("benchmark.events", 1_000_000);
+
+    // Evita que el JIT elimine el trabajo medido
+    private long blackhole;
+
+    @Test
+    @DisplayName("Debe comparar tamano y costo de codificacion entre binario y JSON")
+    void shouldCompareBinaryCodecWithJackson() throws Exception {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        TransactionResultEvent[] sample = sampleEvents();
+        byte[][] binary = new byte[sample.length][];
+        byte[][] json = new byte[sample.length][];
+        long binaryBytes = 0;
+        long jsonBytes = 0;
+        for (int i = 0; i < sample.length; i++) {
+            binary[i] = TransactionResultEventCodec.encode(sample[i]);
+            json[i] = objectMapper.writeValueAsBytes(sample[i]);
+            binaryBytes += binary[i].length;
+            jsonBytes += json[i].length;
+        }
+        log.info("=== BENCHMARK DE SERIALIZACION: {} operaciones ===", events);
+        log.info("Bytes por evento: binario {}, JSON {}",
+                 String.format("%.1f", (double) binaryBytes / sample.length), String.format("%.1f", (double) jsonBytes / sample.length));
+
+        // Calentamiento
+        for (int round = 0; round < 2; round++) {
+            measure(events / 10, i -> TransactionResultEventCodec.encode(sample[i]).length);
+            measure(events / 10, i -> objectMapper.writeValueAsBytes(sample[i]).length);
+            measure(events / 10, i -> TransactionResultEventCodec.decode(binary[i]).getAmount().scale());
+            measure(events / 10, i -> objectMapper.readValue(json[i], TransactionResultEvent.class).getAmount().scale());
+        }
+
+        double binaryEncode = measure(events, i -> TransactionResultEventCodec.encode(sample[i]).length);
+        double jsonEncode = measure(events, i -> objectMapper.writeValueAsBytes(sample[i]).length);
+        double binaryDecode = measure(events, i -> TransactionResultEventCodec.decode(binary[i]).getAmount().scale());
+        double jsonDecode = measure(events, i -> objectMapper.readValue(json[i], TransactionResultEvent.class).getAmount().scale());
+        log.info("Codificacion ns/op: binario {}, JSON {}", String.format("%.0f", binaryEncode), String.format("%.0f", jsonEncode));
+        log.info("Decodificacion ns/op: binario {}, JSON {}", String.format("%.0f", binaryDecode), String.format("%.0f", jsonDecode));
+
+        assertThat(binaryBytes).isLessThan(jsonBytes);
+        assertThat(blackhole).isNotZero();
+    }
+
+    private double measure(int operations, Operation operation) throws Exception {
+        long start = System.nanoTime();
+        for (int i = 0; i < operations; i++) {
+            blackhole += operation.run(i & (DISTINCT_EVENTS - 1));
+        }
+        return (double) (System.nanoTime() - start) / operations;
+    }
+
+    private TransactionResultEvent[] sampleEvents() {
+        SnowflakeTransactionIdGenerator generator = new SnowflakeTransactionIdGenerator(1);
+        TransactionResultEvent[] sample = new TransactionResultEvent[DISTINCT_EVENTS];
+        for (int i = 0; i < DISTINCT_EVENTS; i++) {
+            BigDecimal amount = BigDecimal.valueOf((i % 2 == 0 ? 1 : -1) * (1000L + i * 37L), 2);
+            sample[i] = i % 10 == 0
+                ? TransactionResultEvent.insufficientFunds(generator.nextId(), 1000L + i, "ACC-" + (100000 + i), amount)
+                : TransactionResultEvent.completed(generator.nextId(), 1000L + i, "ACC-" + (100000 + i), amount,
+                                                   BigDecimal.valueOf(500_000L + i * 113L, 2));
+        }
+        return sample;
+    }
+
+    @FunctionalInterface
+    private interface Operation {
+        int run(int index) throws Exception;
+    }
+}
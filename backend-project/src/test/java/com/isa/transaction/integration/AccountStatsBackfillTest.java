@@ -0,0 +1,141 @@
+package com.isa.transaction.integration;
+
+import com.isa.transaction.entity.AccountStats;
+import com.isa.transaction.entity.Balance;
+import com.isa.transaction.entity.BalanceTransaction;
+import com.isa.transaction.entity.Client;
+import com.isa.transaction.repository.AccountStatsRepository;
+import com.isa.transaction.repository.BalanceRepository;
+import com.isa.transaction.repository.BalanceTransactionRepository;
+import com.isa.transaction.repository.ClientRepository;
+import com.isa.transaction.repository.JobCheckpointRepository;
+import com.isa.transaction.service.AccountStatsBackfill;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Prueba de integracion para las estadisticas por cuenta (ACCOUNT_STATS)
+ *
+ * Esta prueba verifica:
+ * - Que los totales de una cuenta sin estadisticas se calculan recorriendo el libro mayor
+ * - Que el backfill construye las estadisticas de todas las cuentas existentes, tambien las que no tienen movimientos
+ * - Que una vez construidas, los totales y el conteo se leen de ACCOUNT_STATS y se mantienen con cada movimiento
+ */
+@DataJpaTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:statsdb;DB_CLOSE_DELAY=-1;INIT=CREATE SCHEMA IF NOT EXISTS TESTHTC",
+    "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@DisplayName("Estadisticas por Cuenta")
+class AccountStatsBackfillTest {
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private BalanceRepository balanceRepository;
+
+    @Autowired
+    private BalanceTransactionRepository balanceTransactionRepository;
+
+    @Autowired
+    private AccountStatsRepository accountStatsRepository;
+
+    @Autowired
+    private JobCheckpointRepository jobCheckpointRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    @DisplayName("Debe construir las estadisticas desde el libro mayor y luego leerlas sin recorrerlo")
+    void shouldBackfillStatsAndReadThemInsteadOfScanningTheLedger() {
+        // Given - Tres cuentas existentes sin estadisticas; la tercera sin movimientos
+        Client ana = clientRepository.saveAndFlush(new Client("Ana", "Lopez", "11111111"));
+        Client luis = clientRepository.saveAndFlush(new Client("Luis", "Perez", "22222222"));
+        Balance first = balanceRepository.save(new Balance("ACC-111111", new BigDecimal("70.00"), ana));
+        Balance second = balanceRepository.save(new Balance("ACC-222222", new BigDecimal("5.00"), ana));
+        Balance empty = balanceRepository.save(new Balance("ACC-333333", BigDecimal.ZERO, luis));
+        LocalDateTime start = LocalDateTime.of(2026, 1, 1, 10, 0);
+        List<BalanceTransaction> ledger = new ArrayList<>();
+        ledger.add(transaction("txn_1", ana, "ACC-111111", "100.00", start));
+        ledger.add(transaction("txn_2", ana, "ACC-111111", "-40.00", start.plusHours(1)));
+        ledger.add(transaction("txn_3", ana, "ACC-111111", "10.00", start.plusHours(2)));
+        ledger.add(transaction("txn_4", ana, "ACC-222222", "5.00", start));
+        balanceTransactionRepository.saveAllAndFlush(ledger);
+
+        // Then - Sin estadisticas, los totales salen del libro mayor
+        assertThat(balanceTransactionRepository.findAccountStats(ana.getId(), "ACC-111111")).isEmpty();
+        assertThat(balanceTransactionRepository.getTotalCreditsByClientAndAccount(ana.getId(), "ACC-111111")).isEqualByComparingTo("110.00");
+        assertThat(balanceTransactionRepository.getTotalDebitsByClientAndAccount(ana.getId(), "ACC-111111")).isEqualByComparingTo("-40.00");
+        assertThat(balanceTransactionRepository.countByClientIdAndAccountNumber(ana.getId(), "ACC-111111")).isEqualTo(3);
+
+        // When - Backfill en bloques de dos cuentas
+        AccountStatsBackfill backfill = newBackfill();
+        ReflectionTestUtils.invokeMethod(backfill, "backfill", false);
+        entityManager.flush();
+        entityManager.clear();
+
+        // Then - Una fila de estadisticas por cuenta, con los totales del libro mayor
+        assertThat(backfill.getProgress().getState()).isEqualTo("COMPLETED");
+        assertThat(backfill.getProgress().getAccounts()).isEqualTo(3);
+        assertThat(backfill.getProgress().getTransactions()).isEqualTo(4);
+        AccountStats stats = accountStatsRepository.findById(first.getId()).orElseThrow();
+        assertThat(stats.getTotalCredits()).isEqualByComparingTo("110.00");
+        assertThat(stats.getTotalDebits()).isEqualByComparingTo("-40.00");
+        assertThat(stats.getTransactionCount()).isEqualTo(3);
+        assertThat(stats.getLastTransactionAt()).isEqualTo(start.plusHours(2));
+        assertThat(accountStatsRepository.findById(second.getId()).orElseThrow().getTransactionCount()).isEqualTo(1);
+        AccountStats none = accountStatsRepository.findById(empty.getId()).orElseThrow();
+        assertThat(none.getTransactionCount()).isZero();
+        assertThat(none.getLastTransactionAt()).isNull();
+        assertThat(jobCheckpointRepository.findById("account-stats-backfill").orElseThrow().getLastId()).isEqualTo(empty.getId());
+
+        // When - Un movimiento nuevo actualiza las estadisticas de su cuenta
+        accountStatsRepository.addTransactions(first.getId(), BigDecimal.ZERO, new BigDecimal("-25.00"), 1, start.plusHours(3));
+        entityManager.clear();
+
+        // Then - Los totales y el conteo se leen de ACCOUNT_STATS
+        assertThat(balanceTransactionRepository.getTotalCreditsByClientAndAccount(ana.getId(), "ACC-111111")).isEqualByComparingTo("110.00");
+        assertThat(balanceTransactionRepository.getTotalDebitsByClientAndAccount(ana.getId(), "ACC-111111")).isEqualByComparingTo("-65.00");
+        assertThat(balanceTransactionRepository.countByClientIdAndAccountNumber(ana.getId(), "ACC-111111")).isEqualTo(4);
+    }
+
+    private AccountStatsBackfill newBackfill() {
+        AccountStatsBackfill backfill = new AccountStatsBackfill();
+        ReflectionTestUtils.setField(backfill, "balanceRepository", balanceRepository);
+        ReflectionTestUtils.setField(backfill, "balanceTransactionRepository", balanceTransactionRepository);
+        ReflectionTestUtils.setField(backfill, "accountStatsRepository", accountStatsRepository);
+        ReflectionTestUtils.setField(backfill, "jobCheckpointRepository", jobCheckpointRepository);
+        ReflectionTestUtils.setField(backfill, "transactionTemplate", new TransactionTemplate(transactionManager));
+        ReflectionTestUtils.setField(backfill, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(backfill, "chunkSize", 2);
+        return backfill;
+    }
+
+    private static BalanceTransaction transaction(String transactionId, Client client, String account, String amount,
+                                                  LocalDateTime createdAt) {
+        BalanceTransaction transaction = new BalanceTransaction(transactionId, client.getId(), account,
+                                                                new BigDecimal(amount), BigDecimal.ZERO, new BigDecimal(amount));
+        transaction.setCreatedAt(createdAt);
+        return transaction;
+    }
+}
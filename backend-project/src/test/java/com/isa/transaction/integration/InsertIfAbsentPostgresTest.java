@@ -0,0 +1,140 @@
+package com.isa.transaction.integration;
+
+import com.isa.transaction.entity.Balance;
+import com.isa.transaction.entity.Client;
+import com.isa.transaction.repository.BalanceRepository;
+import com.isa.transaction.repository.ClientRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Prueba de integracion en PostgreSQL para la insercion de clientes y cuentas nuevas (insertIfAbsent)
+ *
+ * Esta prueba verifica:
+ * - Que INSERT ... ON CONFLICT DO NOTHING RETURNING devuelve la fila insertada como entidad gestionada
+ * - Que el VERSION insertado permite actualizar el saldo con bloqueo optimista
+ * - Que dos aperturas concurrentes del mismo cliente y cuenta no fallan: la que pierde la carrera
+ *   recibe Optional.empty() y lee la fila de la otra
+ *
+ * Requiere PostgreSQL y no se ejecuta en el build normal. Usa ddl-auto=update sin recrear restricciones
+ * unicas y claves aleatorias que borra al terminar. Ejemplo:
+ *   mvn test -Dtest=InsertIfAbsentPostgresTest \
+ *       -Dpostgres.jdbc.url=jdbc:postgresql://localhost:5432/transaction_db \
+ *       -Dpostgres.jdbc.user=postgres -Dpostgres.jdbc.password=postgres
+ */
+@EnabledIfSystemProperty(named = "postgres.jdbc.url", matches = ".+")
+@DataJpaTest(properties = {
+    "spring.datasource.url=${postgres.jdbc.url}",
+    "spring.datasource.username=${postgres.jdbc.user:postgres}",
+    "spring.datasource.password=${postgres.jdbc.password:postgres}",
+    "spring.jpa.hibernate.ddl-auto=update",
+    "spring.jpa.properties.hibernate.hbm2ddl.create_namespaces=true",
+    "spring.jpa.properties.hibernate.schema_update.unique_constraint_strategy=SKIP"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Insercion de Clientes y Cuentas Nuevas en PostgreSQL")
+class InsertIfAbsentPostgresTest {
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private BalanceRepository balanceRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final String clientIdentification = "PG" + ThreadLocalRandom.current().nextLong(100_000_000L, 1_000_000_000L);
+    private final String accountNumber = "PG" + ThreadLocalRandom.current().nextInt(10_000_000, 100_000_000);
+
+    @AfterEach
+    void tearDown() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+            clientRepository.findByClientIdentification(clientIdentification).ifPresent(client -> {
+                balanceRepository.findByClientAndAccountNumber(client, accountNumber).ifPresent(balanceRepository::delete);
+                clientRepository.delete(client);
+            }));
+    }
+
+    @Test
+    @DisplayName("Debe abrir el mismo cliente y cuenta desde dos transacciones concurrentes sin fallar")
+    void shouldOpenSameClientAndAccountConcurrentlyWithoutFailing() throws Exception {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        CountDownLatch firstInserted = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            // Given - La primera transaccion inserta el cliente y la cuenta y tarda en confirmar
+            Future<Balance> first = executor.submit(() -> transactionTemplate.execute(status -> {
+                Client client = clientRepository.insertIfAbsent(new Client("N/A", "N/A", clientIdentification)).orElseThrow();
+                Balance balance = balanceRepository.insertIfAbsent(new Balance(accountNumber, new BigDecimal("10.00"), client)).orElseThrow();
+                firstInserted.countDown();
+                sleep(300);
+                return balance;
+            }));
+
+            // When - La segunda abre las mismas claves mientras tanto y espera la confirmacion de la primera
+            Future<Optional<Balance>> second = executor.submit(() -> {
+                assertThat(firstInserted.await(10, TimeUnit.SECONDS)).isTrue();
+                return transactionTemplate.execute(status -> {
+                    Optional<Client> inserted = clientRepository.insertIfAbsent(new Client("N/A", "N/A", clientIdentification));
+                    assertThat(inserted).isEmpty();
+                    Client client = clientRepository.findByClientIdentification(clientIdentification).orElseThrow();
+                    return balanceRepository.insertIfAbsent(new Balance(accountNumber, new BigDecimal("20.00"), client));
+                });
+            });
+
+            // Then - Ninguna falla; la segunda pierde la carrera en las dos claves
+            Balance opened = first.get(30, TimeUnit.SECONDS);
+            assertThat(second.get(30, TimeUnit.SECONDS)).isEmpty();
+
+            // Then - RETURNING * se mapea a la entidad con su ID, cliente, saldo y VERSION
+            assertThat(opened.getId()).isNotNull();
+            assertThat(opened.getAccountNumber()).isEqualTo(accountNumber);
+            assertThat(opened.getCurrentBalance()).isEqualByComparingTo("10.00");
+            assertThat(opened.getVersion()).isZero();
+            assertThat(opened.getCreatedAt()).isNotNull();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Then - Queda una sola cuenta y su VERSION admite la actualizacion optimista
+        Balance updated = transactionTemplate.execute(status -> {
+            Client client = clientRepository.findByClientIdentification(clientIdentification).orElseThrow();
+            Balance balance = balanceRepository.findByClientAndAccountNumber(client, accountNumber).orElseThrow();
+            balance.setCurrentBalance(new BigDecimal("15.00"));
+            return balanceRepository.saveAndFlush(balance);
+        });
+        assertThat(updated.getVersion()).isEqualTo(1L);
+        assertThat(updated.getCurrentBalance()).isEqualByComparingTo("15.00");
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
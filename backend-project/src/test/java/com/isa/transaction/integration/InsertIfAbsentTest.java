@@ -0,0 +1,55 @@
+package com.isa.transaction.integration;
+
+import com.isa.transaction.entity.Balance;
+import com.isa.transaction.entity.Client;
+import com.isa.transaction.repository.BalanceRepository;
+import com.isa.transaction.repository.ClientRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Prueba de integracion para la insercion de clientes y cuentas nuevas (insertIfAbsent)
+ *
+ * Esta prueba verifica:
+ * - Que en H2, sin INSERT ... ON CONFLICT, se usa persist() y la fila queda gestionada con su ID
+ * - Que el cliente y la cuenta insertados se encuentran por su clave natural
+ */
+@DataJpaTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:upsertdb;DB_CLOSE_DELAY=-1;INIT=CREATE SCHEMA IF NOT EXISTS TESTHTC",
+    "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@DisplayName("Insercion de Clientes y Cuentas Nuevas")
+class InsertIfAbsentTest {
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private BalanceRepository balanceRepository;
+
+    @Test
+    @DisplayName("Debe insertar el cliente y la cuenta con persist cuando la base no soporta ON CONFLICT")
+    void shouldFallBackToPersistWithoutInsertOnConflict() {
+        // Given
+        Client client = new Client("N/A", "N/A", "55555555");
+
+        // When
+        Client inserted = clientRepository.insertIfAbsent(client).orElseThrow();
+        Balance balance = balanceRepository.insertIfAbsent(new Balance("ACC-555555", new BigDecimal("25.00"), inserted)).orElseThrow();
+        balanceRepository.flush();
+
+        // Then
+        assertThat(inserted.getId()).isNotNull();
+        assertThat(balance.getId()).isNotNull();
+        assertThat(clientRepository.findByClientIdentification("55555555")).containsSame(inserted);
+        assertThat(balanceRepository.findByClientAndAccountNumber(inserted, "ACC-555555")).containsSame(balance);
+    }
+}
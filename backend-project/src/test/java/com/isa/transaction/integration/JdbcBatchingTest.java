@@ -0,0 +1,114 @@
+package com.isa.transaction.integration;
+
+import com.isa.transaction.config.JpaBatchingConfig;
+import com.isa.transaction.entity.BalanceTransaction;
+import com.isa.transaction.entity.Client;
+import com.isa.transaction.repository.BalanceTransactionRepository;
+import com.isa.transaction.repository.ClientRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Prueba de integracion para las inserciones por lotes JDBC
+ *
+ * Esta prueba verifica que con IDs asignados por secuencias agrupadas (pooled-lo)
+ * Hibernate agrupa las inserciones, de modo que escribir 1.000 filas envia
+ * unas pocas decenas de sentencias JDBC en lugar de una por fila.
+ */
+@DataJpaTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:batchingdb;DB_CLOSE_DELAY=-1;INIT=CREATE SCHEMA IF NOT EXISTS TESTHTC",
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(JpaBatchingConfig.class)
+@DisplayName("Inserciones por Lotes JDBC")
+class JdbcBatchingTest {
+
+    private static final Logger log = LoggerFactory.getLogger(JdbcBatchingTest.class);
+
+    private static final int ROWS = 1000;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private BalanceTransactionRepository balanceTransactionRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    @DisplayName("Debe insertar un lote de transacciones con insertAll en lotes JDBC")
+    void shouldInsertAllTransactionsInJdbcBatches() {
+        // Given
+        Client client = clientRepository.saveAndFlush(new Client("Isaac", "Ramirez", "87654321"));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<BalanceTransaction> transactions = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            transactions.add(new BalanceTransaction("txn_insert_all_" + i, client.getId(), "ACC-654321",
+                                                    BigDecimal.ONE, BigDecimal.ZERO, BigDecimal.ONE));
+        }
+
+        // When - Camino usado por el endpoint de lotes
+        balanceTransactionRepository.insertAll(transactions);
+
+        // Then
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(ROWS);
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(50);
+    }
+
+    @Test
+    @DisplayName("Debe enviar pocas sentencias JDBC al escribir 1.000 transacciones")
+    void shouldSendFewJdbcStatementsForThousandRowWrite() {
+        // Given - Un cliente existente y estadisticas de Hibernate en cero
+        Client client = clientRepository.saveAndFlush(new Client("Isaac", "Ramirez", "12345678"));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<BalanceTransaction> transactions = new ArrayList<>();
+        BigDecimal balance = BigDecimal.ZERO;
+        for (int i = 0; i < ROWS; i++) {
+            BigDecimal amount = new BigDecimal("10.00");
+            transactions.add(new BalanceTransaction("txn_batch_" + i, client.getId(), "ACC-123456",
+                                                    amount, balance, balance.add(amount)));
+            balance = balance.add(amount);
+        }
+
+        // When - Guardar las 1.000 filas y forzar el flush
+        balanceTransactionRepository.saveAll(transactions);
+        entityManager.flush();
+
+        // Then - Todas las filas tienen ID y se escribieron
+        assertThat(transactions).allSatisfy(transaction -> assertThat(transaction.getId()).isNotNull());
+        assertThat(balanceTransactionRepository.count()).isEqualTo(ROWS);
+
+        // And - Con IDENTITY serian 1.000 sentencias; con lotes de 50 son unas pocas decenas
+        long statements = statistics.getPrepareStatementCount();
+        log.info("Sentencias JDBC preparadas para {} filas: {} (inserciones: {})",
+                 ROWS, statements, statistics.getEntityInsertCount());
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(ROWS);
+        assertThat(statements).isLessThanOrEqualTo(50);
+    }
+}
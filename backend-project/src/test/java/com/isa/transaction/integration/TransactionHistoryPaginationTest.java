@@ -0,0 +1,86 @@
+package com.isa.transaction.integration;
+
+import com.isa.transaction.dto.TransactionHistoryItem;
+import com.isa.transaction.entity.BalanceTransaction;
+import com.isa.transaction.entity.Client;
+import com.isa.transaction.repository.BalanceTransactionRepository;
+import com.isa.transaction.repository.ClientRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Prueba de integracion para la paginacion por cursor del historial
+ *
+ * Esta prueba verifica que recorrer el historial de una cuenta por (createdAt, id)
+ * devuelve cada movimiento exactamente una vez y en orden, aunque varios movimientos
+ * compartan la misma fecha de creacion y haya movimientos de otras cuentas.
+ */
+@DataJpaTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:historydb;DB_CLOSE_DELAY=-1;INIT=CREATE SCHEMA IF NOT EXISTS TESTHTC",
+    "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@DisplayName("Paginacion por Cursor del Historial")
+class TransactionHistoryPaginationTest {
+
+    private static final String ACCOUNT = "ACC-111111";
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private BalanceTransactionRepository balanceTransactionRepository;
+
+    @Test
+    @DisplayName("Debe recorrer todo el historial por paginas sin repetir ni saltar movimientos")
+    void shouldWalkHistoryByKeysetWithoutGapsOrDuplicates() {
+        // Given - 25 movimientos; de a tres comparten la misma fecha de creacion
+        Client client = clientRepository.saveAndFlush(new Client("Ana", "Lopez", "11111111"));
+        LocalDateTime start = LocalDateTime.of(2026, 1, 1, 10, 0);
+        List<BalanceTransaction> transactions = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            BalanceTransaction transaction = new BalanceTransaction("txn_history_" + i, client.getId(), ACCOUNT,
+                                                                    BigDecimal.TEN, BigDecimal.ZERO, BigDecimal.TEN);
+            transaction.setCreatedAt(start.plusMinutes(i / 3));
+            transactions.add(transaction);
+        }
+        transactions.add(new BalanceTransaction("txn_other_account", client.getId(), "ACC-222222",
+                                                BigDecimal.ONE, BigDecimal.ZERO, BigDecimal.ONE));
+        balanceTransactionRepository.saveAllAndFlush(transactions);
+
+        // When - Paginas de 4 siguiendo el ultimo (createdAt, id) de cada pagina
+        List<TransactionHistoryItem> walked = new ArrayList<>();
+        List<TransactionHistoryItem> page = balanceTransactionRepository.findHistoryPage(client.getId(), ACCOUNT, PageRequest.of(0, 4));
+        while (!page.isEmpty()) {
+            walked.addAll(page);
+            TransactionHistoryItem last = page.get(page.size() - 1);
+            page = balanceTransactionRepository.findHistoryPageBefore(client.getId(), ACCOUNT, last.getCreatedAt(), last.getId(),
+                                                                      PageRequest.of(0, 4));
+        }
+
+        // Then - Los 25 movimientos de la cuenta, del mas nuevo al mas antiguo
+        assertThat(walked).hasSize(25);
+        assertThat(walked).extracting(TransactionHistoryItem::getTransactionId).doesNotHaveDuplicates()
+            .doesNotContain("txn_other_account");
+        for (int i = 1; i < walked.size(); i++) {
+            TransactionHistoryItem previous = walked.get(i - 1);
+            TransactionHistoryItem current = walked.get(i);
+            assertThat(current.getCreatedAt()).isBeforeOrEqualTo(previous.getCreatedAt());
+            if (current.getCreatedAt().equals(previous.getCreatedAt())) {
+                assertThat(current.getId()).isLessThan(previous.getId());
+            }
+        }
+        assertThat(walked.get(0).getTransactionType()).isEqualTo("CREDIT");
+    }
+}
@@ -0,0 +1,116 @@
+package com.isa.transaction.service;
+
+import com.isa.transaction.dto.TransactionRequest;
+import com.isa.transaction.dto.TransactionResponse;
+import com.isa.transaction.entity.AcceptedTransaction;
+import com.isa.transaction.entity.TransactionStatus;
+import com.isa.transaction.repository.AcceptedTransactionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Prueba unitaria para el procesamiento asincrono de transacciones
+ *
+ * Esta prueba verifica:
+ * - Que la solicitud se responde sin esperar a que se aplique la transaccion
+ * - Que un worker aplica la transaccion aceptada
+ * - Que el barrido de recuperacion reencola las transacciones pendientes
+ */
+@DisplayName("Procesamiento Asincrono de Transacciones")
+class AsyncTransactionExecutorTest {
+
+    private AsyncTransactionExecutor asyncExecutor;
+    private TransactionService transactionService;
+    private AcceptedTransactionRepository acceptedTransactionRepository;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        transactionService = mock(TransactionService.class);
+        acceptedTransactionRepository = mock(AcceptedTransactionRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        asyncExecutor = new AsyncTransactionExecutor();
+        ReflectionTestUtils.setField(asyncExecutor, "transactionService", transactionService);
+        ReflectionTestUtils.setField(asyncExecutor, "acceptedTransactionRepository", acceptedTransactionRepository);
+        ReflectionTestUtils.setField(asyncExecutor, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(asyncExecutor, "enabled", true);
+        ReflectionTestUtils.setField(asyncExecutor, "workerCount", 2);
+        ReflectionTestUtils.setField(asyncExecutor, "queueCapacity", 100);
+        ReflectionTestUtils.setField(asyncExecutor, "recoveryIntervalMs", 60_000L);
+        ReflectionTestUtils.setField(asyncExecutor, "recoveryBatchSize", 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        asyncExecutor.stop();
+    }
+
+    @Test
+    @DisplayName("Debe responder IN_PROCESS sin esperar a que el worker aplique la transaccion")
+    void shouldRespondBeforeTransactionIsApplied() throws Exception {
+        // Given - El worker queda bloqueado hasta que la prueba lo libere
+        TransactionRequest request = new TransactionRequest("12345678", "ACC-123456", new BigDecimal("100.00"));
+        AcceptedTransaction accepted = accepted(1L, "txn_ASYNC0000001", request);
+        CountDownLatch release = new CountDownLatch(1);
+        when(transactionService.acceptTransaction(request)).thenReturn(accepted);
+        when(transactionService.processAcceptedTransaction(accepted)).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return TransactionStatus.COMPLETED;
+        });
+        asyncExecutor.start();
+
+        // When
+        TransactionResponse response = asyncExecutor.accept(request);
+
+        // Then - La respuesta llega mientras el worker sigue procesando
+        assertThat(response.getTransactionId()).isEqualTo("txn_ASYNC0000001");
+        assertThat(response.getStatus()).isEqualTo("IN_PROCESS");
+        assertThat(meterRegistry.get("transaction.async.pending").gauge().value()).isEqualTo(1.0);
+
+        // And - El worker aplica la transaccion al liberarse
+        release.countDown();
+        verify(transactionService, timeout(5000)).processAcceptedTransaction(accepted);
+        assertThat(meterRegistry.get("transaction.async.accepted").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Debe reencolar las transacciones pendientes en el barrido de recuperacion")
+    void shouldRequeuePendingTransactionsOnRecovery() {
+        // Given - Dos transacciones que quedaron en IN_PROCESS antes de un reinicio
+        AcceptedTransaction first = accepted(1L, "txn_PENDING00001",
+            new TransactionRequest("12345678", "ACC-123456", BigDecimal.ONE));
+        AcceptedTransaction second = accepted(2L, "txn_PENDING00002",
+            new TransactionRequest("87654321", "ACC-654321", BigDecimal.ONE));
+        when(acceptedTransactionRepository.findByStatusAndCreatedAtBeforeOrderByIdAsc(
+                eq(TransactionStatus.IN_PROCESS), any(), any()))
+            .thenReturn(List.of(first, second));
+        when(transactionService.processAcceptedTransaction(any())).thenReturn(TransactionStatus.COMPLETED);
+
+        // When - El primer barrido se ejecuta al arrancar
+        asyncExecutor.start();
+
+        // Then
+        verify(transactionService, timeout(5000)).processAcceptedTransaction(first);
+        verify(transactionService, timeout(5000)).processAcceptedTransaction(second);
+        assertThat(meterRegistry.get("transaction.async.recovered").counter().count()).isEqualTo(2.0);
+    }
+
+    private AcceptedTransaction accepted(Long id, String transactionId, TransactionRequest request) {
+        AcceptedTransaction accepted = new AcceptedTransaction(transactionId, request);
+        accepted.setId(id);
+        return accepted;
+    }
+}
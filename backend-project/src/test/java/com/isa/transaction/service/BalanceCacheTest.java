@@ -0,0 +1,103 @@
+package com.isa.transaction.service;
+
+import com.isa.transaction.dto.BalanceSnapshot;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Prueba unitaria para la cache de saldos
+ *
+ * Esta prueba verifica:
+ * - Que una lectura iniciada antes de un commit no reemplaza el saldo escrito por ese commit
+ * - Que el saldo de una escritura se guarda solo si su transaccion confirma
+ * - Que los aciertos, fallos y desalojos se publican como metricas
+ */
+@DisplayName("Cache de Saldos")
+class BalanceCacheTest {
+
+    private BalanceCache balanceCache;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        balanceCache = new BalanceCache();
+        ReflectionTestUtils.setField(balanceCache, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(balanceCache, "enabled", true);
+        ReflectionTestUtils.setField(balanceCache, "maxSize", 2);
+        ReflectionTestUtils.setField(balanceCache, "ttlMs", 60_000L);
+        balanceCache.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("No debe reemplazar un saldo confirmado con una lectura anterior")
+    void shouldNotReplaceCommittedBalanceWithOlderRead() {
+        // Given - Una escritura confirmo la version 6
+        balanceCache.offer("12345678", "ACC-123456", new BalanceSnapshot(new BigDecimal("1500.00"), 6L));
+
+        // When - Llega tarde una lectura que vio la version 5
+        balanceCache.offer("12345678", "ACC-123456", new BalanceSnapshot(new BigDecimal("1000.00"), 5L));
+
+        // Then
+        assertThat(balanceCache.get("12345678", "ACC-123456").getCurrentBalance()).isEqualByComparingTo("1500.00");
+
+        // And - Una version mas nueva si reemplaza la anterior
+        balanceCache.offer("12345678", "ACC-123456", new BalanceSnapshot(new BigDecimal("1200.00"), 7L));
+        assertThat(balanceCache.get("12345678", "ACC-123456").getCurrentBalance()).isEqualByComparingTo("1200.00");
+    }
+
+    @Test
+    @DisplayName("Debe guardar el saldo de una escritura solo despues del commit")
+    void shouldCacheWrittenBalanceOnlyAfterCommit() {
+        // Given - Dos transacciones en curso
+        TransactionSynchronizationManager.initSynchronization();
+        balanceCache.offerAfterCommit("12345678", "ACC-123456", () -> new BalanceSnapshot(new BigDecimal("700.00"), 2L));
+        balanceCache.offerAfterCommit("87654321", "ACC-654321", () -> new BalanceSnapshot(new BigDecimal("50.00"), 1L));
+        assertThat(balanceCache.get("12345678", "ACC-123456")).isNull();
+
+        // When - La primera confirma y la segunda revierte
+        var synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        synchronizations.get(0).afterCommit();
+        synchronizations.get(1).afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        // Then
+        assertThat(balanceCache.get("12345678", "ACC-123456").getCurrentBalance()).isEqualByComparingTo("700.00");
+        assertThat(balanceCache.get("87654321", "ACC-654321")).isNull();
+    }
+
+    @Test
+    @DisplayName("Debe publicar aciertos, fallos y desalojos")
+    void shouldPublishHitMissAndEvictionStats() {
+        // Given - Cache de dos entradas
+        balanceCache.offer("C1", "ACC-00001", new BalanceSnapshot(BigDecimal.ONE, 0L));
+        balanceCache.offer("C2", "ACC-00002", new BalanceSnapshot(BigDecimal.TEN, 0L));
+
+        // When - Una tercera cuenta desaloja la menos usada
+        balanceCache.get("C1", "ACC-00001");
+        balanceCache.offer("C3", "ACC-00003", new BalanceSnapshot(BigDecimal.ZERO, 0L));
+        balanceCache.get("C2", "ACC-00002");
+
+        // Then
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "balance").tag("result", "hit").functionCounter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "balance").tag("result", "miss").functionCounter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("cache.evictions").tag("cache", "balance").functionCounter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("cache.size").tag("cache", "balance").gauge().value()).isEqualTo(2.0);
+    }
+}
@@ -0,0 +1,158 @@
+package com.isa.transaction.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.isa.transaction.dto.DeadLetterReplayProgress;
+import com.isa.transaction.dto.TransactionResultEvent;
+import com.isa.transaction.entity.DeadLetterMessage;
+import com.isa.transaction.entity.JobCheckpoint;
+import com.isa.transaction.repository.DeadLetterMessageRepository;
+import com.isa.transaction.repository.JobCheckpointRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Prueba unitaria para la reproduccion de la cola de mensajes muertos
+ *
+ * Esta prueba verifica:
+ * - Que la cola se recorre por paginas de ID y los mensajes publicados se borran por lote
+ * - Que los mensajes que vuelven a fallar permanecen en la cola
+ * - Que una reproduccion reanudada continua despues del punto de control guardado
+ */
+@DisplayName("Reproduccion de la Cola de Mensajes Muertos")
+class DeadLetterReplayServiceTest {
+
+    private static final String TOPIC = "transaction-results";
+
+    private DeadLetterReplayService replayService;
+    private DeadLetterMessageRepository deadLetterMessageRepository;
+    private JobCheckpointRepository jobCheckpointRepository;
+    private KafkaTemplate<String, Object> kafkaTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        deadLetterMessageRepository = mock(DeadLetterMessageRepository.class);
+        jobCheckpointRepository = mock(JobCheckpointRepository.class);
+        kafkaTemplate = mock(KafkaTemplate.class);
+        meterRegistry = new SimpleMeterRegistry();
+        // Misma configuracion que el ObjectMapper de Spring Boot
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        replayService = new DeadLetterReplayService();
+        ReflectionTestUtils.setField(replayService, "deadLetterMessageRepository", deadLetterMessageRepository);
+        ReflectionTestUtils.setField(replayService, "jobCheckpointRepository", jobCheckpointRepository);
+        ReflectionTestUtils.setField(replayService, "kafkaTemplate", kafkaTemplate);
+        ReflectionTestUtils.setField(replayService, "transactionTemplate", new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        TransactionResultEventCodec eventCodec = new TransactionResultEventCodec();
+        ReflectionTestUtils.setField(eventCodec, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(eventCodec, "eventFormat", "binary");
+        ReflectionTestUtils.setField(replayService, "eventCodec", eventCodec);
+        ReflectionTestUtils.setField(replayService, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(replayService, "transactionResultsTopic", TOPIC);
+        ReflectionTestUtils.setField(replayService, "pageSize", 2);
+        ReflectionTestUtils.setField(replayService, "parallelism", 4);
+        ReflectionTestUtils.setField(replayService, "recordsPerSecond", 0.0);
+        ReflectionTestUtils.setField(replayService, "sendTimeoutMs", 5_000L);
+        ReflectionTestUtils.setField(replayService, "scheduleIntervalMs", 0L);
+        replayService.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        replayService.stop();
+    }
+
+    @Test
+    @DisplayName("Debe recorrer la cola por paginas y borrar por lote solo los mensajes publicados")
+    void shouldReplayByKeysetPagesAndDeleteSuccessesInBulk() throws Exception {
+        // Given - Tres mensajes en dos paginas; el envio de txn_2 vuelve a fallar
+        when(jobCheckpointRepository.findById(DeadLetterReplayService.CHECKPOINT_NAME)).thenReturn(Optional.empty());
+        when(deadLetterMessageRepository.count()).thenReturn(3L);
+        when(deadLetterMessageRepository.findPageAfterId(eq(0L), any())).thenReturn(List.of(message(1L, "txn_1"), message(2L, "txn_2")));
+        when(deadLetterMessageRepository.findPageAfterId(eq(2L), any())).thenReturn(List.of(message(3L, "txn_3")));
+        when(deadLetterMessageRepository.findPageAfterId(eq(3L), any())).thenReturn(List.of());
+        when(kafkaTemplate.send(eq(TOPIC), anyString(), any())).thenAnswer(invocation ->
+            "txn_2".equals(invocation.getArgument(1))
+                ? CompletableFuture.failedFuture(new IllegalStateException("broker unavailable"))
+                : CompletableFuture.completedFuture(sendResult()));
+        List<Collection<Long>> deleted = new ArrayList<>();
+        when(deadLetterMessageRepository.deleteByIdIn(anyCollection())).thenAnswer(invocation -> {
+            deleted.add(new ArrayList<>(invocation.getArgument(0)));
+            return 1;
+        });
+
+        // When
+        replayService.replay(true);
+
+        // Then - Un borrado por pagina con los mensajes publicados; el fallido queda en la cola
+        assertThat(deleted).hasSize(2);
+        assertThat(deleted.get(0)).containsExactly(1L);
+        assertThat(deleted.get(1)).containsExactly(3L);
+        DeadLetterReplayProgress progress = replayService.getProgress();
+        assertThat(progress.getState()).isEqualTo("COMPLETED");
+        assertThat(progress.getScanned()).isEqualTo(3);
+        assertThat(progress.getReplayed()).isEqualTo(2);
+        assertThat(progress.getFailed()).isEqualTo(1);
+
+        // And - Al terminar la pasada el punto de control vuelve al inicio para reintentar los fallidos
+        ArgumentCaptor<JobCheckpoint> checkpoints = ArgumentCaptor.forClass(JobCheckpoint.class);
+        verify(jobCheckpointRepository, times(3)).save(checkpoints.capture());
+        assertThat(checkpoints.getAllValues()).extracting(JobCheckpoint::getLastId).containsExactly(2L, 3L, 0L);
+        assertThat(meterRegistry.get("dlq.replay.replayed").counter().count()).isEqualTo(2.0);
+    }
+
+    @Test
+    @DisplayName("Debe reanudar despues del punto de control guardado")
+    void shouldResumeFromCheckpoint() {
+        // Given - Una reproduccion anterior se detuvo despues del ID 40
+        when(jobCheckpointRepository.findById(DeadLetterReplayService.CHECKPOINT_NAME))
+            .thenReturn(Optional.of(new JobCheckpoint(DeadLetterReplayService.CHECKPOINT_NAME, 40L)));
+        when(deadLetterMessageRepository.findPageAfterId(eq(40L), any())).thenReturn(List.of());
+
+        // When
+        replayService.replay(true);
+
+        // Then - La lectura empieza despues del punto de control
+        verify(deadLetterMessageRepository).findPageAfterId(eq(40L), any());
+        verify(deadLetterMessageRepository, never()).findPageAfterId(eq(0L), any());
+        verifyNoInteractions(kafkaTemplate);
+    }
+
+    private DeadLetterMessage message(Long id, String transactionId) throws Exception {
+        TransactionResultEvent event = TransactionResultEvent.completed(transactionId, 1L, "ACC-123456", BigDecimal.ONE, BigDecimal.TEN);
+        DeadLetterMessage message = new DeadLetterMessage(TOPIC, objectMapper.writeValueAsString(event), "broker unavailable");
+        message.setId(id);
+        return message;
+    }
+
+    private SendResult<String, Object> sendResult() {
+        return new SendResult<>(new ProducerRecord<>(TOPIC, "key", "value"),
+                                new RecordMetadata(new TopicPartition(TOPIC, 0), 0, 0, 0, 0, 0));
+    }
+}
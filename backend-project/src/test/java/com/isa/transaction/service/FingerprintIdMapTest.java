@@ -0,0 +1,99 @@
+package com.isa.transaction.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Prueba unitaria para el mapa de huellas a IDs
+ *
+ * Esta prueba verifica:
+ * - Que los IDs se recuperan despues de varios redimensionamientos
+ * - Que las lecturas concurrentes con escrituras nunca devuelven un ID equivocado
+ * - Que el mapa rechaza claves nuevas al llegar a su capacidad maxima
+ */
+@DisplayName("Mapa de Huellas a IDs")
+class FingerprintIdMapTest {
+
+    @Test
+    @DisplayName("Debe recuperar los IDs despues de crecer")
+    void shouldFindIdsAfterGrowing() {
+        // Given
+        FingerprintIdMap map = new FingerprintIdMap(1_000_000);
+
+        // When - Suficientes cuentas para redimensionar cada segmento varias veces
+        for (long clientId = 1; clientId <= 200_000; clientId++) {
+            assertThat(map.put(FingerprintIdMap.fingerprint(clientId, "ACC-" + clientId), clientId * 10)).isTrue();
+        }
+
+        // Then
+        assertThat(map.size()).isEqualTo(200_000);
+        for (long clientId = 1; clientId <= 200_000; clientId++) {
+            assertThat(map.get(FingerprintIdMap.fingerprint(clientId, "ACC-" + clientId))).isEqualTo(clientId * 10);
+        }
+        assertThat(map.get(FingerprintIdMap.fingerprint(1L, "ACC-2"))).isEqualTo(FingerprintIdMap.ABSENT);
+        assertThat(map.get(FingerprintIdMap.fingerprint("12345678"))).isEqualTo(FingerprintIdMap.ABSENT);
+        // 16 bytes por posicion y carga entre 37.5% y 75%
+        assertThat(map.memoryBytes()).isBetween(200_000L * 16 * 4 / 3, 200_000L * 16 * 8 / 3);
+    }
+
+    @Test
+    @DisplayName("Debe devolver el ID correcto o ninguno mientras otro hilo escribe")
+    void shouldNeverReturnWrongIdDuringConcurrentWrites() {
+        // Given
+        FingerprintIdMap map = new FingerprintIdMap(1_000_000);
+        int keys = 100_000;
+
+        // When - Un hilo escribe mientras otros leen las mismas claves
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+            for (int i = 1; i <= keys; i++) {
+                map.put(FingerprintIdMap.fingerprint("CLIENT-" + i), i);
+            }
+        });
+        List<CompletableFuture<Integer>> readers = new ArrayList<>();
+        for (int r = 0; r < 3; r++) {
+            readers.add(CompletableFuture.supplyAsync(() -> {
+                int wrong = 0;
+                while (!writer.isDone()) {
+                    for (int i = 1; i <= keys; i += 97) {
+                        long id = map.get(FingerprintIdMap.fingerprint("CLIENT-" + i));
+                        if (id != FingerprintIdMap.ABSENT && id != i) {
+                            wrong++;
+                        }
+                    }
+                }
+                return wrong;
+            }));
+        }
+
+        // Then
+        writer.join();
+        for (CompletableFuture<Integer> reader : readers) {
+            assertThat(reader.join()).isZero();
+        }
+        assertThat(map.get(FingerprintIdMap.fingerprint("CLIENT-" + keys))).isEqualTo(keys);
+    }
+
+    @Test
+    @DisplayName("Debe rechazar claves nuevas al llegar a la capacidad maxima")
+    void shouldRejectNewKeysWhenFull() {
+        // Given - Capacidad de una entrada por segmento
+        FingerprintIdMap map = new FingerprintIdMap(64);
+        long fingerprint = FingerprintIdMap.fingerprint("12345678");
+        map.put(fingerprint, 1L);
+
+        // When - Otra clave del mismo segmento (mismos bits altos)
+        boolean stored = map.put(fingerprint ^ 1, 2L);
+
+        // Then - La clave existente se puede seguir actualizando
+        assertThat(stored).isFalse();
+        assertThat(map.get(fingerprint ^ 1)).isEqualTo(FingerprintIdMap.ABSENT);
+        assertThat(map.put(fingerprint, 3L)).isTrue();
+        assertThat(map.get(fingerprint)).isEqualTo(3L);
+    }
+}
@@ -0,0 +1,135 @@
+package com.isa.transaction.service;
+
+import com.isa.transaction.dto.BatchTransactionResponse;
+import com.isa.transaction.dto.BatchTransactionResult;
+import com.isa.transaction.dto.TransactionRequest;
+import com.isa.transaction.dto.TransactionResponse;
+import com.isa.transaction.exception.TransactionException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Prueba unitaria para el commit agrupado de transacciones
+ *
+ * Esta prueba verifica:
+ * - Que las solicitudes concurrentes se agrupan respetando el tamano maximo
+ * - Que cada solicitante recibe su propia respuesta o excepcion
+ * - Que un fallo del grupo completo se propaga a todos los solicitantes
+ */
+@DisplayName("Commit Agrupado de Transacciones")
+class GroupCommitExecutorTest {
+
+    private GroupCommitExecutor groupCommitExecutor;
+    private TransactionService transactionService;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        transactionService = mock(TransactionService.class);
+        meterRegistry = new SimpleMeterRegistry();
+        groupCommitExecutor = new GroupCommitExecutor();
+        ReflectionTestUtils.setField(groupCommitExecutor, "transactionService", transactionService);
+        ReflectionTestUtils.setField(groupCommitExecutor, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(groupCommitExecutor, "enabled", true);
+        ReflectionTestUtils.setField(groupCommitExecutor, "windowMs", 200L);
+        ReflectionTestUtils.setField(groupCommitExecutor, "maxBatchSize", 3);
+        ReflectionTestUtils.setField(groupCommitExecutor, "queueCapacity", 100);
+        ReflectionTestUtils.setField(groupCommitExecutor, "committers", 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        groupCommitExecutor.stop();
+    }
+
+    @Test
+    @DisplayName("Debe agrupar solicitudes concurrentes sin superar el tamano maximo del lote")
+    void shouldGroupConcurrentRequestsUpToMaxBatchSize() {
+        // Given - El servicio acepta todas las transacciones del lote
+        when(transactionService.processTransactionBatch(anyList())).thenAnswer(invocation -> {
+            List<TransactionRequest> requests = invocation.getArgument(0);
+            List<BatchTransactionResult> results = new ArrayList<>();
+            for (int i = 0; i < requests.size(); i++) {
+                results.add(BatchTransactionResult.accepted(i, "txn_" + requests.get(i).getAccountNumber(), BigDecimal.TEN));
+            }
+            return new BatchTransactionResponse(results);
+        });
+        groupCommitExecutor.start();
+
+        // When - Enviar 5 solicitudes dentro de la misma ventana
+        List<CompletableFuture<TransactionResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            futures.add(groupCommitExecutor.submit(new TransactionRequest("12345678", "ACC-00000" + i, BigDecimal.ONE)));
+        }
+
+        // Then - Cada solicitante recibe la respuesta de su propia transaccion
+        for (int i = 0; i < 5; i++) {
+            TransactionResponse response = futures.get(i).join();
+            assertThat(response.getTransactionId()).isEqualTo("txn_ACC-00000" + i);
+            assertThat(response.getStatus()).isEqualTo("ACCEPTED");
+        }
+
+        // And - Se ejecutaron dos commits: uno de 3 y otro de 2
+        verify(transactionService, times(2)).processTransactionBatch(anyList());
+        assertThat(meterRegistry.get("transaction.group-commit.batch.size").summary().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("transaction.group-commit.batch.size").summary().max()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Debe entregar una TransactionException al solicitante cuyo item fue rechazado")
+    void shouldReleaseRejectedItemWithTransactionException() {
+        // Given - El segundo item del lote se rechaza por fondos insuficientes
+        when(transactionService.processTransactionBatch(anyList())).thenReturn(new BatchTransactionResponse(List.of(
+            BatchTransactionResult.accepted(0, "txn_1", BigDecimal.TEN),
+            BatchTransactionResult.rejected(1, "txn_2", "INSUFFICIENT_FUNDS", "Insufficient funds in account ACC-123456")
+        )));
+        groupCommitExecutor.start();
+
+        // When
+        CompletableFuture<TransactionResponse> accepted = groupCommitExecutor.submit(
+            new TransactionRequest("12345678", "ACC-123456", new BigDecimal("100.00")));
+        CompletableFuture<TransactionResponse> rejected = groupCommitExecutor.submit(
+            new TransactionRequest("12345678", "ACC-123456", new BigDecimal("-5000.00")));
+
+        // Then
+        assertThat(accepted.join().getTransactionId()).isEqualTo("txn_1");
+        assertThatThrownBy(rejected::join)
+            .isInstanceOf(CompletionException.class)
+            .cause()
+            .isInstanceOf(TransactionException.class)
+            .extracting("errorCode").isEqualTo("INSUFFICIENT_FUNDS");
+    }
+
+    @Test
+    @DisplayName("Debe propagar el fallo del grupo completo a todos los solicitantes")
+    void shouldFailEveryCallerWhenGroupCommitFails() {
+        // Given - El commit del grupo falla
+        when(transactionService.processTransactionBatch(anyList()))
+            .thenThrow(new TransactionException("System error processing transaction batch", "SYSTEM_ERROR"));
+        groupCommitExecutor.start();
+
+        // When
+        CompletableFuture<TransactionResponse> first = groupCommitExecutor.submit(
+            new TransactionRequest("12345678", "ACC-123456", BigDecimal.ONE));
+        CompletableFuture<TransactionResponse> second = groupCommitExecutor.submit(
+            new TransactionRequest("87654321", "ACC-654321", BigDecimal.ONE));
+
+        // Then
+        assertThatThrownBy(first::join).hasCauseInstanceOf(TransactionException.class);
+        assertThatThrownBy(second::join).hasCauseInstanceOf(TransactionException.class);
+    }
+}
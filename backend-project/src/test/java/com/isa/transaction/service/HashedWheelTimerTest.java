@@ -0,0 +1,77 @@
+package com.isa.transaction.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Prueba unitaria para el temporizador de rueda
+ *
+ * Esta prueba verifica:
+ * - Que las tareas se ejecutan despues de su retardo y en orden de vencimiento
+ * - Que las tareas con retardos mayores a una vuelta de la rueda esperan sus rondas
+ * - Que las tareas pendientes se descartan al detener el temporizador
+ */
+@DisplayName("Temporizador de Rueda")
+class HashedWheelTimerTest {
+
+    private HashedWheelTimer timer;
+
+    @BeforeEach
+    void setUp() {
+        // Rueda de 8 ranuras de 5 ms: una vuelta completa dura 40 ms
+        timer = new HashedWheelTimer("test-wheel", 5, TimeUnit.MILLISECONDS, 8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        timer.stop();
+    }
+
+    @Test
+    @DisplayName("Debe ejecutar las tareas despues de su retardo y en orden de vencimiento")
+    void shouldRunTasksAfterDelayInDeadlineOrder() throws Exception {
+        // Given
+        List<String> fired = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(3);
+        long start = System.nanoTime();
+
+        // When - Retardos dentro de la primera vuelta y varias vueltas despues
+        timer.schedule(() -> { fired.add("130ms"); done.countDown(); }, 130, TimeUnit.MILLISECONDS);
+        timer.schedule(() -> { fired.add("10ms"); done.countDown(); }, 10, TimeUnit.MILLISECONDS);
+        timer.schedule(() -> { fired.add("60ms"); done.countDown(); }, 60, TimeUnit.MILLISECONDS);
+
+        // Then
+        assertThat(timer.pending()).isEqualTo(3);
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isGreaterThanOrEqualTo(130);
+        assertThat(fired).containsExactly("10ms", "60ms", "130ms");
+        assertThat(timer.pending()).isZero();
+    }
+
+    @Test
+    @DisplayName("Debe descartar las tareas pendientes al detenerse")
+    void shouldDropPendingTasksOnStop() {
+        // Given
+        List<String> fired = new CopyOnWriteArrayList<>();
+        timer.schedule(() -> fired.add("late"), 10, TimeUnit.SECONDS);
+        timer.schedule(() -> fired.add("later"), 20, TimeUnit.SECONDS);
+
+        // When
+        int dropped = timer.stop();
+
+        // Then
+        assertThat(dropped).isEqualTo(2);
+        assertThat(fired).isEmpty();
+        assertThatThrownBy(() -> timer.schedule(() -> { }, 1, TimeUnit.MILLISECONDS))
+            .isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,227 @@
+package com.isa.transaction.service;
+
+import com.isa.transaction.dto.TransactionRequest;
+import com.isa.transaction.dto.TransactionResponse;
+import com.isa.transaction.entity.IdempotencyRecord;
+import com.isa.transaction.exception.TransactionException;
+import com.isa.transaction.repository.IdempotencyRecordRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Prueba unitaria para la deduplicacion por Idempotency-Key
+ *
+ * Esta prueba verifica:
+ * - Que un reintento con la misma clave devuelve la respuesta original sin procesar de nuevo
+ * - Que un duplicado concurrente espera al original en lugar de aplicar el monto otra vez
+ * - Que reutilizar una clave con otra solicitud se rechaza, sin esperar a que termine el original
+ * - Que un duplicado que esperaba a una solicitud rechazada recibe la respuesta guardada si coincide con ella
+ * - Que la respuesta se devuelve aunque falle su registro despues de confirmar la transaccion
+ */
+@DisplayName("Deduplicacion por Idempotency-Key")
+class IdempotencyServiceTest {
+
+    private static final String KEY = "5f1c9a7e-2b4d-4c1e-9f0a-7d3e8b6a1c24";
+
+    private IdempotencyService idempotencyService;
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyRecordRepository = mock(IdempotencyRecordRepository.class);
+        when(idempotencyRecordRepository.findById(anyString())).thenReturn(Optional.empty());
+        meterRegistry = new SimpleMeterRegistry();
+
+        idempotencyService = new IdempotencyService();
+        ReflectionTestUtils.setField(idempotencyService, "idempotencyRecordRepository", idempotencyRecordRepository);
+        ReflectionTestUtils.setField(idempotencyService, "transactionTemplate", new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        ReflectionTestUtils.setField(idempotencyService, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(idempotencyService, "cacheSize", 100);
+        ReflectionTestUtils.setField(idempotencyService, "retentionHours", 24L);
+        ReflectionTestUtils.setField(idempotencyService, "waitTimeoutMs", 5_000L);
+        ReflectionTestUtils.setField(idempotencyService, "pollIntervalMs", 10L);
+        ReflectionTestUtils.setField(idempotencyService, "cleanupIntervalMs", 3_600_000L);
+        idempotencyService.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        idempotencyService.stop();
+    }
+
+    @Test
+    @DisplayName("Debe devolver la respuesta original a un reintento sin procesarlo de nuevo")
+    void shouldReplayOriginalResponseForRetry() {
+        // Given
+        TransactionRequest request = new TransactionRequest("CLIENT001", "ACC-123456", new BigDecimal("100.00"));
+        AtomicInteger processed = new AtomicInteger();
+
+        // When - El cliente reintenta tras un timeout con la misma clave
+        TransactionResponse first = idempotencyService.execute(KEY, request, () -> {
+            processed.incrementAndGet();
+            return new TransactionResponse("txn_1", "COMPLETED", "Transaction processed");
+        });
+        TransactionResponse retry = idempotencyService.execute(KEY, request, () -> {
+            processed.incrementAndGet();
+            return new TransactionResponse("txn_2", "COMPLETED", "Transaction processed");
+        });
+
+        // Then - Solo el primer intento se procesa y la clave se reclama una sola vez
+        assertThat(processed.get()).isEqualTo(1);
+        assertThat(retry.getTransactionId()).isEqualTo(first.getTransactionId());
+        assertThat(retry.getStatus()).isEqualTo("COMPLETED");
+        verify(idempotencyRecordRepository, times(1)).saveAndFlush(any(IdempotencyRecord.class));
+        verify(idempotencyRecordRepository).complete(KEY, "txn_1", "COMPLETED", "Transaction processed");
+        assertThat(meterRegistry.get("idempotency.lookups").tag("result", "memory").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Debe hacer esperar al duplicado concurrente hasta que termine el original")
+    void shouldMakeConcurrentDuplicateWaitForOriginal() throws Exception {
+        // Given - El original queda bloqueado mientras procesa
+        TransactionRequest request = new TransactionRequest("CLIENT001", "ACC-123456", new BigDecimal("-25.50"));
+        CountDownLatch processing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger processed = new AtomicInteger();
+        CompletableFuture<TransactionResponse> original = CompletableFuture.supplyAsync(() ->
+            idempotencyService.execute(KEY, request, () -> {
+                processed.incrementAndGet();
+                processing.countDown();
+                awaitQuietly(release);
+                return new TransactionResponse("txn_1", "COMPLETED", "Transaction processed");
+            }));
+        assertThat(processing.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // When - Llega el duplicado mientras el original sigue en curso
+        CompletableFuture<TransactionResponse> duplicate = CompletableFuture.supplyAsync(() ->
+            idempotencyService.execute(KEY, request, () -> {
+                processed.incrementAndGet();
+                return new TransactionResponse("txn_2", "COMPLETED", "Transaction processed");
+            }));
+        Thread.sleep(50);
+        assertThat(duplicate).isNotDone();
+        release.countDown();
+
+        // Then - Ambos reciben la respuesta del original
+        assertThat(original.get(5, TimeUnit.SECONDS).getTransactionId()).isEqualTo("txn_1");
+        assertThat(duplicate.get(5, TimeUnit.SECONDS).getTransactionId()).isEqualTo("txn_1");
+        assertThat(processed.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Debe rechazar una clave reutilizada con una solicitud diferente")
+    void shouldRejectKeyReusedWithDifferentRequest() {
+        // Given - Otro nodo completo la clave para un monto distinto
+        IdempotencyRecord stored = new IdempotencyRecord(KEY, "0".repeat(64));
+        stored.setTransactionId("txn_1");
+        stored.setResponseStatus("COMPLETED");
+        stored.setCompletedAt(LocalDateTime.now());
+        when(idempotencyRecordRepository.findById(KEY)).thenReturn(Optional.of(stored));
+        TransactionRequest request = new TransactionRequest("CLIENT001", "ACC-123456", new BigDecimal("999.00"));
+
+        // When & Then
+        assertThatThrownBy(() -> idempotencyService.execute(KEY, request,
+                () -> new TransactionResponse("txn_2", "COMPLETED", "Transaction processed")))
+            .isInstanceOf(TransactionException.class)
+            .extracting("errorCode").isEqualTo("IDEMPOTENCY_KEY_MISMATCH");
+        verify(idempotencyRecordRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    @DisplayName("Debe rechazar de inmediato una clave en curso usada con otra solicitud")
+    void shouldRejectMismatchWithoutWaitingForOriginal() {
+        // Given - Otro nodo reclamo la clave para un monto distinto y sigue procesando
+        when(idempotencyRecordRepository.findById(KEY)).thenReturn(Optional.of(new IdempotencyRecord(KEY, "0".repeat(64))));
+        TransactionRequest request = new TransactionRequest("CLIENT001", "ACC-123456", new BigDecimal("999.00"));
+        long start = System.nanoTime();
+
+        // When & Then - Se rechaza sin consultar de nuevo hasta el timeout de espera
+        assertThatThrownBy(() -> idempotencyService.execute(KEY, request,
+                () -> new TransactionResponse("txn_2", "COMPLETED", "Transaction processed")))
+            .isInstanceOf(TransactionException.class)
+            .extracting("errorCode").isEqualTo("IDEMPOTENCY_KEY_MISMATCH");
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(1_000);
+        verify(idempotencyRecordRepository, times(1)).findById(KEY);
+    }
+
+    @Test
+    @DisplayName("Debe responder al duplicado en espera con el registro guardado cuando el original no coincide")
+    void shouldReplayStoredRecordToWaiterOfMismatchedRequest() throws Exception {
+        // Given - Otro nodo completo la clave para la solicitud original
+        TransactionRequest request = new TransactionRequest("CLIENT001", "ACC-123456", new BigDecimal("100.00"));
+        IdempotencyRecord stored = new IdempotencyRecord(KEY, ReflectionTestUtils.invokeMethod(IdempotencyService.class, "hash", request));
+        stored.setTransactionId("txn_1");
+        stored.setResponseStatus("COMPLETED");
+        stored.setResponseMessage("Transaction processed");
+        stored.setCompletedAt(LocalDateTime.now());
+        CountDownLatch lookingUp = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(idempotencyRecordRepository.findById(KEY)).thenAnswer(invocation -> {
+            lookingUp.countDown();
+            awaitQuietly(release);
+            return Optional.of(stored);
+        });
+
+        // When - Una solicitud con otro monto consulta la clave y el reintento original espera detras de ella
+        CompletableFuture<TransactionResponse> mismatched = CompletableFuture.supplyAsync(() ->
+            idempotencyService.execute(KEY, new TransactionRequest("CLIENT001", "ACC-123456", new BigDecimal("999.00")),
+                () -> new TransactionResponse("txn_2", "COMPLETED", "Transaction processed")));
+        assertThat(lookingUp.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<TransactionResponse> retry = CompletableFuture.supplyAsync(() ->
+            idempotencyService.execute(KEY, request, () -> new TransactionResponse("txn_3", "COMPLETED", "Transaction processed")));
+        Thread.sleep(50);
+        release.countDown();
+
+        // Then - Solo la solicitud distinta se rechaza; el reintento recibe la respuesta guardada
+        assertThatThrownBy(() -> mismatched.get(5, TimeUnit.SECONDS))
+            .hasCauseInstanceOf(TransactionException.class)
+            .cause().extracting("errorCode").isEqualTo("IDEMPOTENCY_KEY_MISMATCH");
+        assertThat(retry.get(5, TimeUnit.SECONDS).getTransactionId()).isEqualTo("txn_1");
+        verify(idempotencyRecordRepository, times(1)).findById(KEY);
+    }
+
+    @Test
+    @DisplayName("Debe devolver la respuesta aunque falle su registro y reintentarlo")
+    void shouldReturnResponseWhenRecordingItFails() {
+        // Given - El primer registro de la respuesta falla
+        doThrow(new IllegalStateException("connection reset")).doReturn(1)
+            .when(idempotencyRecordRepository).complete(anyString(), anyString(), anyString(), anyString());
+        TransactionRequest request = new TransactionRequest("CLIENT001", "ACC-123456", new BigDecimal("100.00"));
+
+        // When
+        TransactionResponse response = idempotencyService.execute(KEY, request,
+            () -> new TransactionResponse("txn_1", "COMPLETED", "Transaction processed"));
+
+        // Then - La transaccion aplicada se informa y el registro se reintenta en segundo plano
+        assertThat(response.getTransactionId()).isEqualTo("txn_1");
+        verify(idempotencyRecordRepository, never()).deleteById(anyString());
+        verify(idempotencyRecordRepository, timeout(5_000).times(2)).complete(KEY, "txn_1", "COMPLETED", "Transaction processed");
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
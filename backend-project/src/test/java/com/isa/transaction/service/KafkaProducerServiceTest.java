@@ -0,0 +1,293 @@
+package com.isa.transaction.service;
+
+import com.isa.transaction.dto.TransactionResultEvent;
+import com.isa.transaction.entity.DeadLetterMessage;
+import com.isa.transaction.exception.TransactionException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.UnknownTopicOrPartitionException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Prueba unitaria para el envio por lotes de eventos a Kafka
+ *
+ * Esta prueba verifica:
+ * - Que la ventana de envios en vuelo esta acotada y rechaza al llenarse
+ * - Que los permisos se liberan al confirmar los envios
+ * - Que los eventos se agrupan por particion
+ * - Que las particiones se consultan en segundo plano, nunca con el circuito abierto, y se refrescan tras un error de metadatos
+ * - Que los reintentos esperan un backoff fuera del hilo que reporta el fallo
+ * - Que el circuito abierto desvia los eventos a la cola de mensajes muertos y se recupera con una sonda
+ */
+@DisplayName("Envio por Lotes a Kafka")
+class KafkaProducerServiceTest {
+
+    private static final String TOPIC = "transaction-results";
+
+    private KafkaProducerService kafkaProducerService;
+    private KafkaTemplate<String, Object> kafkaTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private KafkaRetryScheduler retryScheduler;
+    private KafkaCircuitBreaker circuitBreaker;
+    private DeadLetterBatchWriter deadLetterBatchWriter;
+    private DeadLetterReplayService deadLetterReplayService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        kafkaTemplate = mock(KafkaTemplate.class);
+        meterRegistry = new SimpleMeterRegistry();
+        retryScheduler = new KafkaRetryScheduler();
+        ReflectionTestUtils.setField(retryScheduler, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(retryScheduler, "initialBackoffMs", 100L);
+        ReflectionTestUtils.setField(retryScheduler, "maxBackoffMs", 1_000L);
+        ReflectionTestUtils.setField(retryScheduler, "maxTotalDelayMs", 10_000L);
+        ReflectionTestUtils.setField(retryScheduler, "maxPending", 1_000);
+        ReflectionTestUtils.setField(retryScheduler, "tickMs", 5L);
+        ReflectionTestUtils.setField(retryScheduler, "wheelSize", 64);
+        ReflectionTestUtils.setField(retryScheduler, "threads", 1);
+        retryScheduler.start();
+        circuitBreaker = new KafkaCircuitBreaker();
+        ReflectionTestUtils.setField(circuitBreaker, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(circuitBreaker, "enabled", true);
+        ReflectionTestUtils.setField(circuitBreaker, "failureThreshold", 2);
+        ReflectionTestUtils.setField(circuitBreaker, "openDurationMs", 200L);
+        circuitBreaker.init();
+        deadLetterBatchWriter = mock(DeadLetterBatchWriter.class);
+        deadLetterReplayService = mock(DeadLetterReplayService.class);
+        kafkaProducerService = new KafkaProducerService();
+        ReflectionTestUtils.setField(kafkaProducerService, "kafkaTemplate", kafkaTemplate);
+        ReflectionTestUtils.setField(kafkaProducerService, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(kafkaProducerService, "retryScheduler", retryScheduler);
+        ReflectionTestUtils.setField(kafkaProducerService, "circuitBreaker", circuitBreaker);
+        ReflectionTestUtils.setField(kafkaProducerService, "deadLetterBatchWriter", deadLetterBatchWriter);
+        ReflectionTestUtils.setField(kafkaProducerService, "deadLetterReplayService", deadLetterReplayService);
+        TransactionResultEventCodec eventCodec = new TransactionResultEventCodec();
+        ReflectionTestUtils.setField(eventCodec, "objectMapper", Jackson2ObjectMapperBuilder.json().build());
+        ReflectionTestUtils.setField(eventCodec, "eventFormat", "binary");
+        ReflectionTestUtils.setField(kafkaProducerService, "eventCodec", eventCodec);
+        ReflectionTestUtils.setField(kafkaProducerService, "transactionResultsTopic", TOPIC);
+        ReflectionTestUtils.setField(kafkaProducerService, "retryAttempts", 3);
+        ReflectionTestUtils.setField(kafkaProducerService, "maxInFlight", 2);
+        ReflectionTestUtils.setField(kafkaProducerService, "inFlightWaitMs", 50L);
+        ReflectionTestUtils.setField(kafkaProducerService, "partitionRefreshMs", 60_000L);
+        kafkaProducerService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        kafkaProducerService.stop();
+        retryScheduler.stop();
+    }
+
+    @Test
+    @DisplayName("Debe acotar los envios en vuelo y liberar permisos al confirmar")
+    void shouldBoundInFlightSendsAndReleaseOnAck() {
+        // Given - El broker no responde hasta que la prueba complete los envios
+        List<CompletableFuture<SendResult<String, Object>>> pending = new ArrayList<>();
+        when(kafkaTemplate.send(eq(TOPIC), anyString(), any())).thenAnswer(invocation -> {
+            CompletableFuture<SendResult<String, Object>> future = new CompletableFuture<>();
+            pending.add(future);
+            return future;
+        });
+
+        // When - Se envian tres eventos con una ventana de dos
+        CompletableFuture<Void> handled = kafkaProducerService.sendTransactionResults(
+            List.of(event("txn_1"), event("txn_2"), event("txn_3")));
+
+        // Then - Solo dos envios salen mientras el broker no responde
+        assertThat(pending).hasSize(2);
+        assertThat(meterRegistry.get("kafka.producer.in-flight").gauge().value()).isEqualTo(2.0);
+        assertThat(handled).isNotDone();
+
+        // And - Al confirmar, los permisos se liberan y el tercero queda rechazado por saturacion
+        pending.forEach(future -> future.complete(sendResult()));
+        assertThat(meterRegistry.get("kafka.producer.in-flight").gauge().value()).isEqualTo(0.0);
+        assertThatThrownBy(handled::join)
+            .isInstanceOf(CompletionException.class)
+            .cause()
+            .isInstanceOf(TransactionException.class)
+            .extracting("errorCode").isEqualTo("SERVICE_BUSY");
+        assertThat(meterRegistry.get("kafka.producer.send.latency").tag("outcome", "success").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Debe agrupar los eventos por particion conservando el orden dentro de cada una")
+    void shouldGroupEventsByPartition() {
+        // Given - Un topico con tres particiones y un broker que confirma de inmediato
+        ReflectionTestUtils.setField(kafkaProducerService, "maxInFlight", 100);
+        kafkaProducerService.init();
+        when(kafkaTemplate.partitionsFor(TOPIC)).thenReturn(List.of(
+            new PartitionInfo(TOPIC, 0, null, null, null),
+            new PartitionInfo(TOPIC, 1, null, null, null),
+            new PartitionInfo(TOPIC, 2, null, null, null)));
+        kafkaProducerService.refreshPartitionCount(TOPIC);
+        List<String> sentKeys = new ArrayList<>();
+        when(kafkaTemplate.send(eq(TOPIC), anyString(), any())).thenAnswer(invocation -> {
+            sentKeys.add(invocation.getArgument(1));
+            return CompletableFuture.completedFuture(sendResult());
+        });
+        List<TransactionResultEvent> events = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            events.add(event("txn_" + i));
+        }
+
+        // When
+        kafkaProducerService.sendTransactionResults(events).join();
+
+        // Then - Todos los eventos se envian, en a lo sumo tres grupos
+        assertThat(sentKeys).hasSize(30).containsExactlyInAnyOrderElementsOf(
+            events.stream().map(TransactionResultEvent::getTransactionId).toList());
+        long groups = meterRegistry.get("kafka.producer.batch.size").summary().count();
+        assertThat(groups).isBetween(1L, 3L);
+        assertThat(meterRegistry.get("kafka.producer.batch.size").summary().totalAmount()).isEqualTo(30.0);
+    }
+
+    @Test
+    @DisplayName("Debe reintentar tras un backoff y fuera del hilo que reporta el fallo")
+    void shouldRetryAfterBackoffOffTheCallbackThread() {
+        // Given - El primer envio falla y el segundo se confirma
+        List<Long> sentAt = new CopyOnWriteArrayList<>();
+        List<String> sendThreads = new CopyOnWriteArrayList<>();
+        when(kafkaTemplate.send(eq(TOPIC), anyString(), any())).thenAnswer(invocation -> {
+            sentAt.add(System.nanoTime());
+            sendThreads.add(Thread.currentThread().getName());
+            return sentAt.size() == 1
+                ? CompletableFuture.failedFuture(new IllegalStateException("broker unavailable"))
+                : CompletableFuture.completedFuture(sendResult());
+        });
+
+        // When
+        kafkaProducerService.sendTransactionResult(event("txn_retry")).orTimeout(5, TimeUnit.SECONDS).join();
+
+        // Then - El reintento espera al menos la mitad del backoff inicial y corre en el hilo de reintentos
+        assertThat(sentAt).hasSize(2);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(sentAt.get(1) - sentAt.get(0))).isGreaterThanOrEqualTo(50);
+        assertThat(sendThreads.get(1)).startsWith("kafka-retry-");
+        assertThat(meterRegistry.get("kafka.producer.retry.scheduled").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("kafka.producer.retry.pending").gauge().value()).isEqualTo(0.0);
+    }
+
+    @Test
+    @DisplayName("Debe abrir el circuito tras fallos seguidos, desviar eventos sin enviarlos y cerrarse con una sonda exitosa")
+    void shouldSpillWhileOpenAndCloseAfterSuccessfulProbe() throws Exception {
+        // Given - Sin reintentos; el broker falla dos veces y luego se recupera
+        ReflectionTestUtils.setField(kafkaProducerService, "retryAttempts", 1);
+        when(deadLetterBatchWriter.write(any(DeadLetterMessage.class))).thenReturn(CompletableFuture.completedFuture(null));
+        when(kafkaTemplate.send(eq(TOPIC), anyString(), any()))
+            .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker unavailable")))
+            .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker unavailable")))
+            .thenReturn(CompletableFuture.completedFuture(sendResult()));
+
+        // When - Dos fallos abren el circuito
+        kafkaProducerService.sendTransactionResult(event("txn_1")).join();
+        kafkaProducerService.sendTransactionResult(event("txn_2")).join();
+        assertThat(circuitBreaker.getState()).isEqualTo(KafkaCircuitBreaker.State.OPEN);
+
+        // Then - Con el circuito abierto el evento va a la cola de mensajes muertos sin intentar el envio
+        kafkaProducerService.sendTransactionResult(event("txn_3")).join();
+        verify(kafkaTemplate, times(2)).send(eq(TOPIC), anyString(), any());
+        verify(deadLetterBatchWriter, times(3)).write(any(DeadLetterMessage.class));
+        assertThat(meterRegistry.get("kafka.producer.spilled").tag("reason", "breaker-open").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("kafka.breaker.state").gauge().value()).isEqualTo(2.0);
+
+        // And - Pasado el tiempo de apertura una sonda exitosa cierra el circuito y drena la cola
+        Thread.sleep(250);
+        kafkaProducerService.sendTransactionResult(event("txn_4")).join();
+        assertThat(circuitBreaker.getState()).isEqualTo(KafkaCircuitBreaker.State.CLOSED);
+        verify(deadLetterReplayService).startReplay(true);
+    }
+
+    @Test
+    @DisplayName("Debe consultar las particiones fuera del hilo que envia y no hacerlo con el circuito abierto")
+    void shouldLookUpPartitionsInBackgroundAndNotWhileOpen() throws Exception {
+        // Given - La consulta de metadatos queda bloqueada como durante una caida del broker
+        ReflectionTestUtils.setField(kafkaProducerService, "retryAttempts", 1);
+        when(deadLetterBatchWriter.write(any(DeadLetterMessage.class))).thenReturn(CompletableFuture.completedFuture(null));
+        CountDownLatch brokerDown = new CountDownLatch(1);
+        List<String> lookupThreads = new CopyOnWriteArrayList<>();
+        when(kafkaTemplate.partitionsFor(TOPIC)).thenAnswer(invocation -> {
+            lookupThreads.add(Thread.currentThread().getName());
+            brokerDown.await(5, TimeUnit.SECONDS);
+            return List.of();
+        });
+        when(kafkaTemplate.send(eq(TOPIC), anyString(), any()))
+            .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker unavailable")));
+
+        // When - Dos envios fallan y abren el circuito sin esperar a los metadatos
+        kafkaProducerService.sendTransactionResult(event("txn_1")).orTimeout(1, TimeUnit.SECONDS).join();
+        kafkaProducerService.sendTransactionResult(event("txn_2")).orTimeout(1, TimeUnit.SECONDS).join();
+        assertThat(circuitBreaker.getState()).isEqualTo(KafkaCircuitBreaker.State.OPEN);
+        brokerDown.countDown();
+        verify(kafkaTemplate, timeout(1_000).atLeastOnce()).partitionsFor(TOPIC);
+        Thread.sleep(50);
+        clearInvocations(kafkaTemplate);
+
+        // Then - La consulta corrio en el hilo de metadatos y con el circuito abierto no se repite
+        kafkaProducerService.sendTransactionResult(event("txn_3")).join();
+        Thread.sleep(50);
+        assertThat(lookupThreads).isNotEmpty().allMatch("kafka-metadata"::equals);
+        verify(kafkaTemplate, never()).partitionsFor(anyString());
+    }
+
+    @Test
+    @DisplayName("Debe refrescar el numero de particiones tras un error de metadatos")
+    void shouldRefreshPartitionCountAfterMetadataError() throws Exception {
+        // Given - Se conoce un topico con una particion y luego se le agregan dos
+        verify(kafkaTemplate, timeout(1_000)).partitionsFor(TOPIC);
+        ReflectionTestUtils.setField(kafkaProducerService, "retryAttempts", 1);
+        when(deadLetterBatchWriter.write(any(DeadLetterMessage.class))).thenReturn(CompletableFuture.completedFuture(null));
+        when(kafkaTemplate.partitionsFor(TOPIC)).thenReturn(List.of(new PartitionInfo(TOPIC, 0, null, null, null)));
+        kafkaProducerService.refreshPartitionCount(TOPIC);
+        when(kafkaTemplate.partitionsFor(TOPIC)).thenReturn(List.of(
+            new PartitionInfo(TOPIC, 0, null, null, null),
+            new PartitionInfo(TOPIC, 1, null, null, null),
+            new PartitionInfo(TOPIC, 2, null, null, null)));
+        when(kafkaTemplate.send(eq(TOPIC), anyString(), any()))
+            .thenReturn(CompletableFuture.failedFuture(new UnknownTopicOrPartitionException("unknown partition")));
+
+        // When
+        kafkaProducerService.sendTransactionResult(event("txn_1")).join();
+
+        // Then - El error dispara una nueva consulta y el conteo se actualiza
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (!Map.of(TOPIC, 3).equals(ReflectionTestUtils.getField(kafkaProducerService, "partitionCounts"))
+               && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(ReflectionTestUtils.getField(kafkaProducerService, "partitionCounts")).isEqualTo(Map.of(TOPIC, 3));
+    }
+
+    private TransactionResultEvent event(String transactionId) {
+        return TransactionResultEvent.completed(transactionId, 1L, "ACC-123456", BigDecimal.ONE, BigDecimal.TEN);
+    }
+
+    private SendResult<String, Object> sendResult() {
+        return new SendResult<>(new ProducerRecord<>(TOPIC, "key", "value"),
+                                new RecordMetadata(new TopicPartition(TOPIC, 0), 0, 0, 0, 0, 0));
+    }
+}
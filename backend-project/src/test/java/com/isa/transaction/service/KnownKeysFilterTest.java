@@ -0,0 +1,99 @@
+package com.isa.transaction.service;
+
+import com.isa.transaction.repository.BalanceRepository;
+import com.isa.transaction.repository.ClientRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Prueba unitaria para los filtros de Bloom de clientes y cuentas conocidas
+ *
+ * Esta prueba verifica:
+ * - Que una clave confirmada despues de la lectura de una recarga sigue presente tras la recarga
+ * - Que sin app.bloom.skip-balance-lookups las lecturas de saldo no se omiten
+ */
+@DisplayName("Filtro de Claves Conocidas")
+class KnownKeysFilterTest {
+
+    private KnownKeysFilter knownKeysFilter;
+    private ClientRepository clientRepository;
+    private BalanceRepository balanceRepository;
+
+    @BeforeEach
+    void setUp() {
+        clientRepository = mock(ClientRepository.class);
+        balanceRepository = mock(BalanceRepository.class);
+
+        knownKeysFilter = new KnownKeysFilter();
+        ReflectionTestUtils.setField(knownKeysFilter, "clientRepository", clientRepository);
+        ReflectionTestUtils.setField(knownKeysFilter, "balanceRepository", balanceRepository);
+        ReflectionTestUtils.setField(knownKeysFilter, "transactionTemplate", new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        ReflectionTestUtils.setField(knownKeysFilter, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(knownKeysFilter, "expectedKeys", 1_000L);
+        ReflectionTestUtils.setField(knownKeysFilter, "falsePositiveRate", 0.01);
+        ReflectionTestUtils.setField(knownKeysFilter, "maxMemoryMb", 1L);
+        // Sin carga en segundo plano; las recargas se invocan directamente
+        ReflectionTestUtils.setField(knownKeysFilter, "enabled", false);
+        knownKeysFilter.start();
+
+        when(clientRepository.streamAllClientIdentifications()).thenAnswer(invocation -> Stream.of("11111111"));
+        when(balanceRepository.streamAllAccountKeys()).thenAnswer(invocation -> Stream.<Object[]>of(new Object[]{"11111111", "ACC-111111"}));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("Debe conservar las claves confirmadas despues de la lectura de la recarga")
+    void shouldKeepKeysCommittedDuringReload() {
+        // Given - Filtros cargados y una transaccion que inserta un cliente y una cuenta nuevos
+        knownKeysFilter.reload();
+        TransactionSynchronizationManager.initSynchronization();
+        knownKeysFilter.addClient("22222222");
+        knownKeysFilter.addAccount("22222222", "ACC-222222");
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+
+        // When - La transaccion confirma mientras la recarga ya leyo la base sin esas claves
+        when(balanceRepository.streamAllAccountKeys()).thenAnswer(invocation -> {
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+            return Stream.<Object[]>of(new Object[]{"11111111", "ACC-111111"});
+        });
+        knownKeysFilter.reload();
+
+        // Then - Las claves nuevas siguen en los filtros publicados
+        assertThat(knownKeysFilter.isUnknownClient("22222222")).isFalse();
+        assertThat(knownKeysFilter.isUnknownAccount("22222222", "ACC-222222")).isFalse();
+        assertThat(knownKeysFilter.isUnknownClient("11111111")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Debe consultar la base para las lecturas de saldo cuando no se omiten")
+    void shouldNotSkipBalanceLookupsUnlessEnabled() {
+        // Given
+        ReflectionTestUtils.setField(knownKeysFilter, "skipBalanceLookups", false);
+        knownKeysFilter.reload();
+
+        // When / Then - La cuenta no existe en el filtro pero la lectura no se omite
+        assertThat(knownKeysFilter.isUnknownAccount("33333333", "ACC-333333")).isTrue();
+        assertThat(knownKeysFilter.isUnknownAccountForRead("33333333", "ACC-333333")).isFalse();
+    }
+}
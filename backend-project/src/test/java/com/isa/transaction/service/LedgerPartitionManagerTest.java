@@ -0,0 +1,73 @@
+package com.isa.transaction.service;
+
+import com.isa.transaction.dto.LedgerPartition;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Prueba unitaria para las particiones mensuales del libro mayor
+ *
+ * Esta prueba verifica:
+ * - Que las particiones se nombran por mes y sus limites cubren el mes completo en UTC
+ * - Que los nombres del catalogo se interpretan y se ignoran las particiones que no son mensuales
+ * - Que la retencion selecciona solo los meses anteriores a la ventana
+ */
+@DisplayName("Particiones del Libro Mayor")
+class LedgerPartitionManagerTest {
+
+    @Test
+    @DisplayName("Debe nombrar la particion por mes con limites del mes completo")
+    void shouldNameMonthlyPartitionsWithMonthBounds() {
+        // Given
+        YearMonth december = YearMonth.of(2026, 12);
+
+        // When
+        String name = LedgerPartitionManager.partitionName(december);
+        String ddl = LedgerPartitionManager.createPartitionSql(december);
+
+        // Then - El limite superior es el primer dia del mes siguiente, tambien al cambiar de anio
+        assertThat(name).isEqualTo("BALANCE_TRANSACTION_P202612");
+        assertThat(ddl).isEqualTo("CREATE TABLE IF NOT EXISTS TESTHTC.BALANCE_TRANSACTION_P202612 " +
+                                  "PARTITION OF TESTHTC.BALANCE_TRANSACTION " +
+                                  "FOR VALUES FROM ('2026-12-01 00:00:00+00') TO ('2027-01-01 00:00:00+00')");
+    }
+
+    @Test
+    @DisplayName("Debe interpretar los nombres de particion del catalogo")
+    void shouldParsePartitionNames() {
+        // When
+        LedgerPartition february = LedgerPartitionManager.parsePartition("balance_transaction_p202402");
+
+        // Then - PostgreSQL guarda los nombres en minusculas; la particion DEFAULT no es mensual
+        assertThat(february.getName()).isEqualTo("balance_transaction_p202402");
+        assertThat(february.getFrom()).isEqualTo(LocalDate.of(2024, 2, 1));
+        assertThat(february.getTo()).isEqualTo(LocalDate.of(2024, 3, 1));
+        assertThat(LedgerPartitionManager.parsePartition("balance_transaction_default")).isNull();
+        assertThat(LedgerPartitionManager.parsePartition("balance_transaction_p2024")).isNull();
+    }
+
+    @Test
+    @DisplayName("Debe seleccionar solo las particiones anteriores a la ventana de retencion")
+    void shouldSelectPartitionsBeforeRetentionWindow() {
+        // Given - Particiones de julio 2025 a diciembre 2026, con octubre 2026 como mes actual
+        List<LedgerPartition> partitions = YearMonth.of(2025, 7).atDay(1).datesUntil(LocalDate.of(2027, 1, 1))
+                .filter(day -> day.getDayOfMonth() == 1)
+                .map(day -> LedgerPartitionManager.parsePartition(
+                        LedgerPartitionManager.partitionName(YearMonth.from(day)).toLowerCase()))
+                .toList();
+
+        // When - Se conservan el mes actual y los 12 anteriores
+        List<LedgerPartition> expired = LedgerPartitionManager.expiredPartitions(partitions, YearMonth.of(2026, 10), 12);
+
+        // Then
+        assertThat(expired).extracting(LedgerPartition::getName)
+            .containsExactly("balance_transaction_p202507", "balance_transaction_p202508", "balance_transaction_p202509");
+        assertThat(LedgerPartitionManager.expiredPartitions(partitions, YearMonth.of(2026, 10), 16)).isEmpty();
+    }
+}
@@ -0,0 +1,163 @@
+package com.isa.transaction.service;
+
+import com.isa.transaction.dto.LedgerEntry;
+import com.isa.transaction.dto.LedgerReconciliationIssue;
+import com.isa.transaction.dto.LedgerReconciliationProgress;
+import com.isa.transaction.repository.BalanceRepository;
+import com.isa.transaction.repository.BalanceTransactionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Prueba unitaria para la conciliacion paralela del libro mayor
+ *
+ * Esta prueba verifica:
+ * - Que los movimientos de cada cuenta se leen por paginas y se encadenan
+ * - Que se detectan encadenamientos rotos, errores aritmeticos y saldos distintos al libro mayor
+ * - Que cada incidencia se escribe en el reporte NDJSON
+ */
+@DisplayName("Conciliacion del Libro Mayor")
+class LedgerReconciliationServiceTest {
+
+    @TempDir
+    Path reportDir;
+
+    private LedgerReconciliationService reconciliationService;
+    private BalanceRepository balanceRepository;
+    private BalanceTransactionRepository balanceTransactionRepository;
+
+    @BeforeEach
+    void setUp() {
+        balanceRepository = mock(BalanceRepository.class);
+        balanceTransactionRepository = mock(BalanceTransactionRepository.class);
+
+        reconciliationService = new LedgerReconciliationService();
+        ReflectionTestUtils.setField(reconciliationService, "balanceRepository", balanceRepository);
+        ReflectionTestUtils.setField(reconciliationService, "balanceTransactionRepository", balanceTransactionRepository);
+        ReflectionTestUtils.setField(reconciliationService, "transactionTemplate", new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        ReflectionTestUtils.setField(reconciliationService, "objectMapper", Jackson2ObjectMapperBuilder.json().build());
+        ReflectionTestUtils.setField(reconciliationService, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(reconciliationService, "parallelism", 2);
+        ReflectionTestUtils.setField(reconciliationService, "chunkSize", 2);
+        ReflectionTestUtils.setField(reconciliationService, "pageSize", 2);
+        ReflectionTestUtils.setField(reconciliationService, "rowsPerSecond", 1_000_000.0);
+        ReflectionTestUtils.setField(reconciliationService, "reportDir", reportDir.toString());
+        ReflectionTestUtils.setField(reconciliationService, "maxListedIssues", 100);
+        reconciliationService.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        reconciliationService.stop();
+    }
+
+    @Test
+    @DisplayName("Debe detectar encadenamientos rotos, errores aritmeticos y saldos distintos")
+    void shouldReportChainBreaksArithmeticErrorsAndMismatches() throws Exception {
+        // Given - ACC001 cuadra; ACC002 tiene un movimiento que no parte del anterior y un saldo
+        // distinto; ACC003 tiene un movimiento mal sumado y ACC004 un saldo sin movimientos
+        when(balanceRepository.findMinId()).thenReturn(70L);
+        when(balanceRepository.findMaxId()).thenReturn(73L);
+        List<Object[]> accounts = List.of(
+                new Object[]{70L, 7L, "12345678", "ACC001", new BigDecimal("150.00"), 2L},
+                new Object[]{71L, 7L, "12345678", "ACC002", new BigDecimal("80.00"), 3L},
+                new Object[]{72L, 8L, "87654321", "ACC003", new BigDecimal("12.00"), 1L},
+                new Object[]{73L, 8L, "87654321", "ACC004", new BigDecimal("5.00"), 1L});
+        when(balanceRepository.findAccountsInRange(anyLong(), anyLong(), any())).thenAnswer(invocation -> {
+            long afterId = invocation.getArgument(0);
+            long toId = invocation.getArgument(1);
+            Pageable pageable = invocation.getArgument(2);
+            return accounts.stream()
+                .filter(row -> (Long) row[0] > afterId && (Long) row[0] <= toId)
+                .limit(pageable.getPageSize())
+                .toList();
+        });
+        List<LedgerEntry> ledger = List.of(
+                entry(1L, 7L, "ACC001", "100.00", "0.00", "100.00"),
+                entry(2L, 7L, "ACC002", "100.00", "0.00", "100.00"),
+                entry(3L, 7L, "ACC001", "50.00", "100.00", "150.00"),
+                entry(4L, 7L, "ACC002", "-30.00", "90.00", "60.00"),
+                entry(5L, 8L, "ACC003", "10.00", "0.00", "12.00"));
+        when(balanceTransactionRepository.findLedgerPage(anyLong(), anyString(), anyLong(), any())).thenAnswer(invocation -> {
+            Long clientId = invocation.getArgument(0);
+            String accountNumber = invocation.getArgument(1);
+            long afterId = invocation.getArgument(2);
+            Pageable pageable = invocation.getArgument(3);
+            return ledger.stream()
+                .filter(entry -> entry.getClientId().equals(clientId) && entry.getAccountNumber().equals(accountNumber)
+                                 && entry.getId() > afterId)
+                .limit(pageable.getPageSize())
+                .toList();
+        });
+
+        // When
+        reconciliationService.run();
+
+        // Then
+        LedgerReconciliationProgress progress = reconciliationService.getProgress();
+        assertThat(progress.getState()).isEqualTo("COMPLETED");
+        assertThat(progress.getAccounts()).isEqualTo(4);
+        assertThat(progress.getLedgerRows()).isEqualTo(5);
+        assertThat(progress.getChainBreaks()).isEqualTo(1);
+        assertThat(progress.getArithmeticErrors()).isEqualTo(1);
+        assertThat(progress.getMismatches()).isEqualTo(3);
+        assertThat(progress.getIssues())
+            .extracting(LedgerReconciliationIssue::getType, LedgerReconciliationIssue::getAccountNumber,
+                        LedgerReconciliationIssue::getTransactionRowId)
+            .containsExactlyInAnyOrder(
+                tuple("CHAIN_BREAK", "ACC002", 4L),
+                tuple("MISMATCH", "ACC002", null),
+                tuple("ARITHMETIC", "ACC003", 5L),
+                tuple("MISMATCH", "ACC003", null),
+                tuple("MISMATCH", "ACC004", null));
+
+        // Then - El reporte tiene una linea por incidencia
+        List<String> lines = Files.readAllLines(Paths.get(progress.getReportFile()));
+        assertThat(lines).hasSize(5);
+        assertThat(lines).anySatisfy(line -> assertThat(line).contains("\"CHAIN_BREAK\"").contains("ACC002"));
+
+        // Then - Cada cuenta lee solo sus propios movimientos
+        verify(balanceTransactionRepository, never()).findLedgerPage(eq(7L), eq("ACC003"), anyLong(), any());
+        verify(balanceTransactionRepository, times(2)).findLedgerPage(eq(7L), eq("ACC001"), anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("Debe terminar sin incidencias cuando no hay saldos")
+    void shouldCompleteWithoutBalances() throws Exception {
+        // Given - Sin saldos
+        when(balanceRepository.findMinId()).thenReturn(null);
+
+        // When
+        reconciliationService.run();
+
+        // Then
+        LedgerReconciliationProgress progress = reconciliationService.getProgress();
+        assertThat(progress.getState()).isEqualTo("COMPLETED");
+        assertThat(progress.getAccounts()).isZero();
+        assertThat(Files.readAllLines(Paths.get(progress.getReportFile()))).isEmpty();
+        verify(balanceTransactionRepository, never()).findLedgerPage(any(), any(), anyLong(), any());
+    }
+
+    private static LedgerEntry entry(Long id, Long clientId, String account, String amount, String before, String after) {
+        return new LedgerEntry(id, clientId, account, new BigDecimal(amount), new BigDecimal(before), new BigDecimal(after));
+    }
+}
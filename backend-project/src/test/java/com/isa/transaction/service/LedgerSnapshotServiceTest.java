@@ -0,0 +1,179 @@
+package com.isa.transaction.service;
+
+import com.isa.transaction.dto.BalanceRecomputation;
+import com.isa.transaction.dto.LedgerEntry;
+import com.isa.transaction.dto.LedgerSnapshotProgress;
+import com.isa.transaction.entity.AccountSnapshot;
+import com.isa.transaction.entity.Balance;
+import com.isa.transaction.entity.Client;
+import com.isa.transaction.repository.AccountSnapshotRepository;
+import com.isa.transaction.repository.BalanceRepository;
+import com.isa.transaction.repository.BalanceTransactionRepository;
+import com.isa.transaction.repository.ClientRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Prueba unitaria para las instantaneas de saldo y la reconstruccion desde el libro mayor
+ *
+ * Esta prueba verifica:
+ * - Que un saldo se recalcula desde su ultima instantanea y los movimientos posteriores
+ * - Que un encadenamiento roto de movimientos se detecta y se recalcula con todo el historial
+ * - Que una reconstruccion con reparacion corrige los saldos distintos al libro mayor
+ */
+@DisplayName("Instantaneas de Saldo y Reconstruccion")
+class LedgerSnapshotServiceTest {
+
+    private LedgerSnapshotService snapshotService;
+    private BalanceRepository balanceRepository;
+    private BalanceTransactionRepository balanceTransactionRepository;
+    private AccountSnapshotRepository accountSnapshotRepository;
+    private ClientRepository clientRepository;
+    private BalanceCache balanceCache;
+
+    @BeforeEach
+    void setUp() {
+        balanceRepository = mock(BalanceRepository.class);
+        balanceTransactionRepository = mock(BalanceTransactionRepository.class);
+        accountSnapshotRepository = mock(AccountSnapshotRepository.class);
+        clientRepository = mock(ClientRepository.class);
+        balanceCache = mock(BalanceCache.class);
+
+        snapshotService = new LedgerSnapshotService();
+        ReflectionTestUtils.setField(snapshotService, "balanceRepository", balanceRepository);
+        ReflectionTestUtils.setField(snapshotService, "balanceTransactionRepository", balanceTransactionRepository);
+        ReflectionTestUtils.setField(snapshotService, "accountSnapshotRepository", accountSnapshotRepository);
+        ReflectionTestUtils.setField(snapshotService, "clientRepository", clientRepository);
+        ReflectionTestUtils.setField(snapshotService, "balanceCache", balanceCache);
+        ReflectionTestUtils.setField(snapshotService, "transactionTemplate", new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        ReflectionTestUtils.setField(snapshotService, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(snapshotService, "intervalMs", 0L);
+        ReflectionTestUtils.setField(snapshotService, "parallelism", 2);
+        ReflectionTestUtils.setField(snapshotService, "chunkSize", 100);
+        snapshotService.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        snapshotService.stop();
+    }
+
+    @Test
+    @DisplayName("Debe recalcular el saldo desde la instantanea y los movimientos posteriores")
+    void shouldRecomputeFromSnapshotAndLedgerTail() {
+        // Given - Instantanea de 1000 hasta el movimiento 100, y dos movimientos despues
+        givenAccount(7L, 70L, new BigDecimal("1150.00"));
+        when(accountSnapshotRepository.findById(70L)).thenReturn(Optional.of(
+            new AccountSnapshot(70L, 7L, "ACC001", new BigDecimal("1000.00"), 100L)));
+        when(balanceTransactionRepository.findLedgerTail(7L, "ACC001", 100L)).thenReturn(List.of(
+            entry(101L, "200.00", "1000.00", "1200.00"),
+            entry(102L, "-50.00", "1200.00", "1150.00")));
+
+        // When
+        BalanceRecomputation result = snapshotService.recompute("12345678", "ACC001");
+
+        // Then - Solo se leen los movimientos posteriores a la instantanea
+        assertThat(result.getRecomputedBalance()).isEqualByComparingTo("1150.00");
+        assertThat(result.getSnapshotTransactionId()).isEqualTo(100L);
+        assertThat(result.getLastTransactionId()).isEqualTo(102L);
+        assertThat(result.getReplayedTransactions()).isEqualTo(2);
+        assertThat(result.isChainIntact()).isTrue();
+        assertThat(result.isConsistent()).isTrue();
+        verify(balanceTransactionRepository, never()).summarizeLedgers(any());
+    }
+
+    @Test
+    @DisplayName("Debe recalcular con todo el historial cuando los movimientos no encadenan")
+    void shouldFallBackToWholeHistoryWhenChainBreaks() {
+        // Given - El movimiento 101 no parte del saldo de la instantanea (falta un movimiento anterior)
+        givenAccount(7L, 70L, new BigDecimal("1150.00"));
+        when(accountSnapshotRepository.findById(70L)).thenReturn(Optional.of(
+            new AccountSnapshot(70L, 7L, "ACC001", new BigDecimal("1000.00"), 100L)));
+        when(balanceTransactionRepository.findLedgerTail(7L, "ACC001", 100L)).thenReturn(List.of(
+            entry(101L, "200.00", "950.00", "1150.00")));
+        when(balanceTransactionRepository.summarizeLedgers(any())).thenReturn(List.<Object[]>of(
+            new Object[]{7L, "ACC001", 1L, 101L, new BigDecimal("1150.00"), 12L}));
+        when(balanceTransactionRepository.findBalancesBefore(List.of(1L))).thenReturn(List.<Object[]>of(
+            new Object[]{1L, BigDecimal.ZERO}));
+
+        // When
+        BalanceRecomputation result = snapshotService.recompute("12345678", "ACC001");
+
+        // Then
+        assertThat(result.isChainIntact()).isFalse();
+        assertThat(result.getRecomputedBalance()).isEqualByComparingTo("1150.00");
+        assertThat(result.isConsistent()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Debe crear instantaneas y reparar los saldos distintos al libro mayor")
+    void shouldSnapshotAndRepairBalancesInParallelRun() {
+        // Given - Dos cuentas sin instantanea; la segunda tiene un saldo que no coincide con su historial
+        when(balanceRepository.findMinId()).thenReturn(70L);
+        when(balanceRepository.findMaxId()).thenReturn(71L);
+        when(balanceRepository.findAccountsInRange(anyLong(), anyLong(), any())).thenAnswer(invocation -> {
+            long afterId = invocation.getArgument(0);
+            long toId = invocation.getArgument(1);
+            return List.<Object[]>of(
+                    new Object[]{70L, 7L, "12345678", "ACC001", new BigDecimal("300.00"), 4L},
+                    new Object[]{71L, 7L, "12345678", "ACC002", new BigDecimal("999.00"), 9L}).stream()
+                .filter(row -> (Long) row[0] > afterId && (Long) row[0] <= toId)
+                .toList();
+        });
+        when(accountSnapshotRepository.findAllById(any())).thenReturn(List.of());
+        when(balanceTransactionRepository.summarizeLedgers(any())).thenReturn(List.<Object[]>of(
+            new Object[]{7L, "ACC001", 1L, 5L, new BigDecimal("300.00"), 3L},
+            new Object[]{7L, "ACC002", 2L, 6L, new BigDecimal("-100.00"), 2L}));
+        when(balanceTransactionRepository.findBalancesBefore(any())).thenReturn(List.<Object[]>of(
+            new Object[]{1L, BigDecimal.ZERO}, new Object[]{2L, new BigDecimal("600.00")}));
+        when(balanceRepository.restoreBalance(71L, 9L, new BigDecimal("500.00"))).thenReturn(1);
+
+        // When
+        snapshotService.run(true);
+
+        // Then
+        LedgerSnapshotProgress progress = snapshotService.getProgress();
+        assertThat(progress.getState()).isEqualTo("COMPLETED");
+        assertThat(progress.getAccounts()).isEqualTo(2);
+        assertThat(progress.getMismatches()).isEqualTo(1);
+        assertThat(progress.getRepaired()).isEqualTo(1);
+        assertThat(progress.getSnapshotsWritten()).isEqualTo(2);
+        verify(balanceRepository).restoreBalance(71L, 9L, new BigDecimal("500.00"));
+        verify(balanceRepository, never()).restoreBalance(eq(70L), anyLong(), any());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<AccountSnapshot>> saved = ArgumentCaptor.forClass(List.class);
+        verify(accountSnapshotRepository, atLeastOnce()).saveAll(saved.capture());
+        assertThat(saved.getAllValues().stream().flatMap(List::stream))
+            .extracting(AccountSnapshot::getBalanceId, AccountSnapshot::getLastTransactionId)
+            .containsExactlyInAnyOrder(tuple(70L, 5L), tuple(71L, 6L));
+    }
+
+    private void givenAccount(Long clientId, Long balanceId, BigDecimal currentBalance) {
+        Client client = new Client();
+        client.setId(clientId);
+        Balance balance = new Balance("ACC001", currentBalance, client);
+        balance.setId(balanceId);
+        when(clientRepository.findByClientIdentification("12345678")).thenReturn(Optional.of(client));
+        when(balanceRepository.findByClientIdAndAccountNumber(clientId, "ACC001")).thenReturn(Optional.of(balance));
+    }
+
+    private static LedgerEntry entry(Long id, String amount, String before, String after) {
+        return new LedgerEntry(id, 7L, "ACC001", new BigDecimal(amount), new BigDecimal(before), new BigDecimal(after));
+    }
+}
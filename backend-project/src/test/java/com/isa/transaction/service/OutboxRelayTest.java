@@ -0,0 +1,151 @@
+package com.isa.transaction.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.isa.transaction.dto.TransactionResultEvent;
+import com.isa.transaction.entity.DeadLetterMessage;
+import com.isa.transaction.entity.OutboxEvent;
+import com.isa.transaction.repository.DeadLetterMessageRepository;
+import com.isa.transaction.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Prueba unitaria para el relay del outbox transaccional
+ *
+ * Esta prueba verifica:
+ * - Que los eventos de un lote se reservan, se envian sin esperar uno a uno y se borran juntos
+ * - Que si algun envio falla solo se borran los entregados y los fallidos se liberan para reintentarlos
+ * - Que un evento ilegible se mueve a la cola de mensajes muertos sin bloquear el resto
+ */
+@DisplayName("Relay del Outbox Transaccional")
+class OutboxRelayTest {
+
+    private OutboxRelay outboxRelay;
+    private OutboxEventRepository outboxEventRepository;
+    private DeadLetterMessageRepository deadLetterMessageRepository;
+    private KafkaProducerService kafkaProducerService;
+    private SimpleMeterRegistry meterRegistry;
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        outboxEventRepository = mock(OutboxEventRepository.class);
+        deadLetterMessageRepository = mock(DeadLetterMessageRepository.class);
+        kafkaProducerService = mock(KafkaProducerService.class);
+        meterRegistry = new SimpleMeterRegistry();
+        // Misma configuracion que el ObjectMapper de Spring Boot
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        outboxRelay = new OutboxRelay();
+        ReflectionTestUtils.setField(outboxRelay, "outboxEventRepository", outboxEventRepository);
+        ReflectionTestUtils.setField(outboxRelay, "deadLetterMessageRepository", deadLetterMessageRepository);
+        ReflectionTestUtils.setField(outboxRelay, "kafkaProducerService", kafkaProducerService);
+        ReflectionTestUtils.setField(outboxRelay, "transactionTemplate", new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        ReflectionTestUtils.setField(outboxRelay, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(outboxRelay, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(outboxRelay, "enabled", true);
+        ReflectionTestUtils.setField(outboxRelay, "batchSize", 100);
+        ReflectionTestUtils.setField(outboxRelay, "pollIntervalMs", 60_000L);
+        ReflectionTestUtils.setField(outboxRelay, "sendTimeoutMs", 5_000L);
+        ReflectionTestUtils.setField(outboxRelay, "leaseMs", 10_000L);
+        outboxRelay.start();
+    }
+
+    @Test
+    @DisplayName("Debe enviar todos los eventos del lote y borrarlos con una sola sentencia")
+    void shouldSendBatchAndDeleteItInBulk() throws Exception {
+        // Given - Tres eventos pendientes en el outbox
+        List<OutboxEvent> batch = new ArrayList<>();
+        for (long id = 1; id <= 3; id++) {
+            batch.add(outboxEvent(id, TransactionResultEvent.completed("txn_" + id, 1L, "ACC-123456", BigDecimal.ONE, BigDecimal.TEN)));
+        }
+        when(outboxEventRepository.findNextBatchForUpdate(any(), any())).thenReturn(batch);
+        when(kafkaProducerService.sendEachTransactionResult(anyList())).thenAnswer(invocation -> handedOff(invocation.getArgument(0)));
+
+        // When
+        int relayed = outboxRelay.relayBatch();
+
+        // Then - El lote se reserva antes de enviarlo y se borra completo despues
+        assertThat(relayed).isEqualTo(3);
+        verify(kafkaProducerService).sendEachTransactionResult(argThat(events -> events.size() == 3));
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<Long>> idsCaptor = ArgumentCaptor.forClass(Collection.class);
+        InOrder inOrder = inOrder(outboxEventRepository, kafkaProducerService);
+        inOrder.verify(outboxEventRepository).claim(eq(List.of(1L, 2L, 3L)), notNull());
+        inOrder.verify(kafkaProducerService).sendEachTransactionResult(anyList());
+        inOrder.verify(outboxEventRepository).deleteByIdIn(idsCaptor.capture());
+        assertThat(idsCaptor.getValue()).containsExactly(1L, 2L, 3L);
+        assertThat(meterRegistry.get("outbox.relay.published").counter().count()).isEqualTo(3.0);
+        assertThat(meterRegistry.get("outbox.relay.batch.size").summary().max()).isEqualTo(3.0);
+    }
+
+    @Test
+    @DisplayName("Debe borrar solo los eventos entregados y liberar los que fallaron")
+    void shouldDeleteOnlyHandedOffEventsWhenSendFails() throws Exception {
+        // Given - El segundo envio del lote falla sin llegar a la cola de mensajes muertos
+        when(outboxEventRepository.findNextBatchForUpdate(any(), any())).thenReturn(List.of(
+            outboxEvent(1L, TransactionResultEvent.completed("txn_1", 1L, "ACC-123456", BigDecimal.ONE, BigDecimal.TEN)),
+            outboxEvent(2L, TransactionResultEvent.completed("txn_2", 1L, "ACC-123456", BigDecimal.ONE, BigDecimal.TEN))));
+        when(kafkaProducerService.sendEachTransactionResult(anyList())).thenReturn(List.of(
+            CompletableFuture.completedFuture(null),
+            CompletableFuture.failedFuture(new IllegalStateException("broker unavailable"))));
+
+        // When
+        outboxRelay.drain();
+
+        // Then - El evento entregado no se vuelve a enviar y el fallido queda libre para el siguiente ciclo
+        verify(outboxEventRepository).deleteByIdIn(List.of(1L));
+        verify(outboxEventRepository).claim(List.of(2L), null);
+        assertThat(meterRegistry.get("outbox.relay.published").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Debe mover un evento ilegible a la cola de mensajes muertos y continuar con el lote")
+    void shouldMoveUnreadableEventToDeadLetterQueue() throws Exception {
+        // Given
+        OutboxEvent unreadable = new OutboxEvent("transaction-results", "txn_bad", "{not json");
+        unreadable.setId(1L);
+        when(outboxEventRepository.findNextBatchForUpdate(any(), any())).thenReturn(List.of(unreadable,
+            outboxEvent(2L, TransactionResultEvent.completed("txn_2", 1L, "ACC-123456", BigDecimal.ONE, BigDecimal.TEN))));
+        when(kafkaProducerService.sendEachTransactionResult(anyList())).thenAnswer(invocation -> handedOff(invocation.getArgument(0)));
+
+        // When
+        int relayed = outboxRelay.relayBatch();
+
+        // Then - El ilegible se borra al reservar el lote y el resto despues de enviarlo
+        assertThat(relayed).isEqualTo(2);
+        verify(deadLetterMessageRepository).save(any(DeadLetterMessage.class));
+        verify(kafkaProducerService).sendEachTransactionResult(argThat(events -> events.size() == 1));
+        verify(outboxEventRepository).deleteByIdIn(List.of(1L));
+        verify(outboxEventRepository).claim(eq(List.of(2L)), notNull());
+        verify(outboxEventRepository).deleteByIdIn(List.of(2L));
+    }
+
+    private static List<CompletableFuture<Void>> handedOff(List<TransactionResultEvent> events) {
+        return events.stream().map(event -> CompletableFuture.<Void>completedFuture(null)).toList();
+    }
+
+    private OutboxEvent outboxEvent(Long id, TransactionResultEvent event) throws Exception {
+        OutboxEvent outboxEvent = new OutboxEvent("transaction-results", event.getTransactionId(), objectMapper.writeValueAsString(event));
+        outboxEvent.setId(id);
+        return outboxEvent;
+    }
+}
@@ -0,0 +1,66 @@
+package com.isa.transaction.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Prueba unitaria para el filtro de Bloom escalable
+ *
+ * Esta prueba verifica:
+ * - Que nunca hay falsos negativos, aun despues de crecer varias veces
+ * - Que la tasa de falsos positivos se mantiene bajo la configurada al crecer
+ * - Que al llegar al limite de memoria todas las claves se reportan como posibles
+ */
+@DisplayName("Filtro de Bloom Escalable")
+class ScalableBloomFilterTest {
+
+    @Test
+    @DisplayName("Debe mantener la tasa de falsos positivos configurada al crecer")
+    void shouldKeepFalsePositiveRateWhileGrowing() {
+        // Given - Capacidad inicial de 1000 claves y 1% de falsos positivos
+        ScalableBloomFilter filter = new ScalableBloomFilter(1_000, 0.01, 64L << 20);
+
+        // When - Se agregan 50 veces mas claves que la capacidad inicial
+        for (int i = 0; i < 50_000; i++) {
+            assertThat(filter.add(FingerprintIdMap.fingerprint("CLIENT-" + i))).isTrue();
+        }
+
+        // Then - Todas las claves agregadas se reconocen
+        for (int i = 0; i < 50_000; i++) {
+            assertThat(filter.mightContain(FingerprintIdMap.fingerprint("CLIENT-" + i))).isTrue();
+        }
+
+        // And - Las claves nunca agregadas dan pocos falsos positivos
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain(FingerprintIdMap.fingerprint("OTHER-" + i))) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives / 100_000.0).isLessThan(0.01);
+        assertThat(filter.estimatedFalsePositiveRate()).isLessThan(0.01);
+        assertThat(filter.insertions()).isEqualTo(50_000);
+    }
+
+    @Test
+    @DisplayName("Debe reportar todas las claves como posibles al llegar al limite de memoria")
+    void shouldReportEveryKeyAsPossibleWhenSaturated() {
+        // Given - Memoria para una sola etapa
+        ScalableBloomFilter filter = new ScalableBloomFilter(1_000, 0.01, 2_048);
+        long firstStageBytes = filter.memoryBytes();
+
+        // When - Se supera la capacidad de la primera etapa
+        boolean allAdded = true;
+        for (int i = 0; i < 2_000; i++) {
+            allAdded &= filter.add(FingerprintIdMap.fingerprint("ACC-" + i));
+        }
+
+        // Then
+        assertThat(allAdded).isFalse();
+        assertThat(filter.isSaturated()).isTrue();
+        assertThat(filter.memoryBytes()).isEqualTo(firstStageBytes).isLessThanOrEqualTo(2_048);
+        assertThat(filter.mightContain(FingerprintIdMap.fingerprint("NEVER-ADDED"))).isTrue();
+    }
+}
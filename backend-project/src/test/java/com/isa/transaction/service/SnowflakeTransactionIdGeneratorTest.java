@@ -0,0 +1,98 @@
+package com.isa.transaction.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Prueba unitaria para el generador de IDs de transaccion ordenados por tiempo
+ *
+ * Esta prueba verifica:
+ * - El formato del ID (prefijo y longitud fija)
+ * - Que los IDs generados estan ordenados como texto
+ * - Que no hay colisiones entre hilos ni entre nodos
+ * - Que solo un ID de nodo configurado se considera libre de colisiones
+ */
+@DisplayName("Generador de IDs de Transaccion Ordenados")
+class SnowflakeTransactionIdGeneratorTest {
+
+    @Test
+    @DisplayName("Debe generar IDs con prefijo txn_ y longitud fija")
+    void shouldGenerateFixedWidthIdsWithPrefix() {
+        SnowflakeTransactionIdGenerator generator = new SnowflakeTransactionIdGenerator(7);
+
+        String id = generator.nextId();
+
+        assertThat(id).startsWith("txn_").hasSize(17);
+        assertThat(id.substring(4)).matches("[0-9A-HJKMNP-TV-Z]{13}");
+    }
+
+    @Test
+    @DisplayName("Debe generar IDs crecientes en orden lexicografico")
+    void shouldGenerateLexicographicallyIncreasingIds() {
+        SnowflakeTransactionIdGenerator generator = new SnowflakeTransactionIdGenerator(1);
+
+        // Mas de 4096 IDs fuerza el desborde de la secuencia dentro de un mismo milisegundo
+        String previous = generator.nextId();
+        for (int i = 0; i < 20_000; i++) {
+            String next = generator.nextId();
+            assertThat(next).isGreaterThan(previous);
+            previous = next;
+        }
+    }
+
+    @Test
+    @DisplayName("No debe generar IDs duplicados entre hilos concurrentes")
+    void shouldNotCollideAcrossThreads() throws Exception {
+        SnowflakeTransactionIdGenerator generator = new SnowflakeTransactionIdGenerator(1);
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 25_000; i++) {
+                        ids.add(generator.nextId());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(ids).hasSize(200_000);
+    }
+
+    @Test
+    @DisplayName("Debe codificar el ID de nodo para que nodos distintos no colisionen")
+    void shouldEncodeNodeIdInGeneratedIds() {
+        long id = new SnowflakeTransactionIdGenerator(1023).nextLong();
+
+        long nodeId = (id >>> SnowflakeTransactionIdGenerator.SEQUENCE_BITS) & SnowflakeTransactionIdGenerator.MAX_NODE_ID;
+        assertThat(nodeId).isEqualTo(1023);
+        assertThatThrownBy(() -> new SnowflakeTransactionIdGenerator(1024))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @DisplayName("Solo debe considerarse libre de colisiones con un ID de nodo configurado")
+    void shouldBeCollisionFreeOnlyWithConfiguredNodeId() {
+        assertThat(new SnowflakeTransactionIdGenerator(0).isCollisionFree()).isTrue();
+        // El ID de nodo derivado del host y el PID puede repetirse en otra instancia
+        assertThat(new SnowflakeTransactionIdGenerator(-1).isCollisionFree()).isFalse();
+        assertThat(new RandomTransactionIdGenerator().isCollisionFree()).isFalse();
+    }
+}
@@ -0,0 +1,218 @@
+package com.isa.transaction.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.isa.transaction.entity.Client;
+import com.isa.transaction.exception.TransactionException;
+import com.isa.transaction.repository.BalanceRepository;
+import com.isa.transaction.repository.ClientRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Prueba unitaria para la exportacion en streaming del historial de una cuenta
+ *
+ * Esta prueba verifica:
+ * - Que la exportacion NDJSON comprimida contiene cada movimiento de la cuenta una vez y en orden
+ * - Que la exportacion CSV respeta el rango de fechas y escapa los valores con comas
+ * - Que el tipo de cada movimiento es el guardado en TRANSACTION_TYPE
+ * - Que una cuenta inexistente no reserva un cupo de exportacion
+ * - Que el cupo de una exportacion que nunca empieza se libera
+ */
+@DisplayName("Exportacion en Streaming del Historial")
+class TransactionExportServiceTest {
+
+    private static final String ACCOUNT = "ACC-111111";
+
+    private TransactionExportService exportService;
+    private ClientRepository clientRepository;
+    private BalanceRepository balanceRepository;
+    private JdbcDataSource dataSource;
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:exportdb;DB_CLOSE_DELAY=-1;INIT=CREATE SCHEMA IF NOT EXISTS TESTHTC");
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS TESTHTC.BALANCE_TRANSACTION");
+            statement.execute("CREATE TABLE TESTHTC.BALANCE_TRANSACTION (ID BIGINT PRIMARY KEY, TRANSACTION_ID VARCHAR(50), " +
+                              "CLIENT_ID BIGINT, ACCOUNT_NUMBER VARCHAR(10), TRANSACTION_TYPE VARCHAR(20), AMOUNT NUMERIC(15,2), BALANCE_BEFORE NUMERIC(15,2), " +
+                              "BALANCE_AFTER NUMERIC(15,2), CREATED_AT TIMESTAMP)");
+        }
+
+        clientRepository = mock(ClientRepository.class);
+        balanceRepository = mock(BalanceRepository.class);
+        Client client = new Client("Ana", "Lopez", "11111111");
+        client.setId(1L);
+        when(clientRepository.findByClientIdentification("11111111")).thenReturn(Optional.of(client));
+        when(balanceRepository.existsByClientIdAndAccountNumber(1L, ACCOUNT)).thenReturn(true);
+
+        exportService = new TransactionExportService();
+        ReflectionTestUtils.setField(exportService, "dataSource", dataSource);
+        ReflectionTestUtils.setField(exportService, "clientRepository", clientRepository);
+        ReflectionTestUtils.setField(exportService, "balanceRepository", balanceRepository);
+        ReflectionTestUtils.setField(exportService, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(exportService, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(exportService, "fetchSize", 7);
+        ReflectionTestUtils.setField(exportService, "maxConcurrent", 1);
+        ReflectionTestUtils.setField(exportService, "startTimeoutMs", 60_000L);
+        exportService.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        exportService.stop();
+    }
+
+    @Test
+    @DisplayName("Debe exportar todo el historial en NDJSON comprimido y en orden")
+    void shouldStreamWholeHistoryAsGzippedNdjson() throws Exception {
+        // Given - 50 movimientos de la cuenta, mas que varias paginas del cursor, y uno de otra cuenta
+        LocalDateTime start = LocalDateTime.of(2026, 1, 1, 10, 0);
+        BigDecimal balance = BigDecimal.ZERO;
+        for (int i = 0; i < 50; i++) {
+            BigDecimal amount = i % 5 == 4 ? new BigDecimal("-5.00") : new BigDecimal("10.00");
+            insert(i + 1, "txn_export_" + i, ACCOUNT, amount, balance, start.plusMinutes(i));
+            balance = balance.add(amount);
+        }
+        insert(100, "txn_other_account", "ACC-222222", BigDecimal.ONE, BigDecimal.ZERO, start);
+
+        // When
+        byte[] exported = run(exportService.export("11111111", ACCOUNT, TransactionExportService.Format.NDJSON, true, null, null));
+
+        // Then - Una linea JSON por movimiento, del mas antiguo al mas nuevo
+        String text;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(exported))) {
+            text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        List<String> lines = text.lines().toList();
+        assertThat(lines).hasSize(50);
+        JsonNode first = objectMapper.readTree(lines.get(0));
+        assertThat(first.get("transactionId").asText()).isEqualTo("txn_export_0");
+        assertThat(first.get("transactionType").asText()).isEqualTo("CREDIT");
+        assertThat(first.get("balanceAfter").decimalValue()).isEqualByComparingTo("10.00");
+        assertThat(first.get("createdAt").asText()).isEqualTo("2026-01-01T10:00");
+        JsonNode debit = objectMapper.readTree(lines.get(4));
+        assertThat(debit.get("transactionType").asText()).isEqualTo("DEBIT");
+        assertThat(objectMapper.readTree(lines.get(49)).get("transactionId").asText()).isEqualTo("txn_export_49");
+        assertThat(text).doesNotContain("txn_other_account");
+    }
+
+    @Test
+    @DisplayName("Debe exportar en CSV solo el rango pedido y escapar los valores")
+    void shouldStreamRangeAsCsv() throws Exception {
+        // Given
+        LocalDateTime start = LocalDateTime.of(2026, 1, 1, 10, 0);
+        insert(1, "txn_before", ACCOUNT, BigDecimal.TEN, BigDecimal.ZERO, start);
+        insert(2, "txn,\"quoted\"", ACCOUNT, BigDecimal.TEN, BigDecimal.TEN, start.plusDays(1));
+        // Un debito de monto cero: el tipo sale de la columna, no del signo del monto
+        insert(3, "txn_zero_debit", ACCOUNT, "DEBIT", new BigDecimal("0.00"), new BigDecimal("20.00"), start.plusDays(1).plusHours(1));
+        insert(4, "txn_after", ACCOUNT, BigDecimal.TEN, new BigDecimal("20"), start.plusDays(2));
+
+        // When - Solo el segundo dia
+        byte[] exported = run(exportService.export("11111111", ACCOUNT, TransactionExportService.Format.CSV, false,
+                                                   start.plusDays(1), start.plusDays(2)));
+
+        // Then
+        List<String> lines = new String(exported, StandardCharsets.UTF_8).lines().toList();
+        assertThat(lines).containsExactly(
+            "transactionId,transactionType,amount,balanceBefore,balanceAfter,createdAt",
+            "\"txn,\"\"quoted\"\"\",CREDIT,10.00,10.00,20.00,2026-01-02T10:00",
+            "txn_zero_debit,DEBIT,0.00,20.00,20.00,2026-01-02T11:00");
+    }
+
+    @Test
+    @DisplayName("Debe devolver null para una cuenta inexistente sin ocupar un cupo")
+    void shouldReturnNullForUnknownAccountWithoutTakingASlot() throws Exception {
+        // When
+        StreamingResponseBody unknown = exportService.export("11111111", "ACC-999999",
+                                                             TransactionExportService.Format.CSV, false, null, null);
+
+        // Then - El unico cupo sigue libre, y mientras se usa rechaza otra exportacion
+        assertThat(unknown).isNull();
+        StreamingResponseBody body = exportService.export("11111111", ACCOUNT, TransactionExportService.Format.CSV, false, null, null);
+        assertThatThrownBy(() -> exportService.export("11111111", ACCOUNT, TransactionExportService.Format.CSV, false, null, null))
+            .isInstanceOf(TransactionException.class)
+            .extracting("errorCode").isEqualTo("SERVICE_BUSY");
+        run(body);
+        assertThat(exportService.export("11111111", ACCOUNT, TransactionExportService.Format.CSV, false, null, null)).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Debe liberar el cupo de una exportacion cuyo cuerpo nunca se ejecuta")
+    void shouldReleaseSlotWhenBodyNeverRuns() throws Exception {
+        // Given - El cuerpo de la primera exportacion nunca se ejecuta, por ejemplo por un timeout de la solicitud
+        ReflectionTestUtils.setField(exportService, "startTimeoutMs", 50L);
+        StreamingResponseBody abandoned = exportService.export("11111111", ACCOUNT, TransactionExportService.Format.CSV, false, null, null);
+
+        // When - Pasa el tiempo de inicio
+        StreamingResponseBody next = null;
+        for (int i = 0; i < 100 && next == null; i++) {
+            Thread.sleep(20);
+            try {
+                next = exportService.export("11111111", ACCOUNT, TransactionExportService.Format.CSV, false, null, null);
+            } catch (TransactionException e) {
+                // Todavia ocupado
+            }
+        }
+
+        // Then - El cupo se libero y el cuerpo abandonado ya no puede usarlo mientras otra exportacion lo tiene
+        assertThat(next).isNotNull();
+        assertThatThrownBy(() -> run(abandoned)).isInstanceOf(IOException.class);
+        run(next);
+    }
+
+    private void insert(long id, String transactionId, String account, BigDecimal amount, BigDecimal before,
+                        LocalDateTime createdAt) throws Exception {
+        insert(id, transactionId, account, amount.signum() >= 0 ? "CREDIT" : "DEBIT", amount, before, createdAt);
+    }
+
+    private void insert(long id, String transactionId, String account, String type, BigDecimal amount, BigDecimal before,
+                        LocalDateTime createdAt) throws Exception {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement insert = connection.prepareStatement(
+                 "INSERT INTO TESTHTC.BALANCE_TRANSACTION VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            insert.setLong(1, id);
+            insert.setString(2, transactionId);
+            insert.setLong(3, 1L);
+            insert.setString(4, account);
+            insert.setString(5, type);
+            insert.setBigDecimal(6, amount);
+            insert.setBigDecimal(7, before);
+            insert.setBigDecimal(8, before.add(amount));
+            insert.setTimestamp(9, Timestamp.valueOf(createdAt));
+            insert.executeUpdate();
+        }
+    }
+
+    private static byte[] run(StreamingResponseBody body) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.writeTo(out);
+        return out.toByteArray();
+    }
+}
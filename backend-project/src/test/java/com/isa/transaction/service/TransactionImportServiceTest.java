@@ -0,0 +1,172 @@
+package com.isa.transaction.service;
+
+import com.isa.transaction.dto.BatchTransactionResponse;
+import com.isa.transaction.dto.BatchTransactionResult;
+import com.isa.transaction.dto.TransactionImportProgress;
+import com.isa.transaction.dto.TransactionRequest;
+import com.isa.transaction.entity.JobCheckpoint;
+import com.isa.transaction.repository.JobCheckpointRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Prueba unitaria para la importacion masiva de transacciones desde archivos
+ *
+ * Esta prueba verifica:
+ * - Que el archivo se lee por segmentos y todas las lineas validas se aplican una sola vez
+ * - Que dentro de cada lote las filas se ordenan por cuenta sin alterar el orden de cada cuenta
+ * - Que las lineas invalidas o rechazadas se escriben en el archivo de rechazos
+ * - Que una importacion reanudada continua despues del ultimo punto de control
+ */
+@DisplayName("Importacion Masiva de Transacciones")
+class TransactionImportServiceTest {
+
+    @TempDir
+    Path importDir;
+
+    private TransactionImportService importService;
+    private TransactionService transactionService;
+    private JobCheckpointRepository jobCheckpointRepository;
+
+    @BeforeEach
+    void setUp() {
+        transactionService = mock(TransactionService.class);
+        jobCheckpointRepository = mock(JobCheckpointRepository.class);
+
+        importService = new TransactionImportService();
+        ReflectionTestUtils.setField(importService, "transactionService", transactionService);
+        ReflectionTestUtils.setField(importService, "jobCheckpointRepository", jobCheckpointRepository);
+        ReflectionTestUtils.setField(importService, "transactionTemplate", new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        ReflectionTestUtils.setField(importService, "validator", Validation.buildDefaultValidatorFactory().getValidator());
+        ReflectionTestUtils.setField(importService, "objectMapper", Jackson2ObjectMapperBuilder.json().build());
+        ReflectionTestUtils.setField(importService, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(importService, "importDir", importDir.toString());
+        ReflectionTestUtils.setField(importService, "rejectsDir", importDir.resolve("rejects").toString());
+        ReflectionTestUtils.setField(importService, "parserThreads", 2);
+        // Segmentos pequenos para cortar el archivo en varias partes
+        ReflectionTestUtils.setField(importService, "segmentSize", 64);
+        ReflectionTestUtils.setField(importService, "batchSize", 4);
+        importService.start();
+
+        // Cada lote se acepta completo salvo los debitos de ACC-999999, y guarda el punto de control
+        when(transactionService.processTransactionBatch(anyList(), any(Runnable.class))).thenAnswer(invocation -> {
+            List<TransactionRequest> requests = invocation.getArgument(0);
+            Runnable inTransaction = invocation.getArgument(1);
+            inTransaction.run();
+            List<BatchTransactionResult> results = new ArrayList<>();
+            for (int i = 0; i < requests.size(); i++) {
+                TransactionRequest request = requests.get(i);
+                results.add(request.getAccountNumber().equals("ACC-999999") && request.isDebit()
+                    ? BatchTransactionResult.rejected(i, "txn_" + i, "INSUFFICIENT_FUNDS", "Insufficient funds")
+                    : BatchTransactionResult.accepted(i, "txn_" + i, BigDecimal.TEN));
+            }
+            return new BatchTransactionResponse(results);
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        importService.stop();
+    }
+
+    @Test
+    @DisplayName("Debe aplicar las lineas validas ordenadas por cuenta y reportar las rechazadas")
+    void shouldImportValidLinesAndReportRejected() throws Exception {
+        // Given - Cabecera, lineas CRLF, una linea en blanco, un monto fuera de rango y una linea mal formada
+        Path file = write("corrections.csv",
+            "clientIdentification,accountNumber,amount\r\n" +
+            "22222222,ACC-222222,10.00\r\n" +
+            "11111111,ACC-111111,100.00\r\n" +
+            "22222222,ACC-222222,-5.00\r\n" +
+            "11111111,ACC-111111,-40.00\r\n" +
+            "\r\n" +
+            "11111111,ACC-111111,20000.00\r\n" +
+            "33333333,ACC-999999,-1.00\r\n" +
+            "not-a-transaction\r\n" +
+            "33333333,ACC-333333,7.50\r\n");
+
+        // When
+        importService.runImport(file, "corrections.csv", false);
+
+        // Then
+        TransactionImportProgress progress = importService.getProgress();
+        assertThat(progress.getState()).isEqualTo("COMPLETED");
+        assertThat(progress.getLines()).isEqualTo(8);
+        assertThat(progress.getImported()).isEqualTo(5);
+        assertThat(progress.getRejected()).isEqualTo(3);
+        assertThat(progress.getCheckpointOffset()).isEqualTo(Files.size(file));
+
+        // Then - Primer lote ordenado por cuenta, cada cuenta en el orden del archivo
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<TransactionRequest>> batches = ArgumentCaptor.forClass(List.class);
+        verify(transactionService, times(2)).processTransactionBatch(batches.capture(), any(Runnable.class));
+        assertThat(batches.getAllValues().get(0))
+            .extracting(TransactionRequest::getAccountNumber, request -> request.getAmount().toPlainString())
+            .containsExactly(tuple("ACC-111111", "100.00"), tuple("ACC-111111", "-40.00"),
+                             tuple("ACC-222222", "10.00"), tuple("ACC-222222", "-5.00"));
+        assertThat(batches.getAllValues().get(1))
+            .extracting(TransactionRequest::getAccountNumber)
+            .containsExactly("ACC-333333", "ACC-999999");
+
+        // Then - Un rechazo por linea, con su codigo de error
+        List<String> rejects = Files.readAllLines(Paths.get(progress.getRejectsFile()));
+        assertThat(rejects).hasSize(3);
+        assertThat(rejects).anySatisfy(line -> assertThat(line).contains("20000.00").contains("VALIDATION_ERROR"));
+        assertThat(rejects).anySatisfy(line -> assertThat(line).contains("not-a-transaction").contains("VALIDATION_ERROR"));
+        assertThat(rejects).anySatisfy(line -> assertThat(line).contains("ACC-999999").contains("INSUFFICIENT_FUNDS"));
+
+        ArgumentCaptor<JobCheckpoint> checkpoints = ArgumentCaptor.forClass(JobCheckpoint.class);
+        verify(jobCheckpointRepository, times(2)).save(checkpoints.capture());
+        assertThat(checkpoints.getValue().getJobName()).isEqualTo("transaction-import:corrections.csv");
+        assertThat(checkpoints.getValue().getLastId()).isEqualTo(Files.size(file));
+    }
+
+    @Test
+    @DisplayName("Debe reanudar despues del ultimo punto de control")
+    void shouldResumeAfterCheckpoint() throws Exception {
+        // Given - Las dos primeras lineas ya estan confirmadas
+        String committed = "11111111,ACC-111111,100.00\n22222222,ACC-222222,10.00\n";
+        Path file = write("migration.csv", committed + "11111111,ACC-111111,-40.00\n");
+        when(jobCheckpointRepository.findById("transaction-import:migration.csv")).thenReturn(
+            Optional.of(new JobCheckpoint("transaction-import:migration.csv", (long) committed.length())));
+
+        // When
+        importService.runImport(file, "migration.csv", true);
+
+        // Then - Solo se aplica la linea posterior al punto de control
+        TransactionImportProgress progress = importService.getProgress();
+        assertThat(progress.getState()).isEqualTo("COMPLETED");
+        assertThat(progress.getLines()).isEqualTo(1);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<TransactionRequest>> batches = ArgumentCaptor.forClass(List.class);
+        verify(transactionService).processTransactionBatch(batches.capture(), any(Runnable.class));
+        assertThat(batches.getValue()).extracting(request -> request.getAmount().toPlainString()).containsExactly("-40.00");
+    }
+
+    private Path write(String name, String content) throws Exception {
+        return Files.write(importDir.resolve(name), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
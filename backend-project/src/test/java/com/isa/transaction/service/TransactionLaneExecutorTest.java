@@ -0,0 +1,101 @@
+package com.isa.transaction.service;
+
+import com.isa.transaction.exception.TransactionException;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Prueba unitaria para los carriles de ejecucion de un solo escritor
+ *
+ * Esta prueba verifica:
+ * - Que una misma cuenta siempre se asigna al mismo carril
+ * - Que las actualizaciones de una cuenta se ejecutan en serie
+ * - Que las excepciones de la tarea se propagan en el future
+ */
+@DisplayName("Carriles de Ejecucion por Cuenta")
+class TransactionLaneExecutorTest {
+
+    private TransactionLaneExecutor laneExecutor;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        laneExecutor = new TransactionLaneExecutor();
+        ReflectionTestUtils.setField(laneExecutor, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(laneExecutor, "enabled", true);
+        ReflectionTestUtils.setField(laneExecutor, "laneCount", 4);
+        ReflectionTestUtils.setField(laneExecutor, "queueCapacity", 1000);
+        laneExecutor.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        laneExecutor.stop();
+    }
+
+    @Test
+    @DisplayName("Debe asignar siempre la misma cuenta al mismo carril")
+    void shouldRouteSameAccountToSameLane() {
+        int lane = laneExecutor.laneFor("12345678", "ACC-123456");
+
+        assertThat(laneExecutor.getLaneCount()).isEqualTo(4);
+        assertThat(lane).isBetween(0, 3);
+        for (int i = 0; i < 100; i++) {
+            assertThat(laneExecutor.laneFor("12345678", "ACC-123456")).isEqualTo(lane);
+        }
+    }
+
+    @Test
+    @DisplayName("Debe serializar las actualizaciones de una misma cuenta")
+    void shouldSerializeUpdatesForSameAccount() {
+        // Given - Un contador sin sincronizacion, solo seguro si las tareas se ejecutan en serie
+        int[] unsafeCounter = {0};
+        AtomicInteger concurrentTasks = new AtomicInteger();
+        AtomicInteger maxConcurrentTasks = new AtomicInteger();
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+
+        // When - Enviar muchas tareas para la misma cuenta
+        for (int i = 0; i < 500; i++) {
+            futures.add(laneExecutor.submit("12345678", "ACC-123456", () -> {
+                maxConcurrentTasks.accumulateAndGet(concurrentTasks.incrementAndGet(), Math::max);
+                int value = ++unsafeCounter[0];
+                concurrentTasks.decrementAndGet();
+                return value;
+            }));
+        }
+        futures.forEach(CompletableFuture::join);
+
+        // Then - Ninguna tarea se ejecuto en paralelo con otra
+        assertThat(unsafeCounter[0]).isEqualTo(500);
+        assertThat(maxConcurrentTasks.get()).isEqualTo(1);
+        long processed = meterRegistry.find("transaction.lane.service").timers().stream()
+            .mapToLong(Timer::count).sum();
+        assertThat(processed).isEqualTo(500);
+    }
+
+    @Test
+    @DisplayName("Debe propagar la excepcion de la transaccion en el future")
+    void shouldPropagateTransactionExceptionThroughFuture() {
+        CompletableFuture<Object> future = laneExecutor.submit("12345678", "ACC-123456", () -> {
+            throw new TransactionException("Insufficient funds", "INSUFFICIENT_FUNDS");
+        });
+
+        assertThatThrownBy(future::join)
+            .isInstanceOf(CompletionException.class)
+            .hasCauseInstanceOf(TransactionException.class);
+    }
+}
@@ -1,11 +1,20 @@
 package com.isa.transaction.service;
 
+import com.isa.transaction.dto.BalanceSnapshot;
+import com.isa.transaction.dto.BatchTransactionResponse;
+import com.isa.transaction.dto.BatchTransactionResult;
 import com.isa.transaction.dto.TransactionRequest;
 import com.isa.transaction.dto.TransactionResponse;
+import com.isa.transaction.dto.TransactionResultEvent;
+import com.isa.transaction.entity.AcceptedTransaction;
+import com.isa.transaction.entity.AccountStats;
 import com.isa.transaction.entity.Balance;
 import com.isa.transaction.entity.BalanceTransaction;
 import com.isa.transaction.entity.Client;
+import com.isa.transaction.entity.TransactionStatus;
 import com.isa.transaction.exception.TransactionException;
+import com.isa.transaction.repository.AcceptedTransactionRepository;
+import com.isa.transaction.repository.AccountStatsRepository;
 import com.isa.transaction.repository.BalanceRepository;
 import com.isa.transaction.repository.BalanceTransactionRepository;
 import com.isa.transaction.repository.ClientRepository;
@@ -16,11 +25,18 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -51,7 +67,31 @@ class TransactionProcessTest {
     private BalanceTransactionRepository balanceTransactionRepository;
 
     @Mock
-    private KafkaProducerService kafkaProducerService;
+    private AccountStatsRepository accountStatsRepository;
+
+    @Mock
+    private OutboxService outboxService;
+
+    @Mock
+    private ConcurrencyMetrics concurrencyMetrics;
+
+    @Mock
+    private AcceptedTransactionRepository acceptedTransactionRepository;
+
+    @Mock
+    private BalanceCache balanceCache;
+
+    @Mock
+    private IdentityCache identityCache;
+
+    @Mock
+    private KnownKeysFilter knownKeysFilter;
+
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+    @Spy
+    private TransactionIdGenerator transactionIdGenerator = new SnowflakeTransactionIdGenerator(1);
 
     @InjectMocks
     private TransactionService transactionService;
@@ -120,6 +160,13 @@ class TransactionProcessTest {
         assertThat(savedTransaction.getBalanceAfter()).isEqualByComparingTo(new BigDecimal("1500.00"));
         assertThat(savedTransaction.getClientId()).isEqualTo(1L);
         assertThat(savedTransaction.getAccountNumber()).isEqualTo("ACC-123456");
+
+        // And - El movimiento se suma a las estadisticas de la cuenta en la misma transaccion
+        verify(accountStatsRepository).addTransactions(eq(1L), eq(new BigDecimal("500.00")), eq(BigDecimal.ZERO), eq(1L), any());
+
+        // And - El evento de resultado se escribe en el outbox, no se envia a Kafka dentro de la transaccion
+        verify(outboxService).add(argThat(event -> "COMPLETED".equals(event.getFinalStatus())
+            && event.getNewBalance().compareTo(new BigDecimal("1500.00")) == 0));
     }
 
     @Test
@@ -156,6 +203,9 @@ class TransactionProcessTest {
         assertThat(savedTransaction.getAmount()).isEqualByComparingTo(new BigDecimal("-300.00"));
         assertThat(savedTransaction.getBalanceBefore()).isEqualByComparingTo(new BigDecimal("1000.00"));
         assertThat(savedTransaction.getBalanceAfter()).isEqualByComparingTo(new BigDecimal("700.00"));
+
+        // And - El debito se suma al total de debitos de la cuenta
+        verify(accountStatsRepository).addTransactions(eq(1L), eq(BigDecimal.ZERO), eq(new BigDecimal("-300.00")), eq(1L), any());
     }
 
     @Test
@@ -179,6 +229,7 @@ class TransactionProcessTest {
         // And - Verificar que no se modifica el balance
         verify(balanceRepository, never()).save(any(Balance.class));
         verify(balanceTransactionRepository, never()).save(any(BalanceTransaction.class));
+        verifyNoInteractions(accountStatsRepository);
     }
 
     @Test
@@ -198,9 +249,10 @@ class TransactionProcessTest {
         newBalance.setId(2L);
 
         when(clientRepository.findByClientIdentification(newClientId)).thenReturn(Optional.empty());
-        when(clientRepository.save(any(Client.class))).thenReturn(newClient);
+        when(clientRepository.insertIfAbsent(any(Client.class))).thenReturn(Optional.of(newClient));
         when(balanceRepository.findByClientAndAccountNumber(any(Client.class), eq("ACC-999999")))
             .thenReturn(Optional.empty());
+        when(balanceRepository.insertIfAbsent(any(Balance.class))).thenReturn(Optional.of(newBalance));
         when(balanceRepository.save(any(Balance.class))).thenReturn(newBalance);
         when(balanceTransactionRepository.save(any(BalanceTransaction.class)))
             .thenReturn(new BalanceTransaction());
@@ -214,7 +266,7 @@ class TransactionProcessTest {
 
         // And - Verificar que se creo el cliente
         ArgumentCaptor<Client> clientCaptor = ArgumentCaptor.forClass(Client.class);
-        verify(clientRepository).save(clientCaptor.capture());
+        verify(clientRepository).insertIfAbsent(clientCaptor.capture());
         
         Client savedClient = clientCaptor.getValue();
         assertThat(savedClient.getClientIdentification()).isEqualTo(newClientId);
@@ -223,11 +275,12 @@ class TransactionProcessTest {
 
         // And - Verificar que se creo el balance
         ArgumentCaptor<Balance> balanceCaptor = ArgumentCaptor.forClass(Balance.class);
-        verify(balanceRepository, times(2)).save(balanceCaptor.capture()); // Una para crear, otra para actualizar
+        verify(balanceRepository).insertIfAbsent(balanceCaptor.capture());
+        verify(balanceRepository).save(newBalance); // Actualizacion del saldo
         
-        Balance firstSavedBalance = balanceCaptor.getAllValues().get(0);
-        assertThat(firstSavedBalance.getAccountNumber()).isEqualTo("ACC-999999");
-        assertThat(firstSavedBalance.getCurrentBalance()).isEqualByComparingTo(new BigDecimal("1000.00"));
+        Balance insertedBalance = balanceCaptor.getValue();
+        assertThat(insertedBalance.getAccountNumber()).isEqualTo("ACC-999999");
+        assertThat(insertedBalance.getCurrentBalance()).isEqualByComparingTo(new BigDecimal("1000.00"));
     }
 
     @Test
@@ -243,6 +296,7 @@ class TransactionProcessTest {
         when(clientRepository.findByClientIdentification("12345678")).thenReturn(Optional.of(existingClient));
         when(balanceRepository.findByClientAndAccountNumber(existingClient, newAccountNumber))
             .thenReturn(Optional.empty());
+        when(balanceRepository.insertIfAbsent(any(Balance.class))).thenReturn(Optional.of(newBalance));
         when(balanceRepository.save(any(Balance.class))).thenReturn(newBalance);
         when(balanceTransactionRepository.save(any(BalanceTransaction.class)))
             .thenReturn(new BalanceTransaction());
@@ -255,16 +309,17 @@ class TransactionProcessTest {
         assertThat(response.getStatus()).isEqualTo("ACCEPTED");
 
         // And - Verificar que NO se creo un cliente nuevo
-        verify(clientRepository, never()).save(any(Client.class));
+        verify(clientRepository, never()).insertIfAbsent(any(Client.class));
 
         // And - Verificar que se creo la cuenta nueva
         ArgumentCaptor<Balance> balanceCaptor = ArgumentCaptor.forClass(Balance.class);
-        verify(balanceRepository, times(2)).save(balanceCaptor.capture()); // Una para crear, otra para actualizar
+        verify(balanceRepository).insertIfAbsent(balanceCaptor.capture());
+        verify(balanceRepository).save(newBalance); // Actualizacion del saldo
         
-        Balance firstSavedBalance = balanceCaptor.getAllValues().get(0);
-        assertThat(firstSavedBalance.getAccountNumber()).isEqualTo(newAccountNumber);
-        assertThat(firstSavedBalance.getCurrentBalance()).isEqualByComparingTo(new BigDecimal("750.00"));
-        assertThat(firstSavedBalance.getClient().getId()).isEqualTo(existingClient.getId());
+        Balance insertedBalance = balanceCaptor.getValue();
+        assertThat(insertedBalance.getAccountNumber()).isEqualTo(newAccountNumber);
+        assertThat(insertedBalance.getCurrentBalance()).isEqualByComparingTo(new BigDecimal("750.00"));
+        assertThat(insertedBalance.getClient().getId()).isEqualTo(existingClient.getId());
     }
 
     @Test
@@ -334,4 +389,368 @@ class TransactionProcessTest {
         verify(balanceRepository, never()).save(any(Balance.class));
         verify(balanceTransactionRepository, never()).save(any(BalanceTransaction.class));
     }
+
+    @Test
+    @DisplayName("Debe reintentar la transaccion ante un conflicto de version (estrategia optimista)")
+    void shouldRetryTransactionOnOptimisticLockConflict() {
+        // Given - El primer intento falla por una actualizacion concurrente
+        when(clientRepository.findByClientIdentification("12345678")).thenReturn(Optional.of(existingClient));
+        when(balanceRepository.findByClientAndAccountNumber(existingClient, "ACC-123456"))
+            .thenAnswer(invocation -> Optional.of(new Balance("ACC-123456", new BigDecimal("1000.00"), existingClient)));
+        when(balanceTransactionRepository.save(any(BalanceTransaction.class)))
+            .thenThrow(new ObjectOptimisticLockingFailureException(Balance.class, 1L))
+            .thenReturn(new BalanceTransaction());
+
+        // When - Procesar transaccion de credito
+        TransactionResponse response = transactionService.processTransaction(creditRequest);
+
+        // Then - El segundo intento se completa
+        assertThat(response.getStatus()).isEqualTo("ACCEPTED");
+        verify(balanceTransactionRepository, times(2)).save(any(BalanceTransaction.class));
+        verify(concurrencyMetrics).recordConflict(BalanceConcurrencyStrategy.OPTIMISTIC);
+        verify(concurrencyMetrics).recordRetry(BalanceConcurrencyStrategy.OPTIMISTIC);
+    }
+
+    @Test
+    @DisplayName("Debe fallar con CONCURRENT_UPDATE al agotar los reintentos")
+    void shouldFailWithConcurrentUpdateWhenRetriesAreExhausted() {
+        // Given - Todos los intentos fallan por conflicto de version
+        when(clientRepository.findByClientIdentification("12345678")).thenReturn(Optional.of(existingClient));
+        when(balanceRepository.findByClientAndAccountNumber(existingClient, "ACC-123456"))
+            .thenAnswer(invocation -> Optional.of(new Balance("ACC-123456", new BigDecimal("1000.00"), existingClient)));
+        when(balanceTransactionRepository.save(any(BalanceTransaction.class)))
+            .thenThrow(new ObjectOptimisticLockingFailureException(Balance.class, 1L));
+
+        // When & Then
+        assertThatThrownBy(() -> transactionService.processTransaction(creditRequest))
+            .isInstanceOf(TransactionException.class)
+            .extracting("errorCode").isEqualTo("CONCURRENT_UPDATE");
+
+        verify(balanceTransactionRepository, times(3)).save(any(BalanceTransaction.class));
+        verify(concurrencyMetrics).recordRetriesExhausted(BalanceConcurrencyStrategy.OPTIMISTIC);
+    }
+
+    @Test
+    @DisplayName("Debe bloquear la fila del balance con la estrategia pesimista")
+    void shouldLockBalanceRowWithPessimisticStrategy() {
+        // Given - Estrategia pesimista configurada
+        ReflectionTestUtils.setField(transactionService, "concurrencyStrategy", BalanceConcurrencyStrategy.PESSIMISTIC);
+        when(clientRepository.findByClientIdentification("12345678")).thenReturn(Optional.of(existingClient));
+        when(balanceRepository.findByClientAndAccountNumberForUpdate(existingClient, "ACC-123456"))
+            .thenReturn(Optional.of(existingBalance));
+        when(balanceTransactionRepository.save(any(BalanceTransaction.class)))
+            .thenReturn(new BalanceTransaction());
+
+        // When - Procesar transaccion de debito
+        TransactionResponse response = transactionService.processTransaction(debitRequest);
+
+        // Then - El balance se lee con bloqueo y se actualiza
+        assertThat(response.getStatus()).isEqualTo("ACCEPTED");
+        assertThat(existingBalance.getCurrentBalance()).isEqualByComparingTo(new BigDecimal("700.00"));
+        verify(balanceRepository, never()).findByClientAndAccountNumber(any(Client.class), anyString());
+        verify(balanceRepository).save(existingBalance);
+    }
+
+    @Test
+    @DisplayName("Debe resolver cliente y cuenta conocidos desde la cache de identidades sin consultas de busqueda")
+    void shouldResolveKnownAccountFromIdentityCache() {
+        // Given - Cliente y cuenta ya resueltos por una transaccion anterior
+        when(identityCache.clientId("12345678")).thenReturn(1L);
+        when(identityCache.balanceId(1L, "ACC-123456")).thenReturn(1L);
+        when(clientRepository.getReferenceById(1L)).thenReturn(existingClient);
+        when(balanceRepository.findById(1L)).thenReturn(Optional.of(existingBalance));
+        when(balanceTransactionRepository.save(any(BalanceTransaction.class)))
+            .thenReturn(new BalanceTransaction());
+
+        // When - Procesar transaccion de credito
+        transactionService.processTransaction(creditRequest);
+
+        // Then - Solo se lee la fila del balance por clave primaria
+        verify(clientRepository, never()).findByClientIdentification(anyString());
+        verify(balanceRepository, never()).findByClientAndAccountNumber(any(), anyString());
+        verify(balanceRepository).save(existingBalance);
+        assertThat(existingBalance.getCurrentBalance()).isEqualByComparingTo(new BigDecimal("1500.00"));
+        verify(identityCache, never()).putAfterCommit(anyString(), anyLong(), anyString(), anyLong());
+    }
+
+    @Test
+    @DisplayName("Debe crear cliente y cuenta sin consultarlos cuando el filtro de Bloom no los conoce")
+    void shouldSkipLookupsForClientsUnknownToBloomFilter() {
+        // Given - El filtro de Bloom no conoce al cliente ni a la cuenta
+        when(knownKeysFilter.isUnknownClient("99999999")).thenReturn(true);
+        when(knownKeysFilter.isUnknownAccount("99999999", "ACC-999999")).thenReturn(true);
+        when(clientRepository.insertIfAbsent(any(Client.class))).thenAnswer(invocation -> {
+            Client client = invocation.getArgument(0);
+            client.setId(2L);
+            return Optional.of(client);
+        });
+        when(balanceRepository.insertIfAbsent(any(Balance.class))).thenAnswer(invocation -> Optional.of(invocation.getArgument(0)));
+        when(balanceRepository.save(any(Balance.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(balanceTransactionRepository.save(any(BalanceTransaction.class)))
+            .thenReturn(new BalanceTransaction());
+        TransactionRequest firstRequest = new TransactionRequest("99999999", "ACC-999999", new BigDecimal("250.00"));
+
+        // When
+        transactionService.processTransaction(firstRequest);
+
+        // Then - Se inserta directamente y las claves nuevas se agregan al filtro
+        verify(clientRepository, never()).findByClientIdentification(anyString());
+        verify(balanceRepository, never()).findByClientAndAccountNumber(any(), anyString());
+        verify(knownKeysFilter).addClient("99999999");
+        verify(knownKeysFilter).addAccount("99999999", "ACC-999999");
+    }
+
+    @Test
+    @DisplayName("Debe usar el cliente y la cuenta existentes cuando otra transaccion los creo primero")
+    void shouldUseExistingClientAndAccountWhenCreatedConcurrently() {
+        // Given - El filtro de Bloom no los conoce, pero otra transaccion los inserto antes (conflicto en la clave unica)
+        when(knownKeysFilter.isUnknownClient("12345678")).thenReturn(true);
+        when(knownKeysFilter.isUnknownAccount("12345678", "ACC-123456")).thenReturn(true);
+        when(clientRepository.insertIfAbsent(any(Client.class))).thenReturn(Optional.empty());
+        when(clientRepository.findByClientIdentification("12345678")).thenReturn(Optional.of(existingClient));
+        when(balanceRepository.insertIfAbsent(any(Balance.class))).thenReturn(Optional.empty());
+        when(balanceRepository.findByClientAndAccountNumber(existingClient, "ACC-123456"))
+            .thenReturn(Optional.of(existingBalance));
+        when(balanceRepository.save(any(Balance.class))).thenReturn(existingBalance);
+        when(balanceTransactionRepository.save(any(BalanceTransaction.class)))
+            .thenReturn(new BalanceTransaction());
+
+        // When
+        TransactionResponse response = transactionService.processTransaction(creditRequest);
+
+        // Then - La transaccion se aplica sobre el saldo existente en lugar de fallar
+        assertThat(response.getStatus()).isEqualTo("ACCEPTED");
+        verify(balanceRepository).save(existingBalance);
+        verify(accountStatsRepository, never()).save(any(AccountStats.class));
+    }
+
+    @Test
+    @DisplayName("Debe aplicar el monto con un UPDATE condicional en la estrategia atomica")
+    void shouldApplyAmountWithConditionalUpdateInAtomicStrategy() {
+        // Given - Estrategia atomica configurada
+        ReflectionTestUtils.setField(transactionService, "concurrencyStrategy", BalanceConcurrencyStrategy.ATOMIC);
+        when(clientRepository.findByClientIdentification("12345678")).thenReturn(Optional.of(existingClient));
+        when(balanceRepository.findByClientAndAccountNumber(existingClient, "ACC-123456"))
+            .thenReturn(Optional.of(existingBalance));
+        when(balanceRepository.applyAmountIfSufficientFunds(1L, new BigDecimal("-300.00"))).thenReturn(1);
+        when(balanceRepository.findSnapshotById(1L)).thenReturn(new BalanceSnapshot(new BigDecimal("700.00"), 1L));
+        when(balanceTransactionRepository.save(any(BalanceTransaction.class)))
+            .thenReturn(new BalanceTransaction());
+
+        // When - Procesar transaccion de debito
+        transactionService.processTransaction(debitRequest);
+
+        // Then - El registro de transaccion refleja el saldo leido de la base de datos
+        ArgumentCaptor<BalanceTransaction> transactionCaptor = ArgumentCaptor.forClass(BalanceTransaction.class);
+        verify(balanceTransactionRepository).save(transactionCaptor.capture());
+        assertThat(transactionCaptor.getValue().getBalanceBefore()).isEqualByComparingTo(new BigDecimal("1000.00"));
+        assertThat(transactionCaptor.getValue().getBalanceAfter()).isEqualByComparingTo(new BigDecimal("700.00"));
+        verify(balanceRepository, never()).save(any(Balance.class));
+    }
+
+    @Test
+    @DisplayName("Debe rechazar un debito cuando el UPDATE condicional no modifica filas")
+    void shouldRejectDebitWhenConditionalUpdateAffectsNoRows() {
+        // Given - Estrategia atomica y fondos insuficientes
+        ReflectionTestUtils.setField(transactionService, "concurrencyStrategy", BalanceConcurrencyStrategy.ATOMIC);
+        TransactionRequest largeDebitRequest = new TransactionRequest("12345678", "ACC-123456", new BigDecimal("-1500.00"));
+        when(clientRepository.findByClientIdentification("12345678")).thenReturn(Optional.of(existingClient));
+        when(balanceRepository.findByClientAndAccountNumber(existingClient, "ACC-123456"))
+            .thenReturn(Optional.of(existingBalance));
+        when(balanceRepository.applyAmountIfSufficientFunds(1L, new BigDecimal("-1500.00"))).thenReturn(0);
+        when(balanceRepository.findCurrentBalanceById(1L)).thenReturn(new BigDecimal("1000.00"));
+
+        // When & Then
+        assertThatThrownBy(() -> transactionService.processTransaction(largeDebitRequest))
+            .isInstanceOf(TransactionException.class)
+            .hasMessageContaining("Insufficient funds");
+
+        verify(balanceTransactionRepository, never()).save(any(BalanceTransaction.class));
+        verify(concurrencyMetrics).recordGuardRejection(BalanceConcurrencyStrategy.ATOMIC);
+    }
+
+    @Test
+    @DisplayName("Debe procesar un lote aplicando los items validos y rechazando los invalidos sin revertir el resto")
+    void shouldProcessBatchRejectingOnlyInvalidItems() {
+        // Given - Un lote con un credito, un debito sin fondos y un debito valido sobre la misma cuenta
+        List<TransactionRequest> batch = List.of(
+            new TransactionRequest("12345678", "ACC-123456", new BigDecimal("500.00")),
+            new TransactionRequest("12345678", "ACC-123456", new BigDecimal("-5000.00")),
+            new TransactionRequest("12345678", "ACC-123456", new BigDecimal("-300.00"))
+        );
+        when(clientRepository.findByClientIdentificationIn(Set.of("12345678"))).thenReturn(List.of(existingClient));
+        when(balanceRepository.findIdsByClientIdInAndAccountNumberIn(Set.of(1L), Set.of("ACC-123456")))
+            .thenReturn(List.<Object[]>of(new Object[]{1L, 1L, "ACC-123456"}));
+        when(balanceRepository.findAllByIdInForUpdate(Set.of(1L))).thenReturn(List.of(existingBalance));
+
+        // When - Procesar el lote
+        BatchTransactionResponse response = transactionService.processTransactionBatch(batch);
+
+        // Then - Dos items aplicados y uno rechazado
+        assertThat(response.getAccepted()).isEqualTo(2);
+        assertThat(response.getRejected()).isEqualTo(1);
+        assertThat(response.getResults()).extracting(BatchTransactionResult::getStatus)
+            .containsExactly("ACCEPTED", "REJECTED", "ACCEPTED");
+        assertThat(response.getResults().get(1).getErrorCode()).isEqualTo("INSUFFICIENT_FUNDS");
+        assertThat(existingBalance.getCurrentBalance()).isEqualByComparingTo(new BigDecimal("1200.00")); // 1000 + 500 - 300
+
+        // And - Los registros se insertan en un solo lote JDBC con la cadena de saldos correcta
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<BalanceTransaction>> recordsCaptor = ArgumentCaptor.forClass(List.class);
+        verify(balanceTransactionRepository).insertAll(recordsCaptor.capture());
+        assertThat(recordsCaptor.getValue()).hasSize(2);
+        assertThat(recordsCaptor.getValue().get(1).getBalanceBefore()).isEqualByComparingTo(new BigDecimal("1500.00"));
+        assertThat(recordsCaptor.getValue().get(1).getBalanceAfter()).isEqualByComparingTo(new BigDecimal("1200.00"));
+        verify(balanceTransactionRepository, never()).save(any(BalanceTransaction.class));
+
+        // And - Los tres eventos de resultado se escriben juntos en el outbox
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<TransactionResultEvent>> eventsCaptor = ArgumentCaptor.forClass(List.class);
+        verify(outboxService).addAll(eventsCaptor.capture());
+        assertThat(eventsCaptor.getValue()).extracting(TransactionResultEvent::getFinalStatus)
+            .containsExactly("COMPLETED", "FAILED_INSUFFICIENT_FUNDS", "COMPLETED");
+    }
+
+    @Test
+    @DisplayName("Debe crear solo las cuentas nuevas que reciben al menos una transaccion aplicada")
+    void shouldOnlyOpenNewAccountsWithAppliedTransactionsInBatch() {
+        // Given - Un credito en una cuenta nueva y un debito sin fondos en otra cuenta nueva
+        List<TransactionRequest> batch = List.of(
+            new TransactionRequest("12345678", "ACC-777777", new BigDecimal("100.00")),
+            new TransactionRequest("12345678", "ACC-888888", new BigDecimal("-100.00"))
+        );
+        when(clientRepository.findByClientIdentificationIn(Set.of("12345678"))).thenReturn(List.of(existingClient));
+        when(balanceRepository.findIdsByClientIdInAndAccountNumberIn(anyCollection(), anyCollection()))
+            .thenReturn(List.of());
+
+        // When - Procesar el lote
+        BatchTransactionResponse response = transactionService.processTransactionBatch(batch);
+
+        // Then - Solo se abre la cuenta con el credito aplicado
+        assertThat(response.getAccepted()).isEqualTo(1);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Balance>> balancesCaptor = ArgumentCaptor.forClass(List.class);
+        verify(balanceRepository).saveAll(balancesCaptor.capture());
+        assertThat(balancesCaptor.getValue()).extracting(Balance::getAccountNumber).containsExactly("ACC-777777");
+    }
+
+    @Test
+    @DisplayName("Debe bloquear solo las cuentas del lote y no las demas cuentas de sus clientes")
+    void shouldLockOnlyBatchAccountsInBatch() {
+        // Given - Dos clientes con una cuenta cada uno en el lote; el primero tiene otra cuenta con el mismo numero que el segundo
+        Client otherClient = new Client("Luis", "Perez", "87654321");
+        otherClient.setId(2L);
+        Balance otherBalance = new Balance("ACC-654321", new BigDecimal("50.00"), otherClient);
+        otherBalance.setId(6L);
+        List<TransactionRequest> batch = List.of(
+            new TransactionRequest("12345678", "ACC-123456", new BigDecimal("100.00")),
+            new TransactionRequest("87654321", "ACC-654321", new BigDecimal("-20.00"))
+        );
+        when(clientRepository.findByClientIdentificationIn(Set.of("12345678", "87654321")))
+            .thenReturn(List.of(existingClient, otherClient));
+        when(balanceRepository.findIdsByClientIdInAndAccountNumberIn(Set.of(1L, 2L), Set.of("ACC-123456", "ACC-654321")))
+            .thenReturn(List.<Object[]>of(new Object[]{1L, 1L, "ACC-123456"}, new Object[]{5L, 1L, "ACC-654321"},
+                                          new Object[]{6L, 2L, "ACC-654321"}));
+        when(balanceRepository.findAllByIdInForUpdate(Set.of(1L, 6L))).thenReturn(List.of(existingBalance, otherBalance));
+
+        // When
+        BatchTransactionResponse response = transactionService.processTransactionBatch(batch);
+
+        // Then - Se bloquean solo las dos cuentas del lote y ambas transacciones se aplican
+        assertThat(response.getAccepted()).isEqualTo(2);
+        verify(balanceRepository).findAllByIdInForUpdate(Set.of(1L, 6L));
+        assertThat(existingBalance.getCurrentBalance()).isEqualByComparingTo(new BigDecimal("1100.00"));
+        assertThat(otherBalance.getCurrentBalance()).isEqualByComparingTo(new BigDecimal("30.00"));
+    }
+
+    @Test
+    @DisplayName("Debe aplicar una transaccion aceptada y marcarla COMPLETED en la misma transaccion de BD")
+    void shouldCompleteAcceptedTransaction() {
+        // Given - Una transaccion aceptada pendiente de aplicar
+        AcceptedTransaction accepted = acceptedTransaction(creditRequest);
+        when(acceptedTransactionRepository.finishIfInProcess(eq(10L), eq(TransactionStatus.COMPLETED), isNull(), isNull()))
+            .thenReturn(1);
+        when(clientRepository.findByClientIdentification("12345678")).thenReturn(Optional.of(existingClient));
+        when(balanceRepository.findByClientAndAccountNumber(existingClient, "ACC-123456"))
+            .thenReturn(Optional.of(existingBalance));
+
+        // When
+        TransactionStatus status = transactionService.processAcceptedTransaction(accepted);
+
+        // Then - Se aplica con el ID de transaccion que se entrego al cliente
+        assertThat(status).isEqualTo(TransactionStatus.COMPLETED);
+        assertThat(existingBalance.getCurrentBalance()).isEqualByComparingTo(new BigDecimal("1500.00"));
+        ArgumentCaptor<BalanceTransaction> transactionCaptor = ArgumentCaptor.forClass(BalanceTransaction.class);
+        verify(balanceTransactionRepository).save(transactionCaptor.capture());
+        assertThat(transactionCaptor.getValue().getTransactionId()).isEqualTo("txn_ACCEPTED0001");
+    }
+
+    @Test
+    @DisplayName("Debe marcar FAILED una transaccion aceptada sin fondos suficientes")
+    void shouldMarkAcceptedTransactionAsFailedOnInsufficientFunds() {
+        // Given - Un debito aceptado mayor al saldo disponible
+        AcceptedTransaction accepted = acceptedTransaction(
+            new TransactionRequest("12345678", "ACC-123456", new BigDecimal("-1500.00")));
+        when(acceptedTransactionRepository.finishIfInProcess(eq(10L), eq(TransactionStatus.COMPLETED), isNull(), isNull()))
+            .thenReturn(1);
+        when(acceptedTransactionRepository.finishIfInProcess(eq(10L), eq(TransactionStatus.FAILED), eq("INSUFFICIENT_FUNDS"), anyString()))
+            .thenReturn(1);
+        when(clientRepository.findByClientIdentification("12345678")).thenReturn(Optional.of(existingClient));
+        when(balanceRepository.findByClientAndAccountNumber(existingClient, "ACC-123456"))
+            .thenReturn(Optional.of(existingBalance));
+
+        // When
+        TransactionStatus status = transactionService.processAcceptedTransaction(accepted);
+
+        // Then - El error queda registrado y no se guarda la transaccion
+        assertThat(status).isEqualTo(TransactionStatus.FAILED);
+        verify(balanceTransactionRepository, never()).save(any(BalanceTransaction.class));
+        verify(outboxService).add(argThat(event -> "FAILED_INSUFFICIENT_FUNDS".equals(event.getFinalStatus())));
+    }
+
+    @Test
+    @DisplayName("No debe aplicar dos veces una transaccion aceptada que otro worker ya proceso")
+    void shouldSkipAcceptedTransactionAlreadyProcessed() {
+        // Given - El UPDATE condicional no encuentra la transaccion en IN_PROCESS
+        AcceptedTransaction accepted = acceptedTransaction(creditRequest);
+        when(acceptedTransactionRepository.finishIfInProcess(eq(10L), eq(TransactionStatus.COMPLETED), isNull(), isNull()))
+            .thenReturn(0);
+
+        // When
+        transactionService.processAcceptedTransaction(accepted);
+
+        // Then - No se toca el saldo
+        verifyNoInteractions(clientRepository, balanceRepository, balanceTransactionRepository);
+    }
+
+    @Test
+    @DisplayName("Debe consultar el estado de transacciones asincronas, sincronas e inexistentes")
+    void shouldReportTransactionStatus() {
+        // Given
+        AcceptedTransaction failed = acceptedTransaction(debitRequest);
+        failed.setStatus(TransactionStatus.FAILED);
+        failed.setErrorMessage("Insufficient funds in account ACC-123456");
+        when(acceptedTransactionRepository.findByTransactionId("txn_ACCEPTED0001")).thenReturn(Optional.of(failed));
+        when(acceptedTransactionRepository.findByTransactionId("txn_SYNC0000001")).thenReturn(Optional.empty());
+        when(acceptedTransactionRepository.findByTransactionId("txn_UNKNOWN0001")).thenReturn(Optional.empty());
+        when(balanceTransactionRepository.existsByTransactionId("txn_SYNC0000001")).thenReturn(true);
+        when(balanceTransactionRepository.existsByTransactionId("txn_UNKNOWN0001")).thenReturn(false);
+
+        // When & Then
+        TransactionResponse failedStatus = transactionService.getTransactionStatus("txn_ACCEPTED0001");
+        assertThat(failedStatus.getStatus()).isEqualTo("FAILED");
+        assertThat(failedStatus.getMessage()).contains("Insufficient funds");
+
+        assertThat(transactionService.getTransactionStatus("txn_SYNC0000001").getStatus()).isEqualTo("COMPLETED");
+
+        assertThatThrownBy(() -> transactionService.getTransactionStatus("txn_UNKNOWN0001"))
+            .isInstanceOf(TransactionException.class)
+            .extracting("errorCode").isEqualTo("TRANSACTION_NOT_FOUND");
+    }
+
+    private AcceptedTransaction acceptedTransaction(TransactionRequest request) {
+        AcceptedTransaction accepted = new AcceptedTransaction("txn_ACCEPTED0001", request);
+        accepted.setId(10L);
+        return accepted;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,99 @@
+package com.isa.transaction.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.isa.transaction.config.TransactionResultEventSerializer;
+import com.isa.transaction.dto.TransactionResultEvent;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Prueba unitaria para el formato binario de eventos de resultado
+ *
+ * Esta prueba verifica:
+ * - Que los eventos exitosos y fallidos se recuperan sin perdida, incluidos montos grandes
+ * - Que el formato binario ocupa menos que el JSON
+ * - Que los mensajes muertos escritos antes en JSON se siguen leyendo
+ */
+@DisplayName("Formato Binario de Eventos de Resultado")
+class TransactionResultEventCodecTest {
+
+    private TransactionResultEventCodec codec;
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        // Misma configuracion que el ObjectMapper de Spring Boot
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        codec = new TransactionResultEventCodec();
+        ReflectionTestUtils.setField(codec, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(codec, "eventFormat", "binary");
+    }
+
+    @Test
+    @DisplayName("Debe recuperar los eventos sin perdida y ocupar menos que JSON")
+    void shouldRoundTripEventsAndBeSmallerThanJson() throws Exception {
+        // Given - Un evento exitoso, uno fallido con mensaje libre y uno con monto que no cabe en un long
+        TransactionResultEvent completed = TransactionResultEvent.completed(
+            "txn_0Kx3mB7qZ9pW", 123456L, "ACC-123456", new BigDecimal("-100.50"), new BigDecimal("1500.75"));
+        TransactionResultEvent failed = TransactionResultEvent.validationError(
+            "legacy-id", null, "ACC-654321", new BigDecimal("0.01"), "Amount cannot be zero");
+        TransactionResultEvent huge = new TransactionResultEvent("txn_1", 1L, "ACC-1",
+            new BigDecimal("123456789012345678901234567890.123"), "COMPLETED", null,
+            LocalDateTime.of(1969, 12, 31, 23, 59, 59, 999_999_000), null);
+
+        for (TransactionResultEvent event : new TransactionResultEvent[] {completed, failed, huge}) {
+            // When
+            byte[] bytes = TransactionResultEventCodec.encode(event);
+            TransactionResultEvent decoded = TransactionResultEventCodec.decode(bytes);
+
+            // Then
+            assertThat(decoded).usingRecursiveComparison().isEqualTo(event);
+            assertThat(bytes.length).isLessThan(objectMapper.writeValueAsBytes(event).length / 2);
+        }
+    }
+
+    @Test
+    @DisplayName("Debe leer cargas de mensajes muertos en binario y en el JSON anterior")
+    void shouldReadBinaryAndLegacyJsonPayloads() throws Exception {
+        // Given
+        TransactionResultEvent event = TransactionResultEvent.insufficientFunds(
+            "txn_0Kx3mB7qZ9pW", 7L, "ACC-123456", new BigDecimal("-250.00"));
+        String binaryPayload = codec.toPayload(event);
+        String jsonPayload = objectMapper.writeValueAsString(event);
+
+        // When / Then
+        assertThat(binaryPayload).doesNotStartWith("{");
+        assertThat(codec.fromPayload(binaryPayload)).usingRecursiveComparison().isEqualTo(event);
+        assertThat(codec.fromPayload(jsonPayload)).usingRecursiveComparison().isEqualTo(event);
+    }
+
+    @Test
+    @DisplayName("Debe serializar para Kafka en binario con cabecera de formato y en JSON el resto de valores")
+    void shouldSerializeEventsAsBinaryAndOtherValuesAsJson() {
+        // Given
+        TransactionResultEventSerializer serializer = new TransactionResultEventSerializer();
+        RecordHeaders headers = new RecordHeaders();
+        TransactionResultEvent event = TransactionResultEvent.completed(
+            "txn_1", 1L, "ACC-123456", BigDecimal.ONE, BigDecimal.TEN);
+
+        // When
+        byte[] eventBytes = serializer.serialize("transaction-results", headers, event);
+        byte[] otherBytes = serializer.serialize("other-topic", new RecordHeaders(), Map.of("key", "value"));
+
+        // Then
+        assertThat(TransactionResultEventCodec.isEncoded(eventBytes)).isTrue();
+        assertThat(headers.lastHeader(TransactionResultEventSerializer.FORMAT_HEADER).value()).asString().isEqualTo("binary-v1");
+        assertThat(new String(otherBytes)).isEqualTo("{\"key\":\"value\"}");
+        serializer.close();
+    }
+}
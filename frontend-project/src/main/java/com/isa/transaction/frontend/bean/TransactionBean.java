@@ -13,6 +13,7 @@ import jakarta.inject.Named;
 
 import java.io.Serializable;
 import java.math.BigDecimal;
+import java.util.UUID;
 import java.util.logging.Logger;
 
 /**
@@ -43,6 +44,10 @@ public class TransactionBean implements Serializable {
     private String errorMessage;
     private TransactionResponse transactionResult;
     
+    // Idempotency-Key of the submission being retried; kept until the backend gives a definitive answer
+    private String idempotencyKey;
+    private TransactionRequest pendingRequest;
+    
     @PostConstruct
     public void init() {
         LOGGER.info("TransactionBean inicializado");
@@ -172,10 +177,22 @@ public class TransactionBean implements Serializable {
             TransactionRequest request = new TransactionRequest(clientIdentification, accountNumber, amount);
             LOGGER.info("DTO de solicitud creado: " + request);
             
+            // Reuse the key only when resubmitting the same request after a failed attempt
+            if (idempotencyKey == null || !sameRequest(request, pendingRequest)) {
+                idempotencyKey = UUID.randomUUID().toString();
+                pendingRequest = request;
+            }
+            
             // Call backend API
             LOGGER.info("Llamando restClient.submitTransaction...");
-            ApiResponse<TransactionResponse> response = restClient.submitTransaction(request);
+            ApiResponse<TransactionResponse> response = restClient.submitTransaction(request, idempotencyKey);
             LOGGER.info("Respuesta recibida: " + response);
+            if (!"CONNECTION_ERROR".equals(response.getCode()) && !"SERVER_ERROR".equals(response.getCode())
+                    && !"IDEMPOTENCY_IN_PROGRESS".equals(response.getCode())) {
+                // Definitive answer, the next submission is a new transaction
+                idempotencyKey = null;
+                pendingRequest = null;
+            }
             
             if (response.isSuccess() && !response.isError()) {
                 // Transaction successful
@@ -225,6 +242,13 @@ public class TransactionBean implements Serializable {
         }
     }
     
+    private static boolean sameRequest(TransactionRequest a, TransactionRequest b) {
+        return b != null
+            && a.getClientIdentification().equals(b.getClientIdentification())
+            && a.getAccountNumber().equals(b.getAccountNumber())
+            && a.getAmount().compareTo(b.getAmount()) == 0;
+    }
+    
     /**
      * Clear amount field only
      */
@@ -9,6 +9,7 @@ import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.ws.rs.client.Client;
 import jakarta.ws.rs.client.ClientBuilder;
 import jakarta.ws.rs.client.Entity;
+import jakarta.ws.rs.client.Invocation;
 import jakarta.ws.rs.core.GenericType;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
@@ -66,15 +67,30 @@ public class TransactionRestClient {
      * @return API response containing transaction result
      */
     public ApiResponse<TransactionResponse> submitTransaction(TransactionRequest request) {
+        return submitTransaction(request, null);
+    }
+    
+    /**
+     * Submit a transaction with an Idempotency-Key, so that resubmitting after a timeout
+     * returns the original result instead of applying the amount twice
+     * 
+     * @param request the transaction request
+     * @param idempotencyKey key shared by all attempts of the same submission, or null
+     * @return API response containing transaction result
+     */
+    public ApiResponse<TransactionResponse> submitTransaction(TransactionRequest request, String idempotencyKey) {
         LOGGER.info("Enviando transaccion: " + request);
         
         try {
-            Response response = restClient
+            Invocation.Builder builder = restClient
                     .target(baseUrl)
                     .path("/api/transactions")
                     .request(MediaType.APPLICATION_JSON)
-                    .accept(MediaType.APPLICATION_JSON)
-                    .post(Entity.json(request));
+                    .accept(MediaType.APPLICATION_JSON);
+            if (idempotencyKey != null) {
+                builder = builder.header("Idempotency-Key", idempotencyKey);
+            }
+            Response response = builder.post(Entity.json(request));
             
             // Check response status
             if (response.getStatus() == 202) { // Accepted